@@ -0,0 +1,77 @@
+package com.group18.animation;
+
+import javafx.scene.image.ImageView;
+
+/**
+ * Plays an animation from a sprite sheet on an ImageView, by advancing the view's viewport
+ * through the animation's frames as the animation clock ticks.
+ *
+ * @author agent
+ */
+public class SpriteAnimation {
+
+    /**
+     * How long each frame is shown for, in nanoseconds
+     */
+    private static final long FRAME_NANOS = 40_000_000L;
+
+    /**
+     * The image view displaying this animation
+     */
+    private final ImageView imageView;
+
+    /**
+     * The sprite sheet holding the frames of this animation
+     */
+    private final SpriteSheet spriteSheet;
+
+    /**
+     * The row of the animation currently being played
+     */
+    private int row;
+
+    /**
+     * The frame currently being displayed
+     */
+    private int frame;
+
+    /**
+     * The System.nanoTime() at which the current animation started
+     */
+    private long startNanos;
+
+    /**
+     * Creates a new sprite animation, displaying the sprite sheet's atlas on an image view
+     * @param imageView The image view displaying this animation
+     * @param spriteSheet The sprite sheet holding the frames of this animation
+     */
+    public SpriteAnimation(ImageView imageView, SpriteSheet spriteSheet) {
+        this.imageView = imageView;
+        this.spriteSheet = spriteSheet;
+        imageView.setImage(spriteSheet.getAtlas());
+    }
+
+    /**
+     * Start playing a specific animation from its first frame
+     * @param animation The name of the animation
+     */
+    public void play(String animation) {
+        row = spriteSheet.getRow(animation);
+        frame = 0;
+        startNanos = System.nanoTime();
+        imageView.setViewport(spriteSheet.getFrame(row, frame));
+    }
+
+    /**
+     * Advance the displayed frame, based on the time of the current frame
+     * @param now The timestamp of the current frame, in nanoseconds
+     */
+    public void update(long now) {
+        int nextFrame = (int) (Math.max(now - startNanos, 0) / FRAME_NANOS % spriteSheet.getFrameCount(row));
+
+        if (nextFrame != frame) {
+            frame = nextFrame;
+            imageView.setViewport(spriteSheet.getFrame(row, frame));
+        }
+    }
+}
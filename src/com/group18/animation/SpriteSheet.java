@@ -0,0 +1,131 @@
+package com.group18.animation;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A single atlas image holding every frame of a set of animations. Each animation is packed
+ * into its own row of the atlas, so a frame can be displayed by pointing an ImageView's
+ * viewport at it, rather than decoding a new image.
+ *
+ * @author agent
+ */
+public class SpriteSheet {
+
+    /**
+     * The atlas holding every frame
+     */
+    private final Image atlas;
+
+    /**
+     * The viewport of each frame, indexed by animation row then frame
+     */
+    private final Rectangle2D[][] frames;
+
+    /**
+     * Map's each animation name to its row in the atlas
+     */
+    private final Map<String, Integer> rows;
+
+    /**
+     * Creates a new sprite sheet
+     * @param atlas The atlas holding every frame
+     * @param frames The viewport of each frame, indexed by animation row then frame
+     * @param rows Map's each animation name to its row in the atlas
+     */
+    private SpriteSheet(Image atlas, Rectangle2D[][] frames, Map<String, Integer> rows) {
+        this.atlas = atlas;
+        this.frames = frames;
+        this.rows = rows;
+    }
+
+    /**
+     * Decode the frames of each animation and pack them into a single atlas. Each frame is
+     * expected to be held at {directory}/{animation}/{prefix}{animation}_{frame}.png, with frames
+     * numbered from 00, and every frame being the same size.
+     * @param directory The directory holding a sub-directory for each animation
+     * @param prefix The prefix of every frame's file name
+     * @param animations The name of each animation
+     * @param frameCount The number of frames in each animation
+     * @return The packed sprite sheet
+     */
+    public static SpriteSheet pack(String directory, String prefix, String[] animations, int frameCount) {
+        Image first = new Image(getFramePath(directory, prefix, animations[0], 0));
+        int frameWidth = (int) first.getWidth();
+        int frameHeight = (int) first.getHeight();
+
+        WritableImage atlas = new WritableImage(frameWidth * frameCount, frameHeight * animations.length);
+        PixelWriter writer = atlas.getPixelWriter();
+        Rectangle2D[][] frames = new Rectangle2D[animations.length][frameCount];
+        Map<String, Integer> rows = new HashMap<>();
+
+        for (int row = 0; row < animations.length; row++) {
+            rows.put(animations[row], row);
+
+            for (int frame = 0; frame < frameCount; frame++) {
+                Image image = row == 0 && frame == 0 ? first :
+                        new Image(getFramePath(directory, prefix, animations[row], frame));
+                int x = frame * frameWidth;
+                int y = row * frameHeight;
+
+                writer.setPixels(x, y, frameWidth, frameHeight, image.getPixelReader(), 0, 0);
+                frames[row][frame] = new Rectangle2D(x, y, frameWidth, frameHeight);
+            }
+        }
+
+        return new SpriteSheet(atlas, frames, rows);
+    }
+
+    /**
+     * Get the atlas holding every frame
+     * @return The atlas image
+     */
+    public Image getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Get the row of a specific animation
+     * @param animation The name of the animation
+     * @return The animation's row in the atlas
+     */
+    public int getRow(String animation) {
+        return rows.get(animation);
+    }
+
+    /**
+     * Get the number of frames in an animation
+     * @param row The animation's row in the atlas
+     * @return The number of frames
+     */
+    public int getFrameCount(int row) {
+        return frames[row].length;
+    }
+
+    /**
+     * Get the viewport of a specific frame
+     * @param row The animation's row in the atlas
+     * @param frame The frame number
+     * @return The area of the atlas holding the frame
+     */
+    public Rectangle2D getFrame(int row, int frame) {
+        return frames[row][frame];
+    }
+
+    /**
+     * Get the resource path of a single frame
+     * @param directory The directory holding a sub-directory for each animation
+     * @param prefix The prefix of every frame's file name
+     * @param animation The name of the animation
+     * @param frame The frame number
+     * @return The path of the frame
+     */
+    private static String getFramePath(String directory, String prefix, String animation, int frame) {
+        return String.format("%s/%s/%s%s_%02d.png", directory, animation, prefix, animation, frame);
+    }
+}
@@ -0,0 +1,267 @@
+package com.group18.animation;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.image.ImageView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single animation clock that moves every sprite in the game. Each active movement (tween)
+ * occupies a slot in a set of preallocated arrays, which is recycled once the movement finishes,
+ * so no animation objects are created as entities move from cell to cell. The same clock also
+ * advances the frames of every sprite animation.
+ *
+ * @author agent
+ */
+public class TweenEngine extends AnimationTimer {
+
+    /**
+     * The number of tweens that can be active before the slot arrays need to grow
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * The number of nanoseconds in a millisecond
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * The image view being moved in each slot
+     */
+    private ImageView[] nodes;
+
+    /**
+     * The X position each tween started from
+     */
+    private double[] fromX;
+
+    /**
+     * The Y position each tween started from
+     */
+    private double[] fromY;
+
+    /**
+     * The X position each tween is moving to
+     */
+    private double[] toX;
+
+    /**
+     * The Y position each tween is moving to
+     */
+    private double[] toY;
+
+    /**
+     * The System.nanoTime() at which each tween started
+     */
+    private long[] startNanos;
+
+    /**
+     * How long each tween lasts, in nanoseconds
+     */
+    private long[] durationNanos;
+
+    /**
+     * The callback to run once each tween has finished, which may be null
+     */
+    private Runnable[] onFinished;
+
+    /**
+     * The slot each moving image view is in, so finding a tween doesn't scan every active tween
+     */
+    private final Map<ImageView, Integer> slots = new IdentityHashMap<>();
+
+    /**
+     * The number of slots currently in use. Active tweens always occupy the first slots.
+     */
+    private int activeTweens;
+
+    /**
+     * The sprite animations advanced on every frame
+     */
+    private final List<SpriteAnimation> spriteAnimations;
+
+    /**
+     * Creates a new tween engine with no active tweens
+     */
+    public TweenEngine() {
+        nodes = new ImageView[INITIAL_CAPACITY];
+        fromX = new double[INITIAL_CAPACITY];
+        fromY = new double[INITIAL_CAPACITY];
+        toX = new double[INITIAL_CAPACITY];
+        toY = new double[INITIAL_CAPACITY];
+        startNanos = new long[INITIAL_CAPACITY];
+        durationNanos = new long[INITIAL_CAPACITY];
+        onFinished = new Runnable[INITIAL_CAPACITY];
+        spriteAnimations = new ArrayList<>();
+    }
+
+    /**
+     * Add a sprite animation, which will have its frames advanced by this clock
+     * @param spriteAnimation The sprite animation
+     */
+    public void addSpriteAnimation(SpriteAnimation spriteAnimation) {
+        spriteAnimations.add(spriteAnimation);
+    }
+
+    /**
+     * Smoothly move an image view from its current position to a new one. If the image view
+     * is already moving, its current movement is replaced, starting from where it is now, and the
+     * replaced movement's callback is run once the new movement has finished, before its own.
+     * @param node The image view to be moved
+     * @param x The new X position
+     * @param y The new Y position
+     * @param durationMillis How long the movement should take, in milliseconds
+     * @param callback Run once the movement has finished, or null if nothing needs to happen
+     */
+    public void move(ImageView node, double x, double y, long durationMillis, Runnable callback) {
+        Integer moving = slots.get(node);
+        int slot;
+        if (moving == null) {
+            ensureCapacity(activeTweens + 1);
+            slot = activeTweens++;
+            slots.put(node, slot);
+        } else {
+            slot = moving;
+            callback = chain(onFinished[slot], callback);
+        }
+
+        nodes[slot] = node;
+        fromX[slot] = node.getX();
+        fromY[slot] = node.getY();
+        toX[slot] = x;
+        toY[slot] = y;
+        startNanos[slot] = System.nanoTime();
+        durationNanos[slot] = durationMillis * NANOS_PER_MILLI;
+        onFinished[slot] = callback;
+    }
+
+    /**
+     * Check if an image view is currently being moved
+     * @param node The image view
+     * @return Boolean value suggesting if the image view is moving
+     */
+    public boolean isMoving(ImageView node) {
+        return slots.containsKey(node);
+    }
+
+    /**
+     * Stop every active tween, leaving each image view where it currently is, and remove
+     * every sprite animation
+     */
+    public void clear() {
+        Arrays.fill(nodes, 0, activeTweens, null);
+        Arrays.fill(onFinished, 0, activeTweens, null);
+        activeTweens = 0;
+        slots.clear();
+        spriteAnimations.clear();
+    }
+
+    /**
+     * Called on every frame, interpolating each active tween and finishing those that are complete,
+     * then advancing each sprite animation
+     * @param now The timestamp of the current frame, in nanoseconds
+     */
+    @Override
+    public void handle(long now) {
+        updateTweens(now);
+
+        for (int i = 0; i < spriteAnimations.size(); i++) {
+            spriteAnimations.get(i).update(now);
+        }
+    }
+
+    /**
+     * Interpolate each active tween, finishing those that are complete
+     * @param now The timestamp of the current frame, in nanoseconds
+     */
+    private void updateTweens(long now) {
+        int slot = 0;
+        while (slot < activeTweens) {
+            double progress = durationNanos[slot] <= 0 ? 1 :
+                    (double) (now - startNanos[slot]) / durationNanos[slot];
+
+            if (progress < 1) {
+                progress = Math.max(progress, 0);
+                nodes[slot].setX(fromX[slot] + (toX[slot] - fromX[slot]) * progress);
+                nodes[slot].setY(fromY[slot] + (toY[slot] - fromY[slot]) * progress);
+                slot++;
+            } else {
+                nodes[slot].setX(toX[slot]);
+                nodes[slot].setY(toY[slot]);
+
+                Runnable callback = onFinished[slot];
+                recycle(slot);
+                if (callback != null) {
+                    callback.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Free up a slot by moving the last active tween into it
+     * @param slot The slot to be freed
+     */
+    private void recycle(int slot) {
+        int last = --activeTweens;
+        slots.remove(nodes[slot]);
+        if (slot != last) {
+            slots.put(nodes[last], slot);
+        }
+
+        nodes[slot] = nodes[last];
+        fromX[slot] = fromX[last];
+        fromY[slot] = fromY[last];
+        toX[slot] = toX[last];
+        toY[slot] = toY[last];
+        startNanos[slot] = startNanos[last];
+        durationNanos[slot] = durationNanos[last];
+        onFinished[slot] = onFinished[last];
+
+        nodes[last] = null;
+        onFinished[last] = null;
+    }
+
+    /**
+     * Join two callbacks, so both are run one after the other
+     * @param first The callback run first, which may be null
+     * @param second The callback run second, which may be null
+     * @return A callback running both, or null if neither needs to be run
+     */
+    private static Runnable chain(Runnable first, Runnable second) {
+        if (first == null) {
+            return second;
+        } else if (second == null) {
+            return first;
+        }
+
+        return () -> {
+            first.run();
+            second.run();
+        };
+    }
+
+    /**
+     * Grow the slot arrays if they can not hold a specific number of tweens
+     * @param capacity The number of tweens the arrays must be able to hold
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity <= nodes.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, nodes.length * 2);
+        nodes = Arrays.copyOf(nodes, newCapacity);
+        fromX = Arrays.copyOf(fromX, newCapacity);
+        fromY = Arrays.copyOf(fromY, newCapacity);
+        toX = Arrays.copyOf(toX, newCapacity);
+        toY = Arrays.copyOf(toY, newCapacity);
+        startNanos = Arrays.copyOf(startNanos, newCapacity);
+        durationNanos = Arrays.copyOf(durationNanos, newCapacity);
+        onFinished = Arrays.copyOf(onFinished, newCapacity);
+    }
+}
@@ -2,8 +2,12 @@ package com.group18.controller;
 
 
 import com.group18.Main;
+import com.group18.animation.SpriteAnimation;
+import com.group18.animation.TweenEngine;
+import com.group18.core.GameLoop;
 import com.group18.core.LevelLoader;
 import com.group18.core.LevelSaver;
+import com.group18.core.Replay;
 import com.group18.core.ResourceRepository;
 import com.group18.core.UserRepository;
 import com.group18.exception.InvalidLevelException;
@@ -11,19 +15,22 @@ import com.group18.exception.InvalidMoveException;
 import com.group18.model.Direction;
 import com.group18.model.ElementType;
 import com.group18.model.Level;
+import com.group18.model.LevelListener;
 import com.group18.model.State;
 import com.group18.model.cell.*;
 import com.group18.model.entity.*;
 import com.group18.model.item.Collectable;
 import com.group18.model.item.ElementItem;
 import com.group18.model.item.Key;
+import com.group18.solver.Solution;
+import com.group18.solver.Solver;
+import com.group18.telemetry.TelemetryListener;
+import com.group18.telemetry.TelemetryLog;
 import com.group18.viewmodel.EnemyViewModel;
+import com.group18.viewmodel.InventoryViewModel;
 import com.group18.viewmodel.ItemViewModel;
 import com.group18.viewmodel.UserViewModel;
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.KeyValue;
-import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -50,12 +57,16 @@ import javafx.stage.Modality;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
-import javafx.util.Duration;
 
 import java.awt.*;
 import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
@@ -67,7 +78,7 @@ import static java.util.logging.Level.WARNING;
  *
  * @author frasergrandfield danielturato ethanpugh
  */
-public class GameController extends BaseController {
+public class GameController extends BaseController implements LevelListener {
 
     /**
      * The width of each cell in each level. Also used to determine
@@ -75,6 +86,32 @@ public class GameController extends BaseController {
      */
     private static final int CELL_WIDTH = 64 ;
 
+    /**
+     * How long it takes an entity to move from one cell to the next, in milliseconds
+     */
+    private static final long MOVE_DURATION = 500;
+
+    /**
+     * The most moves the user's animation can fall behind the game. Once it's this far behind,
+     * the oldest move is skipped and the user is moved straight on to the next.
+     */
+    private static final int MAX_QUEUED_MOVES = 4;
+
+    /**
+     * How long each tick of the game loop lasts at normal speed, in milliseconds
+     */
+    private static final long TICK_MILLIS = 50;
+
+    /**
+     * The number of ticks between each move of a demo, so a demo moves as fast as the animation
+     */
+    private static final long DEMO_MOVE_TICKS = MOVE_DURATION / TICK_MILLIS;
+
+    /**
+     * The speeds the game can be fast-forwarded to, in the order they're cycled through
+     */
+    private static final double[] FAST_FORWARD_SPEEDS = {1, 10, 100};
+
     /**
      * A logger which allows specific output to the console
      */
@@ -136,9 +173,9 @@ public class GameController extends BaseController {
     private static Pane inventoryPane;
 
     /**
-     * The inventory item images being displayed to the user
+     * The inventory item slots being displayed to the user
      */
-    private static Group inventoryItems;
+    private static InventoryViewModel inventoryView;
 
     /**
      * Displays the number of tokens the user has
@@ -146,14 +183,51 @@ public class GameController extends BaseController {
     private static Text tokens;
 
     /**
-     * The animation Timeline controlling the display of elapsed time
+     * The game loop, which keeps the time, plays demo moves and displays the elapsed time
+     */
+    private static GameLoop gameLoop;
+
+    /**
+     * The single animation clock moving every entity's sprite
+     */
+    private static TweenEngine tweenEngine;
+
+    /**
+     * The animation playing on the user's sprite
+     */
+    private static SpriteAnimation userAnimation;
+
+    /**
+     * The recording of this game, or null if the level was not started from its base level file
+     */
+    private static Replay replay;
+
+    /**
+     * Records the events of this game to the telemetry log, or null before a game has started
      */
-    private static Timeline timeAnimation = new Timeline();
+    private static TelemetryListener telemetry;
 
     /**
-     * Holds if the current animation of a user has been completed
+     * Holds if turbo mode is on, in which moves aren't animated and entities jump straight to
+     * their new cells
      */
-    private boolean animationCompleted = true;
+    private static boolean turbo = false;
+
+    /**
+     * The moves the game has made for the user which are still to be animated, oldest first
+     */
+    private final Deque<UserMove> userMoves = new ArrayDeque<>();
+
+    /**
+     * Holds if the user is currently being animated moving between cells
+     */
+    private boolean userMoving = false;
+
+    /**
+     * The number of cells the user slid across ice this turn, so their move is animated at the
+     * same speed as a single step
+     */
+    private int slideLength;
 
     /**
      * The enemy view models associated with this level
@@ -161,9 +235,19 @@ public class GameController extends BaseController {
     private List<EnemyViewModel> enemyViewModels = new ArrayList<>();
 
     /**
-     * The item view models associated with this level
+     * The enemies associated with this level, in the same order as their view models
      */
-    private List<ItemViewModel> itemViewModels = new ArrayList<>();
+    private List<Enemy> enemies = new ArrayList<>();
+
+    /**
+     * The state of the enemies associated with this level, which decides their moves each turn
+     */
+    private EnemyStore enemyStore;
+
+    /**
+     * The item view models associated with this level, indexed by the id of the cell they lie on
+     */
+    private static ItemViewModel[] itemViewModels;
 
     /**
      * The current width of this level
@@ -176,15 +260,25 @@ public class GameController extends BaseController {
     private int levelHeight;
 
     /**
-     * Used to determine if the user pressed a button
+     * The keys currently held down, so holding a key doesn't repeat its move
      */
-    private boolean pressed = false;
+    private final Set<KeyCode> heldKeys = EnumSet.noneOf(KeyCode.class);
 
     /**
      * The current seconds passed, to be display to the user
      */
     private int seconds = 0;
 
+    /**
+     * The moves of a demo still to be played, oldest first
+     */
+    private final Deque<Direction> demoMoves = new ArrayDeque<>();
+
+    /**
+     * The index of the current speed in FAST_FORWARD_SPEEDS
+     */
+    private int speedIndex = 0;
+
 
     /**
      * Default constructor, needed in various circumstances
@@ -210,6 +304,10 @@ public class GameController extends BaseController {
     public static void loadBaseLevel(int levelNum) {
         currentLevel = levelNum;
         level = LevelLoader.loadLevel(levelNum, userViewModel.getUser());
+
+        long seed = new SplittableRandom().nextLong();
+        level.seedEnemies(seed);
+        replay = new Replay(levelNum, seed);
     }
 
     /**
@@ -219,21 +317,40 @@ public class GameController extends BaseController {
     public static void loadSavedLevel(int levelNum) {
         currentLevel = levelNum;
         level = LevelLoader.loadSavedLevel(levelNum, userViewModel.getUser());
+        level.seedEnemies(new SplittableRandom().nextLong());
+        replay = null;
     }
 
     /**
      * Replace a cell image at a specific position with a ground image
      * @param point The position of the image
      */
-    public static void replaceCell(Point point) {
-        ImageView imageView = new ImageView(new Image(ResourceRepository.getResource("Ground")));
+    private static void replaceCell(Point point) {
+        ImageView imageView = new ImageView(ResourceRepository.getImage("Ground"));
         imageView.setY(point.getY() * 64);
         imageView.setX(point.getX() * 64);
 
-        int idx = (int) ((int)(level.getBoardHeight() * point.getY()) + point.getX());
+        int idx = (int) (level.getBoardWidth() * point.getY() + point.getX());
         cellImages.getChildren().set(idx, imageView);
     }
 
+    /**
+     * Hide the image of an item that has just been collected from a cell, updating the inventory view
+     * @param point The position of the cell the item was collected from
+     */
+    private static void collectItem(Point point) {
+        int idx = (int) (level.getBoardWidth() * point.getY() + point.getX());
+        ItemViewModel itemViewModel = itemViewModels[idx];
+
+        if (itemViewModel == null) {
+            return;
+        }
+
+        itemViewModels[idx] = null;
+        itemViewModel.getImageView().setVisible(false);
+        displayInventoryItems();
+    }
+
     /**
      * Trigger a message alert with also a change in state
      * @param message the message to be shown to the user
@@ -241,7 +358,10 @@ public class GameController extends BaseController {
      */
     public void triggerAlert(String message, State state) {
         backgroundMusicPlayer.stop();
-        timeAnimation.pause();
+        gameLoop.stop();
+        demoMoves.clear();
+        tweenEngine.stop();
+        saveReplay();
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         User user = userViewModel.getUser();
         if (state == State.LEVEL_LOST) {
@@ -263,7 +383,11 @@ public class GameController extends BaseController {
      */
     private void setWinAlert(String message, Alert alert, User user) {
         playSound("LevelWin");
+        LevelLoader.prefetchLevel(currentLevel + 1);
         Long finishTime = addNewFinishTime();
+        if (telemetry != null) {
+            telemetry.won(finishTime);
+        }
         String time = getFormattedTime(finishTime);
         alert.setContentText("You beat this level in " + time);
         alert.setHeaderText(message);
@@ -285,6 +409,11 @@ public class GameController extends BaseController {
      */
     private void setDeathAlert(String message, Alert alert, User user) {
         playSound("PlayerDeath");
+        if (telemetry != null) {
+            telemetry.died(getPlayedMillis());
+        }
+        totalPausedTime = 0L;
+        totalSavedTime = 0L;
         user.resetInventory(level.getCurrentLevel());
         String baseSavedFileDir = "./src/resources/saved-levels/" +
                                   userViewModel.getUser().getUsername() + "-level-save" +
@@ -320,61 +449,124 @@ public class GameController extends BaseController {
     }
 
     /**
-     * Set the number of tokens being displayed
+     * Display the user's current inventory items
      */
-    public static void setTokens() {
-        tokens.setText("Tokens: " + userViewModel.getUser().getTokens());
+    private static void displayInventoryItems() {
+        inventoryView.update(userViewModel.getUser().getInventory(currentLevel));
     }
 
     /**
-     * Display the user's current inventory items
+     * Save the recording of this game, if it has one, so the game can be played back later
      */
-    public static void displayInventoryItems() {
-        User user = userViewModel.getUser();
-        List<Collectable> inventory = user.getInventory(currentLevel);
-        inventoryItems.getChildren().clear();
-        inventoryPane.getChildren().remove(inventoryItems);
-
-        for (int i = 0; i < inventory.size(); i++) {
-            Collectable item = inventory.get(i);
-            ImageView itemImage = new ImageView();
-            itemImage.setX(i * 64);
-
-            if (item instanceof ElementItem) {
-                switch ((ElementItem) item) {
-                    case ICE_SKATES:
-                        itemImage.setImage(new Image(ResourceRepository.getResource("IceSkates")));
-                        break;
-                    case FLIPPERS:
-                        itemImage.setImage(new Image(ResourceRepository.getResource("Flippers")));
-                        break;
-                    case FIRE_BOOTS:
-                        itemImage.setImage(new Image(ResourceRepository.getResource("FireBoots")));
-                        break;
-                    default:
-                        break;
-                }
-            } else {
-                switch ((Key) item) {
-                    case YELLOW_KEY:
-                        itemImage.setImage(new Image(ResourceRepository.getResource("Key-Yellow")));
-                        break;
-                    case GREEN_KEY:
-                        itemImage.setImage(new Image(ResourceRepository.getResource("Key-Green")));
-                        break;
-                    case BLUE_KEY:
-                        itemImage.setImage(new Image(ResourceRepository.getResource("Key-Blue")));
-                        break;
-                    case RED_KEY:
-                        itemImage.setImage(new Image(ResourceRepository.getResource("Key-Red")));
-                        break;
-                    default:
-                        break;
-                }
-            }
-            inventoryItems.getChildren().add(itemImage);
+    private static void saveReplay() {
+        if (replay != null) {
+            replay.save(Replay.getFileName(userViewModel.getUser().getUsername(), currentLevel));
+            replay = null;
         }
-        inventoryPane.getChildren().add(inventoryItems);
+    }
+
+    /**
+     * Play the sound of the user walking into a wall
+     * @param direction The direction the user attempted to move in
+     */
+    @Override
+    public void userBlocked(Direction direction) {
+        playSound("PlayerBlocked");
+    }
+
+    /**
+     * Play the sound of an item being picked up, and remove it from the board
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public void itemCollected(Point point, Collectable item) {
+        playSound(item == Key.TOKEN_KEY ? "PickupCoin" : "PickupItem");
+        collectItem(point);
+    }
+
+    /**
+     * Update the number of tokens being displayed
+     * @param tokens The number of tokens the user now holds
+     */
+    @Override
+    public void tokensChanged(int tokens) {
+        GameController.tokens.setText("Tokens: " + tokens);
+    }
+
+    /**
+     * Update the inventory bar once an item has been used
+     */
+    @Override
+    public void inventoryChanged() {
+        displayInventoryItems();
+    }
+
+    /**
+     * Play the sound of a door opening
+     * @param point The position of the door
+     */
+    @Override
+    public void doorOpened(Point point) {
+        playSound("DoorOpen");
+    }
+
+    /**
+     * Replace the image of a cell that has been replaced on the board
+     * @param point The position of the replaced cell
+     */
+    @Override
+    public void cellReplaced(Point point) {
+        replaceCell(point);
+    }
+
+    /**
+     * Play the sound of the element the user has walked on to
+     * @param elementType The type of element
+     */
+    @Override
+    public void elementEntered(ElementType elementType) {
+        switch (elementType) {
+            case WATER:
+                playSound("WaterSplash");
+                break;
+            case FIRE:
+                playSound("FireCrackle");
+                break;
+            case ICE:
+                playSound("IceSlide");
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Note how far the user slid, so the whole slide is animated in one move
+     * @param from The position of the ice cell the user stepped on to
+     * @param to The position of the last ice cell the user slid on to
+     */
+    @Override
+    public void userSlid(Point from, Point to) {
+        slideLength = (int) (Math.abs(to.getX() - from.getX()) + Math.abs(to.getY() - from.getY()));
+    }
+
+    /**
+     * Play the sound of the user teleporting
+     * @param point The position the user was teleported to
+     */
+    @Override
+    public void userTeleported(Point point) {
+        playSound("PlayerTeleport");
+    }
+
+    /**
+     * End the game, as the user has lost the level
+     * @param message The reason the level was lost
+     */
+    @Override
+    public void levelLost(String message) {
+        triggerAlert(message, State.LEVEL_LOST);
     }
 
     /**
@@ -382,20 +574,28 @@ public class GameController extends BaseController {
      * will be able to comfortably be able to play
      */
     private void init() {
+        if (tweenEngine == null) {
+            tweenEngine = new TweenEngine();
+        }
+        tweenEngine.clear();
+        tweenEngine.start();
+
+        level.addListener(this);
+        telemetry = new TelemetryListener(TelemetryLog.getShared(), level, userViewModel.getUser());
         createBoard();
+        userAnimation = new SpriteAnimation(userViewModel.getImageView(), ResourceRepository.getUserSpriteSheet());
+        userAnimation.play("Idle");
+        tweenEngine.addSpriteAnimation(userAnimation);
+
         createInventoryPane();
         displayInventory();
-
-        if (userViewModel.getUser().getInventory(currentLevel).size() > 0) {
-            displayInventoryItems();
-        } else {
-            inventoryPane.getChildren().add(inventoryItems);
-        }
+        inventoryPane.getChildren().add(inventoryView.getSlots());
+        displayInventoryItems();
 
         Scene scene = setupDisplay();
 
         scene.setOnKeyPressed(e -> processKey(e.getCode()));
-        scene.setOnKeyReleased(e -> pressed = false);
+        scene.setOnKeyReleased(e -> heldKeys.remove(e.getCode()));
 
         primaryStage.setScene(scene);
         primaryStage.setResizable(false);
@@ -443,18 +643,34 @@ public class GameController extends BaseController {
     }
 
     /**
-     * Animate the time being display to the user
+     * Start the game loop, which displays the time played to the user on each frame. Each tick
+     * plays the next move of a demo once enough ticks have passed.
      * @param timeDisplay The text in which the time will be display upon
      */
     private void animateTime(Text timeDisplay) {
-        timeAnimation.setCycleCount(Animation.INDEFINITE);
-        timeAnimation.getKeyFrames().add(new KeyFrame(Duration.seconds(1), e -> {
-            seconds += 1;
-            int mins = seconds / 60;
-            int secs = seconds % 60;
-            timeDisplay.setText(String.format("%02d:%02d", mins, secs));
-        }));
-        timeAnimation.play();
+        gameLoop = new GameLoop(TICK_MILLIS) {
+            @Override
+            protected void tick() {
+                // Alerts can't be shown during an animation frame, so moves are made just after it
+                if (!demoMoves.isEmpty() && getTicks() % DEMO_MOVE_TICKS == 0) {
+                    Platform.runLater(GameController.this::playDemoMove);
+                }
+            }
+
+            @Override
+            protected void render() {
+                // The clock shows real time whatever the speed, so it agrees with the time recorded
+                int elapsedSeconds = (int) (getPlayedMillis() / 1000);
+                if (elapsedSeconds != seconds) {
+                    seconds = elapsedSeconds;
+                    int mins = seconds / 60;
+                    int secs = seconds % 60;
+                    timeDisplay.setText(String.format("%02d:%02d", mins, secs));
+                }
+            }
+        };
+        gameLoop.setSpeed(FAST_FORWARD_SPEEDS[speedIndex]);
+        gameLoop.start();
     }
 
     /**
@@ -462,7 +678,7 @@ public class GameController extends BaseController {
      */
     private void createInventoryPane() {
         inventoryPane = new Pane();
-        inventoryItems = new Group();
+        inventoryView = new InventoryViewModel();
         inventoryPane.setStyle("-fx-background-color: grey; -fx-border-color: black");
         inventoryPane.setMaxWidth(500);
         inventoryPane.setPrefSize(100,64);
@@ -527,17 +743,19 @@ public class GameController extends BaseController {
         Cell[][] cells = level.getBoard();
 
         Group sprites = new Group();
+        itemViewModels = new ItemViewModel[levelWidth * levelHeight];
         for (int i = 0; i < levelHeight; i++) {
             for (int j = 0; j < levelWidth; j++) {
-                Cell cell = cells[j][i];
+                Cell cell = cells[i][j];
                 if (cell.getCurrentEntities().size() > 0) {
                     Entity entity = cell.getCurrentEntities().get(0);
                     if (entity instanceof User) {
-                        userViewModel.setImageView(j, i);
+                        userViewModel.setImageView(i, j);
                         sprites.getChildren().add(userViewModel.getImageView());
                     } else {
-                        EnemyViewModel enemyViewModel = createEnemyViewModel((Enemy) entity, j, i);
+                        EnemyViewModel enemyViewModel = createEnemyViewModel((Enemy) entity, i, j);
                         enemyViewModels.add(enemyViewModel);
+                        enemies.add((Enemy) entity);
                         sprites.getChildren().add(enemyViewModel.getImageView());
                     }
                 }
@@ -545,8 +763,8 @@ public class GameController extends BaseController {
                 if (cell instanceof Ground) {
                     Ground ground = (Ground) cell;
                     if (ground.hasItem()) {
-                        ItemViewModel itemViewModel = createItemViewModel(ground.getItem(), j, i);
-                        itemViewModels.add(itemViewModel);
+                        ItemViewModel itemViewModel = createItemViewModel(ground.getItem(), i, j);
+                        itemViewModels[i * levelWidth + j] = itemViewModel;
                         sprites.getChildren().addAll(itemViewModel.getImageView());
                     }
                 }
@@ -554,6 +772,7 @@ public class GameController extends BaseController {
         }
 
         pane.getChildren().add(sprites);
+        enemyStore = new EnemyStore(level, enemies);
     }
 
     /**
@@ -581,15 +800,15 @@ public class GameController extends BaseController {
             switch (((ElementItem) item)) {
                 case FIRE_BOOTS:
                     itemViewModel =
-                            new ItemViewModel(new Image(ResourceRepository.getResource("FireBoots")), item);
+                            new ItemViewModel(ResourceRepository.getImage("FireBoots"), item);
                     break;
                 case FLIPPERS:
                     itemViewModel =
-                            new ItemViewModel(new Image(ResourceRepository.getResource("Flippers")), item);
+                            new ItemViewModel(ResourceRepository.getImage("Flippers"), item);
                     break;
                 case ICE_SKATES:
                     itemViewModel =
-                            new ItemViewModel(new Image(ResourceRepository.getResource("IceSkates")), item);
+                            new ItemViewModel(ResourceRepository.getImage("IceSkates"), item);
                     break;
                 default:
                     break;
@@ -598,23 +817,23 @@ public class GameController extends BaseController {
             switch (((Key) item)) {
                 case RED_KEY:
                     itemViewModel =
-                            new ItemViewModel(new Image(ResourceRepository.getResource("Key-Red")), item);
+                            new ItemViewModel(ResourceRepository.getImage("Key-Red"), item);
                     break;
                 case BLUE_KEY:
                     itemViewModel =
-                            new ItemViewModel(new Image(ResourceRepository.getResource("Key-Blue")), item);
+                            new ItemViewModel(ResourceRepository.getImage("Key-Blue"), item);
                     break;
                 case GREEN_KEY:
                     itemViewModel =
-                            new ItemViewModel(new Image(ResourceRepository.getResource("Key-Green")), item);
+                            new ItemViewModel(ResourceRepository.getImage("Key-Green"), item);
                     break;
                 case YELLOW_KEY:
                     itemViewModel =
-                            new ItemViewModel(new Image(ResourceRepository.getResource("Key-Yellow")), item);
+                            new ItemViewModel(ResourceRepository.getImage("Key-Yellow"), item);
                     break;
                 case TOKEN_KEY:
                     itemViewModel =
-                            new ItemViewModel(new Image(ResourceRepository.getResource("Token")), item);
+                            new ItemViewModel(ResourceRepository.getImage("Token"), item);
                     break;
                 default:
                     break;
@@ -704,80 +923,71 @@ public class GameController extends BaseController {
         if (cell instanceof ColourDoor) {
             switch (((ColourDoor) cell).getColour()) {
                 case RED:
-                    spriteImage = new Image(ResourceRepository.getResource("Red-Door"));
+                    spriteImage = ResourceRepository.getImage("Red-Door");
                     break;
                 case BLUE:
-                    spriteImage = new Image(ResourceRepository.getResource("Blue-Door"));
+                    spriteImage = ResourceRepository.getImage("Blue-Door");
                     break;
                 case YELLOW:
-                    spriteImage = new Image(ResourceRepository.getResource("Yellow-Door"));
+                    spriteImage = ResourceRepository.getImage("Yellow-Door");
                     break;
                 case GREEN:
-                    spriteImage = new Image(ResourceRepository.getResource("Green-Door"));
+                    spriteImage = ResourceRepository.getImage("Green-Door");
                     break;
                 default:
                     break;
             }
         } else if (cell instanceof TokenDoor) {
-            spriteImage = new Image(ResourceRepository.getResource("Token-Door"));
+            spriteImage = ResourceRepository.getImage("Token-Door");
         } else if (cell instanceof Wall) {
-            spriteImage = new Image(ResourceRepository.getResource("Wall"));
+            spriteImage = ResourceRepository.getImage("Wall");
         } else if (cell instanceof Element) {
             switch (((Element) cell).getElementType()) {
                 case FIRE:
-                    spriteImage = new Image(ResourceRepository.getResource("Element-Fire"));
+                    spriteImage = ResourceRepository.getImage("Element-Fire");
                     break;
                 case WATER:
-                    spriteImage = new Image(ResourceRepository.getResource("Element-Water"));
+                    spriteImage = ResourceRepository.getImage("Element-Water");
                     break;
                 case ICE:
-                    spriteImage = new Image(ResourceRepository.getResource("Element-Ice"));
+                    spriteImage = ResourceRepository.getImage("Element-Ice");
                     break;
                 default:
                     break;
             }
         } else if (cell instanceof Goal) {
-            spriteImage = new Image(ResourceRepository.getResource("Goal"));
+            spriteImage = ResourceRepository.getImage("Goal");
         } else if (cell instanceof Teleporter) {
-            spriteImage = new Image(ResourceRepository.getResource("Teleporter"));
+            spriteImage = ResourceRepository.getImage("Teleporter");
         } else if (cell instanceof Ground) {
-            spriteImage = new Image(ResourceRepository.getResource("Ground"));
+            spriteImage = ResourceRepository.getImage("Ground");
         }
 
         return spriteImage;
     }
 
     /**
-     * Move the player in the game
-     * @param deltaX The user's X translation value
-     * @param deltaY The user's Y translation value
+     * Queue the move the backend has made for the player to be animated. The move has already
+     * been made, so the animation only has to catch up with it.
      */
-    private void movePlayer(int deltaX, int deltaY) {
-        ImageView userImageView = userViewModel.getImageView();
-        User user = userViewModel.getUser();
-        Cell userCurrentCell = user.getCurrentCell();
-
-        pressed = true;
-        double x = (clampRange(userImageView.getX() + deltaX,
-                        0, boardPane.getWidth() - userImageView.getFitWidth()));
+    private void movePlayer() {
+        Cell userCurrentCell = userViewModel.getUser().getCurrentCell();
 
-        double y =
-                (clampRange(userImageView.getY() + deltaY,
-                        0, boardPane.getHeight() - userImageView.getFitHeight()));
-
-
-        if (userCurrentCell instanceof Teleporter) {
-            userImageView.setVisible(false);
+        if (userMoves.size() >= MAX_QUEUED_MOVES) {
+            userMoves.poll();
         }
+        userMoves.add(new UserMove(userCurrentCell, MOVE_DURATION * (1 + slideLength)));
+        slideLength = 0;
 
-        animatedBasedOnPosition(userImageView, userCurrentCell);
+        if (!userMoving) {
+            userAnimation.play("Walk");
+            animateNextMove();
+        }
 
         if (userCurrentCell instanceof Goal) {
             triggerAlert("Congratulations! You have completed Level " + currentLevel, State.LEVEL_WON);
         }
 
-        checkForItemPickups(x, y);
-
         if (userCurrentCell.hasPlayerAndEnemy()) {
             triggerAlert("Unlucky! You have been killed by an enemy.", State.LEVEL_LOST);
         }
@@ -785,104 +995,55 @@ public class GameController extends BaseController {
     }
 
     /**
-     * Animate based on the User's change in position from the backend
-     * @param userImageView The User's Image View
-     * @param userCurrentCell The user's current cell
+     * Animate the user moving to the cell of their oldest queued move, chaining on to the next
+     * queued move once it finishes. The user is hidden while moving to a teleporter.
      */
-    private void animatedBasedOnPosition(ImageView userImageView, Cell userCurrentCell) {
-        double newX = userCurrentCell.getPosition().getX() * 64;
-        double newY = userCurrentCell.getPosition().getY() * 64;
-        animateUser(userImageView, newX, newY);
-    }
-
-    /**
-     * Check if the user has just picked up an item
-     * @param x The user's new X position
-     * @param y The user's new Y position
-     */
-    private void checkForItemPickups(double x, double y) {
-        List<ItemViewModel> removed = new ArrayList<>();
-        for (ItemViewModel itemViewModel : itemViewModels) {
-            double iX = itemViewModel.getImageView().getX();
-            double iY = itemViewModel.getImageView().getY();
-
-            boolean isDisabled = itemViewModel.getImageView().isDisabled();
+    private void animateNextMove() {
+        UserMove move = userMoves.poll();
+        ImageView userImageView = userViewModel.getImageView();
 
-            if (iX == x && iY == y && !isDisabled) {
-                itemViewModel.getImageView().setVisible(false);
-                removed.add(itemViewModel);
-                if (itemViewModel.getItem() instanceof Key) {
-                    if (!(((Key) itemViewModel.getItem()) == Key.TOKEN_KEY)) {
-                        updateInventoryImages(itemViewModel);
-                    }
-                } else {
-                    updateInventoryImages(itemViewModel);
-                }
+        if (move == null) {
+            userMoving = false;
+            userAnimation.play("Idle");
+            return;
+        }
 
-            }
+        userMoving = true;
+        if (move.cell instanceof Teleporter) {
+            userImageView.setVisible(false);
         }
-        itemViewModels.removeAll(removed);
-    }
 
-    /**
-     * Update the inventory view with the newly acquired item
-     * @param itemViewModel The item's view model
-     */
-    private void updateInventoryImages(ItemViewModel itemViewModel) {
-        double inventorySize = userViewModel.getUser().getInventory(currentLevel).size() - 1;
-        ImageView ig = new ImageView();
-        ig.setX(inventorySize * 64);
-        ig.setY(0);
-        ig.setImage(itemViewModel.getImage());
-        inventoryItems.getChildren().add(ig);
+        double x = move.cell.getPosition().getX() * CELL_WIDTH;
+        double y = move.cell.getPosition().getY() * CELL_WIDTH;
+        tweenEngine.move(userImageView, x, y, catchUpDuration(move.duration), () -> {
+            userImageView.setVisible(true);
+            animateNextMove();
+        });
     }
 
     /**
-     * Animate a user by moving them from cell to cell in a smooth transition. Also
-     * animating them walking when moving.
-     * @param userImageView The user's image view
-     * @param x Their new X position
-     * @param y Their new Y position
+     * Get how long a move should be animated for, so the animation catches up with the game.
+     * Each move is shortened by the number of moves queued behind it, and by the speed the
+     * game is fast-forwarded to.
+     * @param duration How long the move would take if nothing was queued, in milliseconds
+     * @return How long the move should take, in milliseconds
      */
-    private void animateUser(ImageView userImageView, double x, double y) {
-        Timeline timeline = new Timeline();
-        KeyValue keyValueX = new KeyValue(userImageView.xProperty(), x);
-        KeyValue keyValueY = new KeyValue(userImageView.yProperty(), y);
-
-        KeyFrame walking = new KeyFrame(Duration.millis(100), e -> {
-           userImageView.setImage(new Image(ResourceRepository.getResource("User-Walk")));
-        });
-
-        KeyFrame movement = new KeyFrame(Duration.millis(500), keyValueX, keyValueY);
-
-        timeline.setOnFinished(e -> {
-            if (userViewModel.getUser().getCurrentCell() instanceof Teleporter) {
-                userImageView.setVisible(true);
-            }
-            userImageView.setImage(new Image(ResourceRepository.getResource("User-Idle")));
-            animationCompleted = true;
-        });
-
-        timeline.getKeyFrames().addAll(movement, walking);
-
-        timeline.play();
+    private long catchUpDuration(long duration) {
+        return turbo ? 0 : (long) (duration / (1 + userMoves.size()) / gameLoop.getSpeed());
     }
 
     /**
-     * Move an enemy by translating their current position
-     * @param deltaX The X translation value
-     * @param deltaY The Y translation value
-     * @param enemy The enemy image view that will be changing
+     * Move an enemy to the cell the backend has placed them on
+     * @param enemy The enemy view model that will be changing
      */
-    private void moveEnemy(int deltaX, int deltaY, EnemyViewModel enemy) {
+    private void moveEnemy(EnemyViewModel enemy) {
         ImageView enemyImageView = enemy.getImageView();
-        double x =
-                (clampRange(enemyImageView.getX() + deltaX,
-                        0, boardPane.getWidth() - enemyImageView.getFitWidth()));
+        Point position = enemy.getEnemy().getCurrentCell().getPosition();
 
-        double y =
-                (clampRange(enemyImageView.getY() + deltaY,
-                        0, boardPane.getHeight() - enemyImageView.getFitHeight()));
+        double x = clampRange(position.getX() * CELL_WIDTH,
+                0, boardPane.getWidth() - enemyImageView.getFitWidth());
+        double y = clampRange(position.getY() * CELL_WIDTH,
+                0, boardPane.getHeight() - enemyImageView.getFitHeight());
 
         animateEnemy(enemyImageView, x, y);
 
@@ -892,20 +1053,14 @@ public class GameController extends BaseController {
     }
 
     /**
-     * Animates an enemies movement, so in which they move smoothly from cell to cell
+     * Animates an enemies movement, so in which they move smoothly from cell to cell. The
+     * movement starts from wherever the enemy is drawn, so it catches up if still moving.
      * @param enemyImageView The enemy image view, that needs animated
      * @param x The enemies new X position
      * @param y The enemies new Y position
      */
     private void animateEnemy(ImageView enemyImageView, double x, double y) {
-        Timeline timeline = new Timeline();
-        KeyValue keyValueX = new KeyValue(enemyImageView.xProperty(), x);
-        KeyValue keyValueY = new KeyValue(enemyImageView.yProperty(), y);
-
-        KeyFrame movement = new KeyFrame(Duration.millis(500), keyValueX, keyValueY);
-        timeline.getKeyFrames().add(movement);
-
-        timeline.play();
+        tweenEngine.move(enemyImageView, x, y, catchUpDuration(MOVE_DURATION), null);
     }
 
     /**
@@ -923,71 +1078,59 @@ public class GameController extends BaseController {
 
     /**
      * Used to execute the movement phase of each enemy involved with
-     * this level. Each enemy calculates the direction in which they want to
-     * move in.
+     * this level. Each enemy first calculates the direction in which they want to
+     * move in, then every enemy is moved in the same fixed order.
      */
     private void moveEnemies() {
         User user = userViewModel.getUser();
-        for (EnemyViewModel evm : this.enemyViewModels) {
-            Enemy enemy = evm.getEnemy();
-            Direction nextDirection = enemy.getNextDirection(user, level);
-            level.moveEnemy(enemy, nextDirection);
-
-            switch (nextDirection) {
-                case LEFT:
-                    moveEnemy(-CELL_WIDTH, 0, evm);
-                    break;
-                case RIGHT:
-                    moveEnemy(CELL_WIDTH, 0,evm);
-                    break;
-                case UP:
-                    moveEnemy(0, -CELL_WIDTH, evm);
-                    break;
-                case DOWN:
-                    moveEnemy(0, CELL_WIDTH, evm);
-                    break;
-                default:
-                    break;
+        Direction[] directions = enemyStore.decide(user);
+
+        for (int i = 0; i < directions.length; i++) {
+            Direction nextDirection = directions[i];
+            enemyStore.move(i, nextDirection);
+
+            if (nextDirection != Direction.IDLE) {
+                moveEnemy(enemyViewModels.get(i));
             }
         }
     }
 
     /**
      * Used to process a key pressed, and execute specific code depending on what key
-     * was pressed
+     * was pressed. Moves are made straight away, even while the last move is still being
+     * animated, but a key has to be released before it makes another move.
      * @param code The keyboard KeyCode that was pressed
      */
     private void processKey(KeyCode code) {
         User user = userViewModel.getUser();
         try {
-            if (!pressed && animationCompleted) {
+            if (heldKeys.add(code)) {
                 switch (code) {
                     case ESCAPE:
+                        heldKeys.clear();
                         pauseGame();
                         break;
+                    case T:
+                        turbo = !turbo;
+                        break;
+                    case D:
+                        toggleDemo(user);
+                        break;
+                    case F:
+                        speedIndex = (speedIndex + 1) % FAST_FORWARD_SPEEDS.length;
+                        gameLoop.setSpeed(FAST_FORWARD_SPEEDS[speedIndex]);
+                        break;
                     case LEFT:
-                        level.movePlayer(user, Direction.LEFT);
-                        movePlayer(-CELL_WIDTH, 0);
-                        animationCompleted = false;
-                        moveEnemies();
+                        takeTurn(user, Direction.LEFT);
                         break;
                     case RIGHT:
-                        level.movePlayer(user, Direction.RIGHT);
-                        movePlayer(CELL_WIDTH, 0);
-                        animationCompleted = false;
-                        moveEnemies();
+                        takeTurn(user, Direction.RIGHT);
                         break;
                     case UP:
-                        level.movePlayer(user, Direction.UP);
-                        movePlayer(0, -CELL_WIDTH);
-                        animationCompleted = false;
-                        moveEnemies();
+                        takeTurn(user, Direction.UP);
                         break;
                     case DOWN:
-                        level.movePlayer(user, Direction.DOWN);
-                        movePlayer(0, CELL_WIDTH);
-                        animationCompleted = false;
-                        moveEnemies();
+                        takeTurn(user, Direction.DOWN);
                         break;
                     default:
                         break;
@@ -999,11 +1142,64 @@ public class GameController extends BaseController {
 
     }
 
+    /**
+     * Start a demo, in which the solver's moves from the user's current cell are played for them,
+     * or stop the demo if one is playing
+     * @param user The user
+     */
+    private void toggleDemo(User user) {
+        if (!demoMoves.isEmpty()) {
+            demoMoves.clear();
+            return;
+        }
+
+        Solution solution = new Solver().solve(level, user.getCurrentCell().getPosition());
+        if (solution.isSolvable()) {
+            demoMoves.addAll(solution.getMoves());
+        } else {
+            playSound("PlayerBlocked");
+        }
+    }
+
+    /**
+     * Play the next move of a demo, stopping the demo if the move can no longer be made
+     */
+    private void playDemoMove() {
+        Direction direction = demoMoves.poll();
+        if (direction == null) {
+            return;
+        }
+
+        try {
+            takeTurn(userViewModel.getUser(), direction);
+        } catch (InvalidMoveException ex) {
+            LOGGER.log(WARNING, "The demo has attempted an invalid move!", ex);
+            demoMoves.clear();
+        }
+    }
+
+    /**
+     * Take a single turn, moving the user and then every enemy. The move is recorded before it is
+     * made, as making it may end the game, but only if the user is able to make it.
+     * @param user The user
+     * @param direction The direction the user wishes to move in
+     * @throws InvalidMoveException If the user is unable to move in that direction
+     */
+    private void takeTurn(User user, Direction direction) throws InvalidMoveException {
+        if (replay != null && level.validMove(user, direction)) {
+            replay.record(direction);
+        }
+
+        level.movePlayer(user, direction);
+        movePlayer();
+        moveEnemies();
+    }
+
     /**
      * Called every timeAnimation the user wishes to pause the game
      */
     private void pauseGame() {
-        timeAnimation.pause();
+        gameLoop.stop();
         Instant currentPauseTime = Instant.now();
         boardPane.setEffect(new GaussianBlur());
 
@@ -1023,11 +1219,13 @@ public class GameController extends BaseController {
             boardPane.setEffect(null);
             updateTotalPauseTime(currentPauseTime);
             popupStage.hide();
-            timeAnimation.play();
+            gameLoop.start();
         });
 
         saveAndQuit.setOnAction(e -> {
             popupStage.hide();
+            tweenEngine.stop();
+            replay = null;
             LevelSaver.saveLevel(currentLevel, level, userViewModel.getUser(), calculateCurrentSavedTime());
             Main.getPrimaryStage().setTitle("Main Menu");
             loadMainMenu(userViewModel.getUser());
@@ -1059,9 +1257,7 @@ public class GameController extends BaseController {
      * @return The calculated elapsed timeAnimation up till now
      */
     private Long calculateCurrentSavedTime() {
-        Instant elapsed = Instant.now();
-        Long newFinishTime =
-                java.time.Duration.between(startTime, elapsed).toMillis() - totalPausedTime + totalSavedTime;
+        Long newFinishTime = getPlayedMillis();
         totalPausedTime = 0L;
         totalSavedTime = 0L;
 
@@ -1103,16 +1299,16 @@ public class GameController extends BaseController {
 
         if (enemy instanceof SmartTargetingEnemy) {
             enemyViewModel = new EnemyViewModel(
-                    enemy, new Image(ResourceRepository.getResource("SmartTargetingEnemy")));
+                    enemy, ResourceRepository.getImage("SmartTargetingEnemy"));
         } else if (enemy instanceof DumbTargetingEnemy) {
             enemyViewModel = new EnemyViewModel(
-                    enemy, new Image(ResourceRepository.getResource("DumbTargetingEnemy")));
+                    enemy, ResourceRepository.getImage("DumbTargetingEnemy"));
         } else if (enemy instanceof StraightLineEnemy) {
             enemyViewModel = new EnemyViewModel(
-                    enemy, new Image(ResourceRepository.getResource("StraightLineEnemy")));
+                    enemy, ResourceRepository.getImage("StraightLineEnemy"));
         } else if (enemy instanceof WallFollowingEnemy) {
             enemyViewModel = new EnemyViewModel(
-                    enemy, new Image(ResourceRepository.getResource("WallFollowingEnemy")));
+                    enemy, ResourceRepository.getImage("WallFollowingEnemy"));
         }
 
         return enemyViewModel;
@@ -1134,14 +1330,21 @@ public class GameController extends BaseController {
     }
 
 
+    /**
+     * Get how long the level has been played for in real time, leaving out pauses and including
+     * any time from a save. Finish times, save times and telemetry all use this one clock.
+     * @return The time played, in milliseconds
+     */
+    private static long getPlayedMillis() {
+        return java.time.Duration.between(startTime, Instant.now()).toMillis() - totalPausedTime + totalSavedTime;
+    }
+
     /**
      * Used to add a new level finish timeAnimation to the user's score list.
      */
     private static Long addNewFinishTime() {
         User user = userViewModel.getUser();
-        Instant elapsed = Instant.now();
-        Long newFinishTime =
-                java.time.Duration.between(startTime, elapsed).toMillis() - totalPausedTime + totalSavedTime;
+        Long newFinishTime = getPlayedMillis();
         totalPausedTime = 0L;
         totalSavedTime = 0L;
         try {
@@ -1163,5 +1366,30 @@ public class GameController extends BaseController {
         this.levelHeight = y;
     }
 
-}
 
+    /**
+     * A move the game has made for the user, which is still to be animated
+     */
+    private class UserMove {
+
+        /**
+         * The cell the user moved to
+         */
+        private final Cell cell;
+
+        /**
+         * How long the move takes to animate if nothing is queued behind it, in milliseconds
+         */
+        private final long duration;
+
+        /**
+         * Create a move to be animated
+         * @param cell The cell the user moved to
+         * @param duration How long the move takes to animate, in milliseconds
+         */
+        private UserMove(Cell cell, long duration) {
+            this.cell = cell;
+            this.duration = duration;
+        }
+    }
+}
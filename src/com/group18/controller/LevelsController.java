@@ -1,6 +1,7 @@
 package com.group18.controller;
 
 import com.group18.Main;
+import com.group18.core.LevelLoader;
 import com.group18.model.entity.User;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -115,6 +116,7 @@ public class LevelsController extends BaseController {
     public void setup(User user) {
         setUser(user);
         int highestLevel = user.getHighestLevel();
+        LevelLoader.prefetchLevel(highestLevel);
 
         if (highestLevel == 1) {
             newUser();
@@ -0,0 +1,132 @@
+package com.group18.core;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * A game loop which runs the simulation in fixed steps (ticks), separately from rendering. On
+ * every frame, the time since the last frame is added up and as many ticks are run as fit in it,
+ * so the simulation runs at the same rate whatever the frame rate. The frame is then rendered
+ * once. Movement between cells isn't interpolated here, as the TweenEngine animates it on its own
+ * clock.
+ *
+ * The loop can be fast-forwarded, running the simulation many times faster than real time while
+ * still only rendering once per frame of the display.
+ *
+ * @author agent
+ */
+public abstract class GameLoop extends AnimationTimer {
+
+    /**
+     * The number of nanoseconds in a millisecond
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * The most ticks run in a single frame. If the simulation falls further behind than this, such
+     * as after the window stalls, the time it's behind by is dropped rather than caught up.
+     */
+    private static final int MAX_TICKS_PER_FRAME = 1000;
+
+    /**
+     * How long each tick lasts in real time at normal speed, in nanoseconds
+     */
+    private final long tickNanos;
+
+    /**
+     * How many times faster than real time the simulation runs
+     */
+    private double speed = 1;
+
+    /**
+     * The time of the last frame, or -1 if no frame has happened since the loop started
+     */
+    private long lastNanos = -1;
+
+    /**
+     * The simulation time which has passed but not yet been ticked, in nanoseconds
+     */
+    private double accumulatedNanos;
+
+    /**
+     * The number of ticks run since the loop was created
+     */
+    private long ticks;
+
+    /**
+     * Creates a new game loop
+     * @param tickMillis How long each tick lasts at normal speed, in milliseconds
+     */
+    public GameLoop(long tickMillis) {
+        this.tickNanos = tickMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Run a single step of the simulation
+     */
+    protected abstract void tick();
+
+    /**
+     * Draw the current frame
+     */
+    protected abstract void render();
+
+    /**
+     * Set how many times faster than real time the simulation runs
+     * @param speed The speed multiplier, where 1 is real time
+     */
+    public void setSpeed(double speed) {
+        this.speed = speed;
+    }
+
+    /**
+     * Get how many times faster than real time the simulation runs
+     * @return The speed multiplier
+     */
+    public double getSpeed() {
+        return speed;
+    }
+
+    /**
+     * Get the number of ticks run since the loop was created
+     * @return The number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Start the loop. The time the loop was stopped for isn't simulated.
+     */
+    @Override
+    public void start() {
+        lastNanos = -1;
+        super.start();
+    }
+
+    /**
+     * Called on every frame, running the ticks which fit in the time since the last frame, then
+     * rendering the frame
+     * @param now The timestamp of the current frame, in nanoseconds
+     */
+    @Override
+    public void handle(long now) {
+        if (lastNanos >= 0) {
+            accumulatedNanos += (now - lastNanos) * speed;
+        }
+        lastNanos = now;
+
+        int ran = 0;
+        while (accumulatedNanos >= tickNanos && ran < MAX_TICKS_PER_FRAME) {
+            tick();
+            ticks++;
+            ran++;
+            accumulatedNanos -= tickNanos;
+        }
+
+        if (ran == MAX_TICKS_PER_FRAME) {
+            accumulatedNanos %= tickNanos;
+        }
+
+        render();
+    }
+}
@@ -6,15 +6,29 @@ import com.group18.model.Colour;
 import com.group18.model.Direction;
 import com.group18.model.ElementType;
 import com.group18.model.Level;
+import com.group18.model.board.CellCodes;
+import com.group18.model.board.ChunkedBoard;
+import com.group18.model.board.CodedBoard;
+import com.group18.model.board.OffHeapBoard;
 import com.group18.model.cell.*;
 import com.group18.model.entity.*;
 import com.group18.model.item.ElementItem;
 import com.group18.model.item.Key;
 
 import java.awt.*;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 
 import static com.group18.model.Direction.*;
@@ -44,9 +58,26 @@ public class LevelLoader {
     private static final Logger LOGGER = Logger.getLogger("LevelLoader");
 
     /**
-     * True if loading from a saved file
+     * The most bytes of parsed level files kept in memory at once
      */
-    private static boolean loadSave = false;
+    private static final long MAX_CACHED_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * The parsed level files, by file name, with the least recently used first. Any thread using
+     * the map must hold its lock, but never while reading a file.
+     */
+    private static final Map<String, LevelTemplate> TEMPLATES = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The number of bytes the parsed level files in the cache take up
+     */
+    private static long cachedBytes;
+
+    /**
+     * The level being built in the background, ready to be handed to the next load of its file, or
+     * null if there isn't one
+     */
+    private static final AtomicReference<PrefetchedLevel> PREFETCHED = new AtomicReference<>();
 
     /**
      * Load a saved level file for a specified level
@@ -56,8 +87,15 @@ public class LevelLoader {
      */
     public static Level loadSavedLevel(int level, User user) {
         String fileName = SAVED_LEVEL_DIRECTORY + user.getUsername() + "-level-save" + level + ".txt";
-        loadSave = true;
-        return load(level, user, fileName);
+        // Saved levels change every time they're saved, so they aren't worth keeping
+        LevelTemplate template = readTemplate(fileName, true);
+
+        if (template == null) {
+            return null;
+        }
+
+        GameController.setTotalSavedTime(template.getSavedTime());
+        return build(template, level, user);
     }
 
     /**
@@ -68,120 +106,302 @@ public class LevelLoader {
      */
     public static Level loadLevel(int level, User user) {
         String fileName = DEFAULT_LEVEL_DIRECTORY + level + ".txt";
-        return load(level, user, fileName);
+        Level prefetched = takePrefetched(fileName, level, user);
+
+        if (prefetched != null) {
+            return prefetched;
+        }
+
+        LevelTemplate template = getTemplate(fileName);
+        return template == null ? null : build(template, level, user);
+    }
+
+    /**
+     * Load any level file, such as a level being designed or tested
+     * @param fileName The level file to be loaded
+     * @param level The level number the level is played as
+     * @param user The user that will be associated with the level
+     * @return The level object, or null if the file does not exist
+     */
+    public static Level loadLevelFile(String fileName, int level, User user) {
+        // These files can be any size, such as huge generated levels, so they aren't kept
+        LevelTemplate template = readTemplate(fileName, false);
+        return template == null ? null : build(template, level, user);
+    }
+
+    /**
+     * Load a level file too large to hold in memory, such as a huge generated level. The cells
+     * are written to a chunked board file as they're read, a band of rows at a time, and once
+     * the level is being played only the chunks in use are kept in memory.
+     * @param fileName The level file to be loaded
+     * @param boardFile The file the board's chunks are stored in, which is overwritten
+     * @param level The level number the level is played as
+     * @param user The user that will be associated with the level
+     * @return The level object, or null if either file can't be used
+     */
+    public static Level loadChunkedLevelFile(String fileName, File boardFile, int level, User user) {
+        return loadCodedLevelFile(fileName, level, user, (width, height) ->
+                new ChunkedBoard(boardFile, width, height, ChunkedBoard.DEFAULT_MAX_RESIDENT));
+    }
+
+    /**
+     * Load a level file too large to hold as cell objects, such as a huge generated level. The
+     * cells are stored as codes outside the Java heap, in a direct buffer or a file mapped into
+     * memory, and once the level is being played only the cells in use are kept as objects.
+     * @param fileName The level file to be loaded
+     * @param boardFile The file the board is mapped from, which is overwritten, or null to keep
+     *                  the board in a direct buffer
+     * @param level The level number the level is played as
+     * @param user The user that will be associated with the level
+     * @return The level object, or null if either file can't be used
+     */
+    public static Level loadOffHeapLevelFile(String fileName, File boardFile, int level, User user) {
+        return loadCodedLevelFile(fileName, level, user, (width, height) -> boardFile == null
+                ? new OffHeapBoard(width, height, OffHeapBoard.DEFAULT_MAX_LIVE)
+                : OffHeapBoard.mapped(boardFile, width, height, OffHeapBoard.DEFAULT_MAX_LIVE));
     }
 
-    private static Level load(int level, User user, String fileName) {
-        Cell[][] cells = null;
-
-        try {
-            Scanner inputStream = new Scanner(new File(fileName));
-            int lineCounter = 0;
-            int boardHeight = 0;
-            int boardWidth = 0;
-
-            Cell previousCell = null;
-            int entities = 0;
-            while (inputStream.hasNextLine()) {
-                Scanner line = new Scanner(inputStream.nextLine());
-                line.useDelimiter(",");
-
-                if (lineCounter == 0) {
-                    cells = new Cell[line.nextInt()][line.nextInt()];
-                } else if (loadSave && lineCounter == 1) {
-                    GameController.setTotalSavedTime(line.nextLong());
-                    loadSave = false;
-                } else if (entities > 0) {
-                    placeEntity(line, previousCell, user);
-                    entities--;
-                } else {
-                    Point point = new Point(boardWidth, boardHeight);
-                    entities = fillCell(line, point, cells, user);
-                    previousCell = cells[(int) point.getY()][(int) point.getX()];
-
-                    if (boardWidth+1 < cells[0].length) {
-                        boardWidth++;
-                    } else if (boardWidth+1 >= cells[0].length) {
-                        if (boardHeight+1 < cells.length) {
-                            boardWidth = 0;
-                            boardHeight++;
-                        }
+    /**
+     * Load a level file into a board of cell codes, streaming the file a band of rows at a time
+     * @param fileName The level file to be loaded
+     * @param level The level number the level is played as
+     * @param user The user that will be associated with the level
+     * @param opener Opens the board the codes are written to
+     * @return The level object, or null if the file or board can't be used
+     */
+    private static Level loadCodedLevelFile(String fileName, int level, User user, BoardOpener opener) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(fileName))) {
+            String[] header = reader.readLine().split(",");
+            int boardHeight = Integer.parseInt(header[0]);
+            int boardWidth = Integer.parseInt(header[1]);
+
+            CodedBoard board = opener.open(boardWidth, boardHeight);
+            int[] band = new int[ChunkedBoard.CHUNK_SIZE * boardWidth];
+            List<Point> entityPoints = new ArrayList<>();
+            List<String[]> entityLines = new ArrayList<>();
+
+            for (int y = 0; y < boardHeight; y++) {
+                for (int x = 0; x < boardWidth; x++) {
+                    String[] line = reader.readLine().split(",");
+                    Point point = new Point(x, y);
+                    Cell cell = createNewCell(line[0], point);
+                    if (!line[2].equals("X")) {
+                        setItem(cell, line[2]);
+                    }
+                    band[(y % ChunkedBoard.CHUNK_SIZE) * boardWidth + x] = CellCodes.encode(cell);
+
+                    for (int entities = Integer.parseInt(line[1]); entities > 0; entities--) {
+                        entityPoints.add(point);
+                        entityLines.add(reader.readLine().split(","));
                     }
                 }
 
-                lineCounter++;
+                if (y % ChunkedBoard.CHUNK_SIZE == ChunkedBoard.CHUNK_SIZE - 1 || y == boardHeight - 1) {
+                    board.writeRows(y - y % ChunkedBoard.CHUNK_SIZE, band);
+                    Arrays.fill(band, 0);
+                }
             }
 
-
-            setTeleporterPartners(cells);
-            Level levelObj = new Level(cells, level);
-            setLevelFor(cells, levelObj);
+            Level levelObj = new Level(board, level);
+            board.setLevel(levelObj);
+            for (int i = 0; i < entityPoints.size(); i++) {
+                Point point = entityPoints.get(i);
+                placeEntity(entityLines.get(i), board.getCell(point.x, point.y), user);
+            }
 
             return levelObj;
 
-        } catch (FileNotFoundException ex) {
-            LOGGER.log(WARNING, String.format("Level file %s does not exist", level), ex);
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, String.format("Level file %s could not be loaded into a board of codes", fileName), ex);
         }
 
         return null;
     }
 
     /**
-     * Set the level for each cell
-     * @param cells The cells in the level
-     * @param levelObj The level object
+     * Read and build a default level in the background, so it's ready to be played straight away
+     * once the user chooses to play it. Only the latest level prefetched is kept, and it's only
+     * used once, as levels are changed while they're played.
+     * @param level The level to be read
      */
-    private static void setLevelFor(Cell[][] cells, Level levelObj) {
-        for (int i = 0; i < cells.length; i++) {
-            for (int j = 0; j < cells[0].length; j++) {
-                cells[i][j].setLevel(levelObj);
+    public static void prefetchLevel(int level) {
+        String fileName = DEFAULT_LEVEL_DIRECTORY + level + ".txt";
+        if (new File(fileName).exists()) {
+            PREFETCHED.set(new PrefetchedLevel(fileName, level, CompletableFuture.supplyAsync(() -> {
+                LevelTemplate template = getTemplate(fileName);
+                return template == null ? null : new BuiltLevel(template, level);
+            })));
+        }
+    }
+
+    /**
+     * Take the level prefetched for a file, if it's still current, and place the user on it
+     * @param fileName The level file
+     * @param level The level number
+     * @param user The user that will be associated with the level
+     * @return The level, or null if it wasn't prefetched or its file has changed since
+     */
+    private static Level takePrefetched(String fileName, int level, User user) {
+        PrefetchedLevel prefetched = PREFETCHED.getAndSet(null);
+
+        if (prefetched == null || !prefetched.fileName.equals(fileName) || prefetched.level != level) {
+            return null;
+        }
+
+        BuiltLevel built = prefetched.built.join();
+        if (built == null || !built.template.isCurrent(new File(fileName))) {
+            return null;
+        }
+
+        placeUser(built.template, built.cells, user);
+        return built.level;
+    }
+
+    /**
+     * Get the parsed contents of a level file, only reading the file if it hasn't been read
+     * before or has changed since. The file is read without holding the cache's lock, so two
+     * threads may both read it, and the last one read is kept.
+     * @param fileName The level file
+     * @return The template of the file, or null if the file does not exist
+     */
+    private static LevelTemplate getTemplate(String fileName) {
+        LevelTemplate template;
+        synchronized (TEMPLATES) {
+            template = TEMPLATES.get(fileName);
+        }
+
+        if (template == null || !template.isCurrent(new File(fileName))) {
+            template = readTemplate(fileName, false);
+            cacheTemplate(fileName, template);
+        }
+
+        return template;
+    }
+
+    /**
+     * Keep the parsed contents of a level file, removing the least recently used files until the
+     * cache is back under its size. A file too large for the cache on its own isn't kept.
+     * @param fileName The level file
+     * @param template The template of the file, or null to forget the file
+     */
+    private static void cacheTemplate(String fileName, LevelTemplate template) {
+        synchronized (TEMPLATES) {
+            LevelTemplate replaced = TEMPLATES.remove(fileName);
+            if (replaced != null) {
+                cachedBytes -= replaced.getSize();
+            }
+
+            if (template == null || template.getSize() > MAX_CACHED_BYTES) {
+                return;
+            }
+
+            TEMPLATES.put(fileName, template);
+            cachedBytes += template.getSize();
+
+            Iterator<LevelTemplate> eldest = TEMPLATES.values().iterator();
+            while (cachedBytes > MAX_CACHED_BYTES) {
+                cachedBytes -= eldest.next().getSize();
+                eldest.remove();
             }
         }
     }
 
     /**
-     * There will only ever be one teleporter per level. So after all the cells are set
-     * we iterate over the cells, and partner up the teleporters
-     * @param cells
+     * Read a level file into a template, without keeping it
+     * @param fileName The level file
+     * @param saved True if it's a saved level file, which has the time played on its second line
+     * @return The template of the file, or null if the file can't be read
      */
-    private static void setTeleporterPartners(Cell[][] cells) {
-        Teleporter teleporter = null;
-        for (int i = 0; i < cells.length; i++) {
-            for (int j = 0; j < cells[0].length; j++) {
-                if (cells[i][j] instanceof Teleporter) {
-                    if (teleporter == null) {
-                        teleporter = (Teleporter) cells[i][j];
-                    } else {
-                        Teleporter newPartner = (Teleporter) cells[i][j];
-                        newPartner.setPartner(teleporter);
-                        teleporter.setPartner(newPartner);
-                    }
+    private static LevelTemplate readTemplate(String fileName, boolean saved) {
+        File file = new File(fileName);
+        long lastModified = file.lastModified();
+        long length = file.length();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String[] header = reader.readLine().split(",");
+            int boardHeight = Integer.parseInt(header[0]);
+            int boardWidth = Integer.parseInt(header[1]);
+            long savedTime = saved ? Long.parseLong(reader.readLine().split(",")[0]) : 0;
+
+            int[] codes = new int[boardWidth * boardHeight];
+            List<Integer> entityCells = new ArrayList<>();
+            List<String[]> entityLines = new ArrayList<>();
+
+            for (int i = 0; i < codes.length; i++) {
+                String[] line = reader.readLine().split(",");
+                Cell cell = createNewCell(line[0], new Point(i % boardWidth, i / boardWidth));
+                if (!line[2].equals("X")) {
+                    setItem(cell, line[2]);
+                }
+                codes[i] = CellCodes.encode(cell);
+
+                for (int entities = Integer.parseInt(line[1]); entities > 0; entities--) {
+                    entityCells.add(i);
+                    entityLines.add(reader.readLine().split(","));
                 }
             }
+
+            return new LevelTemplate(lastModified, length, boardWidth, boardHeight, savedTime, codes,
+                    entityCells.stream().mapToInt(Integer::intValue).toArray(),
+                    entityLines.toArray(new String[0][]));
+
+        } catch (FileNotFoundException ex) {
+            LOGGER.log(WARNING, String.format("Level file %s does not exist", fileName), ex);
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, String.format("Level file %s could not be read", fileName), ex);
         }
+
+        return null;
     }
 
     /**
-     * Fill in a cell at a specific point in the level
-     * @param line The current line in the level input file aka the current cell
-     * @param point The point in the 2D level grid we are currently at
-     * @param cells The 2D array of cells for the level
-     * @param user The user associated with this level
-     * @return The number of entities on this cell
+     * Build a new level from the parsed contents of its file
+     * @param template The template of the file
+     * @param level The level number
+     * @param user The user that will be associated with the level
+     * @return The level object
      */
-    private static int fillCell(Scanner line, Point point, Cell[][] cells, User user) {
-        Cell cell = createNewCell(line, point);
-        cell.setCoordinates(point);
+    private static Level build(LevelTemplate template, int level, User user) {
+        BuiltLevel built = new BuiltLevel(template, level);
+        placeUser(template, built.cells, user);
+        return built.level;
+    }
 
-        int entities = Integer.parseInt(line.next());
-        String potentialItem = line.next();
-        if (!potentialItem.equals(("X"))) {
-            setItem(cell, potentialItem);
+    /**
+     * Place the user on a level built from a template, wherever the file puts them
+     * @param template The template the level was built from
+     * @param cells The cells of the level
+     * @param user The user
+     */
+    private static void placeUser(LevelTemplate template, Cell[][] cells, User user) {
+        for (int i = 0; i < template.getEntityCount(); i++) {
+            String[] line = template.getEntityLine(i);
+            if (isUser(line)) {
+                placeEntity(line, cells[template.getEntityY(i)][template.getEntityX(i)], user);
+            }
         }
+    }
 
-        cells[(int) point.getY()][(int) point.getX()] = cell;
+    /**
+     * Check if an entity line in a level file places the user
+     * @param line The values on the line
+     * @return True if it's the user's line
+     */
+    private static boolean isUser(String[] line) {
+        return line[0].equals(EntityAcronym.U.name());
+    }
 
-        return entities;
+    /**
+     * Set the level for each cell
+     * @param cells The cells in the level
+     * @param levelObj The level object
+     */
+    private static void setLevelFor(Cell[][] cells, Level levelObj) {
+        for (int i = 0; i < cells.length; i++) {
+            for (int j = 0; j < cells[0].length; j++) {
+                cells[i][j].setLevel(levelObj);
+            }
+        }
     }
 
     /**
@@ -203,7 +423,6 @@ public class LevelLoader {
                 break;
             case ISI:
                 ground.setItem(ElementItem.ICE_SKATES);
-                System.out.println("Done");
                 break;
             case TKI:
                 ground.setItem(Key.TOKEN_KEY);
@@ -262,9 +481,9 @@ public class LevelLoader {
      * @param cell The cell that the entity will be placed on
      * @param user The user that potentially can be placed on the cell
      */
-    private static void placeEntity(Scanner line, Cell cell, User user) {
-        String entityType = line.next();
-        Direction direction = retrieveDirection(line.next());
+    private static void placeEntity(String[] line, Cell cell, User user) {
+        String entityType = line[0];
+        Direction direction = retrieveDirection(line[1]);
         if (!entityType.equals("X")) {
             EntityAcronym entityAcronym = EntityAcronym.valueOf(entityType);
             try {
@@ -310,19 +529,15 @@ public class LevelLoader {
 
     /**
      * Creates a new cell
-     * @param line The level input line associated with the cell
+     * @param potentialCell The name of the cell in the level input line
      * @param point The point in which this cell is associated with
      * @return The new generated cell
      */
-    private static Cell createNewCell(Scanner line, Point point) {
-        String potentialCell = line.next();
+    private static Cell createNewCell(String potentialCell, Point point) {
         CellAcronym cellType;
-        if (potentialCell.length() > 2) {
-            if (Character.isDigit(potentialCell.charAt(2))) {
-                cellType = CellAcronym.TD;
-            } else  {
-                cellType = CellAcronym.valueOf(potentialCell);
-            }
+        // Token doors and teleporters are followed by a number, such as TD3 or TC12
+        if (potentialCell.length() > 2 && Character.isDigit(potentialCell.charAt(2))) {
+            cellType = CellAcronym.valueOf(potentialCell.substring(0, 2));
         } else {
             cellType = CellAcronym.valueOf(potentialCell);
         }
@@ -346,7 +561,8 @@ public class LevelLoader {
                 cell = new Element(ElementType.ICE, point);
                 break;
             case TC:
-                cell = new Teleporter(null, point);
+                int id = potentialCell.length() > 2 ? Integer.parseInt(potentialCell.substring(2)) : Teleporter.NO_ID;
+                cell = new Teleporter(id, point);
                 break;
             case GOC:
                 cell = new Goal(point);
@@ -417,4 +633,100 @@ public class LevelLoader {
         YKI;
     }
 
+    /**
+     * Opens the board of codes a streamed level file is written to
+     */
+    @FunctionalInterface
+    private interface BoardOpener {
+
+        /**
+         * Open a board
+         * @param width The width of the board
+         * @param height The height of the board
+         * @return The board
+         * @throws IOException If the board can't be opened
+         */
+        CodedBoard open(int width, int height) throws IOException;
+    }
+
+    /**
+     * A level built from a template, with every entity placed but the user, so it can be built
+     * before the user is known and handed to them later
+     */
+    private static class BuiltLevel {
+
+        /**
+         * The template the level was built from
+         */
+        private final LevelTemplate template;
+
+        /**
+         * The cells of the level
+         */
+        private final Cell[][] cells;
+
+        /**
+         * The level object
+         */
+        private final Level level;
+
+        /**
+         * Build a level from a template, placing every entity but the user
+         * @param template The template of the level file
+         * @param level The level number
+         */
+        private BuiltLevel(LevelTemplate template, int level) {
+            this.template = template;
+            this.cells = new Cell[template.getHeight()][template.getWidth()];
+
+            for (int y = 0; y < template.getHeight(); y++) {
+                for (int x = 0; x < template.getWidth(); x++) {
+                    cells[y][x] = CellCodes.decode(template.getCode(x, y), new Point(x, y));
+                }
+            }
+
+            for (int i = 0; i < template.getEntityCount(); i++) {
+                String[] line = template.getEntityLine(i);
+                if (!isUser(line)) {
+                    placeEntity(line, cells[template.getEntityY(i)][template.getEntityX(i)], null);
+                }
+            }
+
+            this.level = new Level(cells, level);
+            setLevelFor(cells, this.level);
+        }
+    }
+
+    /**
+     * A default level being built in the background
+     */
+    private static class PrefetchedLevel {
+
+        /**
+         * The level file being built
+         */
+        private final String fileName;
+
+        /**
+         * The level number it's built as
+         */
+        private final int level;
+
+        /**
+         * The level once it's built, which is null if the file couldn't be read
+         */
+        private final CompletableFuture<BuiltLevel> built;
+
+        /**
+         * Creates a new prefetched level
+         * @param fileName The level file being built
+         * @param level The level number it's built as
+         * @param built The level once it's built
+         */
+        private PrefetchedLevel(String fileName, int level, CompletableFuture<BuiltLevel> built) {
+            this.fileName = fileName;
+            this.level = level;
+            this.built = built;
+        }
+    }
 }
@@ -236,7 +236,8 @@ public class LevelSaver {
         } else if (currentCell instanceof Goal) {
             cellAcronym = "GOC";
         } else if (currentCell instanceof Teleporter) {
-            cellAcronym = "TC";
+            int id = ((Teleporter) currentCell).getId();
+            cellAcronym = id == Teleporter.NO_ID ? "TC" : "TC" + id;
         } else if (currentCell instanceof Ground) {
             cellAcronym = "GC";
         }
@@ -0,0 +1,168 @@
+package com.group18.core;
+
+import java.io.File;
+
+/**
+ * The parsed contents of a level file. Each cell is kept as its CellCodes code, so a template takes
+ * up four bytes a cell, and only the lines of the entities are kept as text. A template is never
+ * changed once read, so it can be kept and shared between threads, and a new level built from it
+ * each time the level is played without reading the file again.
+ *
+ * @author agent
+ */
+class LevelTemplate {
+
+    /**
+     * The rough number of bytes each entity line takes up, for the size of a template
+     */
+    private static final int ENTITY_BYTES = 64;
+
+    /**
+     * The time the file was last modified when it was read
+     */
+    private final long lastModified;
+
+    /**
+     * The length of the file when it was read
+     */
+    private final long length;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The time the level had been played for when it was saved, or 0 if it isn't a saved level
+     */
+    private final long savedTime;
+
+    /**
+     * The code of each cell, row by row
+     */
+    private final int[] codes;
+
+    /**
+     * The index in codes of the cell each entity is on, in the order they appear in the file
+     */
+    private final int[] entityCells;
+
+    /**
+     * The values on the line of each entity, in the order they appear in the file
+     */
+    private final String[][] entityLines;
+
+    /**
+     * Creates a new template
+     * @param lastModified The time the file was last modified before it was read
+     * @param length The length of the file before it was read
+     * @param width The width of the board
+     * @param height The height of the board
+     * @param savedTime The time the level had been played for when it was saved, or 0
+     * @param codes The code of each cell, row by row
+     * @param entityCells The index in codes of the cell each entity is on
+     * @param entityLines The values on the line of each entity
+     */
+    LevelTemplate(long lastModified, long length, int width, int height, long savedTime, int[] codes,
+                  int[] entityCells, String[][] entityLines) {
+        this.lastModified = lastModified;
+        this.length = length;
+        this.width = width;
+        this.height = height;
+        this.savedTime = savedTime;
+        this.codes = codes;
+        this.entityCells = entityCells;
+        this.entityLines = entityLines;
+    }
+
+    /**
+     * Check if the template still matches its file, or if the file has changed since it was read
+     * @param file The level file
+     * @return True if the file hasn't changed
+     */
+    boolean isCurrent(File file) {
+        return file.lastModified() == lastModified && file.length() == length;
+    }
+
+    /**
+     * Get the rough number of bytes the template takes up in memory
+     * @return The number of bytes
+     */
+    long getSize() {
+        return (long) codes.length * Integer.BYTES + (long) entityLines.length * ENTITY_BYTES;
+    }
+
+    /**
+     * Get the width of the board
+     * @return The width
+     */
+    int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the board
+     * @return The height
+     */
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the time the level had been played for when it was saved
+     * @return The time, or 0 if it isn't a saved level
+     */
+    long getSavedTime() {
+        return savedTime;
+    }
+
+    /**
+     * Get the code of a cell
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The cell's code
+     */
+    int getCode(int x, int y) {
+        return codes[y * width + x];
+    }
+
+    /**
+     * Get the number of entities in the file
+     * @return The number of entities
+     */
+    int getEntityCount() {
+        return entityLines.length;
+    }
+
+    /**
+     * Get the x of the cell an entity is on
+     * @param entity The index of the entity
+     * @return The x of its cell
+     */
+    int getEntityX(int entity) {
+        return entityCells[entity] % width;
+    }
+
+    /**
+     * Get the y of the cell an entity is on
+     * @param entity The index of the entity
+     * @return The y of its cell
+     */
+    int getEntityY(int entity) {
+        return entityCells[entity] / width;
+    }
+
+    /**
+     * Get the values on the line of an entity
+     * @param entity The index of the entity
+     * @return The values on its line
+     */
+    String[] getEntityLine(int entity) {
+        return entityLines[entity];
+    }
+}
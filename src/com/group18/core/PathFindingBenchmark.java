@@ -0,0 +1,128 @@
+package com.group18.core;
+
+import com.group18.generator.GeneratorSettings;
+import com.group18.generator.LevelGenerator;
+import com.group18.model.Level;
+import com.group18.model.cell.*;
+import com.group18.model.entity.SmartTargetingEnemy;
+import com.group18.model.entity.User;
+import com.group18.model.navigation.PathFinding;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Times each way of finding smart targeting enemy paths, on an open field level and a maze-like
+ * level made by the level generator. Run with the size of the levels and the number of paths to
+ * find, which default to 64 and 200.
+ *
+ * @author agent
+ */
+public class PathFindingBenchmark {
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("PathFindingBenchmark");
+
+    /**
+     * The number of paths found with each path finder before timing starts
+     */
+    private static final int WARM_UP_PATHS = 20;
+
+    /**
+     * Time each way of finding paths on both kinds of level
+     * @param args The size of the levels, and the number of paths to find
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int paths = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        GeneratorSettings openField = new GeneratorSettings()
+                .setWidth(size).setHeight(size).setSeed(1)
+                .setWallDensity(0.02).setElementDensity(0).setDoorDensity(0)
+                .setItemDensity(0).setEnemyDensity(0);
+        GeneratorSettings mazeLike = new GeneratorSettings()
+                .setWidth(size).setHeight(size).setSeed(1)
+                .setWallDensity(0.45).setElementDensity(0).setDoorDensity(0)
+                .setItemDensity(0).setEnemyDensity(0);
+
+        try {
+            run("Open field", openField, paths);
+            run("Maze-like", mazeLike, paths);
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "The benchmark levels could not be generated", ex);
+        }
+    }
+
+    /**
+     * Generate a level, then time finding the same paths with each path finder
+     * @param name The name of the kind of level
+     * @param settings The settings the level is generated with
+     * @param paths The number of paths to find
+     * @throws IOException If the level can not be written
+     */
+    private static void run(String name, GeneratorSettings settings, int paths) throws IOException {
+        File file = File.createTempFile("benchmark", ".txt");
+        file.deleteOnExit();
+        new LevelGenerator(settings).generate(file.getPath());
+
+        User user = new User("benchmark");
+        Level level = LevelLoader.loadLevelFile(file.getPath(), 1, user);
+        List<Cell> open = new ArrayList<>();
+        for (Cell[] row : level.getBoard()) {
+            for (Cell cell : row) {
+                if (cell instanceof Ground) {
+                    open.add(cell);
+                }
+            }
+        }
+
+        // Every path finder is timed on the same starts and targets
+        Random random = new Random(settings.getSeed());
+        Cell[] starts = new Cell[paths];
+        Cell[] targets = new Cell[paths];
+        for (int i = 0; i < paths; i++) {
+            starts[i] = open.get(random.nextInt(open.size()));
+            targets[i] = open.get(random.nextInt(open.size()));
+        }
+
+        SmartTargetingEnemy enemy = new SmartTargetingEnemy();
+        for (PathFinding pathFinding : PathFinding.values()) {
+            level.setPathFinding(pathFinding);
+
+            for (int i = 0; i < Math.min(WARM_UP_PATHS, paths); i++) {
+                findPath(enemy, user, level, starts[i], targets[i]);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < paths; i++) {
+                findPath(enemy, user, level, starts[i], targets[i]);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.println(String.format("%s %dx%d, %s: %.1f us per path", name, settings.getWidth(),
+                    settings.getHeight(), pathFinding, elapsed / 1000.0 / paths));
+        }
+    }
+
+    /**
+     * Find the direction an enemy on one cell would take towards the user on another
+     * @param enemy The enemy
+     * @param user The user
+     * @param level The level
+     * @param start The cell the enemy is on
+     * @param target The cell the user is on
+     */
+    private static void findPath(SmartTargetingEnemy enemy, User user, Level level, Cell start, Cell target) {
+        enemy.setCurrentCell(start);
+        user.setCurrentCell(target);
+        enemy.getNextDirection(user, level);
+    }
+}
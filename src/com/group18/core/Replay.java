@@ -0,0 +1,233 @@
+package com.group18.core;
+
+import com.group18.model.Direction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * A recording of a game played on a base level. As the enemies' random choices all come from the
+ * game's seed, the seed and the user's moves are all that is needed to play the game again exactly.
+ * Each move is stored in two bits, so a thousand turns take up only 250 bytes.
+ *
+ * @author agent
+ */
+public class Replay {
+
+    /**
+     * The directory which will hold all recorded replay files
+     */
+    public static final String REPLAY_DIRECTORY = "./src/resources/replays/";
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("Replay");
+
+    /**
+     * The first four bytes of every replay file
+     */
+    private static final int MAGIC = 0x4A535250;
+
+    /**
+     * The version of the replay file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The number of moves packed into each word
+     */
+    private static final int MOVES_PER_WORD = Long.SIZE / 2;
+
+    /**
+     * The directions a move can be in, indexed by their two bit code
+     */
+    private static final Direction[] MOVES = {Direction.LEFT, Direction.RIGHT, Direction.UP, Direction.DOWN};
+
+    /**
+     * The level number this replay was recorded on
+     */
+    private final int levelNumber;
+
+    /**
+     * The seed the enemies of the level were given
+     */
+    private final long seed;
+
+    /**
+     * The recorded moves, packed two bits per move
+     */
+    private long[] moves;
+
+    /**
+     * The number of moves recorded
+     */
+    private int moveCount;
+
+    /**
+     * Creates a new, empty replay
+     * @param levelNumber The level number being recorded
+     * @param seed The seed the enemies of the level were given
+     */
+    public Replay(int levelNumber, long seed) {
+        this(levelNumber, seed, new long[16], 0);
+    }
+
+    /**
+     * Creates a replay from moves that have already been recorded
+     * @param levelNumber The level number that was recorded
+     * @param seed The seed the enemies of the level were given
+     * @param moves The recorded moves, packed two bits per move
+     * @param moveCount The number of moves recorded
+     */
+    private Replay(int levelNumber, long seed, long[] moves, int moveCount) {
+        this.levelNumber = levelNumber;
+        this.seed = seed;
+        this.moves = moves;
+        this.moveCount = moveCount;
+    }
+
+    /**
+     * Get the level number this replay was recorded on
+     * @return The level number
+     */
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * Get the seed the enemies of the level were given
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the number of moves recorded
+     * @return The number of moves
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * Record a move the user has made
+     * @param direction The direction the user moved in
+     */
+    public void record(Direction direction) {
+        if (direction == Direction.IDLE) {
+            throw new IllegalArgumentException("The user can not make an idle move");
+        }
+
+        int word = moveCount / MOVES_PER_WORD;
+        if (word == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+
+        moves[word] |= (long) direction.ordinal() << shiftOf(moveCount);
+        moveCount++;
+    }
+
+    /**
+     * Get a recorded move
+     * @param index The index of the move
+     * @return The direction the user moved in
+     */
+    public Direction getMove(int index) {
+        if (index < 0 || index >= moveCount) {
+            throw new IndexOutOfBoundsException("There is no move " + index + " in this replay");
+        }
+
+        return MOVES[(int) (moves[index / MOVES_PER_WORD] >>> shiftOf(index)) & 3];
+    }
+
+    /**
+     * Save this replay to a file, creating the file's directory if needed
+     * @param fileName The file to be saved to
+     */
+    public void save(String fileName) {
+        Path path = Paths.get(fileName);
+        int words = (moveCount + MOVES_PER_WORD - 1) / MOVES_PER_WORD;
+
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+
+            try (DataOutputStream out =
+                         new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(levelNumber);
+                out.writeLong(seed);
+                out.writeInt(moveCount);
+                for (int i = 0; i < words; i++) {
+                    out.writeLong(moves[i]);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "There was a problem saving this replay: " + fileName, ex);
+        }
+    }
+
+    /**
+     * Load a replay from a file
+     * @param fileName The file to be loaded
+     * @return The replay
+     * @throws IOException If the file can not be read, or is not a replay file
+     */
+    public static Replay load(String fileName) throws IOException {
+        try (DataInputStream in =
+                     new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(fileName))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(fileName + " is not a replay file");
+            }
+
+            int levelNumber = in.readInt();
+            long seed = in.readLong();
+            int moveCount = in.readInt();
+            if (moveCount < 0) {
+                throw new IOException(fileName + " has an invalid number of moves");
+            }
+
+            int words = (moveCount + MOVES_PER_WORD - 1) / MOVES_PER_WORD;
+            long[] moves = new long[Math.max(1, words)];
+            for (int i = 0; i < words; i++) {
+                moves[i] = in.readLong();
+            }
+
+            return new Replay(levelNumber, seed, moves, moveCount);
+        }
+    }
+
+    /**
+     * Get the name of a new replay file for a user's game
+     * @param username The user's username
+     * @param levelNumber The level number that was played
+     * @return The file name
+     */
+    public static String getFileName(String username, int levelNumber) {
+        return String.format("%s%s-level%d-%d.replay",
+                REPLAY_DIRECTORY, username, levelNumber, System.currentTimeMillis());
+    }
+
+    /**
+     * Get the position of a move within its word
+     * @param index The index of the move
+     * @return The number of bits the move is shifted by
+     */
+    private static int shiftOf(int index) {
+        return (index % MOVES_PER_WORD) * 2;
+    }
+}
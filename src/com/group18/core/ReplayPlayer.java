@@ -0,0 +1,69 @@
+package com.group18.core;
+
+import com.group18.exception.InvalidMoveException;
+import com.group18.model.GameSimulation;
+import com.group18.model.Level;
+import com.group18.model.State;
+import com.group18.model.entity.User;
+
+import java.io.IOException;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Plays recorded replays back as fast as possible, with no game window, so the outcome of a
+ * reported game can be reproduced. Run with the replay files to be played as arguments.
+ *
+ * @author agent
+ */
+public class ReplayPlayer {
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("ReplayPlayer");
+
+    /**
+     * Play back each replay file given, printing the outcome of each one
+     * @param args The replay files to be played
+     */
+    public static void main(String[] args) {
+        for (String fileName : args) {
+            try {
+                Replay replay = Replay.load(fileName);
+                GameSimulation simulation = play(replay);
+                System.out.println(String.format("%s: level %d, %d of %d moves played, %s",
+                        fileName, replay.getLevelNumber(), simulation.getTurns(),
+                        replay.getMoveCount(), simulation.getState()));
+            } catch (IOException ex) {
+                LOGGER.log(WARNING, "There was a problem loading this replay: " + fileName, ex);
+            } catch (InvalidMoveException ex) {
+                LOGGER.log(WARNING, "This replay no longer matches its level: " + fileName, ex);
+            }
+        }
+    }
+
+    /**
+     * Play a replay from the start of its level, until every move is played or the game has ended
+     * @param replay The replay to be played
+     * @return The simulation of the game, once it has finished
+     * @throws InvalidMoveException If a recorded move can not be made, as the level or rules have changed
+     */
+    public static GameSimulation play(Replay replay) throws InvalidMoveException {
+        User user = new User("replay");
+        while (user.getHighestLevel() < replay.getLevelNumber()) {
+            user.incrementLevel();
+        }
+
+        Level level = LevelLoader.loadLevel(replay.getLevelNumber(), user);
+        level.seedEnemies(replay.getSeed());
+
+        GameSimulation simulation = new GameSimulation(level, user);
+        for (int i = 0; i < replay.getMoveCount() && simulation.getState() == State.IN_PROGRESS; i++) {
+            simulation.step(replay.getMove(i));
+        }
+
+        return simulation;
+    }
+}
@@ -1,5 +1,8 @@
 package com.group18.core;
 
+import com.group18.animation.SpriteSheet;
+import javafx.scene.image.Image;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,13 +19,34 @@ public class ResourceRepository {
      */
     private static final Map<String, String> ASSET_RESOURCES = new HashMap<>();
 
+    /**
+     * Caches each asset image once it has been decoded, so it can be shared between views
+     */
+    private static final Map<String, Image> IMAGE_CACHE = new HashMap<>();
+
     /**
      * The directory in which all assets are held
      */
     private static final String ASSET_DIRECTORY = "resources/assets";
 
     /**
-     * Injects all the required resource links into the HashMap
+     * The animations of the user packed into the user's sprite sheet
+     */
+    private static final String[] USER_ANIMATIONS = {"Idle", "Walk", "WalkPistol", "WalkRifle"};
+
+    /**
+     * The number of frames in each of the user's animations
+     */
+    private static final int USER_ANIMATION_FRAMES = 25;
+
+    /**
+     * The sprite sheet holding every frame of the user's animations
+     */
+    private static SpriteSheet userSpriteSheet;
+
+    /**
+     * Injects all the required resource links into the HashMap, and packs the user's
+     * animation frames into their sprite sheet
      */
     public static void createResourceMap() {
         ASSET_RESOURCES.put("User-Idle", ASSET_DIRECTORY + "/Player/Idle/PlayerIdle.gif");
@@ -55,6 +79,8 @@ public class ResourceRepository {
         ASSET_RESOURCES.put("Token", ASSET_DIRECTORY + "/Item/Token.gif");
         ASSET_RESOURCES.put("IceSkates", ASSET_DIRECTORY + "/Item/IceSkates.png");
 
+        userSpriteSheet = SpriteSheet.pack(ASSET_DIRECTORY + "/Player", "Player",
+                USER_ANIMATIONS, USER_ANIMATION_FRAMES);
     }
 
     /**
@@ -66,4 +92,21 @@ public class ResourceRepository {
         return ASSET_RESOURCES.get(className);
     }
 
+    /**
+     * Get's the sprite sheet holding every frame of the user's animations
+     * @return The user's sprite sheet
+     */
+    public static SpriteSheet getUserSpriteSheet() {
+        return userSpriteSheet;
+    }
+
+    /**
+     * Get's the decoded image of a specific resource, only decoding it the first time it's requested
+     * @param className The class name of the resource
+     * @return The image of the resource
+     */
+    public static Image getImage(String className) {
+        return IMAGE_CACHE.computeIfAbsent(className, name -> new Image(getResource(name)));
+    }
+
 }
@@ -0,0 +1,272 @@
+package com.group18.generator;
+
+/**
+ * The settings used to generate a level. The densities give the chance of each cell off the
+ * solution path being a wall, element, door, item or enemy, and the weights decide how often
+ * each type of enemy is chosen.
+ *
+ * @author agent
+ */
+public class GeneratorSettings {
+
+    /**
+     * The smallest width a generated level can have
+     */
+    static final int MIN_WIDTH = 4;
+
+    /**
+     * The smallest height a generated level can have
+     */
+    static final int MIN_HEIGHT = 3;
+
+    /**
+     * The width of the level
+     */
+    private int width = 64;
+
+    /**
+     * The height of the level
+     */
+    private int height = 64;
+
+    /**
+     * The seed of the random choices made, so the same settings always generate the same level
+     */
+    private long seed;
+
+    /**
+     * The chance of a cell being a wall
+     */
+    private double wallDensity = 0.3;
+
+    /**
+     * The chance of a cell being an element cell
+     */
+    private double elementDensity = 0.05;
+
+    /**
+     * The chance of a cell being a colour or token door
+     */
+    private double doorDensity = 0.02;
+
+    /**
+     * The chance of a ground cell having an item on it
+     */
+    private double itemDensity = 0.03;
+
+    /**
+     * The chance of an empty ground cell having an enemy on it
+     */
+    private double enemyDensity = 0.01;
+
+    /**
+     * How often each type of enemy is chosen, in the order straight line, smart targeting,
+     * wall following and dumb targeting
+     */
+    private double[] enemyWeights = {1, 1, 1, 1};
+
+    /**
+     * Get the width of the level
+     * @return The width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Set the width of the level
+     * @param width The new width
+     * @return These settings
+     */
+    public GeneratorSettings setWidth(int width) {
+        if (width < MIN_WIDTH) {
+            throw new IllegalArgumentException("A level must be at least " + MIN_WIDTH + " cells wide");
+        }
+        this.width = width;
+        return this;
+    }
+
+    /**
+     * Get the height of the level
+     * @return The height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Set the height of the level
+     * @param height The new height
+     * @return These settings
+     */
+    public GeneratorSettings setHeight(int height) {
+        if (height < MIN_HEIGHT) {
+            throw new IllegalArgumentException("A level must be at least " + MIN_HEIGHT + " cells high");
+        }
+        this.height = height;
+        return this;
+    }
+
+    /**
+     * Get the seed of the random choices made
+     * @return The seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Set the seed of the random choices made
+     * @param seed The new seed
+     * @return These settings
+     */
+    public GeneratorSettings setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Get the chance of a cell being a wall
+     * @return The wall density
+     */
+    public double getWallDensity() {
+        return wallDensity;
+    }
+
+    /**
+     * Set the chance of a cell being a wall
+     * @param wallDensity The new wall density
+     * @return These settings
+     */
+    public GeneratorSettings setWallDensity(double wallDensity) {
+        this.wallDensity = checkDensity(wallDensity);
+        return this;
+    }
+
+    /**
+     * Get the chance of a cell being an element cell
+     * @return The element density
+     */
+    public double getElementDensity() {
+        return elementDensity;
+    }
+
+    /**
+     * Set the chance of a cell being an element cell
+     * @param elementDensity The new element density
+     * @return These settings
+     */
+    public GeneratorSettings setElementDensity(double elementDensity) {
+        this.elementDensity = checkDensity(elementDensity);
+        return this;
+    }
+
+    /**
+     * Get the chance of a cell being a door
+     * @return The door density
+     */
+    public double getDoorDensity() {
+        return doorDensity;
+    }
+
+    /**
+     * Set the chance of a cell being a door
+     * @param doorDensity The new door density
+     * @return These settings
+     */
+    public GeneratorSettings setDoorDensity(double doorDensity) {
+        this.doorDensity = checkDensity(doorDensity);
+        return this;
+    }
+
+    /**
+     * Get the chance of a ground cell having an item on it
+     * @return The item density
+     */
+    public double getItemDensity() {
+        return itemDensity;
+    }
+
+    /**
+     * Set the chance of a ground cell having an item on it
+     * @param itemDensity The new item density
+     * @return These settings
+     */
+    public GeneratorSettings setItemDensity(double itemDensity) {
+        this.itemDensity = checkDensity(itemDensity);
+        return this;
+    }
+
+    /**
+     * Get the chance of an empty ground cell having an enemy on it
+     * @return The enemy density
+     */
+    public double getEnemyDensity() {
+        return enemyDensity;
+    }
+
+    /**
+     * Set the chance of an empty ground cell having an enemy on it
+     * @param enemyDensity The new enemy density
+     * @return These settings
+     */
+    public GeneratorSettings setEnemyDensity(double enemyDensity) {
+        this.enemyDensity = checkDensity(enemyDensity);
+        return this;
+    }
+
+    /**
+     * Get how often each type of enemy is chosen
+     * @return The weights of straight line, smart targeting, wall following and dumb targeting enemies
+     */
+    public double[] getEnemyWeights() {
+        return enemyWeights.clone();
+    }
+
+    /**
+     * Set how often each type of enemy is chosen
+     * @param straightLine The weight of straight line enemies
+     * @param smartTargeting The weight of smart targeting enemies
+     * @param wallFollowing The weight of wall following enemies
+     * @param dumbTargeting The weight of dumb targeting enemies
+     * @return These settings
+     */
+    public GeneratorSettings setEnemyWeights(double straightLine, double smartTargeting,
+                                             double wallFollowing, double dumbTargeting) {
+        double[] weights = {straightLine, smartTargeting, wallFollowing, dumbTargeting};
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("An enemy weight can not be negative");
+            }
+            total += weight;
+        }
+
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one type of enemy must have a weight");
+        }
+        this.enemyWeights = weights;
+        return this;
+    }
+
+    /**
+     * Check a density is a valid chance
+     * @param density The density
+     * @return The density
+     */
+    private double checkDensity(double density) {
+        if (density < 0 || density > 1) {
+            throw new IllegalArgumentException("A density must be between 0 and 1");
+        }
+        return density;
+    }
+
+    /**
+     * Check the wall, element and door densities leave room for ground cells
+     */
+    void validate() {
+        if (wallDensity + elementDensity + doorDensity > 1) {
+            throw new IllegalArgumentException("The wall, element and door densities add up to more than 1");
+        }
+    }
+}
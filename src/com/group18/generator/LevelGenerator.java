@@ -0,0 +1,407 @@
+package com.group18.generator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates levels of any size in the level file format read by LevelLoader, for testing how the
+ * game copes with huge boards. The level is written one row at a time, so only a single row is
+ * ever held in memory.
+ *
+ * Every level can be solved. A path snakes through the odd rows of the board, from the user in
+ * the top left corner to the goal at the end of the last path row. Along the path, a key is always
+ * placed before the colour door it opens, enough tokens before each token door and an element item
+ * before the first element cell of its type. The rest of the board is filled at random using the
+ * densities of the settings. Teleporters are not generated.
+ *
+ * @author agent
+ */
+public class LevelGenerator {
+
+    /**
+     * The codes of each colour of door, in the order of the Colour enum
+     */
+    private static final String[] DOOR_CODES = {"RD", "GD", "BD", "YD"};
+
+    /**
+     * The codes of each colour of key, in the order of the Colour enum
+     */
+    private static final String[] KEY_CODES = {"RKI", "GKI", "BKI", "YKI"};
+
+    /**
+     * The codes of each element cell, in the order of the ElementItem enum
+     */
+    private static final String[] ELEMENT_CODES = {"WTC", "FC", "IC"};
+
+    /**
+     * The codes of each element item, in the order of the ElementItem enum
+     */
+    private static final String[] ELEMENT_ITEM_CODES = {"FI", "FBI", "ISI"};
+
+    /**
+     * The index of ice in the element codes
+     */
+    private static final int ICE = 2;
+
+    /**
+     * The codes of each enemy, in the order of the settings' enemy weights
+     */
+    private static final String[] ENEMY_CODES = {"SLE", "STE", "WFE", "DTE"};
+
+    /**
+     * The codes of each direction an enemy can start facing
+     */
+    private static final String[] DIRECTION_CODES = {"L", "R", "U", "D"};
+
+    /**
+     * The largest number of tokens a token door can need, as the level format holds a single digit
+     */
+    private static final int MAX_DOOR_TOKENS = 9;
+
+    /**
+     * The settings of the level being generated
+     */
+    private final GeneratorSettings settings;
+
+    /**
+     * The source of every random choice
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The code of each cell in the current row
+     */
+    private final String[] cells;
+
+    /**
+     * The code of the item on each cell in the current row, or "X" for no item
+     */
+    private final String[] items;
+
+    /**
+     * The entity line of each cell in the current row, or null for no entity
+     */
+    private final String[] entities;
+
+    /**
+     * The number of keys of each colour collected along the path and not yet used on a door
+     */
+    private final int[] keysHeld = new int[DOOR_CODES.length];
+
+    /**
+     * The element items collected along the path
+     */
+    private final boolean[] elementItemsHeld = new boolean[ELEMENT_CODES.length];
+
+    /**
+     * The number of tokens collected along the path
+     */
+    private int tokensHeld;
+
+    /**
+     * Creates a new level generator
+     * @param settings The settings of the level to be generated
+     */
+    public LevelGenerator(GeneratorSettings settings) {
+        settings.validate();
+        this.settings = settings;
+        this.random = new SplittableRandom(settings.getSeed());
+        this.cells = new String[settings.getWidth()];
+        this.items = new String[settings.getWidth()];
+        this.entities = new String[settings.getWidth()];
+    }
+
+    /**
+     * Generate the level into a file
+     * @param fileName The file the level will be written to
+     * @throws IOException If the file can not be written
+     */
+    public void generate(String fileName) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(fileName))) {
+            generate(writer);
+        }
+    }
+
+    /**
+     * Generate the level, writing each row as soon as it has been decided
+     * @param writer The writer the level will be written to
+     * @throws IOException If the level can not be written
+     */
+    public void generate(Writer writer) throws IOException {
+        int width = settings.getWidth();
+        int height = settings.getHeight();
+        BufferedWriter out = writer instanceof BufferedWriter ?
+                (BufferedWriter) writer : new BufferedWriter(writer, 1 << 16);
+
+        out.write(height + "," + width);
+        out.newLine();
+
+        int lastPathRow = (height - 2) % 2 == 1 ? height - 2 : height - 3;
+        for (int row = 0; row < height; row++) {
+            Arrays.fill(items, "X");
+            Arrays.fill(entities, null);
+
+            if (row == 0 || row == height - 1) {
+                Arrays.fill(cells, "WC");
+            } else if (row % 2 == 1 && row <= lastPathRow) {
+                fillPathRow(row, row == lastPathRow);
+            } else {
+                fillRandomRow();
+                if (row < lastPathRow) {
+                    // The path turns down through this row, at the end of the row above
+                    int column = isRightwards(row - 1) ? width - 2 : 1;
+                    cells[column] = "GC";
+                    items[column] = "X";
+                    entities[column] = null;
+                }
+            }
+
+            writeRow(out);
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Check which way the path goes along a path row
+     * @param row The path row
+     * @return Boolean value suggesting if the path goes from left to right
+     */
+    private static boolean isRightwards(int row) {
+        return (row / 2) % 2 == 0;
+    }
+
+    /**
+     * Fill a row the path goes along, deciding each path cell in the order the user reaches them
+     * @param row The path row
+     * @param lastRow True if this is the last row of the path, ending at the goal
+     */
+    private void fillPathRow(int row, boolean lastRow) {
+        int width = settings.getWidth();
+        cells[0] = "WC";
+        cells[width - 1] = "WC";
+
+        boolean rightwards = isRightwards(row);
+        boolean previousIce = false;
+        for (int step = 0; step < width - 2; step++) {
+            int column = rightwards ? 1 + step : width - 2 - step;
+
+            if (row == 1 && step == 0) {
+                cells[column] = "GC";
+                entities[column] = "U," + (rightwards ? "R" : "L");
+            } else if (lastRow && step == width - 3) {
+                cells[column] = "GOC";
+            } else {
+                // Ice is never entered from above, and never next to more ice, so the user
+                // can never slide off the path
+                previousIce = fillPathCell(column, step > 0 && !previousIce);
+            }
+        }
+    }
+
+    /**
+     * Decide a single cell of the path, only placing doors and element cells the user can get through
+     * with the items collected before it
+     * @param column The column of the cell
+     * @param iceAllowed True if the cell may be an ice cell
+     * @return Boolean value suggesting if the cell is an ice cell
+     */
+    private boolean fillPathCell(int column, boolean iceAllowed) {
+        cells[column] = "GC";
+        double roll = random.nextDouble();
+
+        if (roll < settings.getDoorDensity()) {
+            int colour = randomHeldKey();
+            if (colour >= 0) {
+                keysHeld[colour]--;
+                cells[column] = DOOR_CODES[colour];
+            } else if (tokensHeld > 0) {
+                cells[column] = "TD" + (1 + random.nextInt(Math.min(tokensHeld, MAX_DOOR_TOKENS)));
+            }
+            return false;
+        }
+
+        roll -= settings.getDoorDensity();
+        if (roll < settings.getElementDensity()) {
+            int element = random.nextInt(ELEMENT_CODES.length);
+            if (elementItemsHeld[element] && (element != ICE || iceAllowed)) {
+                cells[column] = ELEMENT_CODES[element];
+                return element == ICE;
+            }
+            return false;
+        }
+
+        if (random.nextDouble() < settings.getItemDensity()) {
+            int item = random.nextInt(KEY_CODES.length + 1 + ELEMENT_ITEM_CODES.length);
+            if (item < KEY_CODES.length) {
+                keysHeld[item]++;
+                items[column] = KEY_CODES[item];
+            } else if (item == KEY_CODES.length) {
+                tokensHeld++;
+                items[column] = "TKI";
+            } else {
+                elementItemsHeld[item - KEY_CODES.length - 1] = true;
+                items[column] = ELEMENT_ITEM_CODES[item - KEY_CODES.length - 1];
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Choose a random colour of key collected along the path and not yet used
+     * @return The colour of the key, or -1 if no key is held
+     */
+    private int randomHeldKey() {
+        int colours = 0;
+        for (int keys : keysHeld) {
+            if (keys > 0) {
+                colours++;
+            }
+        }
+
+        if (colours == 0) {
+            return -1;
+        }
+
+        int choice = random.nextInt(colours);
+        for (int colour = 0; colour < keysHeld.length; colour++) {
+            if (keysHeld[colour] > 0 && choice-- == 0) {
+                return colour;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Fill a row off the path at random
+     */
+    private void fillRandomRow() {
+        int width = settings.getWidth();
+        cells[0] = "WC";
+        cells[width - 1] = "WC";
+
+        for (int column = 1; column < width - 1; column++) {
+            fillRandomCell(column);
+        }
+    }
+
+    /**
+     * Decide a single cell off the path at random
+     * @param column The column of the cell
+     */
+    private void fillRandomCell(int column) {
+        double roll = random.nextDouble();
+
+        if (roll < settings.getWallDensity()) {
+            cells[column] = "WC";
+            return;
+        }
+
+        roll -= settings.getWallDensity();
+        if (roll < settings.getElementDensity()) {
+            cells[column] = ELEMENT_CODES[random.nextInt(ELEMENT_CODES.length)];
+            return;
+        }
+
+        roll -= settings.getElementDensity();
+        if (roll < settings.getDoorDensity()) {
+            int door = random.nextInt(DOOR_CODES.length + 1);
+            cells[column] = door < DOOR_CODES.length ?
+                    DOOR_CODES[door] : "TD" + (1 + random.nextInt(MAX_DOOR_TOKENS));
+            return;
+        }
+
+        cells[column] = "GC";
+        if (random.nextDouble() < settings.getItemDensity()) {
+            int item = random.nextInt(KEY_CODES.length + 1 + ELEMENT_ITEM_CODES.length);
+            if (item < KEY_CODES.length) {
+                items[column] = KEY_CODES[item];
+            } else if (item == KEY_CODES.length) {
+                items[column] = "TKI";
+            } else {
+                items[column] = ELEMENT_ITEM_CODES[item - KEY_CODES.length - 1];
+            }
+        } else if (random.nextDouble() < settings.getEnemyDensity()) {
+            entities[column] = randomEnemy() + "," + DIRECTION_CODES[random.nextInt(DIRECTION_CODES.length)];
+        }
+    }
+
+    /**
+     * Choose a random type of enemy, using the settings' enemy weights
+     * @return The code of the enemy
+     */
+    private String randomEnemy() {
+        double[] weights = settings.getEnemyWeights();
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        double roll = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return ENEMY_CODES[i];
+            }
+        }
+
+        return ENEMY_CODES[ENEMY_CODES.length - 1];
+    }
+
+    /**
+     * Write the current row, each cell followed by its entity line if it has one
+     * @param out The writer the level is written to
+     * @throws IOException If the row can not be written
+     */
+    private void writeRow(BufferedWriter out) throws IOException {
+        for (int column = 0; column < cells.length; column++) {
+            out.write(cells[column]);
+            out.write(entities[column] == null ? ",0," : ",1,");
+            out.write(items[column]);
+            out.newLine();
+
+            if (entities[column] != null) {
+                out.write(entities[column]);
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Generate a level from the command line. The arguments are the width, height, seed and file
+     * name, optionally followed by the wall, element, door, item and enemy densities.
+     * @param args The command line arguments
+     * @throws IOException If the level can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage: LevelGenerator width height seed file "
+                    + "[wallDensity elementDensity doorDensity itemDensity enemyDensity]");
+            return;
+        }
+
+        GeneratorSettings settings = new GeneratorSettings()
+                .setWidth(Integer.parseInt(args[0]))
+                .setHeight(Integer.parseInt(args[1]))
+                .setSeed(Long.parseLong(args[2]));
+        if (args.length >= 9) {
+            settings.setWallDensity(Double.parseDouble(args[4]))
+                    .setElementDensity(Double.parseDouble(args[5]))
+                    .setDoorDensity(Double.parseDouble(args[6]))
+                    .setItemDensity(Double.parseDouble(args[7]))
+                    .setEnemyDensity(Double.parseDouble(args[8]));
+        }
+
+        long start = System.currentTimeMillis();
+        new LevelGenerator(settings).generate(args[3]);
+        System.out.println(String.format("Generated a %dx%d level in %d ms",
+                settings.getWidth(), settings.getHeight(), System.currentTimeMillis() - start));
+    }
+}
@@ -0,0 +1,134 @@
+package com.group18.model;
+
+import com.group18.exception.InvalidMoveException;
+import com.group18.model.cell.Cell;
+import com.group18.model.cell.Goal;
+import com.group18.model.entity.EnemyStore;
+import com.group18.model.entity.User;
+
+/**
+ * Plays the turns of a level without a game window. Each turn follows the same rules as the game:
+ * the user moves, then every enemy decides its direction and is moved in turn, with the level being
+ * won on reaching the goal and lost on sharing a cell with an enemy or walking into an element.
+ *
+ * @author agent
+ */
+public class GameSimulation implements LevelListener {
+
+    /**
+     * The level being played
+     */
+    private final Level level;
+
+    /**
+     * The user playing the level
+     */
+    private final User user;
+
+    /**
+     * The enemies on the level, in board order
+     */
+    private final EnemyStore enemies;
+
+    /**
+     * The current state of the game
+     */
+    private State state;
+
+    /**
+     * The number of turns that have been played
+     */
+    private int turns;
+
+    /**
+     * Creates a new simulation of a level, which has just been loaded
+     * @param level The level to be played
+     * @param user The user playing the level
+     */
+    public GameSimulation(Level level, User user) {
+        this.level = level;
+        this.user = user;
+        this.enemies = new EnemyStore(level, level.getEnemies());
+        this.state = State.IN_PROGRESS;
+        level.addListener(this);
+    }
+
+    /**
+     * Play a single turn, moving the user and then every enemy
+     * @param direction The direction the user moves in
+     * @return The state of the game once the turn is over
+     * @throws InvalidMoveException If the user is unable to move in that direction
+     */
+    public State step(Direction direction) throws InvalidMoveException {
+        if (state != State.IN_PROGRESS) {
+            return state;
+        }
+
+        level.movePlayer(user, direction);
+        turns++;
+
+        if (state == State.IN_PROGRESS) {
+            Cell userCell = user.getCurrentCell();
+            if (userCell instanceof Goal) {
+                state = State.LEVEL_WON;
+            } else if (userCell.hasPlayerAndEnemy()) {
+                state = State.LEVEL_LOST;
+            } else {
+                moveEnemies();
+            }
+        }
+
+        return state;
+    }
+
+    /**
+     * Choose to put enemies far from the user to sleep, which changes how the game plays out. A
+     * replay must be played with the same radius it was recorded with.
+     * @param cullingRadius The radius in chunks around the user's chunk, or EnemyStore.NO_CULLING
+     *                      to keep every enemy awake, as it is by default
+     */
+    public void setCullingRadius(int cullingRadius) {
+        enemies.setCullingRadius(cullingRadius);
+    }
+
+    /**
+     * Get the current state of the game
+     * @return The game state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Get the number of turns that have been played
+     * @return The number of turns
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * The user has walked into an element without its item
+     * @param message The reason the level was lost
+     */
+    @Override
+    public void levelLost(String message) {
+        state = State.LEVEL_LOST;
+    }
+
+    /**
+     * Decide the direction of every enemy, then move each one in order, stopping if one catches the user
+     */
+    private void moveEnemies() {
+        Direction[] directions = enemies.decide(user);
+
+        for (int i = 0; i < directions.length; i++) {
+            enemies.move(i, directions[i]);
+
+            if (enemies.getEnemy(i).getCurrentCell().hasPlayerAndEnemy()) {
+                state = State.LEVEL_LOST;
+                return;
+            }
+        }
+    }
+}
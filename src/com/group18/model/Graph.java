@@ -17,9 +17,9 @@ import java.util.stream.Collectors;
 public class Graph {
 
     /**
-     * The set of all unique nodes in our graph
+     * The unique nodes in our graph, by the point each node holds
      */
-    private Set<Node> nodes;
+    private Map<Point, Node> nodes;
 
     /**
      * Holds each node's set of connections
@@ -46,14 +46,16 @@ public class Graph {
     }
 
     /**
-     * Gets all connections from a specific node
+     * Gets all connections from a specific node, always in the same order for the same node. Cells
+     * hash by identity, which differs from thread to thread, so they're kept in the order of their
+     * points rather than in a hash set of cells.
      * @param node The node we want connections from
      * @return A set of node connections
      */
     public Set<Node> getConnections(Node node) {
         return connections.get(node.getPosition()).stream()
                 .map(this::getNode)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
     /**
@@ -62,14 +64,14 @@ public class Graph {
      * @param points All possible (x,y) points in the level
      */
     private void setNodes(Level level, List<Point> points) {
-        Set<Node> nodes = new HashSet<>();
+        Map<Point, Node> nodes = new HashMap<>();
         Cell[][] cells = level.getBoard();
 
         for (int i = 0; i < level.getBoardHeight(); i++) {
-            for (int j = 0; j < level.getBoardHeight(); j++) {
+            for (int j = 0; j < level.getBoardWidth(); j++) {
                 Cell cell = cells[i][j];
                 points.add(cell.getPosition());
-                nodes.add(cell);
+                nodes.put(cell.getPosition(), cell);
             }
         }
 
@@ -82,10 +84,12 @@ public class Graph {
      * @return The desired node
      */
     private Node getNode(Point point) {
-        return nodes.stream()
-                .filter(node -> node.getPosition().equals(point))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("No node found with that Point"));
+        Node node = nodes.get(point);
+        if (node == null) {
+            throw new IllegalArgumentException("No node found with that Point");
+        }
+
+        return node;
     }
 
     /**
@@ -103,22 +107,22 @@ public class Graph {
                 Set<Point> pointSet = new HashSet<>();
 
                 if (i > 0) {
-                    pointSet.add(points.get(((i*height) + j) - height));
+                    pointSet.add(points.get(((i*width) + j) - width));
                 }
 
                 if (i < height-1) {
-                    pointSet.add(points.get(((i*height) + j) + height));
+                    pointSet.add(points.get(((i*width) + j) + width));
                 }
 
                 if (j > 0) {
-                    pointSet.add(points.get(((i*height) + j) - 1));
+                    pointSet.add(points.get(((i*width) + j) - 1));
                 }
 
                 if (j < width-1) {
-                    pointSet.add(points.get(((i*height) + j) + 1));
+                    pointSet.add(points.get(((i*width) + j) + 1));
                 }
 
-                connections.put(points.get((i*height) + j), pointSet);
+                connections.put(points.get((i*width) + j), pointSet);
             }
         }
 
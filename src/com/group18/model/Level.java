@@ -1,17 +1,28 @@
 package com.group18.model;
 
-import com.group18.controller.GameController;
 import com.group18.exception.InvalidLevelException;
 import com.group18.exception.InvalidMoveException;
+import com.group18.model.board.ArrayBoard;
+import com.group18.model.board.Board;
 import com.group18.model.cell.*;
 import com.group18.model.entity.Enemy;
 import com.group18.model.entity.Entity;
 import com.group18.model.entity.User;
+import com.group18.model.item.Collectable;
+import com.group18.model.navigation.ClusterGraph;
+import com.group18.model.navigation.GreedyPathFinder;
+import com.group18.model.navigation.JumpPointSearch;
+import com.group18.model.navigation.Landmarks;
+import com.group18.model.navigation.NeighbourMasks;
+import com.group18.model.navigation.PathFinder;
+import com.group18.model.navigation.PathFinding;
 
 import java.awt.Point;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 import static java.util.logging.Level.WARNING;
@@ -30,11 +41,17 @@ public class Level {
      */
     private static final Logger LOGGER = Logger.getLogger("Level");
 
+    /**
+     * Levels with at least this many cells use a cluster graph for enemy paths, instead of
+     * searching the whole graph
+     */
+    public static final int CLUSTER_GRAPH_MIN_CELLS = 64 * 64;
+
 
     /**
      * The board for this level, holding Level.rows x Level.columns of cells.
      */
-    private final Cell[][] board;
+    private final Board board;
 
     /**
      * The width of the board
@@ -51,37 +68,326 @@ public class Level {
      */
     private Graph graph;
 
+    /**
+     * The walkable and wall masks of each cell's neighbours, used by wall following enemies
+     */
+    private final NeighbourMasks neighbourMasks;
+
+    /**
+     * Where the user stops when sliding across ice, from every cell in every direction
+     */
+    private final SlideTable slideTable;
+
+    /**
+     * The partner of each teleporter on the board
+     */
+    private final TeleporterIndex teleporters;
+
+    /**
+     * The way paths are found for enemies on this level
+     */
+    private PathFinding pathFinding;
+
+    /**
+     * The path finder used for enemy paths, or null if the level's graph is searched with A*
+     */
+    private PathFinder pathFinder;
+
+    /**
+     * The landmarks used to estimate distances when the level's graph is searched with A*,
+     * or null if paths are found another way
+     */
+    private Landmarks landmarks;
+
     /**
      * The level number associated with this Level
      */
     private int currentLevel;
 
+    /**
+     * The listeners told about each event that happens on this level
+     */
+    private final List<LevelListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Passes each event on to every listener of this level
+     */
+    private final LevelListener events = new LevelListener() {
+        @Override
+        public void userBlocked(Direction direction) {
+            for (LevelListener listener : listeners) {
+                listener.userBlocked(direction);
+            }
+        }
+
+        @Override
+        public void itemCollected(Point point, Collectable item) {
+            for (LevelListener listener : listeners) {
+                listener.itemCollected(point, item);
+            }
+        }
+
+        @Override
+        public void tokensChanged(int tokens) {
+            for (LevelListener listener : listeners) {
+                listener.tokensChanged(tokens);
+            }
+        }
+
+        @Override
+        public void inventoryChanged() {
+            for (LevelListener listener : listeners) {
+                listener.inventoryChanged();
+            }
+        }
+
+        @Override
+        public void doorOpened(Point point) {
+            for (LevelListener listener : listeners) {
+                listener.doorOpened(point);
+            }
+        }
+
+        @Override
+        public void cellReplaced(Point point) {
+            for (LevelListener listener : listeners) {
+                listener.cellReplaced(point);
+            }
+        }
+
+        @Override
+        public void elementEntered(ElementType elementType) {
+            for (LevelListener listener : listeners) {
+                listener.elementEntered(elementType);
+            }
+        }
+
+        @Override
+        public void userSlid(Point from, Point to) {
+            for (LevelListener listener : listeners) {
+                listener.userSlid(from, to);
+            }
+        }
+
+        @Override
+        public void userTeleported(Point point) {
+            for (LevelListener listener : listeners) {
+                listener.userTeleported(point);
+            }
+        }
+
+        @Override
+        public void entityMoved(Entity entity, Point from, Point to) {
+            for (LevelListener listener : listeners) {
+                listener.entityMoved(entity, from, to);
+            }
+        }
+
+        @Override
+        public void levelLost(String message) {
+            for (LevelListener listener : listeners) {
+                listener.levelLost(message);
+            }
+        }
+    };
+
     /**
      * Creates a new level
      * @param board The board for this level.
      * @param level The level number
      */
     public Level(Cell[][] board, int level) {
+        this(new ArrayBoard(board), level);
+    }
+
+    /**
+     * Creates a new level on top of any board storage. Boards which aren't held in memory as a
+     * whole have their enemies step straight towards the user, as searching them would need
+     * memory for every cell.
+     * @param board The board for this level
+     * @param level The level number
+     */
+    public Level(Board board, int level) {
         this.board = board;
-        this.boardHeight = board.length;
-        this.boardWidth = board[0].length;
-        this.graph = new Graph(this);
+        this.boardHeight = board.getHeight();
+        this.boardWidth = board.getWidth();
         this.currentLevel = level;
+        this.neighbourMasks = new NeighbourMasks(board);
+        this.slideTable = new SlideTable(board);
+        this.teleporters = new TeleporterIndex(board);
+        addListener(neighbourMasks);
+        addListener(slideTable);
+
+        if (board instanceof LevelListener) {
+            addListener((LevelListener) board);
+        }
+
+        if (board.getCells() == null) {
+            setPathFinding(PathFinding.GREEDY);
+        } else {
+            setPathFinding(boardWidth * boardHeight >= CLUSTER_GRAPH_MIN_CELLS ? PathFinding.CLUSTER : PathFinding.A_STAR);
+        }
     }
 
     /**
-     * Get the current graph associated with this Level
+     * Add a listener, which will be told about each event that happens on this level
+     * @param listener The listener
+     */
+    public void addListener(LevelListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener from this level
+     * @param listener The listener
+     */
+    public void removeListener(LevelListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Get the listener cells report their events to, which passes each event on to every
+     * listener of this level
+     * @return The level's events
+     */
+    public LevelListener getEvents() {
+        return events;
+    }
+
+    /**
+     * Give each enemy on the board its own random number generator, split from a single seed.
+     * Enemies are given their generators in board order, row by row, so the same seed always
+     * leads to every enemy making the same random choices.
+     * @param seed The seed of this game
+     */
+    public void seedEnemies(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        for (Enemy enemy : getEnemies()) {
+            enemy.setRandom(random.split());
+        }
+    }
+
+    /**
+     * Get every enemy on the board, in board order, row by row
+     * @return The enemies on this level
+     */
+    public List<Enemy> getEnemies() {
+        List<Enemy> enemies = new ArrayList<>();
+
+        for (Cell cell : board.getOccupiedCells()) {
+            for (Entity entity : cell.getCurrentEntities()) {
+                if (entity instanceof Enemy) {
+                    enemies.add((Enemy) entity);
+                }
+            }
+        }
+
+        return enemies;
+    }
+
+    /**
+     * Get the current graph associated with this Level, creating it the first time it's needed
      * @return The graph
      */
-    public Graph getGraph() {
+    public synchronized Graph getGraph() {
+        if (graph == null) {
+            graph = new Graph(this);
+        }
+
         return graph;
     }
 
+    /**
+     * Get the walkable and wall masks of each cell's neighbours
+     * @return The neighbour masks
+     */
+    public NeighbourMasks getNeighbourMasks() {
+        return neighbourMasks;
+    }
+
+    /**
+     * Choose the way paths are found for enemies on this level. Only GREEDY can be chosen when the
+     * board isn't held in memory as a whole, such as a chunked or off-heap board, as every other
+     * way searches over the whole board.
+     * @param pathFinding The way paths are found
+     * @throws IllegalArgumentException If the way needs the whole board, and it isn't in memory
+     */
+    public void setPathFinding(PathFinding pathFinding) {
+        if (pathFinding != PathFinding.GREEDY && board.getCells() == null) {
+            throw new IllegalArgumentException("Only GREEDY path finding works on a board that isn't "
+                    + "held in memory as a whole, not " + pathFinding);
+        }
+
+        if (pathFinder instanceof LevelListener) {
+            removeListener((LevelListener) pathFinder);
+        }
+        if (landmarks != null) {
+            removeListener(landmarks);
+        }
+
+        landmarks = null;
+        switch (pathFinding) {
+            case JUMP_POINT:
+                pathFinder = new JumpPointSearch(getBoard());
+                break;
+            case CLUSTER:
+                pathFinder = new ClusterGraph(getBoard());
+                break;
+            case GREEDY:
+                pathFinder = new GreedyPathFinder(neighbourMasks);
+                break;
+            default:
+                pathFinder = null;
+                landmarks = new Landmarks(getBoard());
+                addListener(landmarks);
+                break;
+        }
+
+        if (pathFinder instanceof LevelListener) {
+            addListener((LevelListener) pathFinder);
+        }
+
+        this.pathFinding = pathFinding;
+    }
+
+    /**
+     * Get the way paths are found for enemies on this level
+     * @return The way paths are found
+     */
+    public PathFinding getPathFinding() {
+        return pathFinding;
+    }
+
+    /**
+     * Get the path finder used for enemy paths
+     * @return The path finder, or null if the level's graph should be searched with A*
+     */
+    public PathFinder getPathFinder() {
+        return pathFinder;
+    }
+
+    /**
+     * Get the partner of each teleporter on the board
+     * @return The teleporter index
+     */
+    public TeleporterIndex getTeleporters() {
+        return teleporters;
+    }
+
+    /**
+     * Get the landmarks used to estimate distances when the level's graph is searched with A*
+     * @return The landmarks, or null if paths are found another way
+     */
+    public Landmarks getLandmarks() {
+        return landmarks;
+    }
+
     /**
      * Reset this level's graph
      */
-    public void resetGraph() {
-        this.graph = new Graph(this);
+    public synchronized void resetGraph() {
+        this.graph = null;
     }
 
     /**
@@ -138,7 +444,7 @@ public class Level {
             newCell.placeEnemy(enemy);
             enemy.setCurrentCell(newCell);
             enemy.setDirection(direction);
-
+            events.entityMoved(enemy, oldCell.getPosition(), newPosition);
 
         } catch (InvalidMoveException ex) {
             LOGGER.log(WARNING, "This enemy is attempting to move to an invalid cell", ex);
@@ -189,33 +495,41 @@ public class Level {
                 replaceCell(newCell.getPosition(), ground);
                 ground.placePlayer(user);
                 user.setCurrentCell(ground);
-                graph.resetNodes(this, new ArrayList<Point>());
+                if (graph != null) {
+                    graph.resetNodes(this, new ArrayList<Point>());
+                }
             } else {
                 newCell.placePlayer(user);
                 user.setCurrentCell(newCell);
             }
 
+            events.entityMoved(user, oldCell.getPosition(), user.getCurrentCell().getPosition());
         } else {
-            GameController.playSound("PlayerBlocked");
+            events.userBlocked(direction);
             throw new InvalidMoveException(String.format("Moving in a %s direction is not valid", direction));
         }
     }
 
+    /**
+     * Slide the user across the ice they have stepped on to, in the direction they were moving,
+     * until the next cell isn't ice. The user is moved straight to the last ice cell.
+     * @param user The user who is sliding
+     * @param direction The direction the user is sliding in
+     * @throws InvalidMoveException If the user can not be placed on the last ice cell
+     */
     private void slide(User user, Direction direction) throws InvalidMoveException {
-        Point newPosition = calculateNewPosition(user.getCurrentCell().getPosition(), direction);
-
-        Cell newCell = getCell(newPosition);
         Cell oldCell = user.getCurrentCell();
+        Point start = oldCell.getPosition();
+        Point stop = slideTable.getStop(start, direction);
 
-        if (newCell instanceof Element) {
-            if (((Element) newCell).getElementType().equals(ElementType.ICE)) {
-                oldCell.removeEntity(user);
-                newCell.placePlayer(user);
-                user.setCurrentCell(newCell);
-                slide(user, direction);
-            }
-        }
+        if (!stop.equals(start)) {
+            Cell newCell = getCell(stop);
 
+            oldCell.removeEntity(user);
+            newCell.placePlayer(user);
+            user.setCurrentCell(newCell);
+            events.userSlid(start, stop);
+        }
     }
 
 
@@ -229,7 +543,7 @@ public class Level {
         int cellX = (int) point.getX();
         int cellY = (int) point.getY();
 
-        if (!(cellX+1 > boardWidth)) {
+        if (cellX+1 < boardWidth) {
             adjacentCells.add(getCell(cellY, cellX+1));
         }
 
@@ -237,7 +551,7 @@ public class Level {
             adjacentCells.add(getCell(cellY, cellX-1));
         }
 
-        if (!(cellY+1 > boardHeight)) {
+        if (cellY+1 < boardHeight) {
             adjacentCells.add(getCell(cellY+1, cellX));
         }
 
@@ -262,9 +576,15 @@ public class Level {
     /**
      * Get the whole board of cells
      * @return The board of cells in the Game.
+     * @throws UnsupportedOperationException If the board isn't held in memory as a whole
      */
     public Cell[][] getBoard() {
-        return this.board;
+        Cell[][] cells = board.getCells();
+        if (cells == null) {
+            throw new UnsupportedOperationException("This level's board isn't held in memory as a whole");
+        }
+
+        return cells;
     }
 
     /**
@@ -272,11 +592,11 @@ public class Level {
      * @param point The point in which the cell is located
      * @return The cell instance at the given Point.
      */
-    private Cell getCell(Point point) {
+    public Cell getCell(Point point) {
         int x = (int) point.getX();
         int y = (int) point.getY();
 
-        return this.board[y][x];
+        return this.board.getCell(x, y);
     }
 
     /**
@@ -360,8 +680,9 @@ public class Level {
      */
     private void replaceCell(Point point, Cell newCell) {
         newCell.setCoordinates(point);
-        board[(int) point.getY()][(int) point.getX()] = newCell;
-        GameController.replaceCell(point);
+        newCell.setLevel(this);
+        board.setCell((int) point.getX(), (int) point.getY(), newCell);
+        events.cellReplaced(point);
     }
 
 }
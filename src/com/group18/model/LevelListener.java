@@ -0,0 +1,97 @@
+package com.group18.model;
+
+import com.group18.model.entity.Entity;
+import com.group18.model.item.Collectable;
+
+import java.awt.Point;
+
+/**
+ * Listens to the events that happen on a level as it is played. The model only reports what has
+ * happened through this interface, so a level can be played with the game window open, or with no
+ * window at all, such as when a replay is being checked. Each event does nothing by default, so a
+ * listener only needs to implement the events it cares about.
+ *
+ * @author agent
+ */
+public interface LevelListener {
+
+    /**
+     * Called when the user attempts to move in a direction they are unable to move in
+     * @param direction The direction the user attempted to move in
+     */
+    default void userBlocked(Direction direction) {
+    }
+
+    /**
+     * Called when the user picks up an item from a cell
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    default void itemCollected(Point point, Collectable item) {
+    }
+
+    /**
+     * Called when the number of tokens the user holds has changed
+     * @param tokens The number of tokens the user now holds
+     */
+    default void tokensChanged(int tokens) {
+    }
+
+    /**
+     * Called when an item has been removed from the user's inventory
+     */
+    default void inventoryChanged() {
+    }
+
+    /**
+     * Called when the user opens a door
+     * @param point The position of the door
+     */
+    default void doorOpened(Point point) {
+    }
+
+    /**
+     * Called when a cell on the board has been replaced with a new cell
+     * @param point The position of the replaced cell
+     */
+    default void cellReplaced(Point point) {
+    }
+
+    /**
+     * Called when the user walks on to an element cell
+     * @param elementType The type of element
+     */
+    default void elementEntered(ElementType elementType) {
+    }
+
+    /**
+     * Called when the user slides across ice, straight from one cell to another
+     * @param from The position of the ice cell the user stepped on to
+     * @param to The position of the last ice cell the user slid on to
+     */
+    default void userSlid(Point from, Point to) {
+    }
+
+    /**
+     * Called when the user is teleported to a teleporter's partner
+     * @param point The position the user was teleported to
+     */
+    default void userTeleported(Point point) {
+    }
+
+    /**
+     * Called when the user or an enemy has moved, once it's on the cell it ends the move on
+     * @param entity The user or enemy that moved
+     * @param from The position it moved from
+     * @param to The position it moved to
+     */
+    default void entityMoved(Entity entity, Point from, Point to) {
+    }
+
+    /**
+     * Called when the user has lost the level by something on the board, rather than an enemy
+     * @param message The reason the level was lost
+     */
+    default void levelLost(String message) {
+    }
+}
@@ -0,0 +1,222 @@
+package com.group18.model;
+
+import com.group18.model.board.Board;
+import com.group18.model.cell.Cell;
+import com.group18.model.cell.Element;
+
+import java.awt.Point;
+
+/**
+ * Holds where the user stops when sliding across ice, from every cell in every direction. The user
+ * slides along a row or column of ice until the next cell isn't ice, so a slide only depends on the
+ * run of ice the user is on. The stops are worked out when the level is loaded, and worked out
+ * again for the runs through a cell whenever it's replaced.
+ *
+ * If the board isn't held in memory as a whole, the stops aren't stored, and each slide walks
+ * along the ice instead.
+ *
+ * @author agent
+ */
+class SlideTable implements LevelListener {
+
+    /**
+     * The number of directions a slide can be in
+     */
+    private static final int DIRECTIONS = 4;
+
+    /**
+     * The board of the level, which cells are read from when they change
+     */
+    private final Board board;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The x or y a slide from each cell stops at, in each direction by ordinal, or null if
+     * slides are walked. Sliding left or right stops at an x, and sliding up or down stops at a y.
+     */
+    private final int[] stops;
+
+    /**
+     * Work out where every slide on a board stops
+     * @param board The board of the level
+     */
+    SlideTable(Board board) {
+        this.board = board;
+        this.height = board.getHeight();
+        this.width = board.getWidth();
+
+        if (board.getCells() == null) {
+            this.stops = null;
+            return;
+        }
+
+        this.stops = new int[width * height * DIRECTIONS];
+        for (int y = 0; y < height; y++) {
+            computeRow(y, 0, width - 1);
+        }
+        for (int x = 0; x < width; x++) {
+            computeColumn(x, 0, height - 1);
+        }
+    }
+
+    /**
+     * Get where the user stops when sliding from a cell
+     * @param point The position of the cell the user slides from
+     * @param direction The direction the user slides in
+     * @return The position of the last ice cell the user slides on to, which is the cell itself if
+     * the next cell isn't ice
+     */
+    Point getStop(Point point, Direction direction) {
+        int x = (int) point.getX();
+        int y = (int) point.getY();
+        int stop = stops != null ? stopOf(x, y, direction) : walk(x, y, direction);
+
+        return direction == Direction.LEFT || direction == Direction.RIGHT
+                ? new Point(stop, y)
+                : new Point(x, stop);
+    }
+
+    /**
+     * Work out the stops along the row and column of a cell again, if the cell has been replaced
+     * @param point The position of the cell that was replaced
+     */
+    @Override
+    public void cellReplaced(Point point) {
+        if (stops == null) {
+            return;
+        }
+
+        int x = (int) point.getX();
+        int y = (int) point.getY();
+
+        // Only the runs of ice either side of the cell, and the cells just past them, can have changed
+        int left = x;
+        while (left > 0 && isIce(left - 1, y)) {
+            left--;
+        }
+        int right = x;
+        while (right < width - 1 && isIce(right + 1, y)) {
+            right++;
+        }
+        computeRow(y, Math.max(0, left - 1), Math.min(width - 1, right + 1));
+
+        int top = y;
+        while (top > 0 && isIce(x, top - 1)) {
+            top--;
+        }
+        int bottom = y;
+        while (bottom < height - 1 && isIce(x, bottom + 1)) {
+            bottom++;
+        }
+        computeColumn(x, Math.max(0, top - 1), Math.min(height - 1, bottom + 1));
+    }
+
+    /**
+     * Work out the left and right stops of part of a row. Each stop is the cell itself, or the
+     * stop of the next cell if the next cell is ice.
+     * @param y The row
+     * @param from The first x
+     * @param to The last x
+     */
+    private void computeRow(int y, int from, int to) {
+        for (int x = from; x <= to; x++) {
+            int stop = x > 0 && isIce(x - 1, y) ? stopOf(x - 1, y, Direction.LEFT) : x;
+            setStop(x, y, Direction.LEFT, stop);
+        }
+        for (int x = to; x >= from; x--) {
+            int stop = x < width - 1 && isIce(x + 1, y) ? stopOf(x + 1, y, Direction.RIGHT) : x;
+            setStop(x, y, Direction.RIGHT, stop);
+        }
+    }
+
+    /**
+     * Work out the up and down stops of part of a column
+     * @param x The column
+     * @param from The first y
+     * @param to The last y
+     */
+    private void computeColumn(int x, int from, int to) {
+        for (int y = from; y <= to; y++) {
+            int stop = y > 0 && isIce(x, y - 1) ? stopOf(x, y - 1, Direction.UP) : y;
+            setStop(x, y, Direction.UP, stop);
+        }
+        for (int y = to; y >= from; y--) {
+            int stop = y < height - 1 && isIce(x, y + 1) ? stopOf(x, y + 1, Direction.DOWN) : y;
+            setStop(x, y, Direction.DOWN, stop);
+        }
+    }
+
+    /**
+     * Walk along the ice from a cell to find where a slide stops
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @param direction The direction
+     * @return The x or y the slide stops at
+     */
+    private int walk(int x, int y, Direction direction) {
+        switch (direction) {
+            case LEFT:
+                while (x > 0 && isIce(x - 1, y)) {
+                    x--;
+                }
+                return x;
+            case RIGHT:
+                while (x < width - 1 && isIce(x + 1, y)) {
+                    x++;
+                }
+                return x;
+            case UP:
+                while (y > 0 && isIce(x, y - 1)) {
+                    y--;
+                }
+                return y;
+            default:
+                while (y < height - 1 && isIce(x, y + 1)) {
+                    y++;
+                }
+                return y;
+        }
+    }
+
+    /**
+     * Get the stop of a cell in a direction
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @param direction The direction
+     * @return The x or y the slide stops at
+     */
+    private int stopOf(int x, int y, Direction direction) {
+        return stops[(y * width + x) * DIRECTIONS + direction.ordinal()];
+    }
+
+    /**
+     * Set the stop of a cell in a direction
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @param direction The direction
+     * @param stop The x or y the slide stops at
+     */
+    private void setStop(int x, int y, Direction direction, int stop) {
+        stops[(y * width + x) * DIRECTIONS + direction.ordinal()] = stop;
+    }
+
+    /**
+     * Check if a cell is ice
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return True if the cell is an ice element
+     */
+    private boolean isIce(int x, int y) {
+        Cell cell = board.getCell(x, y);
+        return cell instanceof Element && ((Element) cell).getElementType() == ElementType.ICE;
+    }
+}
@@ -0,0 +1,215 @@
+package com.group18.model;
+
+import com.group18.model.board.Board;
+import com.group18.model.cell.Teleporter;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Pairs up the teleporters on a board, so the partner of any teleporter can be looked up straight
+ * away. Teleporters with the same id are partners. Teleporters from older level files have no id,
+ * and are paired in board order, row by row, the first with the second, the third with the fourth
+ * and so on. They're then given ids of their own, so they're saved as the same pairs.
+ *
+ * A teleporter without a partner acts like ground.
+ *
+ * Partners are kept in a flat array over the whole board when the board is held in memory. On a
+ * board too large for that, such as a chunked or off-heap board, only the teleporters themselves
+ * are kept, in a map.
+ *
+ * @author agent
+ */
+public class TeleporterIndex {
+
+    /**
+     * The partner of a cell which isn't a teleporter, or is a teleporter without a partner
+     */
+    public static final int NO_PARTNER = -1;
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("TeleporterIndex");
+
+    /**
+     * The board of the level
+     */
+    private final Board board;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The index of each cell's partner, row by row, or NO_PARTNER. Empty if the board has no
+     * teleporters, or isn't held in memory.
+     */
+    private int[] partnerOf = new int[0];
+
+    /**
+     * The index of each teleporter's partner, by the index of the teleporter, for a board which
+     * isn't held in memory, or null. Teleporters without a partner aren't included.
+     */
+    private final Map<Integer, Integer> sparsePartnerOf;
+
+    /**
+     * The number of pairs of teleporters
+     */
+    private int pairs;
+
+    /**
+     * Pair up the teleporters on a board
+     * @param board The board of the level
+     */
+    public TeleporterIndex(Board board) {
+        this.board = board;
+        this.width = board.getWidth();
+        this.sparsePartnerOf = board.getCells() == null ? new HashMap<>() : null;
+
+        Map<Integer, Integer> waiting = new HashMap<>();
+        int unpaired = NO_PARTNER;
+        int highestId = 0;
+
+        for (Point point : board.findTeleporters()) {
+            int cell = point.y * width + point.x;
+            int id = teleporterAt(cell).getId();
+
+            if (id == Teleporter.NO_ID) {
+                if (unpaired == NO_PARTNER) {
+                    unpaired = cell;
+                } else {
+                    pair(unpaired, cell);
+                    unpaired = NO_PARTNER;
+                }
+            } else {
+                highestId = Math.max(highestId, id);
+                Integer first = waiting.remove(id);
+
+                if (first != null) {
+                    pair(first, cell);
+                } else {
+                    waiting.put(id, cell);
+                }
+            }
+        }
+
+        for (int id : waiting.keySet()) {
+            LOGGER.log(WARNING, String.format("Teleporter %d has no partner", id));
+        }
+        if (unpaired != NO_PARTNER) {
+            LOGGER.log(WARNING, "A teleporter without an id has no partner");
+        }
+
+        giveIds(highestId);
+    }
+
+    /**
+     * Get the partner of a cell
+     * @param cell The index of the cell, row by row
+     * @return The index of the partner, or NO_PARTNER
+     */
+    public int getPartner(int cell) {
+        if (sparsePartnerOf != null) {
+            return sparsePartnerOf.getOrDefault(cell, NO_PARTNER);
+        }
+
+        return cell < partnerOf.length ? partnerOf[cell] : NO_PARTNER;
+    }
+
+    /**
+     * Get the partner of a teleporter
+     * @param teleporter The teleporter
+     * @return The partner, or null if it has no partner
+     */
+    public Teleporter getPartner(Teleporter teleporter) {
+        Point point = teleporter.getPosition();
+        int partner = getPartner((int) point.getY() * width + (int) point.getX());
+
+        return partner == NO_PARTNER ? null : teleporterAt(partner);
+    }
+
+    /**
+     * Get the number of pairs of teleporters
+     * @return The number of pairs
+     */
+    public int getPairs() {
+        return pairs;
+    }
+
+    /**
+     * Make two teleporters partners
+     * @param first The index of the first teleporter
+     * @param second The index of the second teleporter
+     */
+    private void pair(int first, int second) {
+        if (sparsePartnerOf != null) {
+            sparsePartnerOf.put(first, second);
+            sparsePartnerOf.put(second, first);
+        } else {
+            if (partnerOf.length == 0) {
+                partnerOf = new int[width * board.getHeight()];
+                Arrays.fill(partnerOf, NO_PARTNER);
+            }
+
+            partnerOf[first] = second;
+            partnerOf[second] = first;
+        }
+        pairs++;
+    }
+
+    /**
+     * Get the teleporter at an index
+     * @param cell The index of the teleporter, row by row
+     * @return The teleporter
+     */
+    private Teleporter teleporterAt(int cell) {
+        return (Teleporter) board.getCell(cell % width, cell / width);
+    }
+
+    /**
+     * Give every pair of teleporters without ids an id, after the highest id on the board
+     * @param highestId The highest id already on the board
+     */
+    private void giveIds(int highestId) {
+        int nextId = highestId + 1;
+
+        if (sparsePartnerOf != null) {
+            for (Map.Entry<Integer, Integer> entry : new TreeMap<>(sparsePartnerOf).entrySet()) {
+                nextId = giveId(entry.getKey(), entry.getValue(), nextId);
+            }
+        } else {
+            for (int cell = 0; cell < partnerOf.length; cell++) {
+                nextId = giveId(cell, partnerOf[cell], nextId);
+            }
+        }
+    }
+
+    /**
+     * Give a pair of teleporters an id if they don't have one, once for each pair
+     * @param cell The index of a cell
+     * @param partner The index of the cell's partner, or NO_PARTNER
+     * @param nextId The id to give the pair
+     * @return The id to give the next pair
+     */
+    private int giveId(int cell, int partner, int nextId) {
+        if (partner > cell) {
+            Teleporter teleporter = teleporterAt(cell);
+
+            if (teleporter.getId() == Teleporter.NO_ID) {
+                teleporter.setId(nextId);
+                teleporterAt(partner).setId(nextId);
+                return nextId + 1;
+            }
+        }
+
+        return nextId;
+    }
+}
@@ -0,0 +1,116 @@
+package com.group18.model.board;
+
+import com.group18.model.cell.Cell;
+import com.group18.model.cell.Teleporter;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A board held in memory as a whole, as a 2D array of cells
+ *
+ * @author agent
+ */
+public class ArrayBoard implements Board {
+
+    /**
+     * The cells of the board, by row then column
+     */
+    private final Cell[][] cells;
+
+    /**
+     * Creates a new board from its cells
+     * @param cells The cells of the board, by row then column
+     */
+    public ArrayBoard(Cell[][] cells) {
+        this.cells = cells;
+    }
+
+    /**
+     * Get the width of the board
+     * @return The width
+     */
+    @Override
+    public int getWidth() {
+        return cells[0].length;
+    }
+
+    /**
+     * Get the height of the board
+     * @return The height
+     */
+    @Override
+    public int getHeight() {
+        return cells.length;
+    }
+
+    /**
+     * Get the cell at a position
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The cell
+     */
+    @Override
+    public Cell getCell(int x, int y) {
+        return cells[y][x];
+    }
+
+    /**
+     * Replace the cell at a position
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @param cell The new cell
+     */
+    @Override
+    public void setCell(int x, int y, Cell cell) {
+        cells[y][x] = cell;
+    }
+
+    /**
+     * Get every cell with an entity on it, in board order, row by row
+     * @return The cells with entities on them
+     */
+    @Override
+    public List<Cell> getOccupiedCells() {
+        List<Cell> occupied = new ArrayList<>();
+
+        for (Cell[] row : cells) {
+            for (Cell cell : row) {
+                if (!cell.getCurrentEntities().isEmpty()) {
+                    occupied.add(cell);
+                }
+            }
+        }
+
+        return occupied;
+    }
+
+    /**
+     * Find the position of every teleporter on the board, in board order, row by row
+     * @return The positions of the teleporters
+     */
+    @Override
+    public List<Point> findTeleporters() {
+        List<Point> teleporters = new ArrayList<>();
+
+        for (int y = 0; y < cells.length; y++) {
+            for (int x = 0; x < cells[y].length; x++) {
+                if (cells[y][x] instanceof Teleporter) {
+                    teleporters.add(new Point(x, y));
+                }
+            }
+        }
+
+        return teleporters;
+    }
+
+    /**
+     * Get the whole board of cells
+     * @return The board of cells
+     */
+    @Override
+    public Cell[][] getCells() {
+        return cells;
+    }
+}
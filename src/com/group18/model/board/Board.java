@@ -0,0 +1,62 @@
+package com.group18.model.board;
+
+import com.group18.model.cell.Cell;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * The storage behind a level's board of cells. A board is either held in memory as a whole, or
+ * stored somewhere else with only some of its cells in memory at once, for levels too large to
+ * hold as objects.
+ *
+ * @author agent
+ */
+public interface Board {
+
+    /**
+     * Get the width of the board
+     * @return The width
+     */
+    int getWidth();
+
+    /**
+     * Get the height of the board
+     * @return The height
+     */
+    int getHeight();
+
+    /**
+     * Get the cell at a position
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The cell
+     */
+    Cell getCell(int x, int y);
+
+    /**
+     * Replace the cell at a position
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @param cell The new cell
+     */
+    void setCell(int x, int y, Cell cell);
+
+    /**
+     * Get every cell with an entity on it, in board order, row by row
+     * @return The cells with entities on them
+     */
+    List<Cell> getOccupiedCells();
+
+    /**
+     * Find the position of every teleporter on the board, in board order, row by row
+     * @return The positions of the teleporters
+     */
+    List<Point> findTeleporters();
+
+    /**
+     * Get the whole board of cells, if it's held in memory
+     * @return The board of cells, or null if only part of the board is in memory at once
+     */
+    Cell[][] getCells();
+}
@@ -0,0 +1,181 @@
+package com.group18.model.board;
+
+import com.group18.model.Colour;
+import com.group18.model.ElementType;
+import com.group18.model.cell.*;
+import com.group18.model.item.Collectable;
+import com.group18.model.item.ElementItem;
+import com.group18.model.item.Key;
+
+import java.awt.Point;
+
+/**
+ * Packs a cell into a single int code, so cells can be stored without an object each. The low
+ * 8 bits hold the kind of cell, the next 8 bits the item on it, and the high 16 bits a value
+ * that depends on the kind: the colour of a door, the tokens a door needs, the type of an
+ * element or the id of a teleporter. Entities aren't part of a cell's code.
+ *
+ * A code of 0 is a plain ground cell.
+ *
+ * @author agent
+ */
+public class CellCodes {
+
+    /**
+     * The kind of a ground cell
+     */
+    public static final int GROUND = 0;
+
+    /**
+     * The kind of a wall cell
+     */
+    public static final int WALL = 1;
+
+    /**
+     * The kind of a colour door
+     */
+    public static final int COLOUR_DOOR = 2;
+
+    /**
+     * The kind of a token door
+     */
+    public static final int TOKEN_DOOR = 3;
+
+    /**
+     * The kind of an element cell
+     */
+    public static final int ELEMENT = 4;
+
+    /**
+     * The kind of a teleporter
+     */
+    public static final int TELEPORTER = 5;
+
+    /**
+     * The kind of a goal cell
+     */
+    public static final int GOAL = 6;
+
+    /**
+     * The item code of the first key. Element items come before it, from 1.
+     */
+    private static final int FIRST_KEY = 8;
+
+    /**
+     * Pack a cell into its code
+     * @param cell The cell
+     * @return The cell's code
+     */
+    public static int encode(Cell cell) {
+        int kind;
+        int value = 0;
+        int item = 0;
+
+        if (cell instanceof Teleporter) {
+            kind = TELEPORTER;
+            value = ((Teleporter) cell).getId() + 1;
+        } else if (cell instanceof Goal) {
+            kind = GOAL;
+        } else if (cell instanceof Element) {
+            kind = ELEMENT;
+            value = ((Element) cell).getElementType().ordinal();
+        } else if (cell instanceof ColourDoor) {
+            kind = COLOUR_DOOR;
+            value = ((ColourDoor) cell).getColour().ordinal();
+        } else if (cell instanceof TokenDoor) {
+            kind = TOKEN_DOOR;
+            value = ((TokenDoor) cell).getTokens();
+        } else if (cell instanceof Wall) {
+            kind = WALL;
+        } else {
+            kind = GROUND;
+        }
+
+        if (cell instanceof Ground) {
+            item = encodeItem(((Ground) cell).getItem());
+        }
+
+        return value << 16 | item << 8 | kind;
+    }
+
+    /**
+     * Create the cell a code was packed from
+     * @param code The cell's code
+     * @param point The position of the cell
+     * @return A new cell
+     */
+    public static Cell decode(int code, Point point) {
+        int value = code >>> 16;
+        Cell cell;
+
+        switch (kindOf(code)) {
+            case WALL:
+                cell = new Wall(point);
+                break;
+            case COLOUR_DOOR:
+                cell = new ColourDoor(Colour.values()[value], point);
+                break;
+            case TOKEN_DOOR:
+                cell = new TokenDoor(value, point);
+                break;
+            case ELEMENT:
+                cell = new Element(ElementType.values()[value], point);
+                break;
+            case TELEPORTER:
+                cell = new Teleporter(value - 1, point);
+                break;
+            case GOAL:
+                cell = new Goal(point);
+                break;
+            default:
+                cell = new Ground(point);
+                break;
+        }
+
+        Collectable item = decodeItem(code >>> 8 & 0xFF);
+        if (item != null) {
+            ((Ground) cell).setItem(item);
+        }
+
+        return cell;
+    }
+
+    /**
+     * Get the kind of cell a code was packed from
+     * @param code The cell's code
+     * @return The kind of cell
+     */
+    public static int kindOf(int code) {
+        return code & 0xFF;
+    }
+
+    /**
+     * Get the code of an item
+     * @param item The item, or null
+     * @return The item's code, or 0 if there is no item
+     */
+    public static int encodeItem(Collectable item) {
+        if (item instanceof ElementItem) {
+            return 1 + ((ElementItem) item).ordinal();
+        } else if (item instanceof Key) {
+            return FIRST_KEY + ((Key) item).ordinal();
+        }
+
+        return 0;
+    }
+
+    /**
+     * Get the item a code was packed from
+     * @param code The item's code
+     * @return The item, or null if there is no item
+     */
+    public static Collectable decodeItem(int code) {
+        if (code >= FIRST_KEY) {
+            return Key.values()[code - FIRST_KEY];
+        } else if (code > 0) {
+            return ElementItem.values()[code - 1];
+        }
+
+        return null;
+    }
+}
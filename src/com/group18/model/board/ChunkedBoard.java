@@ -0,0 +1,575 @@
+package com.group18.model.board;
+
+import com.group18.model.Level;
+import com.group18.model.LevelListener;
+import com.group18.model.cell.Cell;
+import com.group18.model.entity.Entity;
+import com.group18.model.entity.User;
+import com.group18.model.item.Collectable;
+
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A board stored on disk in square chunks of cells, for levels too large to hold in memory. Each
+ * cell is stored as its code from CellCodes, and a chunk only becomes cell objects while it's
+ * resident in memory. Once too many chunks are resident, the least recently used are dropped,
+ * and written back to disk first if they've changed.
+ *
+ * The entities on a dropped chunk are kept aside, by chunk, and put back on the new cells when the
+ * chunk is read again, so a level with enemies all over it still only keeps the limit resident.
+ * Only the chunks around the user, and the chunks enemies have moved on to this turn or the last,
+ * are never dropped, so the chunks of sleeping enemies don't stay resident.
+ *
+ * @author agent
+ */
+public class ChunkedBoard implements CodedBoard, LevelListener, Closeable {
+
+    /**
+     * The width and height of each chunk, in cells
+     */
+    public static final int CHUNK_SIZE = 64;
+
+    /**
+     * The number of chunks kept resident if no other limit is given
+     */
+    public static final int DEFAULT_MAX_RESIDENT = 256;
+
+    /**
+     * The number of cells in each chunk
+     */
+    private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+    /**
+     * The number of bytes each chunk takes up on disk
+     */
+    private static final int CHUNK_BYTES = CHUNK_CELLS * Integer.BYTES;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The number of chunks across the board
+     */
+    private final int chunksWide;
+
+    /**
+     * The number of chunks down the board
+     */
+    private final int chunksHigh;
+
+    /**
+     * The most chunks kept resident, unless more are around the user or have moving enemies
+     */
+    private final int maxResident;
+
+    /**
+     * The file the chunks are stored in
+     */
+    private final RandomAccessFile file;
+
+    /**
+     * The channel chunks are read from and written to
+     */
+    private final FileChannel channel;
+
+    /**
+     * The buffer each chunk is read into and written from
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The cells of each resident chunk, by chunk, with the least recently used first. The cells
+     * of a chunk are row by row within the chunk.
+     */
+    private final LinkedHashMap<Integer, Cell[]> resident = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The resident chunks which have changed since they were read
+     */
+    private final BitSet dirty = new BitSet();
+
+    /**
+     * The entities on each chunk which isn't resident, by chunk. Each entity's current cell is the
+     * cell it was on when its chunk was dropped, which still holds its position.
+     */
+    private final Map<Integer, List<Entity>> parked = new HashMap<>();
+
+    /**
+     * The chunk the user is on, or -1 if it hasn't been found yet
+     */
+    private int userChunk = -1;
+
+    /**
+     * The chunks enemies have moved on to since the user last moved
+     */
+    private BitSet moved = new BitSet();
+
+    /**
+     * The chunks enemies moved on to in the turn before
+     */
+    private BitSet movedBefore = new BitSet();
+
+    /**
+     * The level the board belongs to, given to each cell as its chunk is read
+     */
+    private Level level;
+
+    /**
+     * Open a chunked board stored in a file, creating the file if it doesn't exist. Any part of
+     * the board not yet written is ground.
+     * @param file The file the chunks are stored in
+     * @param width The width of the board
+     * @param height The height of the board
+     * @param maxResident The most chunks to keep resident
+     * @throws IOException If the file can't be opened
+     */
+    public ChunkedBoard(File file, int width, int height, int maxResident) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.chunksWide = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunksHigh = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.maxResident = maxResident;
+        this.file = new RandomAccessFile(file, "rw");
+        this.channel = this.file.getChannel();
+        this.buffer = ByteBuffer.allocateDirect(CHUNK_BYTES);
+
+        long length = (long) chunksWide * chunksHigh * CHUNK_BYTES;
+        if (this.file.length() < length) {
+            this.file.setLength(length);
+        }
+    }
+
+    /**
+     * Get the width of the board
+     * @return The width
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the board
+     * @return The height
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the cell at a position, reading its chunk if it isn't resident
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The cell
+     */
+    @Override
+    public synchronized Cell getCell(int x, int y) {
+        return chunk(chunkOf(x, y))[localIndexOf(x, y)];
+    }
+
+    /**
+     * Replace the cell at a position
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @param cell The new cell
+     */
+    @Override
+    public synchronized void setCell(int x, int y, Cell cell) {
+        int chunk = chunkOf(x, y);
+        chunk(chunk)[localIndexOf(x, y)] = cell;
+        dirty.set(chunk);
+    }
+
+    /**
+     * Mark the chunk of a cell as changed, as an item has been collected from it
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public synchronized void itemCollected(Point point, Collectable item) {
+        dirty.set(chunkOf((int) point.getX(), (int) point.getY()));
+    }
+
+    /**
+     * Keep track of entities moving off chunks which aren't resident, of the user's chunk, and of
+     * the chunks enemies move on to. Each move of the user starts a new turn.
+     * @param entity The user or enemy that moved
+     * @param from The position it moved from
+     * @param to The position it moved to
+     */
+    @Override
+    public synchronized void entityMoved(Entity entity, Point from, Point to) {
+        List<Entity> entities = parked.get(chunkOf(from.x, from.y));
+        if (entities != null) {
+            entities.remove(entity);
+        }
+
+        if (entity instanceof User) {
+            userChunk = chunkOf(to.x, to.y);
+
+            BitSet before = movedBefore;
+            movedBefore = moved;
+            moved = before;
+            moved.clear();
+        } else {
+            moved.set(chunkOf(to.x, to.y));
+        }
+    }
+
+    /**
+     * Get every cell with an entity on it, in board order, row by row. The entities on chunks
+     * which aren't resident are given on the cells they were on when their chunk was dropped.
+     * @return The cells with entities on them
+     */
+    @Override
+    public synchronized List<Cell> getOccupiedCells() {
+        List<Cell> occupied = new ArrayList<>();
+
+        for (Cell[] cells : resident.values()) {
+            for (Cell cell : cells) {
+                if (cell != null && !cell.getCurrentEntities().isEmpty()) {
+                    occupied.add(cell);
+                }
+            }
+        }
+
+        Map<Cell, Boolean> parkedCells = new IdentityHashMap<>();
+        for (List<Entity> entities : parked.values()) {
+            for (Entity entity : entities) {
+                if (parkedCells.put(entity.getCurrentCell(), Boolean.TRUE) == null) {
+                    occupied.add(entity.getCurrentCell());
+                }
+            }
+        }
+
+        occupied.sort(Comparator.comparingLong(cell -> indexOf(cell.getPosition())));
+        return occupied;
+    }
+
+    /**
+     * Find the position of every teleporter on the board, in board order, row by row. Every chunk
+     * is read from disk, but only its codes are looked at.
+     * @return The positions of the teleporters
+     */
+    @Override
+    public synchronized List<Point> findTeleporters() {
+        flush();
+
+        List<Point> teleporters = new ArrayList<>();
+        for (int chunk = 0; chunk < chunksWide * chunksHigh; chunk++) {
+            IntBuffer codes = read(chunk);
+
+            for (int i = 0; i < CHUNK_CELLS; i++) {
+                if (CellCodes.kindOf(codes.get(i)) == CellCodes.TELEPORTER) {
+                    teleporters.add(positionOf(chunk, i));
+                }
+            }
+        }
+
+        teleporters.sort(Comparator.comparingLong(this::indexOf));
+        return teleporters;
+    }
+
+    /**
+     * A chunked board is never held in memory as a whole
+     * @return Null
+     */
+    @Override
+    public Cell[][] getCells() {
+        return null;
+    }
+
+    /**
+     * Set the level the board belongs to, which every cell is given
+     * @param level The level
+     */
+    @Override
+    public synchronized void setLevel(Level level) {
+        this.level = level;
+
+        for (Cell[] cells : resident.values()) {
+            for (Cell cell : cells) {
+                if (cell != null) {
+                    cell.setLevel(level);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the codes of a band of whole rows straight to disk, such as while the board is first
+     * being filled. The band must start at the top of a row of chunks, and any chunks it covers
+     * are dropped from memory without being written back.
+     * @param firstRow The first row of the band, which must be a multiple of CHUNK_SIZE
+     * @param codes The codes of the band, row by row, CHUNK_SIZE rows of the board's width
+     */
+    @Override
+    public synchronized void writeRows(int firstRow, int[] codes) {
+        int chunkY = firstRow / CHUNK_SIZE;
+
+        for (int chunkX = 0; chunkX < chunksWide; chunkX++) {
+            int chunk = chunkY * chunksWide + chunkX;
+            buffer.clear();
+
+            for (int localY = 0; localY < CHUNK_SIZE; localY++) {
+                for (int localX = 0; localX < CHUNK_SIZE; localX++) {
+                    int x = chunkX * CHUNK_SIZE + localX;
+                    buffer.putInt(x < width ? codes[localY * width + x] : 0);
+                }
+            }
+
+            resident.remove(chunk);
+            parked.remove(chunk);
+            dirty.clear(chunk);
+            write(chunk);
+        }
+    }
+
+    /**
+     * Get the number of chunks currently resident
+     * @return The number of resident chunks
+     */
+    public synchronized int getResidentChunks() {
+        return resident.size();
+    }
+
+    /**
+     * Write every changed resident chunk back to disk
+     */
+    public synchronized void flush() {
+        for (Map.Entry<Integer, Cell[]> entry : resident.entrySet()) {
+            writeBack(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Write every changed chunk back to disk, and close the file
+     * @throws IOException If the file can't be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        file.close();
+    }
+
+    /**
+     * Get the cells of a chunk, reading it from disk if it isn't resident and putting back the
+     * entities kept aside when it was dropped
+     * @param chunk The chunk
+     * @return The cells of the chunk
+     */
+    private Cell[] chunk(int chunk) {
+        Cell[] cells = resident.get(chunk);
+
+        if (cells == null) {
+            cells = new Cell[CHUNK_CELLS];
+            IntBuffer codes = read(chunk);
+
+            for (int i = 0; i < CHUNK_CELLS; i++) {
+                Point point = positionOf(chunk, i);
+
+                if (point.x < width && point.y < height) {
+                    cells[i] = CellCodes.decode(codes.get(i), point);
+                    cells[i].setLevel(level);
+                }
+            }
+
+            List<Entity> entities = parked.remove(chunk);
+            if (entities != null) {
+                for (Entity entity : entities) {
+                    Point point = entity.getCurrentCell().getPosition();
+                    Cell cell = cells[localIndexOf(point.x, point.y)];
+                    cell.getCurrentEntities().add(entity);
+                    entity.setCurrentCell(cell);
+                }
+            }
+
+            resident.put(chunk, cells);
+            evict(chunk);
+        }
+
+        return cells;
+    }
+
+    /**
+     * Drop the least recently used chunks until no more than the limit are resident, keeping
+     * aside the entities on them. The chunks around the user, the chunks enemies have just moved
+     * on to, and the chunk just read, are kept.
+     * @param keep The chunk just read
+     */
+    private void evict(int keep) {
+        Iterator<Map.Entry<Integer, Cell[]>> entries = resident.entrySet().iterator();
+
+        while (resident.size() > maxResident && entries.hasNext()) {
+            Map.Entry<Integer, Cell[]> entry = entries.next();
+            int chunk = entry.getKey();
+
+            if (chunk != keep && !isNearUser(chunk) && !moved.get(chunk) && !movedBefore.get(chunk)
+                    && park(chunk, entry.getValue())) {
+                writeBack(chunk, entry.getValue());
+                entries.remove();
+            }
+        }
+    }
+
+    /**
+     * Keep aside the entities on a chunk about to be dropped, unless the user is on it
+     * @param chunk The chunk
+     * @param cells The cells of the chunk
+     * @return False if the user is on the chunk, so it has to be kept
+     */
+    private boolean park(int chunk, Cell[] cells) {
+        List<Entity> entities = new ArrayList<>();
+
+        for (Cell cell : cells) {
+            if (cell != null) {
+                for (Entity entity : cell.getCurrentEntities()) {
+                    if (entity instanceof User) {
+                        userChunk = chunk;
+                        return false;
+                    }
+                    entities.add(entity);
+                }
+            }
+        }
+
+        if (!entities.isEmpty()) {
+            parked.put(chunk, entities);
+        }
+        return true;
+    }
+
+    /**
+     * Check if a chunk is the user's chunk or one of the chunks around it
+     * @param chunk The chunk
+     * @return True if the chunk is kept for the user
+     */
+    private boolean isNearUser(int chunk) {
+        return userChunk >= 0 && Math.abs(chunk % chunksWide - userChunk % chunksWide) <= 1
+                && Math.abs(chunk / chunksWide - userChunk / chunksWide) <= 1;
+    }
+
+    /**
+     * Write a chunk to disk if it has changed since it was read
+     * @param chunk The chunk
+     * @param cells The cells of the chunk
+     */
+    private void writeBack(int chunk, Cell[] cells) {
+        if (!dirty.get(chunk)) {
+            return;
+        }
+
+        buffer.clear();
+        for (Cell cell : cells) {
+            buffer.putInt(cell == null ? 0 : CellCodes.encode(cell));
+        }
+
+        write(chunk);
+        dirty.clear(chunk);
+    }
+
+    /**
+     * Read the codes of a chunk from disk
+     * @param chunk The chunk
+     * @return The codes of the chunk, row by row within the chunk
+     */
+    private IntBuffer read(int chunk) {
+        buffer.clear();
+
+        try {
+            long offset = (long) chunk * CHUNK_BYTES;
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("The board file ends part way through chunk " + chunk);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        buffer.flip();
+        return buffer.asIntBuffer();
+    }
+
+    /**
+     * Write the codes in the buffer to a chunk on disk
+     * @param chunk The chunk
+     */
+    private void write(int chunk) {
+        buffer.flip();
+
+        try {
+            long offset = (long) chunk * CHUNK_BYTES;
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Get the chunk a cell is in
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The chunk
+     */
+    private int chunkOf(int x, int y) {
+        return (y / CHUNK_SIZE) * chunksWide + x / CHUNK_SIZE;
+    }
+
+    /**
+     * Get the index of a cell within its chunk
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The index within the chunk
+     */
+    private int localIndexOf(int x, int y) {
+        return (y % CHUNK_SIZE) * CHUNK_SIZE + x % CHUNK_SIZE;
+    }
+
+    /**
+     * Get the position of a cell from its index within a chunk
+     * @param chunk The chunk
+     * @param index The index within the chunk
+     * @return The position of the cell on the board
+     */
+    private Point positionOf(int chunk, int index) {
+        return new Point((chunk % chunksWide) * CHUNK_SIZE + index % CHUNK_SIZE,
+                (chunk / chunksWide) * CHUNK_SIZE + index / CHUNK_SIZE);
+    }
+
+    /**
+     * Get the index of a position on the board, row by row
+     * @param point The position
+     * @return The index of the position
+     */
+    private long indexOf(Point point) {
+        return (long) point.y * width + point.x;
+    }
+}
@@ -0,0 +1,27 @@
+package com.group18.model.board;
+
+import com.group18.model.Level;
+
+/**
+ * A board which stores its cells as codes from CellCodes, rather than as cell objects, and
+ * which only creates cell objects for the cells being played on. It's filled straight from
+ * codes as a level file is streamed in.
+ *
+ * @author agent
+ */
+public interface CodedBoard extends Board {
+
+    /**
+     * Write the codes of a band of whole rows, such as while the board is first being filled
+     * @param firstRow The first row of the band, which must be a multiple of ChunkedBoard.CHUNK_SIZE
+     * @param codes The codes of the band, row by row, ChunkedBoard.CHUNK_SIZE rows of the board's
+     *              width. Rows past the bottom of the board are ignored.
+     */
+    void writeRows(int firstRow, int[] codes);
+
+    /**
+     * Set the level the board belongs to, which every cell is given
+     * @param level The level
+     */
+    void setLevel(Level level);
+}
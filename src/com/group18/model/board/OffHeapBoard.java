@@ -0,0 +1,398 @@
+package com.group18.model.board;
+
+import com.group18.model.Level;
+import com.group18.model.LevelListener;
+import com.group18.model.cell.Cell;
+import com.group18.model.item.Collectable;
+
+import java.awt.Point;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A board stored outside the Java heap, in a direct buffer or a file mapped into memory. Each
+ * cell is stored as its code from CellCodes, followed by one occupancy bit per cell for the
+ * cells with an entity on them. Only the cells being played on become cell objects, so the
+ * heap, and the time the garbage collector spends on it, stays the same size however large the
+ * board is.
+ *
+ * Once too many cells are live as objects, the least recently used are dropped. A cell's code
+ * is written as soon as it changes, so dropping a cell never loses anything. Cells with an
+ * entity on them are never dropped, as entities only exist on cell objects.
+ *
+ * @author agent
+ */
+public class OffHeapBoard implements CodedBoard, LevelListener, Closeable {
+
+    /**
+     * The number of cells kept live as objects if no other limit is given
+     */
+    public static final int DEFAULT_MAX_LIVE = 1 << 16;
+
+    /**
+     * The mask of the item in a cell's code
+     */
+    private static final int ITEM_MASK = 0xFF00;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The most cells kept live, unless more have entities on them
+     */
+    private final int maxLive;
+
+    /**
+     * The buffer holding the codes and occupancy bits
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The code of each cell, row by row
+     */
+    private final IntBuffer codes;
+
+    /**
+     * The occupancy bit of each cell, row by row, 64 cells to each long
+     */
+    private final LongBuffer occupied;
+
+    /**
+     * The file the buffer is mapped from, or null if the buffer is only in memory
+     */
+    private final RandomAccessFile file;
+
+    /**
+     * The live cells by their index, with the least recently used first
+     */
+    private final LinkedHashMap<Integer, Cell> live = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The level the board belongs to, given to each cell as it becomes live
+     */
+    private Level level;
+
+    /**
+     * Creates a new board in a direct buffer. The whole board is ground until it's written.
+     * @param width The width of the board
+     * @param height The height of the board
+     * @param maxLive The most cells to keep live as objects
+     */
+    public OffHeapBoard(int width, int height, int maxLive) {
+        this(ByteBuffer.allocateDirect(bytesFor(width, height)), null, width, height, maxLive);
+    }
+
+    /**
+     * Creates a new board in a file mapped into memory, creating the file if it doesn't exist.
+     * Any part of the board not yet written is ground.
+     * @param file The file the board is stored in
+     * @param width The width of the board
+     * @param height The height of the board
+     * @param maxLive The most cells to keep live as objects
+     * @return The board
+     * @throws IOException If the file can't be opened or mapped
+     */
+    public static OffHeapBoard mapped(File file, int width, int height, int maxLive) throws IOException {
+        int bytes = bytesFor(width, height);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+
+        try {
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            return new OffHeapBoard(buffer, randomAccessFile, width, height, maxLive);
+        } catch (IOException ex) {
+            randomAccessFile.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Creates a new board over a buffer
+     * @param buffer The buffer holding the codes and occupancy bits
+     * @param file The file the buffer is mapped from, or null
+     * @param width The width of the board
+     * @param height The height of the board
+     * @param maxLive The most cells to keep live as objects
+     */
+    private OffHeapBoard(ByteBuffer buffer, RandomAccessFile file, int width, int height, int maxLive) {
+        this.width = width;
+        this.height = height;
+        this.maxLive = maxLive;
+        this.buffer = buffer;
+        this.file = file;
+
+        int cells = width * height;
+        buffer.limit(cells * Integer.BYTES);
+        this.codes = buffer.slice().asIntBuffer();
+        buffer.limit(buffer.capacity()).position(cells * Integer.BYTES);
+        this.occupied = buffer.slice().asLongBuffer();
+        buffer.clear();
+
+        // A mapped file may still hold the occupancy bits of an earlier game.
+        for (int word = 0; word < occupied.limit(); word++) {
+            occupied.put(word, 0);
+        }
+    }
+
+    /**
+     * Get the width of the board
+     * @return The width
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the board
+     * @return The height
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the cell at a position, creating it from its code if it isn't live
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The cell
+     */
+    @Override
+    public synchronized Cell getCell(int x, int y) {
+        int index = y * width + x;
+        Cell cell = live.get(index);
+
+        if (cell == null) {
+            cell = CellCodes.decode(codes.get(index), new Point(x, y));
+            cell.setLevel(level);
+            live.put(index, cell);
+            evict(index);
+        }
+
+        return cell;
+    }
+
+    /**
+     * Replace the cell at a position
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @param cell The new cell
+     */
+    @Override
+    public synchronized void setCell(int x, int y, Cell cell) {
+        int index = y * width + x;
+        codes.put(index, CellCodes.encode(cell));
+        live.put(index, cell);
+        evict(index);
+    }
+
+    /**
+     * Clear the item from the code of the cell it was collected from
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public synchronized void itemCollected(Point point, Collectable item) {
+        int index = point.y * width + point.x;
+        codes.put(index, codes.get(index) & ~ITEM_MASK);
+    }
+
+    /**
+     * Get every cell with an entity on it, in board order, row by row. The occupancy bits of the
+     * live cells are brought up to date first, then read in order.
+     * @return The cells with entities on them
+     */
+    @Override
+    public synchronized List<Cell> getOccupiedCells() {
+        for (Map.Entry<Integer, Cell> entry : live.entrySet()) {
+            updateOccupied(entry.getKey(), entry.getValue());
+        }
+
+        List<Cell> cells = new ArrayList<>();
+        for (int word = 0; word < occupied.limit(); word++) {
+            long bits = occupied.get(word);
+
+            while (bits != 0) {
+                int index = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                cells.add(live.get(index));
+                bits &= bits - 1;
+            }
+        }
+
+        return cells;
+    }
+
+    /**
+     * Find the position of every teleporter on the board, in board order, row by row. Only the
+     * codes are looked at.
+     * @return The positions of the teleporters
+     */
+    @Override
+    public synchronized List<Point> findTeleporters() {
+        List<Point> teleporters = new ArrayList<>();
+
+        for (int index = 0; index < width * height; index++) {
+            if (CellCodes.kindOf(codes.get(index)) == CellCodes.TELEPORTER) {
+                teleporters.add(new Point(index % width, index / width));
+            }
+        }
+
+        return teleporters;
+    }
+
+    /**
+     * An off heap board is never held in memory as a whole
+     * @return Null
+     */
+    @Override
+    public Cell[][] getCells() {
+        return null;
+    }
+
+    /**
+     * Set the level the board belongs to, which every cell is given
+     * @param level The level
+     */
+    @Override
+    public synchronized void setLevel(Level level) {
+        this.level = level;
+
+        for (Cell cell : live.values()) {
+            cell.setLevel(level);
+        }
+    }
+
+    /**
+     * Write the codes of a band of whole rows, such as while the board is first being filled.
+     * Any of those cells which are live are dropped.
+     * @param firstRow The first row of the band
+     * @param codes The codes of the band, row by row. Rows past the bottom of the board are ignored.
+     */
+    @Override
+    public synchronized void writeRows(int firstRow, int[] codes) {
+        int first = firstRow * width;
+        int length = Math.min(codes.length, (height - firstRow) * width);
+
+        this.codes.position(first);
+        this.codes.put(codes, 0, length);
+        this.codes.clear();
+        live.keySet().removeIf(index -> index >= first && index < first + length);
+    }
+
+    /**
+     * Get the number of cells currently live as objects
+     * @return The number of live cells
+     */
+    public synchronized int getLiveCells() {
+        return live.size();
+    }
+
+    /**
+     * Write the occupancy bits of the live cells, and if the board is mapped from a file, write
+     * the buffer out to it
+     */
+    public synchronized void flush() {
+        for (Map.Entry<Integer, Cell> entry : live.entrySet()) {
+            updateOccupied(entry.getKey(), entry.getValue());
+        }
+
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    /**
+     * Flush the board, and close the file it's mapped from
+     * @throws IOException If the file can't be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+
+        if (file != null) {
+            file.close();
+        }
+    }
+
+    /**
+     * Drop the least recently used cells until no more than the limit are live. Cells with
+     * entities on them, and the cell just made live, are kept, and moved to the most recently
+     * used end so they aren't looked at again straight away.
+     * @param keep The index of the cell just made live
+     */
+    private void evict(int keep) {
+        if (live.size() <= maxLive) {
+            return;
+        }
+
+        List<Integer> kept = new ArrayList<>();
+        Iterator<Map.Entry<Integer, Cell>> entries = live.entrySet().iterator();
+
+        while (live.size() > maxLive && entries.hasNext()) {
+            Map.Entry<Integer, Cell> entry = entries.next();
+            int index = entry.getKey();
+
+            if (index == keep || updateOccupied(index, entry.getValue())) {
+                kept.add(index);
+            } else {
+                entries.remove();
+            }
+        }
+
+        for (int index : kept) {
+            live.get(index);
+        }
+    }
+
+    /**
+     * Set the occupancy bit of a cell from whether it has an entity on it
+     * @param index The index of the cell
+     * @param cell The cell
+     * @return True if the cell has an entity on it
+     */
+    private boolean updateOccupied(int index, Cell cell) {
+        boolean isOccupied = !cell.getCurrentEntities().isEmpty();
+        int word = index / Long.SIZE;
+        long bit = 1L << (index % Long.SIZE);
+
+        occupied.put(word, isOccupied ? occupied.get(word) | bit : occupied.get(word) & ~bit);
+        return isOccupied;
+    }
+
+    /**
+     * Get the number of bytes a board needs for its codes and occupancy bits
+     * @param width The width of the board
+     * @param height The height of the board
+     * @return The number of bytes
+     * @throws IllegalArgumentException If the board is too large for one buffer
+     */
+    private static int bytesFor(int width, int height) {
+        long cells = (long) width * height;
+        long bytes = cells * Integer.BYTES + (cells + Long.SIZE - 1) / Long.SIZE * Long.BYTES;
+
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(String.format("A %dx%d board is too large for one buffer", width, height));
+        }
+
+        return (int) bytes;
+    }
+}
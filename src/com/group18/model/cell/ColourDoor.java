@@ -1,6 +1,5 @@
 package com.group18.model.cell;
 
-import com.group18.controller.GameController;
 import com.group18.model.Actionable;
 import com.group18.model.Colour;
 import com.group18.model.entity.Entity;
@@ -50,8 +49,8 @@ public class ColourDoor extends Wall implements Door, Actionable {
 
             if (canOpen(user)) {
                 user.consumeKey(colour, getLevel().getCurrentLevel());
-                GameController.displayInventoryItems();
-                GameController.playSound("DoorOpen");
+                getLevel().getEvents().inventoryChanged();
+                getLevel().getEvents().doorOpened(getPosition());
             }
         }
     }
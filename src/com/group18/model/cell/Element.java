@@ -1,16 +1,12 @@
 package com.group18.model.cell;
 
-import com.group18.controller.GameController;
 import com.group18.model.Actionable;
 import com.group18.model.ElementType;
-import com.group18.model.State;
 import com.group18.model.entity.Entity;
 import com.group18.model.entity.User;
 
 import java.awt.*;
 
-import static com.group18.model.State.*;
-
 /**
  * Represents special cell which requires special elements for user to move.
  * @author RIYA GUPTA
@@ -43,23 +39,10 @@ public class Element extends Ground implements Actionable {
             if (!(user.hasElementItem(
                     this.elementType.getElementItem(), getLevel().getCurrentLevel()))) {
 
-                GameController gc = new GameController();
-                gc.triggerAlert("You walked into an element without its item! Unlucky!", State.LEVEL_LOST);
+                getLevel().getEvents().levelLost("You walked into an element without its item! Unlucky!");
             }
 
-            switch (elementType) {
-                case WATER:
-                    GameController.playSound("WaterSplash");
-                    break;
-                case FIRE:
-                    GameController.playSound("FireCrackle");
-                    break;
-                case ICE:
-                    GameController.playSound("IceSlide");
-                    break;
-                default:
-                    break;
-            }
+            getLevel().getEvents().elementEntered(elementType);
         }
     }
 
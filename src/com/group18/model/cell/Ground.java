@@ -1,6 +1,5 @@
 package com.group18.model.cell;
 
-import com.group18.controller.GameController;
 import com.group18.exception.InvalidMoveException;
 import com.group18.model.Actionable;
 import com.group18.model.item.Collectable;
@@ -130,19 +129,18 @@ public class Ground extends Cell implements Actionable {
     @Override
     public void toggleAction(Entity entity) {
         if (entity instanceof User && hasItem()) {
-            if (this.getItem() instanceof Key) {
-                if (((Key) this.getItem()) == Key.TOKEN_KEY) {
-                    GameController.playSound("PickupCoin");
-                    ((User) entity).addToken();
-                } else {
-                    GameController.playSound("PickupItem");
-                    ((User) entity).addItem(this.item, getLevel().getCurrentLevel());
-                }
+            User user = (User) entity;
+            Collectable collected = this.item;
+            setItem(null);
+
+            if (collected == Key.TOKEN_KEY) {
+                user.addToken();
+                getLevel().getEvents().itemCollected(getPosition(), collected);
+                getLevel().getEvents().tokensChanged(user.getTokens());
             } else {
-                GameController.playSound("PickupItem");
-                ((User) entity).addItem(this.item, getLevel().getCurrentLevel());
+                user.addItem(collected, getLevel().getCurrentLevel());
+                getLevel().getEvents().itemCollected(getPosition(), collected);
             }
-            setItem(null);
         }
     }
 }
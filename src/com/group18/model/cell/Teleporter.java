@@ -1,6 +1,5 @@
 package com.group18.model.cell;
 
-import com.group18.controller.GameController;
 import com.group18.exception.InvalidMoveException;
 import com.group18.model.Actionable;
 import com.group18.model.entity.Entity;
@@ -15,32 +14,44 @@ import java.awt.*;
 public class Teleporter extends Ground implements Actionable {
 
     /**
-     * This cells teleporter partner
+     * The id of a teleporter from an older level file, which is paired by its place on the board
      */
-    private Teleporter partner;
+    public static final int NO_ID = -1;
+
+    /**
+     * The id this teleporter shares with its partner
+     */
+    private int id;
 
     /**
      * Creates a new teleporter cell
-     * @param partner The partner of this teleporter
+     * @param id The id this teleporter shares with its partner, or NO_ID
      * @param point The (x,y) coordinates of this cell
      */
-    public Teleporter(Teleporter partner, Point point) {
+    public Teleporter(int id, Point point) {
         super(point);
-        this.partner = partner;
+        this.id = id;
     }
 
     /**
-     * Toggles this teleporters action, by teleporting the user to the partner cell
+     * Toggles this teleporters action, by teleporting the user to the partner cell.
+     * If this teleporter has no partner, the user stays on it.
      * @param entity The entity in which the cell's action is toggled upon.
      */
     @Override
     public void toggleAction(Entity entity) {
         if (entity instanceof User) {
+            Teleporter partner = getLevel().getTeleporters().getPartner(this);
             removeEntity(entity);
             try {
-                partner.placePlayer((User) entity);
-                entity.setCurrentCell(partner);
-                GameController.playSound("PlayerTeleport");
+                if (partner == null) {
+                    placePlayer((User) entity);
+                    entity.setCurrentCell(this);
+                } else {
+                    partner.placePlayer((User) entity);
+                    entity.setCurrentCell(partner);
+                    getLevel().getEvents().userTeleported(partner.getPosition());
+                }
             } catch (InvalidMoveException ex) {
                 ex.printStackTrace();
             }
@@ -48,18 +59,18 @@ public class Teleporter extends Ground implements Actionable {
     }
 
     /**
-     * Get this teleporter's partner cell
-     * @return This teleporter's partner
+     * Get the id this teleporter shares with its partner
+     * @return The id, or NO_ID
      */
-    public Teleporter getPartner() {
-        return partner;
+    public int getId() {
+        return id;
     }
 
     /**
-     * Set the partner teleporter of this cell
-     * @param partner The new partner
+     * Set the id this teleporter shares with its partner
+     * @param id The new id
      */
-    public void setPartner(Teleporter partner) {
-        this.partner = partner;
+    public void setId(int id) {
+        this.id = id;
     }
 }
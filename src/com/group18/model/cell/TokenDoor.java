@@ -1,6 +1,5 @@
 package com.group18.model.cell;
 
-import com.group18.controller.GameController;
 import com.group18.model.Actionable;
 import com.group18.model.entity.Entity;
 import com.group18.model.entity.User;
@@ -44,7 +43,7 @@ public class TokenDoor extends Wall implements Door, Actionable {
             User user = (User) entity;
 
             if (user.getTokens() >= this.tokens) {
-                GameController.playSound("DoorOpen");
+                getLevel().getEvents().doorOpened(getPosition());
             }
         }
     }
@@ -2,9 +2,10 @@ package com.group18.model.entity;
 
 import com.group18.model.Direction;
 import com.group18.model.Level;
+import com.group18.model.navigation.NeighbourMasks;
 
 import java.awt.*;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import static com.group18.model.Direction.*;
 
@@ -30,7 +31,21 @@ public class DumbTargetingEnemy extends Enemy {
         // Get the difference between the Users (x,y) coordinates to the this enemy
         int xDistance = (int) (userPosition.getX() - currentPosition.getX());
         int yDistance = (int) (userPosition.getY() - currentPosition.getY());
+        int walkable = level.getNeighbourMasks().getWalkable(currentPosition);
 
+        return decide(xDistance, yDistance, walkable, getRandom());
+    }
+
+    /**
+     * Decide the direction that gets closest to the User, from the distance to them and the
+     * directions this enemy can move in
+     * @param xDistance The distance on the X axis to the user
+     * @param yDistance The distance on the Y axis to the user
+     * @param walkable The neighbour mask of directions this enemy can move in
+     * @param random The enemy's random number generator, used if both distances are equal
+     * @return Their next direction
+     */
+    static Direction decide(int xDistance, int yDistance, int walkable, SplittableRandom random) {
         // Calculate the absolute difference to find which is the smallest difference
         int absXDistance = Math.abs(xDistance);
         int absYDistance = Math.abs(yDistance);
@@ -43,19 +58,19 @@ public class DumbTargetingEnemy extends Enemy {
         // Here, it does not matter which direction we move in as both X & Y distances are equal
         // Therefore, we choose a random axis to move along
         if (absXDistance == absYDistance) {
-            return calculateRandomDirection(xDistance, yDistance, level);
+            return calculateRandomDirection(xDistance, yDistance, walkable, random);
         }
 
         // If we are on the same X axis as the User but different Y axis,
         // therefore we only want to move on the Y axis
         if (absXDistance == 0) {
-            return calculateVerticalDirection(yDistance, level);
+            return calculateVerticalDirection(yDistance, walkable);
         }
 
         // If we are on the same Y axis as the User but different X axis,
         // therefore we only want to move on the X axis
         if (absYDistance == 0) {
-            return calculateHorizontalDirection(xDistance, level);
+            return calculateHorizontalDirection(xDistance, walkable);
         }
 
         // Here, we must be on a completely different X & Y axis to the User.
@@ -63,55 +78,66 @@ public class DumbTargetingEnemy extends Enemy {
         // Then return a suitable direction, moving along that axis.
         if (absXDistance < absYDistance) {
 
-            return calculateHorizontalDirection(xDistance, level);
+            return calculateHorizontalDirection(xDistance, walkable);
         }
 
-        return calculateVerticalDirection(yDistance, level);
+        return calculateVerticalDirection(yDistance, walkable);
     }
 
 
     /**
      * Calculate the vertical direction that is needed based on an Y axis value
      * @param distance The Y value distance
-     * @param level The level in which this enemy is associated with
+     * @param walkable The neighbour mask of directions this enemy can move in
      * @return A suitable direction moving along the vertical plane
      */
-    private Direction calculateVerticalDirection(int distance, Level level) {
+    private static Direction calculateVerticalDirection(int distance, int walkable) {
         if (distance < 0) {
-            return level.validMove(this, UP) ? UP : IDLE;
+            return canMove(walkable, UP) ? UP : IDLE;
         }
 
-        return level.validMove(this, DOWN) ? DOWN : IDLE;
+        return canMove(walkable, DOWN) ? DOWN : IDLE;
     }
 
     /**
      * Calculate the horizontal direction that is needed based on a X axis value
      * @param distance The X value distance
-     * @param level The level in which this enemy is associated with
+     * @param walkable The neighbour mask of directions this enemy can move in
      * @return A suitable direction moving along the horizontal plane
      */
-    private Direction calculateHorizontalDirection(int distance, Level level) {
+    private static Direction calculateHorizontalDirection(int distance, int walkable) {
         if (distance < 0) {
-            return level.validMove(this, LEFT) ? LEFT : IDLE;
+            return canMove(walkable, LEFT) ? LEFT : IDLE;
         }
 
-        return level.validMove(this, RIGHT) ? RIGHT : IDLE;
+        return canMove(walkable, RIGHT) ? RIGHT : IDLE;
     }
 
     /**
      * Choose a direction based on a random axis to move to along. Assuming both distances are equal
      * @param xDistance The distance on the X axis to the user
      * @param yDistance The distance on the Y axis to the user
-     * @param level The level in which this enemy is associated with
+     * @param walkable The neighbour mask of directions this enemy can move in
+     * @param random The enemy's random number generator
      * @return A suitable direction moving along a random axis
      */
-    private Direction calculateRandomDirection(int xDistance, int yDistance, Level level) {
-        Random random = new Random();
+    private static Direction calculateRandomDirection(int xDistance, int yDistance, int walkable,
+                                                      SplittableRandom random) {
         int axis = random.nextInt(2);
 
         // If random value was 0 move on the X axis. Otherwise move on the Y axis.
-        return axis == 0 ? calculateHorizontalDirection(xDistance, level) :
-                           calculateVerticalDirection(yDistance, level);
+        return axis == 0 ? calculateHorizontalDirection(xDistance, walkable) :
+                           calculateVerticalDirection(yDistance, walkable);
+    }
+
+    /**
+     * Check if a neighbour mask lets this enemy move in a direction
+     * @param walkable The neighbour mask of directions this enemy can move in
+     * @param direction The direction
+     * @return True if the enemy can move in the direction
+     */
+    private static boolean canMove(int walkable, Direction direction) {
+        return (walkable & NeighbourMasks.bitOf(direction)) != 0;
     }
 }
 
@@ -3,12 +3,41 @@ package com.group18.model.entity;
 import com.group18.model.Direction;
 import com.group18.model.Level;
 
+import java.util.SplittableRandom;
+
 /**
  * Designs the behaviours for the Enemy.
  * @author nothandotshuma
  */
 public abstract class Enemy extends Entity {
 
+    /**
+     * The random number generator this enemy uses when it has to make a random choice.
+     * Each enemy is given its own generator from the level's seed, so a game can be repeated exactly.
+     */
+    private transient SplittableRandom random;
+
+    /**
+     * Set the random number generator this enemy uses for its random choices
+     * @param random The random number generator
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
+    /**
+     * Get the random number generator this enemy uses for its random choices.
+     * If the enemy has not been given one, an unseeded generator is created.
+     * @return The random number generator
+     */
+    protected SplittableRandom getRandom() {
+        if (random == null) {
+            random = new SplittableRandom();
+        }
+
+        return random;
+    }
+
     /**
      * Abstract method to work out which direction the enemy should take.
      * @param user The current user playing on the level
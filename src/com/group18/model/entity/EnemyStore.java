@@ -0,0 +1,726 @@
+package com.group18.model.entity;
+
+import com.group18.model.Direction;
+import com.group18.model.Level;
+import com.group18.model.navigation.NeighbourMasks;
+import javafx.geometry.Orientation;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.group18.model.Direction.*;
+
+/**
+ * Holds the state each enemy on a level needs to decide its next direction in flat arrays, with
+ * the enemies grouped by type. Each turn every group is decided by a loop over its own arrays,
+ * rather than by asking each enemy in turn, so large numbers of enemies can be decided quickly.
+ *
+ * The enemies themselves still hold their cells and directions, which are used for drawing and
+ * saving. The store is kept up to date with them by moving every enemy through it.
+ *
+ * Enemies are given to the store in the order they take their turns, and every index taken or
+ * returned by the store is an index in that order.
+ *
+ * Enemies far from the user can be put to sleep, such as on very large levels. The board is split
+ * into square chunks, and only enemies within a number of chunks of the user's chunk decide and
+ * move. The
+ * rest stay exactly where they are, keeping their direction, until the user comes close enough
+ * to wake them. Which enemies are awake only depends on where the user and the awake enemies
+ * are, so a game can still be repeated exactly, and the cost of a turn depends on the number of
+ * enemies near the user rather than on the level. As sleeping enemies change how a game plays
+ * out, every enemy is kept awake unless a culling radius is set.
+ *
+ * @author agent
+ */
+public class EnemyStore {
+
+    /**
+     * The largest number of enemies decided on a single thread, before the enemies are split up
+     */
+    static final int THRESHOLD = 16;
+
+    /**
+     * The type of straight line enemies
+     */
+    private static final byte STRAIGHT_LINE = 0;
+
+    /**
+     * The type of dumb targeting enemies
+     */
+    private static final byte DUMB_TARGETING = 1;
+
+    /**
+     * The type of wall following enemies
+     */
+    private static final byte WALL_FOLLOWING = 2;
+
+    /**
+     * The type of smart targeting enemies, and any other enemy, which decide for themselves
+     */
+    private static final byte SMART_TARGETING = 3;
+
+    /**
+     * The number of types of enemy
+     */
+    private static final int TYPES = 4;
+
+    /**
+     * The radius meaning no enemies are put to sleep
+     */
+    public static final int NO_CULLING = -1;
+
+    /**
+     * The width and height of a chunk of the board, in cells
+     */
+    public static final int CHUNK_SIZE = 16;
+
+    /**
+     * A radius in chunks to keep enemies awake within, for callers which choose to put enemies to
+     * sleep. Two chunks is well beyond the part of the level the game window shows.
+     */
+    public static final int DEFAULT_CULLING_RADIUS = 2;
+
+    /**
+     * The state of an enemy which decides its direction every turn
+     */
+    static final byte ACTIVE = 0;
+
+    /**
+     * The state flag of a straight line enemy which has become stuck, and will never move again
+     */
+    static final byte STUCK = 1;
+
+    /**
+     * The state flag of an enemy which is too far from the user to take part in turns
+     */
+    static final byte ASLEEP = 2;
+
+    /**
+     * The stored direction of an enemy which hasn't been given a direction
+     */
+    private static final byte NO_DIRECTION = -1;
+
+    /**
+     * Every direction, by ordinal
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The level the enemies are on
+     */
+    private final Level level;
+
+    /**
+     * The width of the level's board
+     */
+    private final int width;
+
+    /**
+     * The number of chunks across the board
+     */
+    private final int chunksWide;
+
+    /**
+     * The number of chunks down the board
+     */
+    private final int chunksHigh;
+
+    /**
+     * The enemies, grouped by type
+     */
+    private final Enemy[] enemies;
+
+    /**
+     * The slot of each enemy in the arrays, by the order the enemies take their turns
+     */
+    private final int[] slots;
+
+    /**
+     * The turn order of the enemy in each slot
+     */
+    private final int[] turnOrder;
+
+    /**
+     * The index of the cell each enemy is on, as y * width + x
+     */
+    private final int[] positions;
+
+    /**
+     * The ordinal of the direction each enemy last moved in
+     */
+    private final byte[] directions;
+
+    /**
+     * The state flags of each enemy
+     */
+    private final byte[] states;
+
+    /**
+     * The chunk each enemy is in
+     */
+    private final int[] chunks;
+
+    /**
+     * The first slot in each chunk, or -1 if the chunk has no enemies
+     */
+    private final int[] chunkHeads;
+
+    /**
+     * The next slot in the same chunk as each enemy, or -1 if it's the last one
+     */
+    private final int[] nextInChunk;
+
+    /**
+     * The previous slot in the same chunk as each enemy, or -1 if it's the first one
+     */
+    private final int[] previousInChunk;
+
+    /**
+     * The slots of the awake enemies, in order. The first awakeCount are used.
+     */
+    private final int[] awake;
+
+    /**
+     * The number of awake enemies
+     */
+    private int awakeCount;
+
+    /**
+     * The first place in the awake slots of each type, with the number of awake enemies at the end
+     */
+    private final int[] awakeTypeStarts = new int[TYPES + 1];
+
+    /**
+     * The radius in chunks enemies are kept awake within, or NO_CULLING
+     */
+    private int cullingRadius;
+
+    /**
+     * The chunk the user was in when the awake enemies were last found, or -1 if they need finding
+     */
+    private int userChunk = -1;
+
+    /**
+     * The first slot of each type, with the number of enemies at the end
+     */
+    private final int[] typeStarts = new int[TYPES + 1];
+
+    /**
+     * If each straight line enemy moves up and down. Straight line enemies take the first slots,
+     * so these arrays are indexed by slot.
+     */
+    private final boolean[] vertical;
+
+    /**
+     * The lowest x or y along its line each straight line enemy can move to
+     */
+    private final int[] stretchStarts;
+
+    /**
+     * The highest x or y along its line each straight line enemy can move to
+     */
+    private final int[] stretchEnds;
+
+    /**
+     * The version of each straight line enemy's row or column when its stretch was found,
+     * or -1 if it hasn't been found yet
+     */
+    private final int[] lineVersions;
+
+    /**
+     * Store the enemies of a level, with every enemy awake
+     * @param level The level the enemies are on
+     * @param enemies The enemies, in the order they take their turns
+     */
+    public EnemyStore(Level level, List<Enemy> enemies) {
+        int size = enemies.size();
+        int height = level.getBoardHeight();
+        this.level = level;
+        this.width = level.getBoardWidth();
+        this.chunksWide = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunksHigh = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.enemies = new Enemy[size];
+        this.slots = new int[size];
+        this.turnOrder = new int[size];
+        this.positions = new int[size];
+        this.directions = new byte[size];
+        this.states = new byte[size];
+        this.chunks = new int[size];
+        this.chunkHeads = new int[chunksWide * chunksHigh];
+        this.nextInChunk = new int[size];
+        this.previousInChunk = new int[size];
+        this.awake = new int[size];
+        Arrays.fill(chunks, -1);
+        Arrays.fill(chunkHeads, -1);
+
+        // Count each type, then give each enemy the next slot of its type
+        int[] counts = new int[TYPES];
+        for (Enemy enemy : enemies) {
+            counts[typeOf(enemy)]++;
+        }
+        for (int type = 0; type < TYPES; type++) {
+            typeStarts[type + 1] = typeStarts[type] + counts[type];
+        }
+
+        int[] nextSlots = typeStarts.clone();
+        for (int i = 0; i < size; i++) {
+            Enemy enemy = enemies.get(i);
+            int slot = nextSlots[typeOf(enemy)]++;
+
+            this.enemies[slot] = enemy;
+            slots[i] = slot;
+            turnOrder[slot] = i;
+            update(slot);
+        }
+
+        int straightLines = counts[STRAIGHT_LINE];
+        this.vertical = new boolean[straightLines];
+        this.stretchStarts = new int[straightLines];
+        this.stretchEnds = new int[straightLines];
+        this.lineVersions = new int[straightLines];
+
+        for (int slot = 0; slot < straightLines; slot++) {
+            vertical[slot] = ((StraightLineEnemy) this.enemies[slot]).getOrientation() == Orientation.VERTICAL;
+            lineVersions[slot] = -1;
+        }
+
+        setCullingRadius(NO_CULLING);
+    }
+
+    /**
+     * Set how far from the user enemies are kept awake
+     * @param cullingRadius The radius in chunks around the user's chunk, or NO_CULLING to keep
+     *                      every enemy awake
+     */
+    public void setCullingRadius(int cullingRadius) {
+        this.cullingRadius = cullingRadius;
+        this.userChunk = -1;
+        awakeCount = 0;
+
+        for (int slot = 0; slot < enemies.length; slot++) {
+            if (cullingRadius == NO_CULLING) {
+                states[slot] &= ~ASLEEP;
+                awake[awakeCount++] = slot;
+            } else {
+                states[slot] |= ASLEEP;
+            }
+        }
+
+        findAwakeTypeStarts();
+    }
+
+    /**
+     * Get how far from the user enemies are kept awake
+     * @return The radius in chunks around the user's chunk, or NO_CULLING
+     */
+    public int getCullingRadius() {
+        return cullingRadius;
+    }
+
+    /**
+     * Check if an enemy is awake, and taking part in turns
+     * @param index The enemy's place in the turn order
+     * @return True if the enemy is awake
+     */
+    public boolean isAwake(int index) {
+        return (states[slots[index]] & ASLEEP) == 0;
+    }
+
+    /**
+     * Get the number of enemies which are awake
+     * @return The number of awake enemies
+     */
+    public int getAwakeCount() {
+        return awakeCount;
+    }
+
+    /**
+     * Get the number of enemies
+     * @return The number of enemies
+     */
+    public int size() {
+        return enemies.length;
+    }
+
+    /**
+     * Get an enemy
+     * @param index The enemy's place in the turn order
+     * @return The enemy
+     */
+    public Enemy getEnemy(int index) {
+        return enemies[slots[index]];
+    }
+
+    /**
+     * Decide the direction each enemy wishes to move in this turn. Deciding a direction only reads
+     * the board, and nothing is moved until every enemy has decided, so large numbers of enemies
+     * are decided in parallel. Each direction is the same as if the enemies had decided one by one.
+     * Enemies which are asleep are given IDLE.
+     * @param user The user the enemies are targeting
+     * @return The direction of each enemy, in turn order
+     */
+    public Direction[] decide(User user) {
+        Direction[] decided = new Direction[enemies.length];
+
+        if (cullingRadius != NO_CULLING) {
+            wakeNear(user.getCurrentCell().getPosition());
+            Arrays.fill(decided, IDLE);
+        }
+
+        if (awakeCount <= THRESHOLD) {
+            decide(user, decided, 0, awakeCount);
+        } else {
+            ForkJoinPool.commonPool().invoke(new DecideTask(user, decided, 0, awakeCount));
+        }
+
+        return decided;
+    }
+
+    /**
+     * Move an enemy in the direction it decided on, and store where it ends up.
+     * Enemies which are asleep aren't moved.
+     * @param index The enemy's place in the turn order
+     * @param direction The direction to move in
+     */
+    public void move(int index, Direction direction) {
+        int slot = slots[index];
+
+        if ((states[slot] & ASLEEP) != 0) {
+            return;
+        }
+
+        level.moveEnemy(enemies[slot], direction);
+        update(slot);
+
+        // An enemy which has wandered too far from the user falls asleep next turn
+        if (cullingRadius != NO_CULLING && !isNearUser(chunks[slot])) {
+            userChunk = -1;
+        }
+    }
+
+    /**
+     * Find the enemies which should be awake, if the user has moved to another chunk or an awake
+     * enemy has wandered off since they were last found
+     * @param userPosition The position of the user
+     */
+    private void wakeNear(Point userPosition) {
+        int chunk = chunkOf((int) userPosition.getX(), (int) userPosition.getY());
+        if (chunk == userChunk) {
+            return;
+        }
+
+        userChunk = chunk;
+        for (int i = 0; i < awakeCount; i++) {
+            states[awake[i]] |= ASLEEP;
+        }
+
+        awakeCount = 0;
+        int chunkX = chunk % chunksWide;
+        int chunkY = chunk / chunksWide;
+        for (int y = Math.max(0, chunkY - cullingRadius); y <= Math.min(chunksHigh - 1, chunkY + cullingRadius); y++) {
+            for (int x = Math.max(0, chunkX - cullingRadius); x <= Math.min(chunksWide - 1, chunkX + cullingRadius); x++) {
+                for (int slot = chunkHeads[y * chunksWide + x]; slot != -1; slot = nextInChunk[slot]) {
+                    states[slot] &= ~ASLEEP;
+                    awake[awakeCount++] = slot;
+                }
+            }
+        }
+
+        // Awake enemies are decided in slot order, so each type is still decided together
+        Arrays.sort(awake, 0, awakeCount);
+        findAwakeTypeStarts();
+    }
+
+    /**
+     * Find where each type starts among the awake slots
+     */
+    private void findAwakeTypeStarts() {
+        int i = 0;
+        for (int type = 0; type < TYPES; type++) {
+            awakeTypeStarts[type] = i;
+            while (i < awakeCount && awake[i] < typeStarts[type + 1]) {
+                i++;
+            }
+        }
+        awakeTypeStarts[TYPES] = awakeCount;
+    }
+
+    /**
+     * Check if a chunk is within the culling radius of the user's chunk
+     * @param chunk The chunk
+     * @return True if enemies in the chunk should be awake
+     */
+    private boolean isNearUser(int chunk) {
+        return userChunk != -1
+                && Math.abs(chunk % chunksWide - userChunk % chunksWide) <= cullingRadius
+                && Math.abs(chunk / chunksWide - userChunk / chunksWide) <= cullingRadius;
+    }
+
+    /**
+     * Get the chunk a cell is in
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The chunk
+     */
+    private int chunkOf(int x, int y) {
+        return (y / CHUNK_SIZE) * chunksWide + x / CHUNK_SIZE;
+    }
+
+    /**
+     * Store the position and direction of the enemy in a slot
+     * @param slot The slot
+     */
+    private void update(int slot) {
+        Enemy enemy = enemies[slot];
+        Point position = enemy.getCurrentCell().getPosition();
+        Direction direction = enemy.getDirection();
+
+        int x = (int) position.getX();
+        int y = (int) position.getY();
+        positions[slot] = y * width + x;
+        directions[slot] = direction == null ? NO_DIRECTION : (byte) direction.ordinal();
+
+        if (slot < typeStarts[STRAIGHT_LINE + 1] && direction == IDLE) {
+            states[slot] |= STUCK;
+        }
+
+        int chunk = chunkOf(x, y);
+        if (chunk != chunks[slot]) {
+            if (chunks[slot] != -1) {
+                unlink(slot);
+            }
+            link(slot, chunk);
+        }
+    }
+
+    /**
+     * Add an enemy to the front of a chunk's enemies
+     * @param slot The enemy's slot
+     * @param chunk The chunk
+     */
+    private void link(int slot, int chunk) {
+        int head = chunkHeads[chunk];
+
+        chunks[slot] = chunk;
+        previousInChunk[slot] = -1;
+        nextInChunk[slot] = head;
+        if (head != -1) {
+            previousInChunk[head] = slot;
+        }
+        chunkHeads[chunk] = slot;
+    }
+
+    /**
+     * Remove an enemy from its chunk's enemies
+     * @param slot The enemy's slot
+     */
+    private void unlink(int slot) {
+        int previous = previousInChunk[slot];
+        int next = nextInChunk[slot];
+
+        if (previous == -1) {
+            chunkHeads[chunks[slot]] = next;
+        } else {
+            nextInChunk[previous] = next;
+        }
+        if (next != -1) {
+            previousInChunk[next] = previous;
+        }
+    }
+
+    /**
+     * Decide the directions of a range of the awake enemies, one type at a time
+     * @param user The user the enemies are targeting
+     * @param decided The array each direction is stored in, in turn order
+     * @param start The first place in the awake slots
+     * @param end The place after the last
+     */
+    private void decide(User user, Direction[] decided, int start, int end) {
+        for (int type = 0; type < TYPES; type++) {
+            int from = Math.max(start, awakeTypeStarts[type]);
+            int to = Math.min(end, awakeTypeStarts[type + 1]);
+
+            if (from >= to) {
+                continue;
+            }
+
+            switch (type) {
+                case STRAIGHT_LINE:
+                    decideStraightLines(decided, from, to);
+                    break;
+                case DUMB_TARGETING:
+                    decideDumbTargeting(user, decided, from, to);
+                    break;
+                case WALL_FOLLOWING:
+                    decideWallFollowing(decided, from, to);
+                    break;
+                default:
+                    for (int i = from; i < to; i++) {
+                        int slot = awake[i];
+                        decided[turnOrder[slot]] = enemies[slot].getNextDirection(user, level);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Decide the directions of a range of straight line enemies, finding the stretch of a line
+     * again only if a cell on it has changed
+     * @param decided The array each direction is stored in, in turn order
+     * @param from The first place in the awake slots
+     * @param to The place after the last
+     */
+    private void decideStraightLines(Direction[] decided, int from, int to) {
+        NeighbourMasks masks = level.getNeighbourMasks();
+
+        for (int i = from; i < to; i++) {
+            int slot = awake[i];
+            if ((states[slot] & STUCK) != 0) {
+                decided[turnOrder[slot]] = IDLE;
+                continue;
+            }
+
+            int x = positions[slot] % width;
+            int y = positions[slot] / width;
+            int along = vertical[slot] ? y : x;
+            int version = vertical[slot] ? masks.getColumnVersion(x) : masks.getRowVersion(y);
+
+            if (version != lineVersions[slot] || along < stretchStarts[slot] || along > stretchEnds[slot]) {
+                stretchStarts[slot] = StraightLineEnemy.findStretchEdge(masks, x, y, vertical[slot], false);
+                stretchEnds[slot] = StraightLineEnemy.findStretchEdge(masks, x, y, vertical[slot], true);
+                lineVersions[slot] = version;
+            }
+
+            decided[turnOrder[slot]] = StraightLineEnemy.decide(directionOf(slot), along,
+                    stretchStarts[slot], stretchEnds[slot], vertical[slot]);
+        }
+    }
+
+    /**
+     * Decide the directions of a range of dumb targeting enemies
+     * @param user The user the enemies are targeting
+     * @param decided The array each direction is stored in, in turn order
+     * @param from The first place in the awake slots
+     * @param to The place after the last
+     */
+    private void decideDumbTargeting(User user, Direction[] decided, int from, int to) {
+        NeighbourMasks masks = level.getNeighbourMasks();
+        Point target = user.getCurrentCell().getPosition();
+        int targetX = (int) target.getX();
+        int targetY = (int) target.getY();
+
+        for (int i = from; i < to; i++) {
+            int slot = awake[i];
+            int x = positions[slot] % width;
+            int y = positions[slot] / width;
+
+            decided[turnOrder[slot]] = DumbTargetingEnemy.decide(targetX - x, targetY - y,
+                    masks.getWalkable(x, y), enemies[slot].getRandom());
+        }
+    }
+
+    /**
+     * Decide the directions of a range of wall following enemies
+     * @param decided The array each direction is stored in, in turn order
+     * @param from The first place in the awake slots
+     * @param to The place after the last
+     */
+    private void decideWallFollowing(Direction[] decided, int from, int to) {
+        NeighbourMasks masks = level.getNeighbourMasks();
+
+        for (int i = from; i < to; i++) {
+            int slot = awake[i];
+            int x = positions[slot] % width;
+            int y = positions[slot] / width;
+
+            decided[turnOrder[slot]] = WallFollowingEnemy.decide(masks.getWalkable(x, y),
+                    masks.getHugging(x, y), directionOf(slot), enemies[slot].getRandom());
+        }
+    }
+
+    /**
+     * Get the direction the enemy in a slot last moved in
+     * @param slot The slot
+     * @return The direction, or null if it hasn't been given one
+     */
+    private Direction directionOf(int slot) {
+        return directions[slot] == NO_DIRECTION ? null : DIRECTIONS[directions[slot]];
+    }
+
+    /**
+     * Get the type of an enemy
+     * @param enemy The enemy
+     * @return The enemy's type
+     */
+    private static byte typeOf(Enemy enemy) {
+        if (enemy instanceof StraightLineEnemy) {
+            return STRAIGHT_LINE;
+        } else if (enemy instanceof DumbTargetingEnemy) {
+            return DUMB_TARGETING;
+        } else if (enemy instanceof WallFollowingEnemy) {
+            return WALL_FOLLOWING;
+        }
+
+        return SMART_TARGETING;
+    }
+
+    /**
+     * A fork-join task deciding the directions of a range of the awake enemies. The range is split
+     * in half until it is small enough to be decided on a single thread.
+     */
+    private class DecideTask extends RecursiveAction {
+
+        /**
+         * The user the enemies are targeting
+         */
+        private final User user;
+
+        /**
+         * The array each direction is stored in, in turn order
+         */
+        private final Direction[] decided;
+
+        /**
+         * The first place in the awake slots this task decides
+         */
+        private final int start;
+
+        /**
+         * The place after the last this task decides
+         */
+        private final int end;
+
+        /**
+         * Creates a new task deciding the directions of a range of the awake enemies
+         * @param user The user the enemies are targeting
+         * @param decided The array each direction is stored in, in turn order
+         * @param start The first place in the awake slots
+         * @param end The place after the last
+         */
+        DecideTask(User user, Direction[] decided, int start, int end) {
+            this.user = user;
+            this.decided = decided;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Decide the directions of this task's range, splitting the range if it's too large
+         */
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                decide(user, decided, start, end);
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new DecideTask(user, decided, start, middle),
+                      new DecideTask(user, decided, middle, end));
+        }
+    }
+}
@@ -7,6 +7,8 @@ import com.group18.exception.ShortestPathNotFoundException;
 import com.group18.model.Direction;
 import com.group18.model.Level;
 import com.group18.model.cell.*;
+import com.group18.model.navigation.Landmarks;
+import com.group18.model.navigation.PathFinder;
 
 import java.awt.Point;
 import java.util.*;
@@ -25,7 +27,9 @@ public class SmartTargetingEnemy extends Enemy {
     /**
      * Get the user's next direction they wish to move in.
      * This involves calculating the shortest viable path to the User
-     * If a path is not found, the enemy then must choose a random but valid direction
+     * If a path is not found, the enemy then must choose a random but valid direction.
+     * If the level has a path finder, such as a cluster graph on large levels, the path is found
+     * with it rather than by searching the whole graph.
      * @param user The current user playing on the level
      * @param level The level this enemy is associated with
      * @return The direction they wish to move in next
@@ -34,10 +38,15 @@ public class SmartTargetingEnemy extends Enemy {
     public Direction getNextDirection(User user, Level level) {
         Node start = this.getCurrentCell();
         Node target = user.getCurrentCell();
-        Graph graph = level.getGraph();
+        PathFinder pathFinder = level.getPathFinder();
 
         try {
-            List<Node> shortestPath = findShortestPath(graph, start, target);
+            if (pathFinder != null) {
+                return pathFinder.nextDirection(start.getPosition(), target.getPosition());
+            }
+
+            Graph graph = level.getGraph();
+            List<Node> shortestPath = findShortestPath(graph, level.getLandmarks(), start, target);
 
             if (shortestPath.size() > 1) {
                 return calculateDirection(shortestPath.get(1).getPosition());
@@ -55,18 +64,21 @@ public class SmartTargetingEnemy extends Enemy {
 
     /**
      * Calculates the shortest path from a start node to a target node
+     * @param graph The graph of the level
+     * @param landmarks The landmarks used to estimate distances, or null to use the Manhattan distance
      * @param start The start node
      * @param target The target node
      * @return A list containing the nodes on the shortest path.
      */
-    private List<Node> findShortestPath(Graph graph, Node start, Node target) throws ShortestPathNotFoundException {
+    private List<Node> findShortestPath(Graph graph, Landmarks landmarks, Node start, Node target)
+            throws ShortestPathNotFoundException {
         //By using a priority queue, we will always have the node which has the shortest estimated
         //time at the head.
         Queue<RouteNode> unvisitedNodes = new PriorityQueue<>();
         Map<Node, RouteNode> allNodes = new HashMap<>();
 
         // Initialise starting node and add it to the queue of unvisited nodes
-        RouteNode startRouteNode = new RouteNode(start, null, 0, computeDistance(start, target));
+        RouteNode startRouteNode = new RouteNode(start, null, 0, estimateDistance(landmarks, start, target));
         unvisitedNodes.add(startRouteNode);
         allNodes.put(start, startRouteNode);
 
@@ -92,7 +104,7 @@ public class SmartTargetingEnemy extends Enemy {
                 if (newDistanceFromStart < nextNode.getDistanceFromStart() && isValidNode(connection)) {
                     nextNode.setParent(currentNode.getCurrent());
                     nextNode.setDistanceFromStart(newDistanceFromStart);
-                    nextNode.setEstimatedDistanceToTarget(newDistanceFromStart + computeDistance(connection, target));
+                    nextNode.setEstimatedDistanceToTarget(newDistanceFromStart + estimateDistance(landmarks, connection, target));
 
                     unvisitedNodes.add(nextNode);
                 }
@@ -155,10 +167,22 @@ public class SmartTargetingEnemy extends Enemy {
                         .map(this::calculateDirection)
                         .collect(Collectors.toList());
 
+        return validDirections.get(getRandom().nextInt(validDirections.size()));
+    }
 
-        Random random = new Random();
+    /**
+     * Estimate the distance between two nodes in a graph, using the level's landmarks if it has them
+     * @param landmarks The landmarks used to estimate distances, or null to use the Manhattan distance
+     * @param start The start node
+     * @param target The target node
+     * @return The estimated distance, which is never more than the real distance
+     */
+    private double estimateDistance(Landmarks landmarks, Node start, Node target) {
+        if (landmarks == null) {
+            return computeDistance(start, target);
+        }
 
-        return validDirections.get(random.nextInt(validDirections.size()));
+        return landmarks.estimate(start.getPosition(), target.getPosition());
     }
 
     /**
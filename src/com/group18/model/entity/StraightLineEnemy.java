@@ -2,12 +2,19 @@ package com.group18.model.entity;
 
 import com.group18.model.Direction;
 import com.group18.model.Level;
+import com.group18.model.navigation.NeighbourMasks;
 import javafx.geometry.Orientation;
 
+import java.awt.Point;
+
 import static com.group18.model.Direction.*;
 
 /**
  * This models an Enemy who can only move in a straight line at a particular orientation.
+ *
+ * As enemies don't block each other, this enemy bounces between the same two ends of its line
+ * for as long as the cells along the line stay the same. The stretch of the line it can move
+ * along is found once, and found again only when a cell on the line changes.
  * @author danielturato
  */
 public class StraightLineEnemy extends Enemy {
@@ -17,6 +24,22 @@ public class StraightLineEnemy extends Enemy {
      */
     private Orientation orientation;
 
+    /**
+     * The version of this enemy's row or column when its stretch was found, or -1 if it
+     * hasn't been found yet
+     */
+    private transient int lineVersion = -1;
+
+    /**
+     * The lowest x or y along this enemy's line it can move to
+     */
+    private transient int stretchStart;
+
+    /**
+     * The highest x or y along this enemy's line it can move to
+     */
+    private transient int stretchEnd;
+
     /**
      * Creates a new StraightLineEnemy
      * @param orientation The orientation in which this enemy moves in
@@ -26,7 +49,8 @@ public class StraightLineEnemy extends Enemy {
     }
 
     /**
-     * Attempts to calculate their next direction based on their orientation
+     * Attempts to calculate their next direction based on their orientation.
+     * They keep moving in their last direction until the end of their stretch, then turn around.
      * @param user The current user playing on the level
      * @param level The level this enemy is associated with
      * @return Their next direction
@@ -40,19 +64,102 @@ public class StraightLineEnemy extends Enemy {
             return IDLE;
         }
 
-        // If the direction they last moved in was valid, attempt to keep moving in that direction
-        if (level.validMove(this, currentDirection)) {
-            return currentDirection;
-        } else {
-            // Try and switch direction if they can't move in their previous direction
-            Direction newDirection = switchDirection();
-            if (level.validMove(this, newDirection)) {
-                return newDirection;
-            }
+        findStretch(level);
+        int position = positionAlongLine(this.getCurrentCell().getPosition());
 
-            // If they can't move, then they must be stuck and remain IDLE.
+        return decide(currentDirection, position, stretchStart, stretchEnd,
+                orientation == Orientation.VERTICAL);
+    }
+
+    /**
+     * Decide the next direction of a straight line enemy, from where it is along the stretch of
+     * its line it can move along
+     * @param currentDirection The direction it last moved in
+     * @param position Its position along its line
+     * @param stretchStart The lowest x or y along its line it can move to
+     * @param stretchEnd The highest x or y along its line it can move to
+     * @param vertical True if it moves up and down
+     * @return Its next direction
+     */
+    static Direction decide(Direction currentDirection, int position, int stretchStart, int stretchEnd,
+                            boolean vertical) {
+        // If their direction is IDLE, then based on a previous calculation they must be stuck.
+        if (currentDirection == IDLE) {
             return IDLE;
         }
+
+        // If they can't move either way, then they must be stuck and remain IDLE.
+        if (stretchStart == stretchEnd) {
+            return IDLE;
+        }
+
+        // If the direction they last moved in is still open, keep moving in that direction,
+        // otherwise switch direction
+        boolean open = isForwards(currentDirection) ? position < stretchEnd : position > stretchStart;
+        return open ? currentDirection : switchDirection(currentDirection, vertical);
+    }
+
+    /**
+     * Find the stretch of this enemy's line that it can move along, if it hasn't been found since
+     * a cell on the line last changed
+     * @param level The level this enemy is associated with
+     */
+    private void findStretch(Level level) {
+        NeighbourMasks masks = level.getNeighbourMasks();
+        Point position = this.getCurrentCell().getPosition();
+        int x = (int) position.getX();
+        int y = (int) position.getY();
+        boolean vertical = orientation == Orientation.VERTICAL;
+        int version = vertical ? masks.getColumnVersion(x) : masks.getRowVersion(y);
+        int along = vertical ? y : x;
+
+        if (version == lineVersion && along >= stretchStart && along <= stretchEnd) {
+            return;
+        }
+
+        stretchStart = findStretchEdge(masks, x, y, vertical, false);
+        stretchEnd = findStretchEdge(masks, x, y, vertical, true);
+        lineVersion = version;
+    }
+
+    /**
+     * Find one end of the stretch of a line that a straight line enemy can move along, by
+     * stepping along the line until the next cell can't be moved on to
+     * @param masks The neighbour masks of the level
+     * @param x The x of the enemy
+     * @param y The y of the enemy
+     * @param vertical True if the line goes up and down
+     * @param forwards True to find the highest end of the stretch, false to find the lowest
+     * @return The x or y of the end of the stretch
+     */
+    static int findStretchEdge(NeighbourMasks masks, int x, int y, boolean vertical, boolean forwards) {
+        int bit = NeighbourMasks.bitOf(vertical ? (forwards ? DOWN : UP) : (forwards ? RIGHT : LEFT));
+        int step = forwards ? 1 : -1;
+        int along = vertical ? y : x;
+
+        while ((masks.getWalkable(vertical ? x : along, vertical ? along : y) & bit) != 0) {
+            along += step;
+        }
+
+        return along;
+    }
+
+    /**
+     * Get the x or y of a position, whichever changes along this enemy's line
+     * @param position The position
+     * @return The position along the line
+     */
+    private int positionAlongLine(Point position) {
+        return (int) (orientation == Orientation.VERTICAL ? position.getY() : position.getX());
+    }
+
+    /**
+     * Check if a direction moves towards the end of the stretch, rather than its start
+     * @param direction The direction
+     * @return True if the direction is RIGHT or DOWN
+     */
+    private static boolean isForwards(Direction direction) {
+        return direction == RIGHT || direction == DOWN;
     }
 
     /**
@@ -78,18 +185,18 @@ public class StraightLineEnemy extends Enemy {
     }
 
     /**
-     * Switch their current direction, based on their orientation
-     * @return Their possible new direction
+     * Switch a direction, based on an orientation
+     * @param currentDirection The direction to switch
+     * @param vertical True if the orientation is vertical
+     * @return The possible new direction
      */
-    private Direction switchDirection() {
-        Direction currentDirection = this.getDirection();
-
+    private static Direction switchDirection(Direction currentDirection, boolean vertical) {
         // If their direction is IDLE, there will be no switch so they remain idle
         if (currentDirection == IDLE) {
             return IDLE;
         }
 
-        if (this.orientation == Orientation.HORIZONTAL) {
+        if (!vertical) {
             return currentDirection == LEFT ? RIGHT : LEFT;
         }
 
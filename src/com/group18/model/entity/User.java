@@ -1,6 +1,5 @@
 package com.group18.model.entity;
 
-import com.group18.controller.GameController;
 import com.group18.exception.InvalidLevelException;
 import com.group18.model.item.Collectable;
 import com.group18.model.Colour;
@@ -69,7 +68,6 @@ public class User extends Entity {
      */
     public void addToken() {
         tokens++;
-        GameController.setTokens();
     }
 
     /**
@@ -97,16 +95,15 @@ public class User extends Entity {
      * @return Boolean value suggesting if this user has a key of a specific colour
      */
     public boolean hasKey(Colour colour, int level) {
-        boolean hasKey = false;
         List<Collectable> currentInv = getInventory(level);
 
         for (Collectable item : currentInv) {
-            if (item instanceof Key) {
-                hasKey = ((Key) item).getColour() == colour;
+            if (item instanceof Key && ((Key) item).getColour() == colour) {
+                return true;
             }
         }
 
-        return hasKey;
+        return false;
     }
 
     /**
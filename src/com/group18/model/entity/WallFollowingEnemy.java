@@ -2,13 +2,11 @@ package com.group18.model.entity;
 
 import com.group18.model.Direction;
 import com.group18.model.Level;
-import com.group18.model.cell.Cell;
-import com.group18.model.cell.Wall;
+import com.group18.model.navigation.NeighbourMasks;
 
-import java.awt.*;
+import java.awt.Point;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static com.group18.model.Direction.*;
 
@@ -19,6 +17,28 @@ import static com.group18.model.Direction.*;
  */
 public class WallFollowingEnemy extends Enemy {
 
+    /**
+     * Every direction, by ordinal
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * A decision meaning this enemy should keep moving in its previous direction
+     */
+    private static final int KEEP_DIRECTION = DIRECTIONS.length;
+
+    /**
+     * A decision flag meaning this enemy should choose at random, from the directions in the
+     * low 4 bits of the decision
+     */
+    private static final int RANDOM = 0x10;
+
+    /**
+     * The decision for every combination of walkable neighbours, neighbours next to a wall and
+     * previous direction. Built once from the rules below, so each move is a single lookup.
+     */
+    private static final int[] DECISIONS = buildDecisions();
+
     /**
      * Calculates their next movement direction, based on surrounding cells in the level.
      * @param user The current user playing on the level
@@ -27,47 +47,129 @@ public class WallFollowingEnemy extends Enemy {
      */
     @Override
     public Direction getNextDirection(User user, Level level) {
+        NeighbourMasks masks = level.getNeighbourMasks();
+        Point position = this.getCurrentCell().getPosition();
+
+        return decide(masks.getWalkable(position), masks.getHugging(position), this.getDirection(), getRandom());
+    }
+
+    /**
+     * Look up the direction to move in, from the masks of the enemy's cell and its previous direction
+     * @param walkable The directions the enemy can move in
+     * @param hugging The directions which lead to a cell next to a wall
+     * @param direction The direction the enemy last moved in
+     * @param random The enemy's random number generator, used if it's at a crossroad
+     * @return The direction to move in
+     */
+    static Direction decide(int walkable, int hugging, Direction direction, SplittableRandom random) {
+        Direction previous = direction == null ? IDLE : direction;
+        int decision = DECISIONS[indexOf(walkable, hugging, previous)];
+
+        if (decision == KEEP_DIRECTION) {
+            return previous;
+        }
+
+        if ((decision & RANDOM) != 0) {
+            int choices = decision & 0xF;
+            int choice = random.nextInt(Integer.bitCount(choices));
+
+            for (int i = 0; i < choice; i++) {
+                choices &= choices - 1;
+            }
+            return DIRECTIONS[Integer.numberOfTrailingZeros(choices)];
+        }
+
+        return DIRECTIONS[decision];
+    }
+
+    /**
+     * Work out the decision for every combination of masks and previous direction
+     * @return The table of decisions
+     */
+    private static int[] buildDecisions() {
+        int[] decisions = new int[16 * 16 * DIRECTIONS.length];
+
+        for (int walkable = 0; walkable < 16; walkable++) {
+            for (int hugging = 0; hugging < 16; hugging++) {
+                for (Direction previous : DIRECTIONS) {
+                    decisions[indexOf(walkable, hugging, previous)] = decide(walkable, hugging, previous);
+                }
+            }
+        }
+
+        return decisions;
+    }
+
+    /**
+     * Get the index of a decision in the table
+     * @param walkable The directions this enemy can move in
+     * @param hugging The directions which lead to a cell next to a wall
+     * @param previous The direction this enemy last moved in
+     * @return The index of the decision
+     */
+    private static int indexOf(int walkable, int hugging, Direction previous) {
+        return ((walkable << 4) | hugging) * DIRECTIONS.length + previous.ordinal();
+    }
+
+    /**
+     * Decide which direction to move in, given the directions an enemy can move in
+     * @param walkable The directions this enemy can move in
+     * @param hugging The directions which lead to a cell next to a wall
+     * @param previous The direction this enemy last moved in
+     * @return The decision
+     */
+    private static int decide(int walkable, int hugging, Direction previous) {
         // Collect all valid possible directions this enemy can move in
-        List<Direction> validDirections = getValidDirections(level);
+        List<Direction> validDirections = new ArrayList<>();
+        for (Direction direction : DIRECTIONS) {
+            if (direction != IDLE && (walkable & NeighbourMasks.bitOf(direction)) != 0) {
+                validDirections.add(direction);
+            }
+        }
 
         // Attempt to get a valid direction, which is only possible if there
         // were found to be 2 valid directions
-        Direction possibleDirection = getValidDirection(validDirections);
-        if (possibleDirection != null) {
-            return possibleDirection;
+        Integer possibleDecision = getValidDecision(validDirections, previous);
+        if (possibleDecision != null) {
+            return possibleDecision;
         }
 
         // Here, the enemy must be at a crossroad, but we must eliminate those directions which
         // would take this enemy away from a wall.
-        eliminateInvalidDirections(validDirections, level);
+        validDirections.removeIf(direction -> (hugging & NeighbourMasks.bitOf(direction)) == 0);
 
         // If valid directions still contain 4 or 3 possible valid directions
         // then choose a random direction different from their previous direction
         if (validDirections.size() >= 3) {
-            validDirections.remove(reverseDirection(this.getDirection()));
-            Random random = new Random();
-            return validDirections.get(random.nextInt(validDirections.size()));
+            validDirections.remove(reverseDirection(previous));
+
+            int choices = 0;
+            for (Direction direction : validDirections) {
+                choices |= NeighbourMasks.bitOf(direction);
+            }
+            return RANDOM | choices;
         }
 
         // However, if valid directions is now below 3 then we can re-calculate a valid position
         // from those left.
-        return getValidDirection(validDirections);
+        return getValidDecision(validDirections, previous);
     }
 
     /**
-     * Get a valid direction out of a list of possible valid directions
+     * Get a valid decision out of a list of possible valid directions
      * @param validDirections Possible valid directions
-     * @return A possible direction or null if no possible direction was found
+     * @param previous The direction this enemy last moved in
+     * @return A possible decision or null if no possible direction was found
      */
-    private Direction getValidDirection(List<Direction> validDirections) {
+    private static Integer getValidDecision(List<Direction> validDirections, Direction previous) {
         // If there were no valid directions, this enemy is stuck
         if (validDirections.size() == 0) {
-            return IDLE;
+            return IDLE.ordinal();
         }
 
         //If there's only 1 valid direction, then they must be at a dead end and turn around
         if (validDirections.size() == 1) {
-            return validDirections.get(0);
+            return validDirections.get(0).ordinal();
         }
 
         //If there's 2 valid directions, they could be in multiple different positions
@@ -77,95 +179,25 @@ public class WallFollowingEnemy extends Enemy {
             if (validDirections.containsAll(Arrays.asList(UP, DOWN)) ||
                     validDirections.containsAll(Arrays.asList(LEFT, RIGHT))) {
 
-                return this.getDirection();
+                return KEEP_DIRECTION;
             }
 
             //A corner in which valid directions maybe (UP, RIGHT), (DOWN, RIGHT), (LEFT, DOWN), (LEFT, UP),
             //here the enemy should try and move in the direction that is not opposite their previous move
-            Direction oppositeDirection = reverseDirection(this.getDirection());
-            validDirections.remove(oppositeDirection);
+            validDirections.remove(reverseDirection(previous));
 
-            return validDirections.get(0);
+            return validDirections.get(0).ordinal();
         }
 
         return null;
     }
 
-    /**
-     * Eliminate directions which aren't deemed possible
-     * @param validDirections A list of possible valid directions
-     * @param level The level this enemy is currently on
-     */
-    private void eliminateInvalidDirections(List<Direction> validDirections, Level level) {
-        Point currentPosition = this.getCurrentCell().getPosition();
-
-        // Loop through each possible valid direction to move in
-        List<Direction> directionsToRemove = new ArrayList<>();
-
-        for (Direction direction : validDirections) {
-            int x = (int) currentPosition.getX();
-            int y = (int) currentPosition.getY();
-
-            switch (direction) {
-                case LEFT:
-                    x--;
-                    break;
-                case RIGHT:
-                    x++;
-                    break;
-                case UP:
-                    y--;
-                    break;
-                case DOWN:
-                    y++;
-                    break;
-                default:
-                    break;
-            }
-
-            //Get the adjacent cells from that possible new position (removing old position)
-            List<Cell> adjacentCells = level.getAdjacentCells(new Point(x, y));
-            adjacentCells.remove(this.getCurrentCell());
-
-
-            // Now loop through the adjacent cells and check there's at least one wall adjacent to the
-            // possible new position
-            boolean isValidDirection = false;
-            for (Cell cell : adjacentCells) {
-                if (cell instanceof Wall) {
-                    isValidDirection = true;
-                }
-            }
-
-            // If the possible direction lands them in a cell with no adjacent wall cells,
-            // then this direction is no longer valid.
-            if (!(isValidDirection)) {
-                directionsToRemove.add(direction);
-            }
-        }
-        validDirections.removeAll(directionsToRemove);
-
-    }
-
-    /**
-     * Generate a starter list of valid directions for this enemy to move in
-     * @param level The level this enemy is on
-     * @return A starter list of possible valid directions
-     */
-    private List<Direction> getValidDirections(Level level) {
-        return Arrays.stream(Direction.values())
-                .filter(direction -> level.validMove(this, direction))
-                .filter(direction -> direction != IDLE)
-                .collect(Collectors.toList());
-    }
-
-
     /**
      * Reverse the direction of a particular direction
      * @param previousDirection The direction to be reversed
      * @return The reversed direction
      */
-    private Direction reverseDirection(Direction previousDirection) {
+    private static Direction reverseDirection(Direction previousDirection) {
         Direction newDirection;
 
         switch (previousDirection) {
@@ -190,7 +222,3 @@ public class WallFollowingEnemy extends Enemy {
     }
 
 }
-
-
-
-
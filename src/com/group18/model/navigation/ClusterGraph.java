@@ -0,0 +1,669 @@
+package com.group18.model.navigation;
+
+import com.group18.exception.ShortestPathNotFoundException;
+import com.group18.model.Direction;
+import com.group18.model.LevelListener;
+import com.group18.model.cell.*;
+import com.group18.model.item.Collectable;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static com.group18.model.Direction.*;
+
+/**
+ * A hierarchical view of a level's board, used by enemies to find their way to the user on very
+ * large levels. The board is split into square clusters. Wherever two clusters share an open
+ * border, entrance cells are placed either side of it, and the distance between each pair of
+ * entrances inside a cluster is worked out when the level is loaded. Paths are then found between
+ * entrances only, and just the first step of a path is worked out cell by cell.
+ *
+ * The distance from entrances to the user is shared by every enemy, and is only worked out as far
+ * as the enemies need it. When a door opens or an item is collected, only the clusters around
+ * that cell are worked out again.
+ *
+ * @author agent
+ */
+public class ClusterGraph implements PathFinder, LevelListener {
+
+    /**
+     * The width and height of each cluster, in cells
+     */
+    public static final int CLUSTER_SIZE = 16;
+
+    /**
+     * The most entrances a cluster can have. Each open stretch of a border gives at most two
+     * entrances, and stretches are at least one closed cell apart, so each border gives at most
+     * half its length.
+     */
+    static final int MAX_ENTRANCES = 4 * (CLUSTER_SIZE / 2);
+
+    /**
+     * Open stretches of a border at least this long are given an entrance at each end, rather
+     * than a single one in the middle, so paths don't have to detour through the middle.
+     */
+    private static final int LONG_STRETCH = 6;
+
+    /**
+     * The distance given to anything which can't be reached
+     */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The board of the level, which cells are read from when they change
+     */
+    private final Cell[][] board;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The number of clusters across the board
+     */
+    private final int clustersWide;
+
+    /**
+     * Whether an enemy can move on to each cell, row by row
+     */
+    private final boolean[] walkable;
+
+    /**
+     * The index of each cell within its cluster's entrances, or -1 if the cell isn't an entrance
+     */
+    private final byte[] slots;
+
+    /**
+     * The entrances chosen on each cluster's right border, as the cells on the cluster's side
+     */
+    private final int[][] rightBorders;
+
+    /**
+     * The entrances chosen on each cluster's bottom border, as the cells on the cluster's side
+     */
+    private final int[][] bottomBorders;
+
+    /**
+     * The entrance cells of each cluster
+     */
+    private final int[][] entrances;
+
+    /**
+     * The distance between each pair of entrances within each cluster, without leaving it
+     */
+    private final int[][] distances;
+
+    /**
+     * The cell the distance field was worked out for, or -1 if it needs working out again
+     */
+    private int fieldTarget = -1;
+
+    /**
+     * The distance from each entrance to the field's target, indexed by cluster then entrance
+     */
+    private int[] field;
+
+    /**
+     * Whether the distance of each entrance in the field is final
+     */
+    private boolean[] settled;
+
+    /**
+     * The number of settled entrances in each cluster
+     */
+    private int[] settledCounts;
+
+    /**
+     * The entrances of the field waiting to be settled, closest first
+     */
+    private LongHeap heap;
+
+    /**
+     * Create the cluster graph for a board, working out every cluster's entrances and the
+     * distances between them
+     * @param board The board of the level
+     */
+    public ClusterGraph(Cell[][] board) {
+        this.board = board;
+        this.height = board.length;
+        this.width = board[0].length;
+        this.clustersWide = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+
+        int clusters = clustersWide * ((height + CLUSTER_SIZE - 1) / CLUSTER_SIZE);
+        this.walkable = new boolean[width * height];
+        this.slots = new byte[width * height];
+        this.rightBorders = new int[clusters][];
+        this.bottomBorders = new int[clusters][];
+        this.entrances = new int[clusters][];
+        this.distances = new int[clusters][];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                walkable[y * width + x] = isWalkable(board[y][x]);
+            }
+        }
+        Arrays.fill(slots, (byte) -1);
+
+        IntStream.range(0, clusters).parallel().forEach(this::findBorders);
+        IntStream.range(0, clusters).parallel().forEach(this::buildCluster);
+    }
+
+    /**
+     * Work out the direction an enemy should move in to get to a target
+     * @param from The position of the enemy
+     * @param to The position of the target
+     * @return The direction of the first step towards the target
+     * @throws ShortestPathNotFoundException If the target can't be reached
+     */
+    @Override
+    public Direction nextDirection(Point from, Point to) throws ShortestPathNotFoundException {
+        int start = indexOf(from);
+        int target = indexOf(to);
+
+        if (start == target) {
+            return IDLE;
+        }
+
+        int cluster = clusterOf(start);
+        int[] field = getField(target, cluster);
+        int[] parents = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        int[] local = search(start, parents);
+
+        int best = UNREACHABLE;
+        int goal = -1;
+        int exit = -1;
+
+        if (clusterOf(target) == cluster && local[localIndexOf(target)] >= 0) {
+            best = local[localIndexOf(target)];
+            goal = target;
+        }
+
+        // Otherwise the path leaves this cluster, through one of its entrances
+        for (int entrance : entrances[cluster]) {
+            int distance = local[localIndexOf(entrance)];
+            if (distance < 0) {
+                continue;
+            }
+
+            for (int side = 0; side < 4; side++) {
+                int across = cellAcross(entrance, side);
+                if (across < 0 || slots[across] < 0) {
+                    continue;
+                }
+
+                int rest = field[clusterOf(across) * MAX_ENTRANCES + slots[across]];
+                if (rest != UNREACHABLE && distance + 1 + rest < best) {
+                    best = distance + 1 + rest;
+                    goal = entrance;
+                    exit = across;
+                }
+            }
+        }
+
+        if (goal < 0) {
+            throw new ShortestPathNotFoundException("No shortest path found.");
+        }
+
+        int step = goal == start ? exit : firstStep(parents, start, goal);
+        return directionBetween(start, step);
+    }
+
+    /**
+     * Work out the clusters around a cell again, if the cell has been replaced
+     * @param point The position of the cell that was replaced
+     */
+    @Override
+    public void cellReplaced(Point point) {
+        update(point);
+    }
+
+    /**
+     * Work out the clusters around a cell again, as an item on a cell blocks enemies
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public void itemCollected(Point point, Collectable item) {
+        update(point);
+    }
+
+    /**
+     * Check if an enemy is able to move on to a cell
+     * @param cell The cell
+     * @return True if an enemy can move on to the cell
+     */
+    static boolean isWalkable(Cell cell) {
+        boolean hasItem = false;
+        if (cell instanceof Ground) {
+            hasItem = ((Ground) cell).hasItem();
+        }
+
+        // An enemy can not move on to a Wall, Goal, Element or Door cell.
+        return !(cell instanceof Wall || cell instanceof Goal ||
+                cell instanceof Element || cell instanceof Door || hasItem);
+    }
+
+    /**
+     * Check whether a cell can still be walked on, and if it's changed, work out its cluster and
+     * the clusters next to it again
+     * @param point The position of the cell
+     */
+    private synchronized void update(Point point) {
+        int x = (int) point.getX();
+        int y = (int) point.getY();
+        int cell = y * width + x;
+        boolean nowWalkable = isWalkable(board[y][x]);
+
+        if (walkable[cell] == nowWalkable) {
+            return;
+        }
+        walkable[cell] = nowWalkable;
+
+        int cluster = clusterOf(cell);
+        int clusterX = x / CLUSTER_SIZE;
+        int clusterY = y / CLUSTER_SIZE;
+        boolean hasLeft = clusterX > 0;
+        boolean hasRight = clusterX + 1 < clustersWide;
+        boolean hasAbove = clusterY > 0;
+        boolean hasBelow = cluster + clustersWide < entrances.length;
+
+        findBorders(cluster);
+        if (hasLeft) {
+            findBorders(cluster - 1);
+        }
+        if (hasAbove) {
+            findBorders(cluster - clustersWide);
+        }
+
+        buildCluster(cluster);
+        if (hasLeft) {
+            buildCluster(cluster - 1);
+        }
+        if (hasRight) {
+            buildCluster(cluster + 1);
+        }
+        if (hasAbove) {
+            buildCluster(cluster - clustersWide);
+        }
+        if (hasBelow) {
+            buildCluster(cluster + clustersWide);
+        }
+
+        fieldTarget = -1;
+    }
+
+    /**
+     * Get the distance from entrances to a target, making sure the entrances of the clusters next
+     * to a cluster are settled first. The field is only worked out as far as it's needed, and
+     * carries on from where it stopped for the next enemy, until the target moves or the board
+     * changes.
+     * @param target The cell of the target
+     * @param cluster The cluster the path starts in
+     * @return The distance field, indexed by cluster then entrance
+     */
+    private synchronized int[] getField(int target, int cluster) {
+        if (target != fieldTarget) {
+            startField(target);
+            fieldTarget = target;
+        }
+
+        while (!heap.isEmpty() && !neighboursSettled(cluster)) {
+            settleNext();
+        }
+
+        return field;
+    }
+
+    /**
+     * Start a new distance field from a target. The target's own cluster is searched cell by cell,
+     * to find how far each of its entrances is.
+     * @param target The cell of the target
+     */
+    private void startField(int target) {
+        field = new int[entrances.length * MAX_ENTRANCES];
+        settled = new boolean[field.length];
+        settledCounts = new int[entrances.length];
+        heap = new LongHeap();
+        Arrays.fill(field, UNREACHABLE);
+
+        int targetCluster = clusterOf(target);
+        int[] local = search(target, null);
+        int[] targetEntrances = entrances[targetCluster];
+        for (int i = 0; i < targetEntrances.length; i++) {
+            int distance = local[localIndexOf(targetEntrances[i])];
+            if (distance >= 0) {
+                relax(targetCluster * MAX_ENTRANCES + i, distance);
+            }
+        }
+    }
+
+    /**
+     * Settle the closest entrance not yet settled, and lower the distance of each entrance
+     * it leads to
+     */
+    private void settleNext() {
+        long entry = heap.poll();
+        int distance = (int) (entry >>> 32);
+        int node = (int) entry;
+
+        if (settled[node] || distance > field[node]) {
+            return;
+        }
+
+        int cluster = node / MAX_ENTRANCES;
+        int slot = node % MAX_ENTRANCES;
+        settled[node] = true;
+        settledCounts[cluster]++;
+
+        int[] clusterEntrances = entrances[cluster];
+        int[] clusterDistances = distances[cluster];
+        int count = clusterEntrances.length;
+
+        for (int other = 0; other < count; other++) {
+            int between = clusterDistances[slot * count + other];
+            if (between != UNREACHABLE) {
+                relax(cluster * MAX_ENTRANCES + other, distance + between);
+            }
+        }
+
+        int cell = clusterEntrances[slot];
+        for (int side = 0; side < 4; side++) {
+            int across = cellAcross(cell, side);
+            if (across >= 0 && slots[across] >= 0) {
+                relax(clusterOf(across) * MAX_ENTRANCES + slots[across], distance + 1);
+            }
+        }
+    }
+
+    /**
+     * Check if every entrance of the clusters next to a cluster has been settled
+     * @param cluster The cluster
+     * @return True if the distance to each of them is final
+     */
+    private boolean neighboursSettled(int cluster) {
+        int clusterX = cluster % clustersWide;
+
+        return (clusterX == 0 || isSettled(cluster - 1))
+                && (clusterX + 1 == clustersWide || isSettled(cluster + 1))
+                && (cluster < clustersWide || isSettled(cluster - clustersWide))
+                && (cluster + clustersWide >= entrances.length || isSettled(cluster + clustersWide));
+    }
+
+    /**
+     * Check if every entrance of a cluster has been settled
+     * @param cluster The cluster
+     * @return True if the distance to each of them is final
+     */
+    private boolean isSettled(int cluster) {
+        return settledCounts[cluster] == entrances[cluster].length;
+    }
+
+    /**
+     * Lower the distance of an entrance in the field, if a shorter way to it has been found
+     * @param node The entrance
+     * @param distance The distance of the new way to it
+     */
+    private void relax(int node, int distance) {
+        if (!settled[node] && distance < field[node]) {
+            field[node] = distance;
+            heap.add(((long) distance << 32) | node);
+        }
+    }
+
+    /**
+     * Choose the entrances on a cluster's right and bottom borders
+     * @param cluster The cluster
+     */
+    private void findBorders(int cluster) {
+        int left = (cluster % clustersWide) * CLUSTER_SIZE;
+        int top = (cluster / clustersWide) * CLUSTER_SIZE;
+        int right = left + CLUSTER_SIZE - 1;
+        int bottom = top + CLUSTER_SIZE - 1;
+
+        rightBorders[cluster] = right + 1 < width
+                ? chooseEntrances(top * width + right, width, Math.min(CLUSTER_SIZE, height - top), 1)
+                : new int[0];
+
+        bottomBorders[cluster] = bottom + 1 < height
+                ? chooseEntrances(bottom * width + left, 1, Math.min(CLUSTER_SIZE, width - left), width)
+                : new int[0];
+    }
+
+    /**
+     * Choose the entrances along a border. Each stretch of the border which is open on both sides
+     * is given an entrance in its middle, or one at each end if it's long.
+     * @param first The first cell of the border, on the cluster's side
+     * @param step The difference between one cell of the border and the next
+     * @param length The number of cells along the border
+     * @param across The difference between a cell and the cell on the other side of the border
+     * @return The chosen entrances, as the cells on the cluster's side
+     */
+    private int[] chooseEntrances(int first, int step, int length, int across) {
+        int[] chosen = new int[length];
+        int count = 0;
+        int stretchStart = -1;
+
+        for (int i = 0; i <= length; i++) {
+            int cell = first + i * step;
+            boolean open = i < length && walkable[cell] && walkable[cell + across];
+
+            if (open) {
+                if (stretchStart < 0) {
+                    stretchStart = i;
+                }
+            } else if (stretchStart >= 0) {
+                int stretchEnd = i - 1;
+
+                if (stretchEnd - stretchStart + 1 >= LONG_STRETCH) {
+                    chosen[count++] = first + stretchStart * step;
+                    chosen[count++] = first + stretchEnd * step;
+                } else {
+                    chosen[count++] = first + ((stretchStart + stretchEnd) >>> 1) * step;
+                }
+                stretchStart = -1;
+            }
+        }
+
+        return Arrays.copyOf(chosen, count);
+    }
+
+    /**
+     * Gather a cluster's entrances from its four borders, and work out the distance between each
+     * pair of them within the cluster
+     * @param cluster The cluster
+     */
+    private void buildCluster(int cluster) {
+        if (entrances[cluster] != null) {
+            for (int entrance : entrances[cluster]) {
+                slots[entrance] = -1;
+            }
+        }
+
+        int[] found = new int[MAX_ENTRANCES];
+        int count = addEntrances(found, 0, rightBorders[cluster], 0);
+        count = addEntrances(found, count, bottomBorders[cluster], 0);
+        if (cluster % clustersWide > 0) {
+            count = addEntrances(found, count, rightBorders[cluster - 1], 1);
+        }
+        if (cluster >= clustersWide) {
+            count = addEntrances(found, count, bottomBorders[cluster - clustersWide], width);
+        }
+
+        int[] clusterDistances = new int[count * count];
+        for (int i = 0; i < count; i++) {
+            int[] local = search(found[i], null);
+
+            for (int j = 0; j < count; j++) {
+                int distance = local[localIndexOf(found[j])];
+                clusterDistances[i * count + j] = distance < 0 ? UNREACHABLE : distance;
+            }
+        }
+
+        entrances[cluster] = Arrays.copyOf(found, count);
+        distances[cluster] = clusterDistances;
+    }
+
+    /**
+     * Add the entrances of a border to a cluster's entrances, skipping any already added
+     * @param found The cluster's entrances so far
+     * @param count The number of entrances so far
+     * @param border The entrances of the border
+     * @param offset The difference between a border cell and the cell in this cluster
+     * @return The new number of entrances
+     */
+    private int addEntrances(int[] found, int count, int[] border, int offset) {
+        for (int cell : border) {
+            int entrance = cell + offset;
+            if (slots[entrance] < 0) {
+                slots[entrance] = (byte) count;
+                found[count++] = entrance;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Search outwards from a cell without leaving its cluster
+     * @param start The cell to search from
+     * @param parents If not null, filled with the cell each cell was reached from
+     * @return The distance to each cell of the cluster, by local index, or -1 if not reachable
+     */
+    private int[] search(int start, int[] parents) {
+        int left = (start % width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        int top = (start / width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        int clusterWidth = Math.min(CLUSTER_SIZE, width - left);
+        int clusterHeight = Math.min(CLUSTER_SIZE, height - top);
+
+        int[] distance = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        int[] queue = new int[CLUSTER_SIZE * CLUSTER_SIZE];
+        Arrays.fill(distance, -1);
+
+        int head = 0;
+        int tail = 0;
+        distance[localIndexOf(start)] = 0;
+        queue[tail++] = localIndexOf(start);
+
+        while (head < tail) {
+            int current = queue[head++];
+            int x = current % CLUSTER_SIZE;
+            int y = current / CLUSTER_SIZE;
+
+            for (int side = 0; side < 4; side++) {
+                int nextX = x + (side == 0 ? 1 : side == 1 ? -1 : 0);
+                int nextY = y + (side == 2 ? 1 : side == 3 ? -1 : 0);
+
+                if (nextX < 0 || nextY < 0 || nextX >= clusterWidth || nextY >= clusterHeight) {
+                    continue;
+                }
+
+                int next = nextY * CLUSTER_SIZE + nextX;
+                if (distance[next] < 0 && walkable[(top + nextY) * width + left + nextX]) {
+                    distance[next] = distance[current] + 1;
+                    if (parents != null) {
+                        parents[next] = current;
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        return distance;
+    }
+
+    /**
+     * Follow the parents of a search back from a goal, to find the first step taken from the start
+     * @param parents The parents filled in by the search
+     * @param start The cell the search started from
+     * @param goal The cell to follow back from
+     * @return The cell of the first step
+     */
+    private int firstStep(int[] parents, int start, int goal) {
+        int startLocal = localIndexOf(start);
+        int current = localIndexOf(goal);
+
+        while (parents[current] != startLocal) {
+            current = parents[current];
+        }
+
+        int left = (start % width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        int top = (start / width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        return (top + current / CLUSTER_SIZE) * width + left + current % CLUSTER_SIZE;
+    }
+
+    /**
+     * Get the cell next to a cell on one of its sides, if that cell is in a different cluster
+     * @param cell The cell
+     * @param side The side, 0 to 3 for right, left, below and above
+     * @return The cell across the cluster border, or -1 if there isn't one
+     */
+    private int cellAcross(int cell, int side) {
+        int x = cell % width;
+        int y = cell / width;
+
+        switch (side) {
+            case 0:
+                return x + 1 < width && (x + 1) % CLUSTER_SIZE == 0 ? cell + 1 : -1;
+            case 1:
+                return x > 0 && x % CLUSTER_SIZE == 0 ? cell - 1 : -1;
+            case 2:
+                return y + 1 < height && (y + 1) % CLUSTER_SIZE == 0 ? cell + width : -1;
+            default:
+                return y > 0 && y % CLUSTER_SIZE == 0 ? cell - width : -1;
+        }
+    }
+
+    /**
+     * Get the direction of a step from one cell to a cell next to it
+     * @param from The cell the step starts on
+     * @param to The cell the step ends on
+     * @return The direction of the step
+     */
+    private Direction directionBetween(int from, int to) {
+        if (to == from + 1) {
+            return RIGHT;
+        } else if (to == from - 1) {
+            return LEFT;
+        } else if (to == from + width) {
+            return DOWN;
+        } else if (to == from - width) {
+            return UP;
+        }
+
+        return IDLE;
+    }
+
+    /**
+     * Get the cluster a cell is in
+     * @param cell The cell
+     * @return The cluster
+     */
+    private int clusterOf(int cell) {
+        return (cell / width) / CLUSTER_SIZE * clustersWide + (cell % width) / CLUSTER_SIZE;
+    }
+
+    /**
+     * Get the index of a cell within its cluster
+     * @param cell The cell
+     * @return The local index of the cell
+     */
+    private int localIndexOf(int cell) {
+        return ((cell / width) % CLUSTER_SIZE) * CLUSTER_SIZE + (cell % width) % CLUSTER_SIZE;
+    }
+
+    /**
+     * Get the index of the cell at a position
+     * @param point The position
+     * @return The cell
+     */
+    private int indexOf(Point point) {
+        return (int) point.getY() * width + (int) point.getX();
+    }
+}
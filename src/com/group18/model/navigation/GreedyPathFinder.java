@@ -0,0 +1,63 @@
+package com.group18.model.navigation;
+
+import com.group18.exception.ShortestPathNotFoundException;
+import com.group18.model.Direction;
+
+import java.awt.Point;
+
+import static com.group18.model.Direction.*;
+
+/**
+ * Finds enemy paths on levels too large to search, by stepping straight towards the target. The
+ * enemy steps along the axis it's furthest from the target on, or the other axis if that way is
+ * blocked. Only the enemy's neighbours are looked at, so no memory is needed for the board.
+ *
+ * @author agent
+ */
+public class GreedyPathFinder implements PathFinder {
+
+    /**
+     * The masks of which neighbours an enemy can move on to
+     */
+    private final NeighbourMasks masks;
+
+    /**
+     * Creates a new greedy path finder
+     * @param masks The masks of which neighbours an enemy can move on to
+     */
+    public GreedyPathFinder(NeighbourMasks masks) {
+        this.masks = masks;
+    }
+
+    /**
+     * Work out the direction that gets an enemy closest to a target
+     * @param from The position of the enemy
+     * @param to The position of the target
+     * @return The direction of the first step towards the target
+     * @throws ShortestPathNotFoundException If both directions towards the target are blocked
+     */
+    @Override
+    public Direction nextDirection(Point from, Point to) throws ShortestPathNotFoundException {
+        int xDistance = (int) (to.getX() - from.getX());
+        int yDistance = (int) (to.getY() - from.getY());
+
+        if (xDistance == 0 && yDistance == 0) {
+            return IDLE;
+        }
+
+        int walkable = masks.getWalkable(from);
+        Direction horizontal = xDistance < 0 ? LEFT : RIGHT;
+        Direction vertical = yDistance < 0 ? UP : DOWN;
+        boolean canMoveHorizontally = xDistance != 0 && (walkable & NeighbourMasks.bitOf(horizontal)) != 0;
+        boolean canMoveVertically = yDistance != 0 && (walkable & NeighbourMasks.bitOf(vertical)) != 0;
+
+        if (canMoveHorizontally && (Math.abs(xDistance) >= Math.abs(yDistance) || !canMoveVertically)) {
+            return horizontal;
+        }
+        if (canMoveVertically) {
+            return vertical;
+        }
+
+        throw new ShortestPathNotFoundException("No shortest path found.");
+    }
+}
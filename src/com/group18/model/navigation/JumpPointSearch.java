@@ -0,0 +1,536 @@
+package com.group18.model.navigation;
+
+import com.group18.exception.ShortestPathNotFoundException;
+import com.group18.model.Direction;
+import com.group18.model.LevelListener;
+import com.group18.model.cell.Cell;
+import com.group18.model.item.Collectable;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+import static com.group18.model.Direction.*;
+
+/**
+ * Finds enemy paths with jump point search. Enemies move on a grid where every step costs the
+ * same, so many shortest paths are the same length and only differ in the order of their turns.
+ * This search only follows paths which move up or down before moving sideways, unless a wall
+ * forces otherwise, and skips along open rows and columns without stopping at each cell.
+ *
+ * Which cells are blocked is kept as a bitset for each row and for each column, so a row can be
+ * skipped along 64 cells at a time. The bitsets are updated when a door opens or an item is
+ * collected.
+ *
+ * @author agent
+ */
+public class JumpPointSearch implements PathFinder, LevelListener {
+
+    /**
+     * The directions of a jump, as indices into a node
+     */
+    private static final int RIGHT_JUMP = 0;
+    private static final int LEFT_JUMP = 1;
+    private static final int DOWN_JUMP = 2;
+    private static final int UP_JUMP = 3;
+
+    /**
+     * The board of the level, which cells are read from when they change
+     */
+    private final Cell[][] board;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The number of words in the bitset of each row
+     */
+    private final int rowWords;
+
+    /**
+     * The number of words in the bitset of each column
+     */
+    private final int columnWords;
+
+    /**
+     * The cells an enemy can't move on to, a bitset for each row. Bits past the end of the row are
+     * set, so a row always ends in a blocked cell.
+     */
+    private final long[] rowBlocked;
+
+    /**
+     * The cells an enemy can't move on to, a bitset for each column
+     */
+    private final long[] columnBlocked;
+
+    /**
+     * The memory each thread uses for its searches, so enemies can search at the same time
+     */
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    /**
+     * Create a jump point search for a board
+     * @param board The board of the level
+     */
+    public JumpPointSearch(Cell[][] board) {
+        this.board = board;
+        this.height = board.length;
+        this.width = board[0].length;
+        this.rowWords = (width + 63) >>> 6;
+        this.columnWords = (height + 63) >>> 6;
+        this.rowBlocked = new long[height * rowWords];
+        this.columnBlocked = new long[width * columnWords];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = width; x < rowWords * 64; x++) {
+                rowBlocked[y * rowWords + (x >>> 6)] |= 1L << x;
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = height; y < columnWords * 64; y++) {
+                columnBlocked[x * columnWords + (y >>> 6)] |= 1L << y;
+            }
+        }
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                setBlocked(x, y, !ClusterGraph.isWalkable(board[y][x]));
+            }
+        }
+    }
+
+    /**
+     * Work out the direction an enemy should move in to get to a target
+     * @param from The position of the enemy
+     * @param to The position of the target
+     * @return The direction of the first step towards the target
+     * @throws ShortestPathNotFoundException If the target can't be reached
+     */
+    @Override
+    public Direction nextDirection(Point from, Point to) throws ShortestPathNotFoundException {
+        int start = indexOf(from);
+        int target = indexOf(to);
+
+        if (start == target) {
+            return IDLE;
+        }
+
+        Search search = searches.get();
+        search.begin();
+        search.open(start * 4, -1, 0, target);
+
+        while (!search.heap.isEmpty()) {
+            long entry = search.heap.poll();
+            int node = (int) entry;
+            int cost = search.costs[node];
+
+            // Skip entries left behind when a cheaper way to the node was found
+            if ((int) (entry >>> 32) != cost + distance(node >>> 2, target)) {
+                continue;
+            }
+
+            int cell = node >>> 2;
+            if (cell == target) {
+                return directionTowards(start, firstJump(search, node, start));
+            }
+
+            int x = cell % width;
+            int y = cell / width;
+
+            if (cell == start) {
+                for (int jump = 0; jump < 4; jump++) {
+                    jumpFrom(search, node, x, y, jump, target);
+                }
+            } else if ((node & 3) == RIGHT_JUMP || (node & 3) == LEFT_JUMP) {
+                int behind = (node & 3) == RIGHT_JUMP ? x - 1 : x + 1;
+
+                jumpFrom(search, node, x, y, node & 3, target);
+
+                // Turning here is only needed if a wall stopped the turn being made earlier
+                if (isOpen(x, y - 1) && !isOpen(behind, y - 1)) {
+                    jumpFrom(search, node, x, y, UP_JUMP, target);
+                }
+                if (isOpen(x, y + 1) && !isOpen(behind, y + 1)) {
+                    jumpFrom(search, node, x, y, DOWN_JUMP, target);
+                }
+            } else {
+                jumpFrom(search, node, x, y, node & 3, target);
+                jumpFrom(search, node, x, y, RIGHT_JUMP, target);
+                jumpFrom(search, node, x, y, LEFT_JUMP, target);
+            }
+        }
+
+        throw new ShortestPathNotFoundException("No shortest path found.");
+    }
+
+    /**
+     * Update a cell's bits, if the cell has been replaced
+     * @param point The position of the cell that was replaced
+     */
+    @Override
+    public void cellReplaced(Point point) {
+        update(point);
+    }
+
+    /**
+     * Update a cell's bits, as an item on a cell blocks enemies
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public void itemCollected(Point point, Collectable item) {
+        update(point);
+    }
+
+    /**
+     * Check whether a cell can still be walked on, and update its bits
+     * @param point The position of the cell
+     */
+    private void update(Point point) {
+        int x = (int) point.getX();
+        int y = (int) point.getY();
+        setBlocked(x, y, !ClusterGraph.isWalkable(board[y][x]));
+    }
+
+    /**
+     * Jump from a node in a direction, and open the jump point it reaches
+     * @param search The search
+     * @param node The node jumped from
+     * @param x The x of the node's cell
+     * @param y The y of the node's cell
+     * @param jump The direction of the jump
+     * @param target The cell being searched for
+     */
+    private void jumpFrom(Search search, int node, int x, int y, int jump, int target) {
+        int reached;
+
+        switch (jump) {
+            case RIGHT_JUMP:
+                int right = jumpRight(x, y, target);
+                reached = right < 0 ? -1 : y * width + right;
+                break;
+            case LEFT_JUMP:
+                int left = jumpLeft(x, y, target);
+                reached = left < 0 ? -1 : y * width + left;
+                break;
+            case DOWN_JUMP:
+                int down = jumpVertical(x, y, 1, target);
+                reached = down < 0 ? -1 : down * width + x;
+                break;
+            default:
+                int up = jumpVertical(x, y, -1, target);
+                reached = up < 0 ? -1 : up * width + x;
+                break;
+        }
+
+        if (reached >= 0) {
+            int cost = search.costs[node] + distance(node >>> 2, reached);
+            search.open(reached * 4 + jump, node, cost, target);
+        }
+    }
+
+    /**
+     * Skip right along a row until the target, or a cell where a wall forced a turn, is found
+     * @param x The x to skip from
+     * @param y The row
+     * @param target The cell being searched for
+     * @return The x of the cell found, or -1 if a wall was reached first
+     */
+    private int jumpRight(int x, int y, int target) {
+        int start = x + 1;
+        if (start >= width) {
+            return -1;
+        }
+
+        for (int word = start >>> 6; word < rowWords; word++) {
+            long mask = word == start >>> 6 ? -1L << start : -1L;
+            long blocked = rowWord(y, word) & mask;
+            long above = rowWord(y - 1, word);
+            long below = rowWord(y + 1, word);
+            long aboveBehind = (above << 1) | (word > 0 ? rowWord(y - 1, word - 1) >>> 63 : 1L);
+            long belowBehind = (below << 1) | (word > 0 ? rowWord(y + 1, word - 1) >>> 63 : 1L);
+
+            // A cell is a jump point if the cell above or below it is open, but the one behind isn't
+            long found = ((aboveBehind & ~above) | (belowBehind & ~below) | targetBit(y, word, target)) & mask;
+
+            if (found != 0 && (blocked == 0 || Long.numberOfTrailingZeros(found) < Long.numberOfTrailingZeros(blocked))) {
+                return (word << 6) + Long.numberOfTrailingZeros(found);
+            }
+            if (blocked != 0) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Skip left along a row until the target, or a cell where a wall forced a turn, is found
+     * @param x The x to skip from
+     * @param y The row
+     * @param target The cell being searched for
+     * @return The x of the cell found, or -1 if a wall was reached first
+     */
+    private int jumpLeft(int x, int y, int target) {
+        int start = x - 1;
+        if (start < 0) {
+            return -1;
+        }
+
+        for (int word = start >>> 6; word >= 0; word--) {
+            long mask = word == start >>> 6 ? -1L >>> (63 - (start & 63)) : -1L;
+            long blocked = rowWord(y, word) & mask;
+            long above = rowWord(y - 1, word);
+            long below = rowWord(y + 1, word);
+            long aboveBehind = (above >>> 1) | (word + 1 < rowWords ? rowWord(y - 1, word + 1) << 63 : Long.MIN_VALUE);
+            long belowBehind = (below >>> 1) | (word + 1 < rowWords ? rowWord(y + 1, word + 1) << 63 : Long.MIN_VALUE);
+
+            long found = ((aboveBehind & ~above) | (belowBehind & ~below) | targetBit(y, word, target)) & mask;
+
+            if (found != 0 && (blocked == 0 || highestBit(found) > highestBit(blocked))) {
+                return (word << 6) + highestBit(found);
+            }
+            if (blocked != 0) {
+                return -1;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Move up or down a column until the target is found, or a cell from which a sideways jump
+     * finds something. The column bitset gives how far the column is open, so only open cells
+     * are looked at.
+     * @param x The column
+     * @param y The y to move from
+     * @param step 1 to move down, -1 to move up
+     * @param target The cell being searched for
+     * @return The y of the cell found, or -1 if a wall was reached first
+     */
+    private int jumpVertical(int x, int y, int step, int target) {
+        int end = step > 0 ? nextBlockedDown(x, y) : nextBlockedUp(x, y);
+
+        for (int next = y + step; next != end; next += step) {
+            if (next * width + x == target || jumpRight(x, next, target) >= 0 || jumpLeft(x, next, target) >= 0) {
+                return next;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Find the first blocked cell below a cell in its column
+     * @param x The column
+     * @param y The y of the cell
+     * @return The y of the blocked cell, which may be just past the bottom of the board
+     */
+    private int nextBlockedDown(int x, int y) {
+        int start = y + 1;
+        for (int word = start >>> 6; word < columnWords; word++) {
+            long blocked = columnBlocked[x * columnWords + word] & (word == start >>> 6 ? -1L << start : -1L);
+            if (blocked != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(blocked);
+            }
+        }
+
+        return height;
+    }
+
+    /**
+     * Find the first blocked cell above a cell in its column
+     * @param x The column
+     * @param y The y of the cell
+     * @return The y of the blocked cell, or -1 if the column is open to the top of the board
+     */
+    private int nextBlockedUp(int x, int y) {
+        int start = y - 1;
+        for (int word = start >>> 6; start >= 0 && word >= 0; word--) {
+            long blocked = columnBlocked[x * columnWords + word] & (word == start >>> 6 ? -1L >>> (63 - (start & 63)) : -1L);
+            if (blocked != 0) {
+                return (word << 6) + highestBit(blocked);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Get the bit of the target within a word of a row
+     * @param y The row
+     * @param word The word of the row
+     * @param target The cell being searched for
+     * @return The target's bit, or 0 if the target isn't in the word
+     */
+    private long targetBit(int y, int word, int target) {
+        int targetX = target % width;
+        return target / width == y && targetX >>> 6 == word ? 1L << targetX : 0L;
+    }
+
+    /**
+     * Get a word of a row's blocked bitset. Rows off the board are completely blocked.
+     * @param y The row
+     * @param word The word of the row
+     * @return The blocked bits
+     */
+    private long rowWord(int y, int word) {
+        return y < 0 || y >= height ? -1L : rowBlocked[y * rowWords + word];
+    }
+
+    /**
+     * Check if an enemy can move on to a cell
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return True if the cell is on the board and not blocked
+     */
+    private boolean isOpen(int x, int y) {
+        return x >= 0 && x < width && (rowWord(y, x >>> 6) & (1L << x)) == 0;
+    }
+
+    /**
+     * Set whether a cell is blocked, in both its row and its column
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @param blocked True if an enemy can't move on to the cell
+     */
+    private synchronized void setBlocked(int x, int y, boolean blocked) {
+        int row = y * rowWords + (x >>> 6);
+        int column = x * columnWords + (y >>> 6);
+
+        if (blocked) {
+            rowBlocked[row] |= 1L << x;
+            columnBlocked[column] |= 1L << y;
+        } else {
+            rowBlocked[row] &= ~(1L << x);
+            columnBlocked[column] &= ~(1L << y);
+        }
+    }
+
+    /**
+     * Follow the parents of a node back to the first jump point after the start
+     * @param search The search
+     * @param node The node to follow back from
+     * @param start The cell the search started from
+     * @return The cell of the first jump point
+     */
+    private int firstJump(Search search, int node, int start) {
+        int current = node;
+
+        while (search.parents[current] >>> 2 != start) {
+            current = search.parents[current];
+        }
+
+        return current >>> 2;
+    }
+
+    /**
+     * Get the direction from one cell towards another in the same row or column
+     * @param from The cell to move from
+     * @param to The cell to move towards
+     * @return The direction
+     */
+    private Direction directionTowards(int from, int to) {
+        if (to / width == from / width) {
+            return to > from ? RIGHT : LEFT;
+        }
+
+        return to > from ? DOWN : UP;
+    }
+
+    /**
+     * Get the number of steps between two cells, ignoring walls
+     * @param from The first cell
+     * @param to The second cell
+     * @return The Manhattan distance between them
+     */
+    private int distance(int from, int to) {
+        return Math.abs(from % width - to % width) + Math.abs(from / width - to / width);
+    }
+
+    /**
+     * Get the highest set bit of a word
+     * @param word The word, which must not be 0
+     * @return The index of the highest set bit
+     */
+    private static int highestBit(long word) {
+        return 63 - Long.numberOfLeadingZeros(word);
+    }
+
+    /**
+     * Get the index of the cell at a position
+     * @param point The position
+     * @return The cell
+     */
+    private int indexOf(Point point) {
+        return (int) point.getY() * width + (int) point.getX();
+    }
+
+    /**
+     * The memory used by a single search. Each node is a cell and the direction of the jump which
+     * reached it, and is only valid if it was touched during the current search.
+     */
+    private class Search {
+
+        /**
+         * The cost of the cheapest way to each node found so far
+         */
+        private final int[] costs = new int[width * height * 4];
+
+        /**
+         * The node each node was reached from
+         */
+        private final int[] parents = new int[width * height * 4];
+
+        /**
+         * The search each node was last touched in
+         */
+        private final int[] touched = new int[width * height * 4];
+
+        /**
+         * The nodes waiting to be expanded, with the lowest estimated total cost first
+         */
+        private LongHeap heap;
+
+        /**
+         * The number of the current search
+         */
+        private int current;
+
+        /**
+         * Start a new search, forgetting every node of the last one
+         */
+        private void begin() {
+            heap = new LongHeap();
+
+            if (++current == 0) {
+                Arrays.fill(touched, 0);
+                current = 1;
+            }
+        }
+
+        /**
+         * Open a node, if this is the cheapest way to it found so far
+         * @param node The node
+         * @param parent The node it was reached from
+         * @param cost The cost of reaching it this way
+         * @param target The cell being searched for
+         */
+        private void open(int node, int parent, int cost, int target) {
+            if (touched[node] == current && costs[node] <= cost) {
+                return;
+            }
+
+            touched[node] = current;
+            costs[node] = cost;
+            parents[node] = parent;
+            heap.add(((long) (cost + distance(node >>> 2, target)) << 32) | node);
+        }
+    }
+}
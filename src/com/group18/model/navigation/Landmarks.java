@@ -0,0 +1,351 @@
+package com.group18.model.navigation;
+
+import com.group18.model.LevelListener;
+import com.group18.model.cell.Cell;
+import com.group18.model.item.Collectable;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A set of landmark cells, with the distance an enemy would walk from each landmark to every cell
+ * on the board. By the triangle inequality, the distance between two cells is at least the
+ * difference between their distances to any landmark, which is a much closer estimate than the
+ * Manhattan distance in walled mazes, so A* searches far fewer cells.
+ *
+ * Landmarks are spread out by picking each one as far as possible from those already picked. The
+ * distances are found when the level is loaded. When a door opens or an item is collected, the
+ * cell can only make paths shorter, so just the distances which get shorter are walked again.
+ * Any other change finds every distance again before the next estimate.
+ *
+ * @author agent
+ */
+public class Landmarks implements LevelListener {
+
+    /**
+     * The number of landmarks picked on each level
+     */
+    public static final int DEFAULT_COUNT = 8;
+
+    /**
+     * The fewest cells an area needs for it to be given a landmark of its own. Small pockets
+     * closed off by walls aren't worth a landmark.
+     */
+    private static final int MIN_AREA = 32;
+
+    /**
+     * The distance stored for cells a landmark can't reach
+     */
+    private static final char UNREACHABLE = Character.MAX_VALUE;
+
+    /**
+     * The largest distance that can be stored. Longer distances are stored as this, which still
+     * never makes an estimate too long.
+     */
+    private static final char MAX_DISTANCE = Character.MAX_VALUE - 1;
+
+    /**
+     * The change in x of a step in each direction, by ordinal
+     */
+    private static final int[] STEP_X = {-1, 1, 0, 0};
+
+    /**
+     * The change in y of a step in each direction, by ordinal
+     */
+    private static final int[] STEP_Y = {0, 0, -1, 1};
+
+    /**
+     * The board of the level, which cells are read from when they change
+     */
+    private final Cell[][] board;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The number of landmarks to pick
+     */
+    private final int count;
+
+    /**
+     * Whether an enemy can move on to each cell, row by row
+     */
+    private final boolean[] walkable;
+
+    /**
+     * The distance from each landmark to every cell, row by row
+     */
+    private char[][] distances;
+
+    /**
+     * The queue of cells used when walking out from a cell
+     */
+    private final int[] queue;
+
+    /**
+     * True if a cell has changed in a way only finding every distance again can handle
+     */
+    private volatile boolean stale;
+
+    /**
+     * Pick the default number of landmarks on a board, and find their distances
+     * @param board The board of the level
+     */
+    public Landmarks(Cell[][] board) {
+        this(board, DEFAULT_COUNT);
+    }
+
+    /**
+     * Pick landmarks on a board, and find their distances
+     * @param board The board of the level
+     * @param count The number of landmarks to pick
+     */
+    public Landmarks(Cell[][] board, int count) {
+        this.board = board;
+        this.height = board.length;
+        this.width = board[0].length;
+        this.count = count;
+        this.walkable = new boolean[width * height];
+        this.queue = new int[width * height];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                walkable[y * width + x] = ClusterGraph.isWalkable(board[y][x]);
+            }
+        }
+
+        build();
+    }
+
+    /**
+     * Estimate the distance an enemy would walk between two cells. The estimate is never longer
+     * than the real distance, and is at least the Manhattan distance.
+     * @param from The position of the first cell
+     * @param to The position of the second cell
+     * @return The estimated distance
+     */
+    public int estimate(Point from, Point to) {
+        if (stale) {
+            rebuild();
+        }
+
+        int fromX = (int) from.getX();
+        int fromY = (int) from.getY();
+        int toX = (int) to.getX();
+        int toY = (int) to.getY();
+        int fromIndex = fromY * width + fromX;
+        int toIndex = toY * width + toX;
+
+        int estimate = Math.abs(fromX - toX) + Math.abs(fromY - toY);
+        for (char[] landmark : distances) {
+            char fromDistance = landmark[fromIndex];
+            char toDistance = landmark[toIndex];
+
+            if (fromDistance != UNREACHABLE && toDistance != UNREACHABLE) {
+                estimate = Math.max(estimate, Math.abs(fromDistance - toDistance));
+            }
+        }
+
+        return estimate;
+    }
+
+    /**
+     * Update the distances if a cell has been replaced, such as a door opening
+     * @param point The position of the cell that was replaced
+     */
+    @Override
+    public void cellReplaced(Point point) {
+        update(point);
+    }
+
+    /**
+     * Update the distances, as an item on a cell blocks enemies
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public void itemCollected(Point point, Collectable item) {
+        update(point);
+    }
+
+    /**
+     * Check whether a cell can still be walked on. A cell which has opened up only shortens
+     * distances, so they're walked again from that cell. Otherwise every distance is found again.
+     * @param point The position of the cell
+     */
+    private synchronized void update(Point point) {
+        int index = (int) point.getY() * width + (int) point.getX();
+        boolean nowWalkable = ClusterGraph.isWalkable(board[(int) point.getY()][(int) point.getX()]);
+
+        if (nowWalkable == walkable[index]) {
+            return;
+        }
+
+        walkable[index] = nowWalkable;
+        if (!nowWalkable || stale) {
+            stale = true;
+            return;
+        }
+
+        for (char[] landmark : distances) {
+            int shortest = UNREACHABLE;
+            for (int direction = 0; direction < 4; direction++) {
+                int next = neighbour(index, direction);
+                if (next != -1 && walkable[next] && landmark[next] != UNREACHABLE) {
+                    shortest = Math.min(shortest, landmark[next] + 1);
+                }
+            }
+
+            if (shortest != UNREACHABLE) {
+                landmark[index] = (char) Math.min(shortest, MAX_DISTANCE);
+                queue[0] = index;
+                walk(landmark, 1);
+            }
+        }
+    }
+
+    /**
+     * Find every distance again, if a cell has changed in a way that can make distances longer
+     */
+    private synchronized void rebuild() {
+        if (stale) {
+            build();
+            stale = false;
+        }
+    }
+
+    /**
+     * Pick the landmarks and find their distances. The first landmark is the cell furthest from
+     * the first open cell, and each one after that is the cell furthest from every landmark so far.
+     * Cells no landmark can reach count as furthest, so each separate area large enough gets a
+     * landmark.
+     */
+    private void build() {
+        char[][] found = new char[count][];
+        int[] nearest = new int[width * height];
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+
+        int first = -1;
+        for (int i = 0; i < walkable.length && first == -1; i++) {
+            if (walkable[i]) {
+                first = i;
+            }
+        }
+
+        int landmarks = 0;
+        if (first != -1) {
+            int next = furthest(distancesFrom(first), null);
+
+            while (landmarks < count && next != -1) {
+                boolean newArea = nearest[next] == Integer.MAX_VALUE;
+                char[] landmark = distancesFrom(next);
+                int reached = 0;
+
+                for (int i = 0; i < nearest.length; i++) {
+                    if (landmark[i] != UNREACHABLE) {
+                        nearest[i] = Math.min(nearest[i], landmark[i]);
+                        reached++;
+                    }
+                }
+
+                // A small area is left without a landmark, but its cells won't be picked again
+                if (newArea && reached < MIN_AREA) {
+                    for (int i = 0; i < nearest.length; i++) {
+                        if (landmark[i] != UNREACHABLE) {
+                            nearest[i] = 0;
+                        }
+                    }
+                } else {
+                    found[landmarks++] = landmark;
+                }
+                next = furthest(null, nearest);
+            }
+        }
+
+        distances = Arrays.copyOf(found, landmarks);
+    }
+
+    /**
+     * Find the open cell furthest from a landmark, or from every landmark
+     * @param landmark The distances from a single landmark, or null
+     * @param nearest The distance from each cell to its nearest landmark, used if landmark is null
+     * @return The furthest cell, or -1 if every open cell is a landmark
+     */
+    private int furthest(char[] landmark, int[] nearest) {
+        int furthest = -1;
+        long furthestDistance = 0;
+
+        for (int i = 0; i < walkable.length; i++) {
+            long distance = landmark != null
+                    ? (landmark[i] == UNREACHABLE ? -1 : landmark[i])
+                    : nearest[i];
+
+            if (walkable[i] && distance > furthestDistance) {
+                furthest = i;
+                furthestDistance = distance;
+            }
+        }
+
+        return furthest;
+    }
+
+    /**
+     * Find the distance from a cell to every other cell
+     * @param start The cell
+     * @return The distances, row by row
+     */
+    private char[] distancesFrom(int start) {
+        char[] landmark = new char[width * height];
+        Arrays.fill(landmark, UNREACHABLE);
+
+        landmark[start] = 0;
+        queue[0] = start;
+        walk(landmark, 1);
+
+        return landmark;
+    }
+
+    /**
+     * Walk out from the cells in the queue, shortening the distance of every cell that can be
+     * reached in fewer steps than it has now
+     * @param landmark The distances from a landmark
+     * @param tail The number of cells in the queue
+     */
+    private void walk(char[] landmark, int tail) {
+        int head = 0;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int distance = Math.min(landmark[cell] + 1, MAX_DISTANCE);
+
+            for (int direction = 0; direction < 4; direction++) {
+                int next = neighbour(cell, direction);
+
+                if (next != -1 && walkable[next] && distance < landmark[next]) {
+                    landmark[next] = (char) distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the cell next to another
+     * @param cell The cell
+     * @param direction The ordinal of the direction to step in
+     * @return The next cell, or -1 if it would be off the board
+     */
+    private int neighbour(int cell, int direction) {
+        int x = cell % width + STEP_X[direction];
+        int y = cell / width + STEP_Y[direction];
+
+        return x < 0 || y < 0 || x >= width || y >= height ? -1 : y * width + x;
+    }
+}
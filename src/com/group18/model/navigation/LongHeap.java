@@ -0,0 +1,76 @@
+package com.group18.model.navigation;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of primitive longs. Entries are packed as a distance in the high bits and a
+ * node in the low bits, so the smallest entry is always the closest node.
+ *
+ * @author agent
+ */
+class LongHeap {
+
+    /**
+     * The entries in the heap, in heap order
+     */
+    private long[] entries = new long[64];
+
+    /**
+     * The number of entries in the heap
+     */
+    private int size;
+
+    /**
+     * Add an entry to the heap
+     * @param entry The entry
+     */
+    void add(long entry) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (entries[parent] <= entry) {
+                break;
+            }
+            entries[index] = entries[parent];
+            index = parent;
+        }
+        entries[index] = entry;
+    }
+
+    /**
+     * Remove and return the smallest entry in the heap
+     * @return The smallest entry
+     */
+    long poll() {
+        long smallest = entries[0];
+        long last = entries[--size];
+
+        int index = 0;
+        int child;
+        while ((child = 2 * index + 1) < size) {
+            if (child + 1 < size && entries[child + 1] < entries[child]) {
+                child++;
+            }
+            if (last <= entries[child]) {
+                break;
+            }
+            entries[index] = entries[child];
+            index = child;
+        }
+        entries[index] = last;
+
+        return smallest;
+    }
+
+    /**
+     * Check if the heap has no entries
+     * @return True if the heap is empty
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
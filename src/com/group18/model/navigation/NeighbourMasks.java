@@ -0,0 +1,269 @@
+package com.group18.model.navigation;
+
+import com.group18.model.Direction;
+import com.group18.model.LevelListener;
+import com.group18.model.board.Board;
+import com.group18.model.cell.Cell;
+import com.group18.model.cell.Wall;
+import com.group18.model.item.Collectable;
+
+import java.awt.Point;
+
+/**
+ * Holds two 4-bit masks for every cell of a board: which of its neighbours an enemy can move on
+ * to, and which of its neighbours are walls. Bit i of a mask is the neighbour in the direction
+ * with ordinal i, so LEFT is bit 0, RIGHT bit 1, UP bit 2 and DOWN bit 3. Neighbours off the
+ * board are neither walkable nor walls.
+ *
+ * The masks are worked out when the level is loaded, and updated for the cells around a door
+ * when it opens, or around an item when it's collected. Each row and column also has a version,
+ * which goes up whenever a cell in it changes, so anything worked out along a line can tell
+ * when it needs working out again.
+ *
+ * If the board isn't held in memory as a whole, the masks aren't stored, and are worked out from
+ * the cells each time they're needed instead.
+ *
+ * @author agent
+ */
+public class NeighbourMasks implements LevelListener {
+
+    /**
+     * The change in x of a step in each direction, by ordinal
+     */
+    private static final int[] STEP_X = {-1, 1, 0, 0};
+
+    /**
+     * The change in y of a step in each direction, by ordinal
+     */
+    private static final int[] STEP_Y = {0, 0, -1, 1};
+
+    /**
+     * The board of the level, which cells are read from when they change
+     */
+    private final Board board;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The masks of each cell, row by row, or null if the masks are worked out when needed. The
+     * walkable mask is in the low 4 bits and the wall mask in the high 4 bits.
+     */
+    private final byte[] masks;
+
+    /**
+     * The version of each row, which goes up whenever a cell in the row changes
+     */
+    private final int[] rowVersions;
+
+    /**
+     * The version of each column, which goes up whenever a cell in the column changes
+     */
+    private final int[] columnVersions;
+
+    /**
+     * Work out the masks of every cell on a board
+     * @param board The board of the level
+     */
+    public NeighbourMasks(Board board) {
+        this.board = board;
+        this.height = board.getHeight();
+        this.width = board.getWidth();
+        this.masks = board.getCells() != null ? new byte[width * height] : null;
+        this.rowVersions = new int[height];
+        this.columnVersions = new int[width];
+
+        if (masks != null) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    masks[y * width + x] = compute(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get which neighbours of a cell an enemy can move on to
+     * @param point The position of the cell
+     * @return The walkable mask
+     */
+    public int getWalkable(Point point) {
+        return maskOf((int) point.getX(), (int) point.getY()) & 0xF;
+    }
+
+    /**
+     * Get which neighbours of a cell an enemy can move on to
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The walkable mask
+     */
+    public int getWalkable(int x, int y) {
+        return maskOf(x, y) & 0xF;
+    }
+
+    /**
+     * Get which neighbours of a cell are walls
+     * @param point The position of the cell
+     * @return The wall mask
+     */
+    public int getWalls(Point point) {
+        return (maskOf((int) point.getX(), (int) point.getY()) >>> 4) & 0xF;
+    }
+
+    /**
+     * Get which neighbours of a cell are next to at least one wall themselves
+     * @param point The position of the cell
+     * @return The mask of neighbours next to a wall
+     */
+    public int getHugging(Point point) {
+        return getHugging((int) point.getX(), (int) point.getY());
+    }
+
+    /**
+     * Get which neighbours of a cell are next to at least one wall themselves
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The mask of neighbours next to a wall
+     */
+    public int getHugging(int x, int y) {
+        int hugging = 0;
+
+        for (int direction = 0; direction < 4; direction++) {
+            int nextX = x + STEP_X[direction];
+            int nextY = y + STEP_Y[direction];
+
+            if (isOnBoard(nextX, nextY) && (maskOf(nextX, nextY) & 0xF0) != 0) {
+                hugging |= 1 << direction;
+            }
+        }
+
+        return hugging;
+    }
+
+    /**
+     * Get the version of a row, which goes up whenever a cell in the row changes
+     * @param y The row
+     * @return The row's version
+     */
+    public int getRowVersion(int y) {
+        return rowVersions[y];
+    }
+
+    /**
+     * Get the version of a column, which goes up whenever a cell in the column changes
+     * @param x The column
+     * @return The column's version
+     */
+    public int getColumnVersion(int x) {
+        return columnVersions[x];
+    }
+
+    /**
+     * Get the bit of a direction within a mask
+     * @param direction The direction, which must not be IDLE
+     * @return The direction's bit
+     */
+    public static int bitOf(Direction direction) {
+        return 1 << direction.ordinal();
+    }
+
+    /**
+     * Update the masks around a cell, if the cell has been replaced
+     * @param point The position of the cell that was replaced
+     */
+    @Override
+    public void cellReplaced(Point point) {
+        update(point);
+    }
+
+    /**
+     * Update the masks around a cell, as an item on a cell blocks enemies
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public void itemCollected(Point point, Collectable item) {
+        update(point);
+    }
+
+    /**
+     * Work out the masks of a cell's neighbours again, as they're the cells which can see it,
+     * and move on the versions of the cell's row and column
+     * @param point The position of the cell
+     */
+    private void update(Point point) {
+        int x = (int) point.getX();
+        int y = (int) point.getY();
+        rowVersions[y]++;
+        columnVersions[x]++;
+
+        if (masks == null) {
+            return;
+        }
+
+        for (int direction = 0; direction < 4; direction++) {
+            int nextX = x + STEP_X[direction];
+            int nextY = y + STEP_Y[direction];
+
+            if (isOnBoard(nextX, nextY)) {
+                masks[nextY * width + nextX] = compute(nextX, nextY);
+            }
+        }
+    }
+
+    /**
+     * Get both masks of a cell, working them out if they aren't stored
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The masks of the cell
+     */
+    private int maskOf(int x, int y) {
+        return masks != null ? masks[y * width + x] : compute(x, y);
+    }
+
+    /**
+     * Work out both masks of a cell
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The masks of the cell
+     */
+    private byte compute(int x, int y) {
+        int walkable = 0;
+        int walls = 0;
+
+        for (int direction = 0; direction < 4; direction++) {
+            int nextX = x + STEP_X[direction];
+            int nextY = y + STEP_Y[direction];
+
+            if (isOnBoard(nextX, nextY)) {
+                Cell next = board.getCell(nextX, nextY);
+
+                if (ClusterGraph.isWalkable(next)) {
+                    walkable |= 1 << direction;
+                }
+                if (next instanceof Wall) {
+                    walls |= 1 << direction;
+                }
+            }
+        }
+
+        return (byte) (walls << 4 | walkable);
+    }
+
+    /**
+     * Check if a position is on the board
+     * @param x The x of the position
+     * @param y The y of the position
+     * @return True if the position is on the board
+     */
+    private boolean isOnBoard(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+}
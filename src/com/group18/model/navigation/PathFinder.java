@@ -0,0 +1,23 @@
+package com.group18.model.navigation;
+
+import com.group18.exception.ShortestPathNotFoundException;
+import com.group18.model.Direction;
+
+import java.awt.Point;
+
+/**
+ * A way of finding the path an enemy should take to a target on a level's board.
+ *
+ * @author agent
+ */
+public interface PathFinder {
+
+    /**
+     * Work out the direction an enemy should move in to get to a target
+     * @param from The position of the enemy
+     * @param to The position of the target
+     * @return The direction of the first step towards the target
+     * @throws ShortestPathNotFoundException If the target can't be reached
+     */
+    Direction nextDirection(Point from, Point to) throws ShortestPathNotFoundException;
+}
@@ -0,0 +1,29 @@
+package com.group18.model.navigation;
+
+/**
+ * The ways a level can find paths for its smart targeting enemies
+ *
+ * @author agent
+ */
+public enum PathFinding {
+
+    /**
+     * A* over the level's whole graph
+     */
+    A_STAR,
+
+    /**
+     * Jump point search over the board, skipping along open rows and columns
+     */
+    JUMP_POINT,
+
+    /**
+     * Search over a cluster graph, for very large levels
+     */
+    CLUSTER,
+
+    /**
+     * Step straight towards the target without searching, for levels too large to hold in memory
+     */
+    GREEDY;
+}
@@ -0,0 +1,169 @@
+package com.group18.server;
+
+import com.group18.core.LevelLoader;
+import com.group18.exception.InvalidMoveException;
+import com.group18.generator.GeneratorSettings;
+import com.group18.generator.LevelGenerator;
+import com.group18.model.Direction;
+import com.group18.model.GameSimulation;
+import com.group18.model.Level;
+import com.group18.model.State;
+import com.group18.model.entity.User;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Measures how many bytes a game sends each turn as delta frames, against sending the whole board
+ * every turn, both as a keyframe and as a fixed four bytes a cell. Random moves are played on the
+ * five stock levels and on large levels made by the level generator. Every encoding sends the whole
+ * board when a game begins, so only the frames sent for turns are counted. Run with the number of
+ * turns to play on each level, which defaults to 2000.
+ *
+ * @author agent
+ */
+public class DeltaBenchmark {
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("DeltaBenchmark");
+
+    /**
+     * The number of stock levels
+     */
+    private static final int STOCK_LEVELS = 5;
+
+    /**
+     * The sizes of the generated levels
+     */
+    private static final int[] GENERATED_SIZES = {64, 256, 1024};
+
+    /**
+     * The directions the user can move in
+     */
+    private static final Direction[] MOVES = {Direction.LEFT, Direction.RIGHT, Direction.UP, Direction.DOWN};
+
+    /**
+     * Measure the bytes sent each turn on every level
+     * @param args The number of turns to play on each level
+     */
+    public static void main(String[] args) {
+        int turns = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        User user = new User("benchmark");
+        while (user.getHighestLevel() < STOCK_LEVELS) {
+            user.incrementLevel();
+        }
+
+        for (int i = 1; i <= STOCK_LEVELS; i++) {
+            int levelNumber = i;
+            run("Level " + i, () -> LevelLoader.loadLevel(levelNumber, user), user, turns);
+        }
+
+        try {
+            for (int size : GENERATED_SIZES) {
+                // Few enemies, and no smart ones, so the large levels play quickly
+                GeneratorSettings settings = new GeneratorSettings()
+                        .setWidth(size).setHeight(size).setSeed(1)
+                        .setEnemyDensity(0.002).setEnemyWeights(1, 0, 1, 1);
+
+                File file = File.createTempFile("benchmark", ".txt");
+                file.deleteOnExit();
+                new LevelGenerator(settings).generate(file.getPath());
+
+                run(String.format("Generated %dx%d", size, size),
+                        () -> LevelLoader.loadLevelFile(file.getPath(), 1, user), user, turns);
+            }
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "The benchmark levels could not be generated", ex);
+        }
+    }
+
+    /**
+     * Play random moves on a level, starting it again whenever a game ends, and print the bytes
+     * sent each turn by each encoding
+     * @param name The name of the level
+     * @param loader Loads a fresh copy of the level
+     * @param user The user playing the level
+     * @param turns The number of turns to play
+     */
+    private static void run(String name, LevelSource loader, User user, int turns) {
+        SplittableRandom random = new SplittableRandom(1);
+        long deltaBytes = 0;
+        long keyframeBytes = 0;
+        long fixedBytes = 0;
+        int played = 0;
+        int games = 0;
+
+        while (played < turns) {
+            Level level = loader.load();
+            if (level == null) {
+                return;
+            }
+            level.seedEnemies(random.nextLong());
+
+            GameSimulation simulation = new GameSimulation(level, user);
+            DeltaEncoder deltas = new DeltaEncoder(level, user, DeltaEncoder.DEFAULT_KEYFRAME_INTERVAL);
+            DeltaEncoder keyframes = new DeltaEncoder(level, user, 1);
+            deltas.keyframe(State.IN_PROGRESS, 0);
+            keyframes.keyframe(State.IN_PROGRESS, 0);
+            games++;
+            int cells = level.getBoardWidth() * level.getBoardHeight();
+
+            while (played < turns && simulation.getState() == State.IN_PROGRESS) {
+                try {
+                    State state = simulation.step(MOVES[random.nextInt(MOVES.length)]);
+                    deltaBytes += messageSize(deltas.nextFrame(state, simulation.getTurns()));
+                    keyframeBytes += messageSize(keyframes.nextFrame(state, simulation.getTurns()));
+                    fixedBytes += fixedBoardSize(cells, level.getEnemies().size());
+                    played++;
+                } catch (InvalidMoveException ex) {
+                    // The user couldn't move that way, so nothing is sent
+                }
+            }
+        }
+
+        System.out.println(String.format("%s, %d turns over %d games: %.1f bytes a turn as deltas, %.1f as keyframes, %.1f as fixed ints (%.0fx smaller)",
+                name, played, games, (double) deltaBytes / played, (double) keyframeBytes / played,
+                (double) fixedBytes / played, (double) fixedBytes / deltaBytes));
+    }
+
+    /**
+     * Get the size of a frame once sent, with its message type and length
+     * @param frame The frame
+     * @return The number of bytes sent
+     */
+    private static int messageSize(byte[] frame) {
+        return 1 + Varints.size(frame.length) + frame.length;
+    }
+
+    /**
+     * Get the size of the whole board sent with a fixed four bytes for every number: the message
+     * type, the width and height, the code of every cell, the user's tokens and cell, then each
+     * enemy's kind and cell
+     * @param cells The number of cells on the board
+     * @param enemies The number of enemies on the board
+     * @return The number of bytes sent
+     */
+    private static long fixedBoardSize(int cells, int enemies) {
+        return 1 + 8 + 4L * cells + 8 + 5L * enemies;
+    }
+
+    /**
+     * Loads a fresh copy of a level to be played
+     */
+    @FunctionalInterface
+    private interface LevelSource {
+
+        /**
+         * Load the level
+         * @return The level, or null if it couldn't be loaded
+         */
+        Level load();
+    }
+}
@@ -0,0 +1,270 @@
+package com.group18.server;
+
+import com.group18.model.State;
+import com.group18.model.board.CellCodes;
+import com.group18.model.item.Collectable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps a copy of a game's state up to date from the frames of a DeltaEncoder. Deltas are only
+ * applied once a keyframe has been, so a client can start with any frame and wait for the next
+ * keyframe to catch up.
+ *
+ * @author agent
+ */
+public class DeltaDecoder {
+
+    /**
+     * The width of the board
+     */
+    private int width;
+
+    /**
+     * The height of the board
+     */
+    private int height;
+
+    /**
+     * The CellCodes code of every cell, row by row, or null before the first keyframe
+     */
+    private int[] cells;
+
+    /**
+     * The cell the user is on, by index
+     */
+    private int userCell;
+
+    /**
+     * The number of tokens the user holds
+     */
+    private int tokens;
+
+    /**
+     * The items in the user's inventory
+     */
+    private List<Collectable> inventory = new ArrayList<>();
+
+    /**
+     * The kind of each enemy, in board order
+     */
+    private byte[] enemyKinds;
+
+    /**
+     * The cell each enemy is on, by index
+     */
+    private int[] enemyCells;
+
+    /**
+     * The state of the game
+     */
+    private State state;
+
+    /**
+     * The number of turns played
+     */
+    private int turns;
+
+    /**
+     * Apply a frame to the state
+     * @param frame The frame
+     * @return False if the frame was a delta that was skipped, as no keyframe has been applied yet
+     * @throws IllegalArgumentException If the frame isn't a keyframe or a delta
+     */
+    public boolean apply(byte[] frame) {
+        ByteBuffer in = ByteBuffer.wrap(frame);
+        byte type = in.get();
+
+        if (type == DeltaEncoder.KEYFRAME) {
+            applyKeyframe(in);
+            return true;
+        } else if (type == DeltaEncoder.DELTA) {
+            if (cells == null) {
+                return false;
+            }
+
+            applyDelta(in);
+            return true;
+        }
+
+        throw new IllegalArgumentException("Unknown frame type " + type);
+    }
+
+    /**
+     * Check whether a keyframe has been applied, so the state is known
+     * @return True if the state is known
+     */
+    public boolean hasKeyframe() {
+        return cells != null;
+    }
+
+    /**
+     * Get the width of the board
+     * @return The width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height of the board
+     * @return The height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get the code of a cell
+     * @param x The x of the cell
+     * @param y The y of the cell
+     * @return The cell's CellCodes code
+     */
+    public int getCell(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    /**
+     * Get the cell the user is on
+     * @return The index of the cell, row by row
+     */
+    public int getUserCell() {
+        return userCell;
+    }
+
+    /**
+     * Get the number of tokens the user holds
+     * @return The number of tokens
+     */
+    public int getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Get the items in the user's inventory
+     * @return The items
+     */
+    public List<Collectable> getInventory() {
+        return Collections.unmodifiableList(inventory);
+    }
+
+    /**
+     * Get the number of enemies on the board
+     * @return The number of enemies
+     */
+    public int getEnemyCount() {
+        return enemyCells.length;
+    }
+
+    /**
+     * Get the kind of an enemy
+     * @param enemy The enemy, in board order
+     * @return The kind, from Protocol
+     */
+    public byte getEnemyKind(int enemy) {
+        return enemyKinds[enemy];
+    }
+
+    /**
+     * Get the cell an enemy is on
+     * @param enemy The enemy, in board order
+     * @return The index of the cell, row by row
+     */
+    public int getEnemyCell(int enemy) {
+        return enemyCells[enemy];
+    }
+
+    /**
+     * Get the state of the game
+     * @return The game state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * Get the number of turns played
+     * @return The number of turns
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Replace the whole state with a keyframe's
+     * @param in The keyframe, after its type
+     */
+    private void applyKeyframe(ByteBuffer in) {
+        turns = Varints.read(in);
+        state = State.values()[in.get()];
+        width = Varints.read(in);
+        height = Varints.read(in);
+
+        cells = new int[width * height];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = Varints.read(in);
+        }
+
+        userCell = Varints.read(in);
+        tokens = Varints.read(in);
+        readInventory(in);
+
+        int enemies = Varints.read(in);
+        enemyKinds = new byte[enemies];
+        enemyCells = new int[enemies];
+        for (int i = 0; i < enemies; i++) {
+            enemyKinds[i] = in.get();
+            enemyCells[i] = Varints.read(in);
+        }
+    }
+
+    /**
+     * Apply what changed in a delta
+     * @param in The delta, after its type
+     */
+    private void applyDelta(ByteBuffer in) {
+        turns = Varints.read(in);
+        int changes = in.get();
+
+        if ((changes & DeltaEncoder.STATE_CHANGED) != 0) {
+            state = State.values()[in.get()];
+        }
+        if ((changes & DeltaEncoder.USER_MOVED) != 0) {
+            userCell += Varints.readSigned(in);
+        }
+        if ((changes & DeltaEncoder.TOKENS_CHANGED) != 0) {
+            tokens = Varints.read(in);
+        }
+        if ((changes & DeltaEncoder.INVENTORY_CHANGED) != 0) {
+            readInventory(in);
+        }
+
+        int cell = -1;
+        for (int changed = Varints.read(in); changed > 0; changed--) {
+            cell += Varints.read(in) + 1;
+            cells[cell] = Varints.read(in);
+        }
+
+        int enemy = -1;
+        for (int moved = Varints.read(in); moved > 0; moved--) {
+            enemy += Varints.read(in) + 1;
+            enemyCells[enemy] += Varints.readSigned(in);
+        }
+    }
+
+    /**
+     * Read the user's inventory as item codes
+     * @param in The frame
+     */
+    private void readInventory(ByteBuffer in) {
+        int items = Varints.read(in);
+
+        inventory = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            inventory.add(CellCodes.decodeItem(Varints.read(in)));
+        }
+    }
+}
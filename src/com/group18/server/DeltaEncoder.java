@@ -0,0 +1,354 @@
+package com.group18.server;
+
+import com.group18.model.Level;
+import com.group18.model.LevelListener;
+import com.group18.model.State;
+import com.group18.model.board.CellCodes;
+import com.group18.model.entity.Enemy;
+import com.group18.model.entity.Entity;
+import com.group18.model.entity.User;
+import com.group18.model.item.Collectable;
+import com.group18.model.item.Key;
+
+import java.awt.Point;
+import java.io.ByteArrayOutputStream;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the state of a game as a stream of compact frames, for clients watching or playing it
+ * remotely. A keyframe holds the whole state, and every other frame only holds what changed
+ * during the turns since the frame before, found from the level's events. A keyframe is sent
+ * every so often, so a client that joins part way through, or misses a frame, is soon in step.
+ *
+ * Every number is written as a varint. A keyframe is KEYFRAME, the turns played, the state, the
+ * width and height, the CellCodes code of every cell row by row, the user's cell and tokens, the
+ * user's inventory as item codes, then each enemy's kind and cell in board order. A delta is DELTA,
+ * the turns played and a byte of flags, followed by the state, the change in the user's cell, the
+ * tokens and the inventory, each only if its flag is set. Then come the cells that changed, each
+ * as the gap since the last changed cell and its new code, and the enemies that moved, each as the
+ * gap since the last enemy that moved and the change in its cell. Cells are indexed row by row.
+ *
+ * @author agent
+ */
+public class DeltaEncoder implements LevelListener {
+
+    /**
+     * The first byte of a keyframe
+     */
+    public static final byte KEYFRAME = 1;
+
+    /**
+     * The first byte of a delta
+     */
+    public static final byte DELTA = 2;
+
+    /**
+     * The number of frames between keyframes if no other interval is given
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+    /**
+     * The flag set when the state of the game has changed
+     */
+    static final int STATE_CHANGED = 1;
+
+    /**
+     * The flag set when the user has moved
+     */
+    static final int USER_MOVED = 1 << 1;
+
+    /**
+     * The flag set when the number of tokens the user holds has changed
+     */
+    static final int TOKENS_CHANGED = 1 << 2;
+
+    /**
+     * The flag set when the user's inventory has changed
+     */
+    static final int INVENTORY_CHANGED = 1 << 3;
+
+    /**
+     * The level being encoded
+     */
+    private final Level level;
+
+    /**
+     * The user playing the level
+     */
+    private final User user;
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The number of frames between keyframes
+     */
+    private final int keyframeInterval;
+
+    /**
+     * The enemies on the level, in board order
+     */
+    private final List<Enemy> enemies;
+
+    /**
+     * The index of each enemy in board order
+     */
+    private final Map<Enemy, Integer> enemyIndexes = new IdentityHashMap<>();
+
+    /**
+     * The cell each enemy was on in the last frame
+     */
+    private final int[] enemyCells;
+
+    /**
+     * The cells which have changed since the last frame
+     */
+    private final BitSet changedCells;
+
+    /**
+     * The enemies which have moved since the last frame
+     */
+    private final BitSet movedEnemies;
+
+    /**
+     * The frame being written
+     */
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    /**
+     * The flags of what has changed since the last frame
+     */
+    private int changes;
+
+    /**
+     * The cell the user was on in the last frame
+     */
+    private int userCell;
+
+    /**
+     * The state of the game in the last frame
+     */
+    private State state;
+
+    /**
+     * The number of frames since the last keyframe, or -1 if there hasn't been a keyframe yet
+     */
+    private int framesSinceKeyframe = -1;
+
+    /**
+     * Creates a new encoder for a game which has just begun, and starts listening to its level
+     * @param level The level being played
+     * @param user The user playing the level
+     * @param keyframeInterval The number of frames between keyframes
+     */
+    public DeltaEncoder(Level level, User user, int keyframeInterval) {
+        this.level = level;
+        this.user = user;
+        this.width = level.getBoardWidth();
+        this.keyframeInterval = keyframeInterval;
+        this.enemies = level.getEnemies();
+        this.enemyCells = new int[enemies.size()];
+        this.changedCells = new BitSet();
+        this.movedEnemies = new BitSet(enemies.size());
+
+        for (int i = 0; i < enemies.size(); i++) {
+            enemyIndexes.put(enemies.get(i), i);
+        }
+
+        level.addListener(this);
+    }
+
+    /**
+     * Encode what changed since the last frame, or the whole state if a keyframe is due
+     * @param state The state of the game
+     * @param turns The number of turns played
+     * @return The frame
+     */
+    public byte[] nextFrame(State state, int turns) {
+        if (framesSinceKeyframe < 0 || framesSinceKeyframe + 1 >= keyframeInterval) {
+            return keyframe(state, turns);
+        }
+
+        framesSinceKeyframe++;
+        out.reset();
+        out.write(DELTA);
+        Varints.write(out, turns);
+
+        int currentUserCell = indexOf(user.getCurrentCell().getPosition());
+        if (state != this.state) {
+            changes |= STATE_CHANGED;
+        }
+        if (currentUserCell == userCell) {
+            changes &= ~USER_MOVED;
+        }
+        out.write(changes);
+
+        if ((changes & STATE_CHANGED) != 0) {
+            out.write(state.ordinal());
+        }
+        if ((changes & USER_MOVED) != 0) {
+            Varints.writeSigned(out, currentUserCell - userCell);
+        }
+        if ((changes & TOKENS_CHANGED) != 0) {
+            Varints.write(out, user.getTokens());
+        }
+        if ((changes & INVENTORY_CHANGED) != 0) {
+            writeInventory();
+        }
+
+        Varints.write(out, changedCells.cardinality());
+        int previous = -1;
+        for (int cell = changedCells.nextSetBit(0); cell >= 0; cell = changedCells.nextSetBit(cell + 1)) {
+            Varints.write(out, cell - previous - 1);
+            Varints.write(out, CellCodes.encode(level.getCell(new Point(cell % width, cell / width))));
+            previous = cell;
+        }
+
+        Varints.write(out, movedEnemies.cardinality());
+        previous = -1;
+        for (int enemy = movedEnemies.nextSetBit(0); enemy >= 0; enemy = movedEnemies.nextSetBit(enemy + 1)) {
+            int cell = indexOf(enemies.get(enemy).getCurrentCell().getPosition());
+            Varints.write(out, enemy - previous - 1);
+            Varints.writeSigned(out, cell - enemyCells[enemy]);
+            enemyCells[enemy] = cell;
+            previous = enemy;
+        }
+
+        this.state = state;
+        userCell = currentUserCell;
+        clearChanges();
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode the whole state of the game, such as for a client that has just started watching
+     * @param state The state of the game
+     * @param turns The number of turns played
+     * @return The keyframe
+     */
+    public byte[] keyframe(State state, int turns) {
+        framesSinceKeyframe = 0;
+        out.reset();
+        out.write(KEYFRAME);
+        Varints.write(out, turns);
+        out.write(state.ordinal());
+        Varints.write(out, width);
+        Varints.write(out, level.getBoardHeight());
+
+        for (int y = 0; y < level.getBoardHeight(); y++) {
+            for (int x = 0; x < width; x++) {
+                Varints.write(out, CellCodes.encode(level.getCell(new Point(x, y))));
+            }
+        }
+
+        userCell = indexOf(user.getCurrentCell().getPosition());
+        Varints.write(out, userCell);
+        Varints.write(out, user.getTokens());
+        writeInventory();
+
+        Varints.write(out, enemies.size());
+        for (int i = 0; i < enemies.size(); i++) {
+            enemyCells[i] = indexOf(enemies.get(i).getCurrentCell().getPosition());
+            out.write(Protocol.kindOf(enemies.get(i)));
+            Varints.write(out, enemyCells[i]);
+        }
+
+        this.state = state;
+        clearChanges();
+        return out.toByteArray();
+    }
+
+    /**
+     * Note that the user or an enemy has moved
+     * @param entity The user or enemy that moved
+     * @param from The position it moved from
+     * @param to The position it moved to
+     */
+    @Override
+    public void entityMoved(Entity entity, Point from, Point to) {
+        if (entity == user) {
+            changes |= USER_MOVED;
+        } else {
+            Integer enemy = enemyIndexes.get(entity);
+            if (enemy != null) {
+                movedEnemies.set(enemy);
+            }
+        }
+    }
+
+    /**
+     * Note a cell that has been replaced
+     * @param point The position of the replaced cell
+     */
+    @Override
+    public void cellReplaced(Point point) {
+        changedCells.set(indexOf(point));
+    }
+
+    /**
+     * Note a cell an item has been picked up from, and that the user's inventory has changed if
+     * the item wasn't a token
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public void itemCollected(Point point, Collectable item) {
+        changedCells.set(indexOf(point));
+
+        if (item != Key.TOKEN_KEY) {
+            changes |= INVENTORY_CHANGED;
+        }
+    }
+
+    /**
+     * Note that the number of tokens the user holds has changed
+     * @param tokens The number of tokens the user now holds
+     */
+    @Override
+    public void tokensChanged(int tokens) {
+        changes |= TOKENS_CHANGED;
+    }
+
+    /**
+     * Note that an item has been taken from the user's inventory
+     */
+    @Override
+    public void inventoryChanged() {
+        changes |= INVENTORY_CHANGED;
+    }
+
+    /**
+     * Write the item codes of the user's inventory
+     */
+    private void writeInventory() {
+        List<Collectable> inventory = user.getInventory(level.getCurrentLevel());
+
+        Varints.write(out, inventory.size());
+        for (Collectable item : inventory) {
+            Varints.write(out, CellCodes.encodeItem(item));
+        }
+    }
+
+    /**
+     * Forget what has changed, once it has been written
+     */
+    private void clearChanges() {
+        changes = 0;
+        changedCells.clear();
+        movedEnemies.clear();
+    }
+
+    /**
+     * Get the index of a position on the board, row by row
+     * @param point The position
+     * @return The index of the position
+     */
+    private int indexOf(Point point) {
+        return point.y * width + point.x;
+    }
+}
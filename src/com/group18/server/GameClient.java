@@ -0,0 +1,234 @@
+package com.group18.server;
+
+import com.group18.model.Direction;
+import com.group18.model.State;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * A client of the game server, which keeps its own copy of the game up to date from the frames
+ * the server sends. Run on its own, it opens many sessions at once and plays random
+ * moves in each, to test a server running on the same machine.
+ *
+ * Run with the port, the number of sessions, the level and the number of turns each session
+ * plays, all optional.
+ *
+ * @author agent
+ */
+public class GameClient implements Closeable {
+
+    /**
+     * The number of sessions opened when testing, if no other number is given
+     */
+    private static final int DEFAULT_SESSIONS = 100;
+
+    /**
+     * The number of turns each session plays when testing, if no other number is given
+     */
+    private static final int DEFAULT_TURNS = 1000;
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("GameClient");
+
+    /**
+     * The directions the user can move in
+     */
+    private static final Direction[] MOVES = {Direction.LEFT, Direction.RIGHT, Direction.UP, Direction.DOWN};
+
+    /**
+     * The connection to the server
+     */
+    private final Socket socket;
+
+    /**
+     * The stream from the server
+     */
+    private final DataInputStream in;
+
+    /**
+     * The stream to the server
+     */
+    private final DataOutputStream out;
+
+    /**
+     * The copy of the game's state, kept up to date from the server's frames
+     */
+    private final DeltaDecoder game = new DeltaDecoder();
+
+    /**
+     * Connect to a server on this machine
+     * @param port The port the server is listening on
+     * @throws IOException If the server can't be connected to
+     */
+    public GameClient(int port) throws IOException {
+        this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Begin a game on a level, and read the whole board
+     * @param level The level to be played
+     * @param seed The seed for the enemies' randomness
+     * @throws IOException If the game can't be started
+     */
+    public void start(int level, long seed) throws IOException {
+        out.writeByte(Protocol.START);
+        out.writeInt(level);
+        out.writeLong(seed);
+        out.flush();
+
+        expect(Protocol.FRAME);
+        readFrame();
+    }
+
+    /**
+     * Play a turn, and apply what changed to the board
+     * @param direction The direction the user moves in
+     * @return True if the turn was played, or false if the user couldn't move that way
+     * @throws IOException If the turn can't be played
+     */
+    public boolean move(Direction direction) throws IOException {
+        out.writeByte(Protocol.MOVE);
+        out.writeByte(direction.ordinal());
+        out.flush();
+
+        if (expect(Protocol.FRAME, Protocol.BLOCKED) == Protocol.BLOCKED) {
+            in.readByte();
+            return false;
+        }
+
+        readFrame();
+        return true;
+    }
+
+    /**
+     * Get the copy of the game's state
+     * @return The game's state
+     */
+    public DeltaDecoder getGame() {
+        return game;
+    }
+
+    /**
+     * Get the state of the game
+     * @return The game state
+     */
+    public State getState() {
+        return game.getState();
+    }
+
+    /**
+     * End the session and disconnect
+     * @throws IOException If the connection can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            out.writeByte(Protocol.QUIT);
+            out.flush();
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Read a frame, and apply it to the copy of the game's state
+     * @throws IOException If the frame can't be read
+     */
+    private void readFrame() throws IOException {
+        byte[] frame = new byte[Varints.read(in)];
+        in.readFully(frame);
+        game.apply(frame);
+    }
+
+    /**
+     * Read the type of the next message, which must be one of those expected
+     * @param types The types of message expected
+     * @return The type of the message
+     * @throws IOException If the server sent an error, or a message that wasn't expected
+     */
+    private byte expect(byte... types) throws IOException {
+        byte type = in.readByte();
+
+        if (type == Protocol.ERROR) {
+            throw new IOException("The server sent an error: " + in.readUTF());
+        }
+        for (byte expected : types) {
+            if (type == expected) {
+                return type;
+            }
+        }
+
+        throw new IOException("The server sent an unexpected message of type " + type);
+    }
+
+    /**
+     * Open many sessions on a server at once, and play random moves in each until they have all
+     * played their turns, starting a new game whenever one ends
+     * @param args The port, the number of sessions, the level and the number of turns each
+     *             session plays, all optional
+     * @throws InterruptedException If interrupted while waiting for the sessions to finish
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_SESSIONS;
+        int level = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int turnsEach = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_TURNS;
+
+        AtomicLong turnsPlayed = new AtomicLong();
+        AtomicLong gamesPlayed = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < sessions; i++) {
+            long seed = i;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+
+                try (GameClient client = new GameClient(port)) {
+                    client.start(level, seed);
+                    for (int turn = 0; turn < turnsEach; turn++) {
+                        if (client.getState() != State.IN_PROGRESS) {
+                            gamesPlayed.incrementAndGet();
+                            client.start(level, random.nextLong());
+                        }
+                        if (client.move(MOVES[random.nextInt(MOVES.length)])) {
+                            turnsPlayed.incrementAndGet();
+                        }
+                    }
+                } catch (IOException ex) {
+                    LOGGER.log(WARNING, "A session failed", ex);
+                }
+            }, "client-" + i);
+
+            thread.start();
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%d sessions played %d turns and finished %d games in %.1f seconds, %.0f turns a second",
+                sessions, turnsPlayed.get(), gamesPlayed.get(), seconds, turnsPlayed.get() / seconds));
+    }
+}
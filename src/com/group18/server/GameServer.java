@@ -0,0 +1,194 @@
+package com.group18.server;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Hosts many games at once for clients on the same machine, such as a lab full of players. Each
+ * client that connects gets its own session, with its own level, user and enemies, played on its
+ * own thread. The server only listens on the loopback address.
+ *
+ * Run with the port and the most sessions to allow as optional arguments.
+ *
+ * @author agent
+ */
+public class GameServer implements Closeable {
+
+    /**
+     * The most sessions allowed at once if no other limit is given
+     */
+    public static final int DEFAULT_MAX_SESSIONS = 10000;
+
+    /**
+     * The size of each session thread's stack. Sessions don't recurse deeply, so a small stack
+     * keeps thousands of sessions cheap.
+     */
+    private static final long SESSION_STACK_SIZE = 256 * 1024;
+
+    /**
+     * The number of connections that can wait to be accepted
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("GameServer");
+
+    /**
+     * The socket clients connect to
+     */
+    private final ServerSocket serverSocket;
+
+    /**
+     * Runs each session on a thread of its own
+     */
+    private final ExecutorService sessions;
+
+    /**
+     * The sessions that can still be opened before the limit is reached
+     */
+    private final Semaphore openings;
+
+    /**
+     * The number of sessions being played
+     */
+    private final AtomicInteger activeSessions = new AtomicInteger();
+
+    /**
+     * Creates a new server, listening on the loopback address
+     * @param port The port to listen on, or 0 for any free port
+     * @param maxSessions The most sessions to allow at once
+     * @throws IOException If the port can't be listened on
+     */
+    public GameServer(int port, int maxSessions) throws IOException {
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.openings = new Semaphore(maxSessions);
+        this.sessions = Executors.newCachedThreadPool(new SessionThreadFactory());
+    }
+
+    /**
+     * Get the port the server is listening on
+     * @return The port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Get the number of sessions being played
+     * @return The number of sessions
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Accept clients and start a session for each, until the server is closed. A client that
+     * connects once the limit is reached is sent an error and disconnected.
+     */
+    public void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+
+                if (openings.tryAcquire()) {
+                    activeSessions.incrementAndGet();
+                    sessions.execute(new GameSession(socket, this::sessionEnded));
+                } else {
+                    refuse(socket);
+                }
+            } catch (SocketException ex) {
+                // The server socket has been closed, which ends the loop
+            } catch (IOException ex) {
+                LOGGER.log(WARNING, "A client could not be accepted", ex);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting clients. Sessions already being played carry on until their clients leave.
+     * @throws IOException If the server socket can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdown();
+    }
+
+    /**
+     * Free up the place of a session that has ended
+     */
+    private void sessionEnded() {
+        activeSessions.decrementAndGet();
+        openings.release();
+    }
+
+    /**
+     * Tell a client the server is full, and disconnect it
+     * @param socket The connection to the client
+     */
+    private static void refuse(Socket socket) {
+        try (Socket client = socket) {
+            DataOutputStream out = new DataOutputStream(client.getOutputStream());
+            out.writeByte(Protocol.ERROR);
+            out.writeUTF("The server is full");
+            out.flush();
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "A client could not be told the server is full", ex);
+        }
+    }
+
+    /**
+     * Start a server and serve clients until the process is stopped
+     * @param args The port, and the most sessions to allow, both optional
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        int maxSessions = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_SESSIONS;
+
+        try (GameServer server = new GameServer(port, maxSessions)) {
+            System.out.println(String.format("Serving up to %d sessions on port %d", maxSessions, server.getPort()));
+            server.serve();
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "The server could not be started on port " + port, ex);
+        }
+    }
+
+    /**
+     * Creates the daemon threads sessions are played on, each with a small stack
+     */
+    private static class SessionThreadFactory implements ThreadFactory {
+
+        /**
+         * The number of threads created so far, used to name them
+         */
+        private final AtomicInteger created = new AtomicInteger();
+
+        /**
+         * Create a thread for a session
+         * @param session The session to be played
+         * @return The thread
+         */
+        @Override
+        public Thread newThread(Runnable session) {
+            Thread thread = new Thread(null, session, "session-" + created.incrementAndGet(), SESSION_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.group18.server;
+
+import com.group18.core.LevelLoader;
+import com.group18.exception.InvalidMoveException;
+import com.group18.model.Direction;
+import com.group18.model.GameSimulation;
+import com.group18.model.Level;
+import com.group18.model.State;
+import com.group18.model.entity.User;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * A single client's connection to the game server. Each session owns the level, user and enemies
+ * of the game it's playing, so any number of sessions can play at once without sharing state. The
+ * session reads the client's messages and answers each one, on its own thread, until the client
+ * quits or disconnects.
+ *
+ * @author agent
+ */
+public class GameSession implements Runnable {
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("GameSession");
+
+    /**
+     * The size of the buffers in front of the socket's streams
+     */
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * The connection to the client
+     */
+    private final Socket socket;
+
+    /**
+     * Called once the session has ended
+     */
+    private final Runnable onEnd;
+
+    /**
+     * The game being played, or null before the first game
+     */
+    private GameSimulation simulation;
+
+    /**
+     * Encodes the game being played into frames
+     */
+    private DeltaEncoder encoder;
+
+    /**
+     * Creates a new session for a client that has just connected
+     * @param socket The connection to the client
+     * @param onEnd Called once the session has ended
+     */
+    public GameSession(Socket socket, Runnable onEnd) {
+        this.socket = socket;
+        this.onEnd = onEnd;
+    }
+
+    /**
+     * Answer the client's messages until it quits or disconnects
+     */
+    @Override
+    public void run() {
+        try (Socket client = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(client.getInputStream(), BUFFER_SIZE));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(client.getOutputStream(), BUFFER_SIZE))) {
+
+            boolean open = true;
+            while (open) {
+                byte type = in.readByte();
+
+                switch (type) {
+                    case Protocol.START:
+                        start(in.readInt(), in.readLong(), out);
+                        break;
+                    case Protocol.MOVE:
+                        move(in.readByte(), out);
+                        break;
+                    case Protocol.QUIT:
+                        open = false;
+                        break;
+                    default:
+                        writeError(out, "Unknown message type " + type);
+                        open = false;
+                        break;
+                }
+
+                out.flush();
+            }
+        } catch (EOFException ex) {
+            // The client disconnected without quitting, which ends the session all the same
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "A session's connection failed", ex);
+        } finally {
+            onEnd.run();
+        }
+    }
+
+    /**
+     * Begin a new game on a level, and send the client the whole board
+     * @param levelNumber The level to be played
+     * @param seed The seed for the enemies' randomness
+     * @param out The stream to the client
+     * @throws IOException If the board can't be sent
+     */
+    private void start(int levelNumber, long seed, DataOutputStream out) throws IOException {
+        User user = new User("session");
+        while (user.getHighestLevel() < levelNumber) {
+            user.incrementLevel();
+        }
+
+        Level level = levelNumber > 0 ? LevelLoader.loadLevel(levelNumber, user) : null;
+        if (level == null) {
+            writeError(out, "There is no level " + levelNumber);
+            return;
+        }
+
+        level.seedEnemies(seed);
+        simulation = new GameSimulation(level, user);
+        encoder = new DeltaEncoder(level, user, DeltaEncoder.DEFAULT_KEYFRAME_INTERVAL);
+        writeFrame(out, encoder.keyframe(simulation.getState(), simulation.getTurns()));
+    }
+
+    /**
+     * Play a turn, and send the client what changed
+     * @param directionOrdinal The ordinal of the direction the user moves in
+     * @param out The stream to the client
+     * @throws IOException If the turn can't be sent
+     */
+    private void move(byte directionOrdinal, DataOutputStream out) throws IOException {
+        if (simulation == null) {
+            writeError(out, "No game has been started");
+            return;
+        } else if (directionOrdinal < 0 || directionOrdinal >= Direction.IDLE.ordinal()) {
+            writeError(out, "Unknown direction " + directionOrdinal);
+            return;
+        }
+
+        State state;
+        try {
+            state = simulation.step(Direction.values()[directionOrdinal]);
+        } catch (InvalidMoveException ex) {
+            out.writeByte(Protocol.BLOCKED);
+            out.writeByte(directionOrdinal);
+            return;
+        }
+
+        writeFrame(out, encoder.nextFrame(state, simulation.getTurns()));
+    }
+
+    /**
+     * Send the client a frame
+     * @param out The stream to the client
+     * @param frame The frame
+     * @throws IOException If it can't be written
+     */
+    private static void writeFrame(DataOutputStream out, byte[] frame) throws IOException {
+        out.writeByte(Protocol.FRAME);
+        Varints.write(out, frame.length);
+        out.write(frame);
+    }
+
+    /**
+     * Tell the client a message couldn't be carried out
+     * @param out The stream to the client
+     * @param message The reason
+     * @throws IOException If it can't be written
+     */
+    private static void writeError(DataOutputStream out, String message) throws IOException {
+        out.writeByte(Protocol.ERROR);
+        out.writeUTF(message);
+    }
+}
@@ -0,0 +1,97 @@
+package com.group18.server;
+
+import com.group18.model.entity.DumbTargetingEnemy;
+import com.group18.model.entity.Enemy;
+import com.group18.model.entity.SmartTargetingEnemy;
+import com.group18.model.entity.StraightLineEnemy;
+import com.group18.model.entity.WallFollowingEnemy;
+
+/**
+ * The messages sent between the game server and its clients. Every message starts with a one byte
+ * type, followed by its fields as written by a DataOutputStream.
+ *
+ * The client sends START (level, seed) to begin a game, MOVE (direction) for each turn, and QUIT
+ * when it's finished. The server answers START, and each MOVE, with a FRAME: the length of the
+ * frame as a varint, then a frame from the game's DeltaEncoder. A game starts with a keyframe of
+ * the whole board, and each turn after is sent as a delta of what changed, with a keyframe every
+ * so often. A move the user can't make is answered with BLOCKED (direction) instead, and anything
+ * else that goes wrong with ERROR and a message.
+ *
+ * @author agent
+ */
+public class Protocol {
+
+    /**
+     * The port the server listens on if no other port is given
+     */
+    public static final int DEFAULT_PORT = 18018;
+
+    /**
+     * Sent by the client to begin a game on a level, with the level number and the enemies' seed
+     */
+    public static final byte START = 1;
+
+    /**
+     * Sent by the client to play a turn, with the ordinal of the direction the user moves in
+     */
+    public static final byte MOVE = 2;
+
+    /**
+     * Sent by the client to end its session
+     */
+    public static final byte QUIT = 3;
+
+    /**
+     * Sent by the server with a frame of the game's state, once a game has begun and after each turn
+     */
+    public static final byte FRAME = 1;
+
+    /**
+     * Sent by the server when the user couldn't move in the direction asked for
+     */
+    public static final byte BLOCKED = 2;
+
+    /**
+     * Sent by the server when a message couldn't be carried out, with the reason
+     */
+    public static final byte ERROR = 3;
+
+    /**
+     * The kind of a straight line enemy
+     */
+    public static final byte STRAIGHT_LINE = 1;
+
+    /**
+     * The kind of a wall following enemy
+     */
+    public static final byte WALL_FOLLOWING = 2;
+
+    /**
+     * The kind of a dumb targeting enemy
+     */
+    public static final byte DUMB_TARGETING = 3;
+
+    /**
+     * The kind of a smart targeting enemy
+     */
+    public static final byte SMART_TARGETING = 4;
+
+    /**
+     * Get the kind of an enemy, as it's sent to clients
+     * @param enemy The enemy
+     * @return The kind of enemy
+     */
+    public static byte kindOf(Enemy enemy) {
+        if (enemy instanceof StraightLineEnemy) {
+            return STRAIGHT_LINE;
+        } else if (enemy instanceof WallFollowingEnemy) {
+            return WALL_FOLLOWING;
+        } else if (enemy instanceof DumbTargetingEnemy) {
+            return DUMB_TARGETING;
+        } else if (enemy instanceof SmartTargetingEnemy) {
+            return SMART_TARGETING;
+        }
+
+        throw new IllegalArgumentException("Unknown kind of enemy: " + enemy.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,119 @@
+package com.group18.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes and reads numbers as varints, seven bits to a byte with the top bit set on every byte but
+ * the last, so small numbers take up a single byte. Signed numbers are zigzag encoded first, so
+ * small negative numbers are small too.
+ *
+ * @author agent
+ */
+class Varints {
+
+    /**
+     * Write a number which is never negative
+     * @param out The stream to write to
+     * @param value The number
+     */
+    static void write(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Write a number which may be negative
+     * @param out The stream to write to
+     * @param value The number
+     */
+    static void writeSigned(ByteArrayOutputStream out, int value) {
+        write(out, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Get the number of bytes a number which is never negative takes up as a varint
+     * @param value The number
+     * @return The number of bytes
+     */
+    static int size(int value) {
+        int bytes = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    /**
+     * Write a number which is never negative to a stream, such as the length of a frame
+     * @param out The stream to write to
+     * @param value The number
+     * @throws IOException If the number can't be written
+     */
+    static void write(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Read a number which is never negative from a stream, such as the length of a frame
+     * @param in The stream to read from
+     * @return The number
+     * @throws IOException If the number can't be read, or is longer than an int
+     */
+    static int read(DataInput in) throws IOException {
+        int value = 0;
+
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte next = in.readByte();
+            value |= (next & 0x7F) << shift;
+
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IOException("A varint is longer than an int");
+    }
+
+    /**
+     * Read a number which is never negative
+     * @param in The buffer to read from
+     * @return The number
+     * @throws IllegalArgumentException If the varint is longer than an int
+     */
+    static int read(ByteBuffer in) {
+        int value = 0;
+
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte next = in.get();
+            value |= (next & 0x7F) << shift;
+
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("A varint is longer than an int");
+    }
+
+    /**
+     * Read a number which may be negative
+     * @param in The buffer to read from
+     * @return The number
+     */
+    static int readSigned(ByteBuffer in) {
+        int value = read(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,129 @@
+package com.group18.solver;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Drops puzzle states which can't lead anywhere better than a state already seen. A state is
+ * dominated when another state on the same cell, reached in no more moves, could do anything it
+ * could, as decided by PuzzleMap.dominates. The filter keeps the states which no other state
+ * dominates, grouped by their cell, opened doors and element items, and a new state is compared
+ * only against those in its group. A state in another group could still dominate it, so a few
+ * dominated states are kept, but never the other way round. The keys and tokens each kept state
+ * holds are summarised in a single long, which rules out most comparisons at once.
+ *
+ * A state dominated after it was queued is marked rather than removed, so the solver skips it once
+ * its bucket is reached.
+ *
+ * @author agent
+ */
+final class DominanceFilter {
+
+    /**
+     * The board the states are on
+     */
+    private final PuzzleMap map;
+
+    /**
+     * The undominated states in each group, by the group's hash
+     */
+    private final Map<Long, IntList> kept = new HashMap<>();
+
+    /**
+     * The states which have been dominated since they were added
+     */
+    private final BitSet dominated = new BitSet();
+
+    /**
+     * The summary of each kept state as the one which might dominate, by its index
+     */
+    private long[] dominatingSummaries = new long[1024];
+
+    /**
+     * The summary of each kept state as the one which might be dominated, by its index
+     */
+    private long[] summaries = new long[1024];
+
+    /**
+     * Creates a new, empty filter
+     * @param map The board the states are on
+     */
+    DominanceFilter(PuzzleMap map) {
+        this.map = map;
+    }
+
+    /**
+     * Check if a state has been dominated since it was added
+     * @param index The index of the state
+     * @return Boolean value suggesting if the state should be skipped
+     */
+    boolean isDominated(int index) {
+        return dominated.get(index);
+    }
+
+    /**
+     * Check if a new state is dominated by a state already kept
+     * @param source The array holding the new state
+     * @param offset The index of the new state's first long
+     * @param depth The number of moves the new state was reached in
+     * @param seen The set of seen states
+     * @return Boolean value suggesting if the new state can be dropped
+     */
+    boolean isDominated(long[] source, int offset, int depth, StateSet seen) {
+        IntList states = kept.get(map.dominanceGroup(source, offset));
+        if (states == null) {
+            return false;
+        }
+
+        int words = map.getWords();
+        long summary = map.summarise(source, offset, false);
+        for (int i = 0; i < states.size(); i++) {
+            int index = states.get(i);
+            if (seen.getDepth(index) <= depth && PuzzleMap.mayDominate(dominatingSummaries[index], summary)
+                    && map.dominates(seen.getStates(), index * words, source, offset)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Keep a state which has just been added or reached in fewer moves, marking every kept state
+     * in its group which it dominates
+     * @param index The index of the state
+     * @param seen The set of seen states
+     */
+    void keep(int index, StateSet seen) {
+        int words = map.getWords();
+        long[] states = seen.getStates();
+        IntList group = kept.computeIfAbsent(map.dominanceGroup(states, index * words), hash -> new IntList());
+        int depth = seen.getDepth(index);
+        if (index >= summaries.length) {
+            summaries = Arrays.copyOf(summaries, Math.max(index + 1, summaries.length * 2));
+            dominatingSummaries = Arrays.copyOf(dominatingSummaries, summaries.length);
+        }
+        summaries[index] = map.summarise(states, index * words, false);
+        dominatingSummaries[index] = map.summarise(states, index * words, true);
+
+        int size = 0;
+        for (int i = 0; i < group.size(); i++) {
+            int other = group.get(i);
+            if (other == index) {
+                continue;
+            }
+            if (depth <= seen.getDepth(other) && PuzzleMap.mayDominate(dominatingSummaries[index], summaries[other])
+                    && map.dominates(states, index * words, states, other * words)) {
+                dominated.set(other);
+            } else {
+                group.set(size++, other);
+            }
+        }
+        group.truncate(size);
+
+        group.add(index);
+        dominated.clear(index);
+    }
+}
@@ -0,0 +1,115 @@
+package com.group18.solver;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork-join task finding every state reached in one move from a range of chunks of the frontier.
+ * Each chunk writes to its own buffer, so the states can then be added to the set of seen states
+ * in the same order no matter how the work was split.
+ *
+ * @author agent
+ */
+class ExpansionTask extends RecursiveAction {
+
+    /**
+     * The number of frontier states in each chunk
+     */
+    static final int CHUNK_SIZE = 64;
+
+    /**
+     * The board the states are on
+     */
+    private final PuzzleMap map;
+
+    /**
+     * The array holding every seen state
+     */
+    private final long[] states;
+
+    /**
+     * The index of each state in the frontier
+     */
+    private final int[] frontier;
+
+    /**
+     * The number of states in the frontier
+     */
+    private final int frontierSize;
+
+    /**
+     * The buffer of reached states for each chunk
+     */
+    private final SuccessorBuffer[] buffers;
+
+    /**
+     * The first chunk this task expands
+     */
+    private final int start;
+
+    /**
+     * The chunk after the last chunk this task expands
+     */
+    private final int end;
+
+    /**
+     * Creates a new task expanding a range of chunks of the frontier
+     * @param map The board the states are on
+     * @param states The array holding every seen state
+     * @param frontier The index of each state in the frontier
+     * @param frontierSize The number of states in the frontier
+     * @param buffers The array each chunk's buffer is stored in
+     * @param start The first chunk to expand
+     * @param end The chunk after the last chunk to expand
+     */
+    ExpansionTask(PuzzleMap map, long[] states, int[] frontier, int frontierSize,
+                  SuccessorBuffer[] buffers, int start, int end) {
+        this.map = map;
+        this.states = states;
+        this.frontier = frontier;
+        this.frontierSize = frontierSize;
+        this.buffers = buffers;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Expand each chunk in this task's range, splitting the range if it has more than one chunk
+     */
+    @Override
+    protected void compute() {
+        if (end - start <= 1) {
+            for (int chunk = start; chunk < end; chunk++) {
+                buffers[chunk] = expand(chunk);
+            }
+            return;
+        }
+
+        int middle = (start + end) >>> 1;
+        invokeAll(new ExpansionTask(map, states, frontier, frontierSize, buffers, start, middle),
+                  new ExpansionTask(map, states, frontier, frontierSize, buffers, middle, end));
+    }
+
+    /**
+     * Find every state reached in one move from a chunk of the frontier
+     * @param chunk The chunk
+     * @return The buffer of reached states
+     */
+    private SuccessorBuffer expand(int chunk) {
+        int words = map.getWords();
+        int first = chunk * CHUNK_SIZE;
+        int last = Math.min(first + CHUNK_SIZE, frontierSize);
+
+        SuccessorBuffer buffer = new SuccessorBuffer(words, (last - first) * 2);
+        long[] next = new long[words];
+        for (int i = first; i < last; i++) {
+            int index = frontier[i];
+            for (int direction = 0; direction < 4; direction++) {
+                if (map.move(states, index * words, direction, next) != PuzzleMap.BLOCKED) {
+                    buffer.add(next, index, (byte) direction);
+                }
+            }
+        }
+
+        return buffer;
+    }
+}
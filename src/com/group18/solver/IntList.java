@@ -0,0 +1,89 @@
+package com.group18.solver;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, used to hold the states waiting in each bucket of the solver's queue,
+ * and the states kept on each cell by the dominance filter
+ *
+ * @author agent
+ */
+final class IntList {
+
+    /**
+     * The values in the list
+     */
+    private int[] values = new int[16];
+
+    /**
+     * The number of values in the list
+     */
+    private int size;
+
+    /**
+     * Add a value to the end of the list
+     * @param value The value
+     */
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Get the number of values in the list
+     * @return The number of values
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get a value in the list
+     * @param index The index of the value
+     * @return The value
+     */
+    int get(int index) {
+        return values[index];
+    }
+
+    /**
+     * Replace a value in the list
+     * @param index The index of the value
+     * @param value The new value
+     */
+    void set(int index, int value) {
+        values[index] = value;
+    }
+
+    /**
+     * Remove every value after the first few
+     * @param size The number of values kept
+     */
+    void truncate(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Remove the values at the end of the list
+     * @param count The most values to remove
+     * @return An array holding the removed values, of at least the number removed
+     */
+    int[] removeLast(int count) {
+        int removed = Math.min(count, size);
+        size -= removed;
+        return Arrays.copyOfRange(values, size, size + removed);
+    }
+
+    /**
+     * Remove every value from the list
+     * @return An array holding the removed values, of at least the list's old size
+     */
+    int[] drain() {
+        int[] drained = values;
+        values = new int[16];
+        size = 0;
+        return drained;
+    }
+}
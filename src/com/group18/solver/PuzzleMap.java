@@ -0,0 +1,983 @@
+package com.group18.solver;
+
+import com.group18.model.Colour;
+import com.group18.model.Level;
+import com.group18.model.cell.*;
+import com.group18.model.item.Collectable;
+import com.group18.model.item.ElementItem;
+import com.group18.model.item.Key;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * A compact copy of a level's board, holding only what affects whether the user can reach the goal.
+ * It also decides how each puzzle state is packed into an array of longs: the user's position, the
+ * number of keys of each colour held, the element items held, the number of tokens held, a bit for
+ * each colour door that has been opened and a bit for each key or token that has been collected.
+ *
+ * Anything that can't change what the user can do later is left out of the state, so states which
+ * only differ in it are seen as one. Token doors keep no bit, as tokens are never spent. Element
+ * items keep no bit, as picking one up twice changes nothing. Doors and items the user can never
+ * reach on the way to the goal, and items no door or cell needs, keep no bit at all. Once the user
+ * holds as many keys of a colour as there are closed doors of that colour, or as many tokens as any
+ * door needs, any more are never used, so the bits of the keys or tokens collected are cleared.
+ *
+ * @author agent
+ */
+final class PuzzleMap {
+
+    /**
+     * The largest count held in each lane of a state's summary
+     */
+    private static final long LANE_MAX = (1 << 11) - 1;
+
+    /**
+     * The top bit of each of the five 12 bit lanes of a summary, which is never set in a count
+     */
+    private static final long LANE_GUARDS = 0x800800800800800L;
+
+    /**
+     * The result of a move that could not be made, or that would kill the user
+     */
+    static final int BLOCKED = 0;
+
+    /**
+     * The result of a move that was made
+     */
+    static final int MOVED = 1;
+
+    /**
+     * The result of a move that reached the goal
+     */
+    static final int REACHED_GOAL = 2;
+
+    /**
+     * The distance to the goal of a cell from which the goal can never be reached
+     */
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /**
+     * The number of colours a key can be, not counting tokens
+     */
+    private static final int KEY_COLOURS = 4;
+
+    /**
+     * The item kind of a token. Key kinds are their colour, and element item kinds follow tokens.
+     */
+    private static final byte TOKEN_KIND = KEY_COLOURS;
+
+    /**
+     * The tile of a cell the user can stand on, such as a ground cell
+     */
+    private static final byte FLOOR = 0;
+
+    /**
+     * The tile of a wall, which can not be walked on
+     */
+    private static final byte WALL = 1;
+
+    /**
+     * The tile of a goal cell
+     */
+    private static final byte GOAL = 2;
+
+    /**
+     * The tile of a teleporter cell
+     */
+    private static final byte TELEPORTER = 3;
+
+    /**
+     * The tile of an element cell, whose parameter is the element item it needs
+     */
+    private static final byte ELEMENT = 4;
+
+    /**
+     * The tile of a colour door, whose parameter is its colour
+     */
+    private static final byte COLOUR_DOOR = 5;
+
+    /**
+     * The tile of a token door, whose parameter is the number of tokens it needs
+     */
+    private static final byte TOKEN_DOOR = 6;
+
+    /**
+     * The change in X of each direction, in the order of the Direction enum
+     */
+    private static final int[] DELTA_X = {-1, 1, 0, 0};
+
+    /**
+     * The change in Y of each direction, in the order of the Direction enum
+     */
+    private static final int[] DELTA_Y = {0, 0, -1, 1};
+
+    /**
+     * The width of the board
+     */
+    private final int width;
+
+    /**
+     * The height of the board
+     */
+    private final int height;
+
+    /**
+     * The tile of each cell, indexed by y * width + x
+     */
+    private final byte[] tiles;
+
+    /**
+     * The parameter of each cell's tile
+     */
+    private final byte[] parameters;
+
+    /**
+     * The id of the colour door on each cell, or -1 if the cell has no colour door that is kept
+     * in the state. The doors of each colour have ids one after another.
+     */
+    private final int[] doorIds;
+
+    /**
+     * The kind of the item on each cell, or -1 if the cell has no item worth picking up
+     */
+    private final byte[] itemKinds;
+
+    /**
+     * The id of the key or token on each cell, or -1 if the cell has no item whose collection is
+     * kept in the state. The items of each kind have ids one after another.
+     */
+    private final int[] itemIds;
+
+    /**
+     * The cell the partner of each teleporter is on, or -1 if the cell has no partner
+     */
+    private final int[] partners;
+
+    /**
+     * The cell the user starts on
+     */
+    private final int start;
+
+    /**
+     * The most keys of each colour that could ever be used, which is the number of its doors
+     */
+    private final int[] keyCaps = new int[KEY_COLOURS];
+
+    /**
+     * The id of the first door of each colour
+     */
+    private final int[] firstDoors = new int[KEY_COLOURS];
+
+    /**
+     * The id of the first key of each colour
+     */
+    private final int[] firstKeys = new int[KEY_COLOURS];
+
+    /**
+     * The number of keys of each colour kept in the state
+     */
+    private final int[] keyCounts = new int[KEY_COLOURS];
+
+    /**
+     * The id of the first token
+     */
+    private int firstToken;
+
+    /**
+     * The number of tokens kept in the state
+     */
+    private int tokenCount;
+
+    /**
+     * The relaxed number of moves from each cell to the goal
+     */
+    private final int[] goalDistances;
+
+    /**
+     * The number of keys of each colour that can be picked up on the way to the goal
+     */
+    private final int[] keysFound = new int[KEY_COLOURS];
+
+    /**
+     * The number of tokens that can be picked up on the way to the goal
+     */
+    private int tokensFound = Integer.MAX_VALUE;
+
+    /**
+     * Whether each element item can be picked up on the way to the goal
+     */
+    private final boolean[] elementsFound = new boolean[ElementItem.values().length];
+
+    /**
+     * The most tokens that could ever be needed
+     */
+    private int tokenCap;
+
+    /**
+     * The next free bit while the state layout is being decided
+     */
+    private int nextBit;
+
+    /**
+     * The position of the user's cell in a state
+     */
+    private final int positionOffset;
+
+    /**
+     * The number of bits used by the user's cell
+     */
+    private final int positionBits;
+
+    /**
+     * The position of each key count in a state
+     */
+    private final int[] keyOffsets = new int[KEY_COLOURS];
+
+    /**
+     * The number of bits used by each key count
+     */
+    private final int[] keyBits = new int[KEY_COLOURS];
+
+    /**
+     * The position of the element items held in a state, one bit per element item
+     */
+    private final int elementOffset;
+
+    /**
+     * The position of the token count in a state
+     */
+    private final int tokenOffset;
+
+    /**
+     * The number of bits used by the token count
+     */
+    private final int tokenBits;
+
+    /**
+     * The position of the opened door bits in a state
+     */
+    private final int doorOffset;
+
+    /**
+     * The position of the collected item bits in a state
+     */
+    private final int itemOffset;
+
+    /**
+     * The number of longs each state is packed into
+     */
+    private final int words;
+
+    /**
+     * Creates a compact copy of a level's board
+     * @param level The level
+     * @param start The position the user starts at
+     */
+    PuzzleMap(Level level, Point start) {
+        Cell[][] board = level.getBoard();
+        width = level.getBoardWidth();
+        height = level.getBoardHeight();
+        this.start = (int) start.getY() * width + (int) start.getX();
+
+        int cells = width * height;
+        tiles = new byte[cells];
+        parameters = new byte[cells];
+        partners = new int[cells];
+        itemKinds = new byte[cells];
+        Arrays.fill(partners, -1);
+        Arrays.fill(itemKinds, (byte) -1);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int cell = y * width + x;
+                Cell boardCell = board[y][x];
+
+                if (boardCell instanceof ColourDoor) {
+                    tiles[cell] = COLOUR_DOOR;
+                    parameters[cell] = (byte) ((ColourDoor) boardCell).getColour().ordinal();
+                } else if (boardCell instanceof TokenDoor) {
+                    tiles[cell] = TOKEN_DOOR;
+                    parameters[cell] = (byte) ((TokenDoor) boardCell).getTokens();
+                } else if (boardCell instanceof Wall) {
+                    tiles[cell] = WALL;
+                } else if (boardCell instanceof Teleporter) {
+                    tiles[cell] = TELEPORTER;
+                    partners[cell] = level.getTeleporters().getPartner(cell);
+                } else if (boardCell instanceof Element) {
+                    tiles[cell] = ELEMENT;
+                    parameters[cell] = (byte) ((Element) boardCell).getElementType().getElementItem().ordinal();
+                } else if (boardCell instanceof Goal) {
+                    tiles[cell] = GOAL;
+                } else if (boardCell instanceof Ground && ((Ground) boardCell).hasItem()) {
+                    itemKinds[cell] = kindOf(((Ground) boardCell).getItem());
+                }
+            }
+        }
+
+        // Only cells the user can reach on the way to the goal matter, even with every door open.
+        // A door or element cell can't be passed if nothing on those cells lets the user through,
+        // which can rule out more cells, so this is repeated until nothing more is ruled out.
+        Arrays.fill(keysFound, Integer.MAX_VALUE);
+        Arrays.fill(elementsFound, true);
+        int[] distances;
+        boolean[] useful;
+        do {
+            distances = findGoalDistances();
+            useful = findReachable();
+            for (int cell = 0; cell < cells; cell++) {
+                useful[cell] &= distances[cell] != UNREACHABLE;
+            }
+        } while (findItems(useful));
+        goalDistances = distances;
+
+        boolean[] elementsNeeded = new boolean[ElementItem.values().length];
+        for (int cell = 0; cell < cells; cell++) {
+            if (!useful[cell]) {
+                continue;
+            }
+            if (tiles[cell] == COLOUR_DOOR) {
+                keyCaps[parameters[cell]]++;
+            } else if (tiles[cell] == TOKEN_DOOR) {
+                tokenCap = Math.max(tokenCap, parameters[cell]);
+            } else if (tiles[cell] == ELEMENT) {
+                elementsNeeded[parameters[cell]] = true;
+            }
+        }
+
+        doorIds = new int[cells];
+        itemIds = new int[cells];
+        Arrays.fill(doorIds, -1);
+        Arrays.fill(itemIds, -1);
+
+        int doors = 0;
+        int items = 0;
+        for (int colour = 0; colour < KEY_COLOURS; colour++) {
+            firstDoors[colour] = doors;
+            firstKeys[colour] = items;
+            for (int cell = 0; cell < cells; cell++) {
+                if (useful[cell] && tiles[cell] == COLOUR_DOOR && parameters[cell] == colour) {
+                    doorIds[cell] = doors++;
+                }
+                if (useful[cell] && itemKinds[cell] == colour && keyCaps[colour] > 0) {
+                    itemIds[cell] = items++;
+                }
+            }
+            keyCounts[colour] = items - firstKeys[colour];
+        }
+        firstToken = items;
+        for (int cell = 0; cell < cells; cell++) {
+            if (useful[cell] && itemKinds[cell] == TOKEN_KIND && tokenCap > 0) {
+                itemIds[cell] = items++;
+            }
+        }
+        tokenCount = items - firstToken;
+
+        // Items that can't be reached, or that nothing needs, are left on the board untouched
+        for (int cell = 0; cell < cells; cell++) {
+            int kind = itemKinds[cell];
+            boolean needed = kind > TOKEN_KIND ? elementsNeeded[kind - TOKEN_KIND - 1] : itemIds[cell] >= 0;
+            if (kind >= 0 && !(useful[cell] && needed)) {
+                itemKinds[cell] = -1;
+            }
+        }
+
+        positionBits = bitsFor(cells - 1);
+        positionOffset = allocate(positionBits);
+        for (int colour = 0; colour < KEY_COLOURS; colour++) {
+            keyBits[colour] = bitsFor(keyCaps[colour]);
+            keyOffsets[colour] = allocate(keyBits[colour]);
+        }
+        elementOffset = allocate(ElementItem.values().length);
+        tokenBits = bitsFor(tokenCap);
+        tokenOffset = allocate(tokenBits);
+        doorOffset = nextBit;
+        nextBit += doors;
+        itemOffset = nextBit;
+        nextBit += items;
+        words = Math.max(1, (nextBit + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * Get the number of longs each state is packed into
+     * @return The number of longs in a state
+     */
+    int getWords() {
+        return words;
+    }
+
+    /**
+     * Get the state the level starts in
+     * @return The packed starting state
+     */
+    long[] initialState() {
+        long[] state = new long[words];
+        write(state, positionOffset, positionBits, start);
+        return state;
+    }
+
+    /**
+     * Check if the user is standing on the goal in a state
+     * @param state The packed state
+     * @param offset The index of the state's first long
+     * @return Boolean value suggesting if the user is on the goal
+     */
+    boolean isGoal(long[] state, int offset) {
+        return tiles[(int) read(state, offset, positionOffset, positionBits)] == GOAL;
+    }
+
+    /**
+     * Get the fewest moves from each cell to the goal with every door open and every element cell
+     * safe to walk on, as long as the items needed to pass them can be found on the way. As this can
+     * never be more than the real number of moves needed, it is used by the solver to estimate how
+     * far each state is from the goal.
+     * @return The relaxed number of moves from each cell to the goal, or UNREACHABLE
+     */
+    int[] goalDistances() {
+        return goalDistances;
+    }
+
+    /**
+     * Find the relaxed number of moves from each cell to the goal, searching back from the goal
+     * @return The relaxed number of moves from each cell to the goal, or UNREACHABLE
+     */
+    private int[] findGoalDistances() {
+        int cells = width * height;
+
+        // Count the relaxed moves into each cell, then list the cells each move comes from
+        int[] firstSource = new int[cells + 1];
+        for (int cell = 0; cell < cells; cell++) {
+            for (int direction = 0; direction < 4; direction++) {
+                int target = relaxedTarget(cell, direction);
+                if (target >= 0) {
+                    firstSource[target + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            firstSource[cell + 1] += firstSource[cell];
+        }
+
+        int[] sources = new int[firstSource[cells]];
+        int[] filled = Arrays.copyOf(firstSource, cells);
+        for (int cell = 0; cell < cells; cell++) {
+            for (int direction = 0; direction < 4; direction++) {
+                int target = relaxedTarget(cell, direction);
+                if (target >= 0) {
+                    sources[filled[target]++] = cell;
+                }
+            }
+        }
+
+        int[] distances = new int[cells];
+        Arrays.fill(distances, UNREACHABLE);
+        int[] queue = new int[cells];
+        int head = 0;
+        int tail = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (tiles[cell] == GOAL) {
+                distances[cell] = 0;
+                queue[tail++] = cell;
+            }
+        }
+
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int i = firstSource[cell]; i < firstSource[cell + 1]; i++) {
+                int source = sources[i];
+                if (distances[source] == UNREACHABLE) {
+                    distances[source] = distances[cell] + 1;
+                    queue[tail++] = source;
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * Count the items that can be picked up on a set of cells, for the relaxed board
+     * @param cells Whether each cell's item can be picked up
+     * @return Boolean value suggesting if fewer items were found than before
+     */
+    private boolean findItems(boolean[] cells) {
+        int[] keys = new int[KEY_COLOURS];
+        int tokens = 0;
+        boolean[] elements = new boolean[ElementItem.values().length];
+        for (int cell = 0; cell < cells.length; cell++) {
+            int kind = itemKinds[cell];
+            if (!cells[cell] || kind < 0) {
+                continue;
+            }
+            if (kind < KEY_COLOURS) {
+                keys[kind]++;
+            } else if (kind == TOKEN_KIND) {
+                tokens++;
+            } else {
+                elements[kind - TOKEN_KIND - 1] = true;
+            }
+        }
+
+        boolean fewer = tokens < tokensFound;
+        tokensFound = tokens;
+        for (int colour = 0; colour < KEY_COLOURS; colour++) {
+            fewer |= keys[colour] < keysFound[colour];
+            keysFound[colour] = keys[colour];
+        }
+        for (int element = 0; element < elements.length; element++) {
+            fewer |= elementsFound[element] && !elements[element];
+            elementsFound[element] = elements[element];
+        }
+
+        return fewer;
+    }
+
+    /**
+     * Find every cell the user could reach from the start with every door open and every element
+     * cell safe to walk on
+     * @return Whether each cell can be reached
+     */
+    private boolean[] findReachable() {
+        int cells = width * height;
+        boolean[] reached = new boolean[cells];
+        int[] queue = new int[cells];
+        int head = 0;
+        int tail = 0;
+        reached[start] = true;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int direction = 0; direction < 4; direction++) {
+                int target = relaxedTarget(cell, direction);
+                if (target >= 0 && !reached[target]) {
+                    reached[target] = true;
+                    queue[tail++] = target;
+                }
+            }
+        }
+
+        return reached;
+    }
+
+    /**
+     * Get the cell the user is on in a state
+     * @param states The array holding the state
+     * @param offset The index of the state's first long
+     * @return The user's cell
+     */
+    int positionOf(long[] states, int offset) {
+        return (int) read(states, offset, positionOffset, positionBits);
+    }
+
+    /**
+     * Hash the cell, opened doors and element items of a state, which states that dominate each
+     * other almost always share. Opening a door spends a key, so a state which has opened more doors
+     * rarely holds enough keys to dominate another.
+     * @param states The array holding the state
+     * @param offset The index of the state's first long
+     * @return The hash
+     */
+    long dominanceGroup(long[] states, int offset) {
+        long hash = read(states, offset, positionOffset, positionBits) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ read(states, offset, elementOffset, ElementItem.values().length)) * 0xBF58476D1CE4E5B9L;
+
+        int doors = firstDoors[KEY_COLOURS - 1] + keyCaps[KEY_COLOURS - 1];
+        for (int bit = doorOffset, end = doorOffset + doors; bit < end; bit += Long.SIZE - bit % Long.SIZE) {
+            int run = Math.min(Long.SIZE - bit % Long.SIZE, end - bit);
+            hash = (hash ^ (states[offset + bit / Long.SIZE] >>> (bit % Long.SIZE) & mask(run))) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Check if one state is at least as good as another for reaching the goal, so that anything
+     * the user could do from the other could be done from this one too. Both must be on the same
+     * cell. The first state must have opened every door the other has and hold every element item
+     * it holds. For each colour of key, it must either hold a key for every closed door, or hold
+     * as many keys as the other would once it had picked up every key the first already has. The
+     * same goes for tokens.
+     * @param states The array holding the first state
+     * @param offset The index of the first state's first long
+     * @param others The array holding the other state
+     * @param otherOffset The index of the other state's first long
+     * @return Boolean value suggesting if the first state dominates the other
+     */
+    boolean dominates(long[] states, int offset, long[] others, int otherOffset) {
+        long tokens = read(states, offset, tokenOffset, tokenBits);
+        int doors = firstDoors[KEY_COLOURS - 1] + keyCaps[KEY_COLOURS - 1];
+        if (countOnlyIn(others, otherOffset, states, offset, doorOffset, doors) > 0
+                || countOnlyIn(others, otherOffset, states, offset, elementOffset, ElementItem.values().length) > 0) {
+            return false;
+        }
+
+        for (int colour = 0; colour < KEY_COLOURS; colour++) {
+            long keys = read(states, offset, keyOffsets[colour], keyBits[colour]);
+            long needed = read(others, otherOffset, keyOffsets[colour], keyBits[colour])
+                    + countOnlyIn(states, offset, others, otherOffset, itemOffset + firstKeys[colour], keyCounts[colour]);
+            if (keys < needed && keys < closedDoors(states, offset, colour)) {
+                return false;
+            }
+        }
+
+        long neededTokens = read(others, otherOffset, tokenOffset, tokenBits)
+                + countOnlyIn(states, offset, others, otherOffset, itemOffset + firstToken, tokenCount);
+        return tokens >= tokenCap || tokens >= neededTokens;
+    }
+
+    /**
+     * Pack the keys and tokens a state holds into a summary, one 12 bit lane each, so the summaries
+     * of two states can rule out one dominating the other far more quickly than dominates. Counts
+     * above LANE_MAX are held as LANE_MAX.
+     * @param states The array holding the state
+     * @param offset The index of the state's first long
+     * @param dominating True to summarise the state as the one which might dominate, counting keys
+     *                   and tokens it will never run short of as LANE_MAX
+     * @return The summary
+     */
+    long summarise(long[] states, int offset, boolean dominating) {
+        long tokens = read(states, offset, tokenOffset, tokenBits);
+        long summary = dominating && tokens >= tokenCap ? LANE_MAX : Math.min(tokens, LANE_MAX);
+
+        for (int colour = 0; colour < KEY_COLOURS; colour++) {
+            long keys = read(states, offset, keyOffsets[colour], keyBits[colour]);
+            boolean enough = dominating && keys >= closedDoors(states, offset, colour);
+            summary = summary << 12 | (enough ? LANE_MAX : Math.min(keys, LANE_MAX));
+        }
+
+        return summary;
+    }
+
+    /**
+     * Check if a state could dominate another, from their summaries. It can only if it holds at
+     * least as many of each colour of key, and at least as many tokens, unless it holds enough.
+     * @param dominating The summary of the state which might dominate
+     * @param other The summary of the other state
+     * @return False if the state can't dominate the other
+     */
+    static boolean mayDominate(long dominating, long other) {
+        return (((dominating | LANE_GUARDS) - other) & LANE_GUARDS) == LANE_GUARDS;
+    }
+
+    /**
+     * Find where a move would take the user if every door was open and every element cell was safe,
+     * unless the items needed to pass them can't be found on the way to the goal
+     * @param cell The cell the user moves from
+     * @param direction The ordinal of the direction to move in
+     * @return The cell the user ends up on, or -1 if the move is blocked
+     */
+    private int relaxedTarget(int cell, int direction) {
+        int x = cell % width + DELTA_X[direction];
+        int y = cell / width + DELTA_Y[direction];
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return -1;
+        }
+
+        int target = y * width + x;
+        switch (tiles[target]) {
+            case WALL:
+                return -1;
+            case COLOUR_DOOR:
+                return keysFound[parameters[target]] > 0 ? target : -1;
+            case TOKEN_DOOR:
+                return tokensFound >= parameters[target] ? target : -1;
+            case TELEPORTER:
+                return partners[target] < 0 ? target : partners[target];
+            case ELEMENT:
+                if (!elementsFound[parameters[target]]) {
+                    return -1;
+                }
+                return parameters[target] == ElementItem.ICE_SKATES.ordinal() ? slide(target, direction) : target;
+            default:
+                return target;
+        }
+    }
+
+    /**
+     * Move the user in a direction, following the same rules as Level.movePlayer: doors are opened
+     * with a key or enough tokens, teleporters move the user to their partner, element cells kill a
+     * user without the matching item, the user slides across ice and items are picked up.
+     * @param states The array holding the state to move from
+     * @param offset The index of the state's first long
+     * @param direction The ordinal of the direction to move in
+     * @param next The array the state after the move is written to, at index 0
+     * @return BLOCKED, MOVED or REACHED_GOAL
+     */
+    int move(long[] states, int offset, int direction, long[] next) {
+        int position = (int) read(states, offset, positionOffset, positionBits);
+        int x = position % width + DELTA_X[direction];
+        int y = position / width + DELTA_Y[direction];
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return BLOCKED;
+        }
+
+        System.arraycopy(states, offset, next, 0, words);
+        int target = y * width + x;
+
+        switch (tiles[target]) {
+            case WALL:
+                return BLOCKED;
+            case COLOUR_DOOR:
+                // A door left out of the state is never on the way to the goal
+                if (doorIds[target] < 0) {
+                    return BLOCKED;
+                }
+                if (!readBit(next, doorOffset + doorIds[target])) {
+                    int colour = parameters[target];
+                    long keys = read(next, 0, keyOffsets[colour], keyBits[colour]);
+                    if (keys == 0) {
+                        return BLOCKED;
+                    }
+                    write(next, keyOffsets[colour], keyBits[colour], keys - 1);
+                    setBit(next, doorOffset + doorIds[target]);
+                    forgetSpareKeys(next, colour, keys - 1);
+                }
+                break;
+            case TOKEN_DOOR:
+                // Tokens are never spent, so once a token door can be opened it always can be
+                if (read(next, 0, tokenOffset, tokenBits) < parameters[target]) {
+                    return BLOCKED;
+                }
+                break;
+            case TELEPORTER:
+                if (partners[target] >= 0) {
+                    target = partners[target];
+                }
+                break;
+            case ELEMENT:
+                if (!readBit(next, elementOffset + parameters[target])) {
+                    return BLOCKED;
+                }
+                if (parameters[target] == ElementItem.ICE_SKATES.ordinal()) {
+                    target = slide(target, direction);
+                }
+                break;
+            case GOAL:
+                write(next, positionOffset, positionBits, target);
+                return REACHED_GOAL;
+            default:
+                pickUp(next, target);
+                break;
+        }
+
+        write(next, positionOffset, positionBits, target);
+        return MOVED;
+    }
+
+    /**
+     * Find the cell the user stops on after sliding across ice
+     * @param cell The ice cell the user slides from
+     * @param direction The ordinal of the direction the user slides in
+     * @return The last ice cell the user slides on to
+     */
+    private int slide(int cell, int direction) {
+        while (true) {
+            int x = cell % width + DELTA_X[direction];
+            int y = cell / width + DELTA_Y[direction];
+            if (x < 0 || y < 0 || x >= width || y >= height) {
+                return cell;
+            }
+
+            int next = y * width + x;
+            if (tiles[next] != ELEMENT || parameters[next] != ElementItem.ICE_SKATES.ordinal()) {
+                return cell;
+            }
+            cell = next;
+        }
+    }
+
+    /**
+     * Pick up the item on a cell, if it has not already been collected
+     * @param state The packed state
+     * @param cell The cell
+     */
+    private void pickUp(long[] state, int cell) {
+        int kind = itemKinds[cell];
+        if (kind < 0) {
+            return;
+        }
+        if (kind > TOKEN_KIND) {
+            setBit(state, elementOffset + kind - TOKEN_KIND - 1);
+            return;
+        }
+
+        int item = itemIds[cell];
+        if (readBit(state, itemOffset + item)) {
+            return;
+        }
+
+        if (kind < KEY_COLOURS) {
+            long keys = read(state, 0, keyOffsets[kind], keyBits[kind]);
+            if (keys < closedDoors(state, 0, kind)) {
+                setBit(state, itemOffset + item);
+                write(state, keyOffsets[kind], keyBits[kind], keys + 1);
+                forgetSpareKeys(state, kind, keys + 1);
+            }
+        } else {
+            long tokens = read(state, 0, tokenOffset, tokenBits);
+            if (tokens < tokenCap) {
+                setBit(state, itemOffset + item);
+                write(state, tokenOffset, tokenBits, tokens + 1);
+                if (tokens + 1 == tokenCap) {
+                    clearBits(state, itemOffset + firstToken, tokenCount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clear the bits of the keys of a colour collected, once the user holds a key for every closed
+     * door of that colour. Any more keys would never be used, so which were collected no longer
+     * matters, and picking them up changes nothing.
+     * @param state The packed state
+     * @param colour The colour of the keys
+     * @param keys The number of keys of that colour held
+     */
+    private void forgetSpareKeys(long[] state, int colour, long keys) {
+        if (keys == closedDoors(state, 0, colour)) {
+            clearBits(state, itemOffset + firstKeys[colour], keyCounts[colour]);
+        }
+    }
+
+    /**
+     * Count the doors of a colour that have not been opened
+     * @param states The array holding the state
+     * @param offset The index of the state's first long
+     * @param colour The colour of the doors
+     * @return The number of closed doors
+     */
+    private int closedDoors(long[] states, int offset, int colour) {
+        return keyCaps[colour] - countOnlyIn(states, offset, null, 0, doorOffset + firstDoors[colour], keyCaps[colour]);
+    }
+
+    /**
+     * Reserve some bits of the state, never letting a field cross from one long into the next
+     * @param bits The number of bits needed
+     * @return The position of the first bit
+     */
+    private int allocate(int bits) {
+        if ((nextBit % Long.SIZE) + bits > Long.SIZE) {
+            nextBit += Long.SIZE - nextBit % Long.SIZE;
+        }
+
+        int offset = nextBit;
+        nextBit += bits;
+        return offset;
+    }
+
+    /**
+     * Get the kind of an item
+     * @param item The item
+     * @return The colour of a key, TOKEN_KIND for a token, or a kind after TOKEN_KIND for an element item
+     */
+    private static byte kindOf(Collectable item) {
+        if (item == Key.TOKEN_KEY) {
+            return TOKEN_KIND;
+        } else if (item instanceof Key) {
+            return (byte) ((Key) item).getColour().ordinal();
+        }
+
+        return (byte) (TOKEN_KIND + 1 + ((ElementItem) item).ordinal());
+    }
+
+    /**
+     * Get the number of bits needed to hold a value
+     * @param max The largest value that will be held
+     * @return The number of bits
+     */
+    private static int bitsFor(int max) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(max);
+    }
+
+    /**
+     * Read a field of a state
+     * @param states The array holding the state
+     * @param offset The index of the state's first long
+     * @param bit The position of the field
+     * @param bits The number of bits in the field
+     * @return The value of the field
+     */
+    private static long read(long[] states, int offset, int bit, int bits) {
+        return (states[offset + bit / Long.SIZE] >>> (bit % Long.SIZE)) & ((1L << bits) - 1);
+    }
+
+    /**
+     * Write a field of a state
+     * @param state The state, starting at index 0
+     * @param bit The position of the field
+     * @param bits The number of bits in the field
+     * @param value The new value of the field
+     */
+    private static void write(long[] state, int bit, int bits, long value) {
+        long mask = ((1L << bits) - 1) << (bit % Long.SIZE);
+        int word = bit / Long.SIZE;
+        state[word] = (state[word] & ~mask) | ((value << (bit % Long.SIZE)) & mask);
+    }
+
+    /**
+     * Read a single bit of a state
+     * @param state The state, starting at index 0
+     * @param bit The position of the bit
+     * @return Boolean value suggesting if the bit is set
+     */
+    private static boolean readBit(long[] state, int bit) {
+        return (state[bit / Long.SIZE] & (1L << (bit % Long.SIZE))) != 0;
+    }
+
+    /**
+     * Count the bits in a run of bits which are set in one state but not in another
+     * @param states The array holding the state
+     * @param offset The index of the state's first long
+     * @param others The array holding the other state, or null to count every bit set in the state
+     * @param otherOffset The index of the other state's first long
+     * @param bit The position of the first bit
+     * @param bits The number of bits in the run
+     * @return The number of bits set only in the state
+     */
+    private static int countOnlyIn(long[] states, int offset, long[] others, int otherOffset, int bit, int bits) {
+        int count = 0;
+        for (int end = bit + bits; bit < end; bit += Long.SIZE - bit % Long.SIZE) {
+            int run = Math.min(Long.SIZE - bit % Long.SIZE, end - bit);
+            long word = states[offset + bit / Long.SIZE];
+            if (others != null) {
+                word &= ~others[otherOffset + bit / Long.SIZE];
+            }
+            count += Long.bitCount(word >>> (bit % Long.SIZE) & mask(run));
+        }
+
+        return count;
+    }
+
+    /**
+     * Clear a run of bits of a state
+     * @param state The state, starting at index 0
+     * @param bit The position of the first bit
+     * @param bits The number of bits in the run
+     */
+    private static void clearBits(long[] state, int bit, int bits) {
+        for (int end = bit + bits; bit < end; bit += Long.SIZE - bit % Long.SIZE) {
+            int run = Math.min(Long.SIZE - bit % Long.SIZE, end - bit);
+            state[bit / Long.SIZE] &= ~(mask(run) << (bit % Long.SIZE));
+        }
+    }
+
+    /**
+     * Get a mask of the lowest bits of a long
+     * @param bits The number of bits, up to 64
+     * @return The mask
+     */
+    private static long mask(int bits) {
+        return bits == Long.SIZE ? -1L : (1L << bits) - 1;
+    }
+
+    /**
+     * Set a single bit of a state
+     * @param state The state, starting at index 0
+     * @param bit The position of the bit
+     */
+    private static void setBit(long[] state, int bit) {
+        state[bit / Long.SIZE] |= 1L << (bit % Long.SIZE);
+    }
+}
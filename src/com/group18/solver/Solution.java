@@ -0,0 +1,140 @@
+package com.group18.solver;
+
+import com.group18.model.Direction;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of solving a level: whether the goal can be reached, a list of moves reaching it
+ * and how much work it took to find out.
+ *
+ * @author agent
+ */
+public class Solution {
+
+    /**
+     * The list of moves reaching the goal, or null if none was found
+     */
+    private final List<Direction> moves;
+
+    /**
+     * True if every reachable state was explored, or the goal was found
+     */
+    private final boolean complete;
+
+    /**
+     * True if the moves found are known to be the fewest possible
+     */
+    private final boolean shortest;
+
+    /**
+     * The number of distinct states explored
+     */
+    private final int statesExplored;
+
+    /**
+     * The number of states the solver could explore before giving up
+     */
+    private final int stateLimit;
+
+    /**
+     * How long solving took, in milliseconds
+     */
+    private final long elapsedMillis;
+
+    /**
+     * Creates a new solution
+     * @param moves The list of moves reaching the goal, or null if none was found
+     * @param complete True if every reachable state was explored, or the goal was found
+     * @param shortest True if the moves found are known to be the fewest possible
+     * @param statesExplored The number of distinct states explored
+     * @param stateLimit The number of states the solver could explore before giving up
+     * @param elapsedMillis How long solving took, in milliseconds
+     */
+    Solution(List<Direction> moves, boolean complete, boolean shortest, int statesExplored, int stateLimit,
+             long elapsedMillis) {
+        this.moves = moves;
+        this.complete = complete;
+        this.shortest = shortest;
+        this.statesExplored = statesExplored;
+        this.stateLimit = stateLimit;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Check if the goal can be reached
+     * @return Boolean value suggesting if the level can be solved
+     */
+    public boolean isSolvable() {
+        return moves != null;
+    }
+
+    /**
+     * Check if the solver finished. If it ran out of states to explore before finding the goal,
+     * the level may or may not be solvable.
+     * @return Boolean value suggesting if the result is certain
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Check if the moves found are known to be the fewest possible
+     * @return Boolean value suggesting if the solution is the shortest
+     */
+    public boolean isShortest() {
+        return shortest;
+    }
+
+    /**
+     * Get the list of moves reaching the goal
+     * @return The moves, or an empty list if the level was not solved
+     */
+    public List<Direction> getMoves() {
+        return moves == null ? Collections.<Direction>emptyList() : moves;
+    }
+
+    /**
+     * Get the number of distinct states explored
+     * @return The number of states
+     */
+    public int getStatesExplored() {
+        return statesExplored;
+    }
+
+    /**
+     * Get the number of states the solver could explore before giving up. This can be lower than
+     * the limit the solver was given, when each state takes up too much memory to store that many.
+     * @return The state limit
+     */
+    public int getStateLimit() {
+        return stateLimit;
+    }
+
+    /**
+     * Get how long solving took
+     * @return The time taken, in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * A short report of this solution
+     * @return The report
+     */
+    @Override
+    public String toString() {
+        String result;
+        if (isSolvable()) {
+            result = "solvable in " + moves.size() + (shortest ? " moves" : " moves, which may not be the fewest");
+        } else if (complete) {
+            result = "not solvable";
+        } else {
+            result = String.format("unknown, the limit of %d states was reached", stateLimit);
+        }
+
+        return String.format("%s (%d states explored in %d ms)", result, statesExplored, elapsedMillis);
+    }
+}
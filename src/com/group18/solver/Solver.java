@@ -0,0 +1,301 @@
+package com.group18.solver;
+
+import com.group18.core.LevelLoader;
+import com.group18.model.Direction;
+import com.group18.model.Level;
+import com.group18.model.entity.User;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Finds the fewest moves needed to reach a level's goal, by an A* search over every puzzle state
+ * the user can be in. Each state's distance to the goal is estimated by the fewest moves needed with
+ * every door open, which is never too high, so the first solution found is always the shortest.
+ * States are queued in a bucket for each estimated total number of moves, split into a layer for
+ * each number of moves made. The deepest layer of a bucket is expanded first, so among states that
+ * look equally good, those nearest the goal are tried first. Up to MAX_FRONTIER states of a layer
+ * are expanded together across the fork-join pool, and the states they reach are expanded before
+ * the rest of the layer, so the search heads straight for the goal while many routes to it look as
+ * good. A state is dropped when another state on the same cell, reached in no more moves, could do
+ * anything it could, such as one holding more keys after the same doors.
+ *
+ * Enemies are ignored, so a level found to be unsolvable can never be completed, while a solvable
+ * level could still need the user to avoid its enemies.
+ *
+ * @author agent
+ */
+public class Solver {
+
+    /**
+     * The most states expanded together, before the states they reach are expanded
+     */
+    private static final int MAX_FRONTIER = 4 * ExpansionTask.CHUNK_SIZE;
+
+    /**
+     * The number of states explored before the solver gives up, unless another limit is given
+     */
+    public static final int DEFAULT_STATE_LIMIT = 10_000_000;
+
+    /**
+     * The most longs the set of seen states may hold, keeping it within a few hundred megabytes. On
+     * levels whose states take up many longs, this lowers the state limit, which the solution reports.
+     */
+    private static final int MAX_STORED_WORDS = 1 << 25;
+
+    /**
+     * The number of states explored before the solver gives up
+     */
+    private final int stateLimit;
+
+    /**
+     * How much more the estimated distance to the goal counts than the moves already made
+     */
+    private final int weight;
+
+    /**
+     * Creates a new solver with the default state limit, which finds the shortest solution
+     */
+    public Solver() {
+        this(DEFAULT_STATE_LIMIT, 1);
+    }
+
+    /**
+     * Creates a new solver. With a weight of 1 the shortest solution is always found. A higher weight
+     * heads for the goal more greedily, which is much faster on huge levels, but the solution found
+     * may be longer than needed. Whether a level can be solved at all is never affected.
+     * @param stateLimit The number of states explored before the solver gives up
+     * @param weight How much more the estimated distance to the goal counts than the moves already made
+     */
+    public Solver(int stateLimit, int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("The weight of the estimate must be at least 1");
+        }
+        this.stateLimit = stateLimit;
+        this.weight = weight;
+    }
+
+    /**
+     * Solve a level, starting with an empty inventory
+     * @param level The level to be solved
+     * @param start The position the user starts at
+     * @return The solution
+     */
+    public Solution solve(Level level, Point start) {
+        long startTime = System.currentTimeMillis();
+        PuzzleMap map = new PuzzleMap(level, start);
+        int[] goalDistances = map.goalDistances();
+        int words = map.getWords();
+        int limit = Math.min(stateLimit, MAX_STORED_WORDS / words);
+
+        long[] initial = map.initialState();
+        int startDistance = goalDistances[map.positionOf(initial, 0)];
+        if (startDistance == PuzzleMap.UNREACHABLE) {
+            return new Solution(null, true, weight == 1, 1, limit, System.currentTimeMillis() - startTime);
+        }
+
+        StateSet seen = new StateSet(words);
+        DominanceFilter filter = new DominanceFilter(map);
+        seen.add(initial, 0, -1, (byte) -1, 0);
+        filter.keep(0, seen);
+        List<List<IntList>> buckets = new ArrayList<>();
+        addToBucket(buckets, weight * startDistance, 0, 0);
+
+        int goal = -1;
+        boolean limitReached = false;
+        int estimate = weight * startDistance;
+        while (goal < 0 && !limitReached) {
+            IntList layer = null;
+            while (estimate < buckets.size() && (layer = deepestLayer(buckets.get(estimate))) == null) {
+                estimate++;
+            }
+            if (layer == null) {
+                break;
+            }
+
+            int frontierSize = Math.min(layer.size(), MAX_FRONTIER);
+            int[] frontier = layer.removeLast(MAX_FRONTIER);
+
+            // Drop states since reached in fewer moves, which now wait in another layer, and
+            // states since dominated
+            int kept = 0;
+            for (int i = 0; i < frontierSize && goal < 0; i++) {
+                int index = frontier[i];
+                int offset = index * words;
+                int distance = goalDistances[map.positionOf(seen.getStates(), offset)];
+                if (seen.getDepth(index) + weight * distance != estimate || filter.isDominated(index)) {
+                    continue;
+                }
+
+                if (map.isGoal(seen.getStates(), offset)) {
+                    goal = index;
+                }
+                frontier[kept++] = index;
+            }
+            if (goal >= 0) {
+                break;
+            }
+
+            SuccessorBuffer[] buffers = expand(map, seen, frontier, kept);
+            for (int chunk = 0; chunk < buffers.length && !limitReached; chunk++) {
+                limitReached = addSuccessors(buffers[chunk], map, goalDistances, seen, filter, buckets, limit, weight);
+            }
+
+            // With a weight above 1 a move can lower the estimate, by at most one less than the weight
+            estimate = Math.max(0, estimate - (weight - 1));
+        }
+
+        long elapsed = System.currentTimeMillis() - startTime;
+        if (goal < 0) {
+            return new Solution(null, !limitReached, weight == 1, seen.size(), limit, elapsed);
+        }
+
+        return new Solution(tracePath(seen, goal), true, weight == 1, seen.size(), limit, elapsed);
+    }
+
+    /**
+     * Find every state reached in one move from the frontier, splitting the work across
+     * the fork-join pool when the frontier has more than one chunk
+     * @param map The board the states are on
+     * @param seen The set of seen states
+     * @param frontier The index of each state in the frontier
+     * @param frontierSize The number of states in the frontier
+     * @return The buffer of reached states for each chunk of the frontier
+     */
+    private static SuccessorBuffer[] expand(PuzzleMap map, StateSet seen, int[] frontier, int frontierSize) {
+        int chunks = (frontierSize + ExpansionTask.CHUNK_SIZE - 1) / ExpansionTask.CHUNK_SIZE;
+        SuccessorBuffer[] buffers = new SuccessorBuffer[chunks];
+        ExpansionTask task = new ExpansionTask(map, seen.getStates(), frontier, frontierSize, buffers, 0, chunks);
+
+        if (chunks == 1) {
+            task.compute();
+        } else if (chunks > 1) {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+
+        return buffers;
+    }
+
+    /**
+     * Add the states in a buffer to the set of seen states, queueing each new or improved state
+     * in the bucket of its estimated total number of moves, unless it's dominated
+     * @param buffer The buffer of reached states
+     * @param map The board the states are on
+     * @param goalDistances The relaxed number of moves from each cell to the goal
+     * @param seen The set of seen states
+     * @param filter The filter dropping dominated states
+     * @param buckets The queue of states, by their estimated total number of moves then their depth
+     * @param limit The number of states explored before giving up
+     * @param weight How much more the estimated distance to the goal counts than the moves already made
+     * @return Boolean value suggesting if the state limit has been reached
+     */
+    private static boolean addSuccessors(SuccessorBuffer buffer, PuzzleMap map, int[] goalDistances,
+                                         StateSet seen, DominanceFilter filter, List<List<IntList>> buckets,
+                                         int limit, int weight) {
+        int words = map.getWords();
+
+        for (int i = 0; i < buffer.size(); i++) {
+            int distance = goalDistances[map.positionOf(buffer.getStates(), i * words)];
+            if (distance == PuzzleMap.UNREACHABLE) {
+                continue;
+            }
+
+            int depth = seen.getDepth(buffer.getParent(i)) + 1;
+            if (filter.isDominated(buffer.getStates(), i * words, depth, seen)) {
+                continue;
+            }
+
+            int index = seen.add(buffer.getStates(), i * words, buffer.getParent(i), buffer.getMove(i), depth);
+            if (index >= 0) {
+                filter.keep(index, seen);
+                addToBucket(buckets, depth + weight * distance, depth, index);
+            }
+
+            if (seen.size() >= limit) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Queue a state in a bucket, creating the bucket and layer if needed
+     * @param buckets The queue of states, by their estimated total number of moves then their depth
+     * @param estimate The estimated total number of moves of the state
+     * @param depth The number of moves the state was reached in
+     * @param index The index of the state
+     */
+    private static void addToBucket(List<List<IntList>> buckets, int estimate, int depth, int index) {
+        while (buckets.size() <= estimate) {
+            buckets.add(new ArrayList<>());
+        }
+
+        List<IntList> layers = buckets.get(estimate);
+        while (layers.size() <= depth) {
+            layers.add(new IntList());
+        }
+        layers.get(depth).add(index);
+    }
+
+    /**
+     * Find the deepest layer of a bucket holding any states, dropping the empty layers after it
+     * @param layers The layers of the bucket, by depth
+     * @return The deepest layer with states, or null if the bucket is empty
+     */
+    private static IntList deepestLayer(List<IntList> layers) {
+        for (int depth = layers.size() - 1; depth >= 0; depth--) {
+            if (layers.get(depth).size() > 0) {
+                return layers.get(depth);
+            }
+            layers.remove(depth);
+        }
+
+        return null;
+    }
+
+    /**
+     * Follow the moves back from the goal to the starting state
+     * @param seen The set of seen states
+     * @param goal The index of the state that reached the goal
+     * @return The moves from the starting state to the goal
+     */
+    private static List<Direction> tracePath(StateSet seen, int goal) {
+        Direction[] directions = Direction.values();
+        List<Direction> moves = new ArrayList<>();
+
+        for (int index = goal; seen.getParent(index) >= 0; index = seen.getParent(index)) {
+            moves.add(directions[seen.getMove(index)]);
+        }
+
+        Collections.reverse(moves);
+        return moves;
+    }
+
+    /**
+     * Solve each level file given, printing a report of each one. Giving --weight=N before the
+     * files solves them with that weight, rather than finding the shortest solutions.
+     * @param args The level files to be solved
+     */
+    public static void main(String[] args) {
+        Solver solver = new Solver();
+        for (String arg : args) {
+            if (arg.startsWith("--weight=")) {
+                solver = new Solver(DEFAULT_STATE_LIMIT, Integer.parseInt(arg.substring("--weight=".length())));
+                continue;
+            }
+
+            User user = new User("solver");
+            Level level = LevelLoader.loadLevelFile(arg, user.getHighestLevel(), user);
+            if (level == null) {
+                continue;
+            }
+
+            Solution solution = solver.solve(level, user.getCurrentCell().getPosition());
+            System.out.println(arg + ": " + solution);
+        }
+    }
+}
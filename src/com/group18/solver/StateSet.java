@@ -0,0 +1,212 @@
+package com.group18.solver;
+
+import java.util.Arrays;
+
+/**
+ * A hash set of packed puzzle states, which also remembers the fewest moves each state has been
+ * reached in, and the state and move it was reached from. States are stored one after another in
+ * a single array of longs, and the hash table uses open addressing over an array of ints, so no
+ * object is created for each state.
+ *
+ * @author agent
+ */
+final class StateSet {
+
+    /**
+     * The number of longs in each state
+     */
+    private final int words;
+
+    /**
+     * Every state in the set, in the order they were added
+     */
+    private long[] states;
+
+    /**
+     * The index of the state each state was reached from, or -1 for the starting state
+     */
+    private int[] parents;
+
+    /**
+     * The direction moved in to reach each state
+     */
+    private byte[] moves;
+
+    /**
+     * The fewest moves each state has been reached in
+     */
+    private int[] depths;
+
+    /**
+     * The number of states in the set
+     */
+    private int size;
+
+    /**
+     * The hash table, holding the index of a state plus one, or 0 if the slot is empty
+     */
+    private int[] table;
+
+    /**
+     * Creates a new, empty set of states
+     * @param words The number of longs in each state
+     */
+    StateSet(int words) {
+        this.words = words;
+        this.states = new long[1024 * words];
+        this.parents = new int[1024];
+        this.moves = new byte[1024];
+        this.depths = new int[1024];
+        this.table = new int[2048];
+    }
+
+    /**
+     * Get the number of states in the set
+     * @return The number of states
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the array every state is stored in. State i starts at index i * words.
+     * @return The array of states
+     */
+    long[] getStates() {
+        return states;
+    }
+
+    /**
+     * Get the state a state was reached from
+     * @param index The index of the state
+     * @return The index of its parent state, or -1 for the starting state
+     */
+    int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * Get the fewest moves a state has been reached in
+     * @param index The index of the state
+     * @return The number of moves
+     */
+    int getDepth(int index) {
+        return depths[index];
+    }
+
+    /**
+     * Get the direction moved in to reach a state
+     * @param index The index of the state
+     * @return The ordinal of the direction
+     */
+    byte getMove(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Add a state to the set, or record a shorter way of reaching a state already in it
+     * @param source The array holding the state
+     * @param offset The index of the state's first long
+     * @param parent The index of the state it was reached from
+     * @param move The ordinal of the direction moved in to reach it
+     * @param depth The number of moves it was reached in
+     * @return The index of the state if it is new or has been reached in fewer moves, otherwise -1
+     */
+    int add(long[] source, int offset, int parent, byte move, int depth) {
+        int mask = table.length - 1;
+        int slot = hash(source, offset) & mask;
+
+        while (table[slot] != 0) {
+            int index = table[slot] - 1;
+            if (matches(index, source, offset)) {
+                if (depth >= depths[index]) {
+                    return -1;
+                }
+
+                parents[index] = parent;
+                moves[index] = move;
+                depths[index] = depth;
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == parents.length) {
+            grow();
+        }
+
+        int index = size++;
+        System.arraycopy(source, offset, states, index * words, words);
+        parents[index] = parent;
+        moves[index] = move;
+        depths[index] = depth;
+        table[slot] = index + 1;
+
+        if (size * 2 > table.length) {
+            rehash();
+        }
+
+        return index;
+    }
+
+    /**
+     * Check if a stored state is the same as another
+     * @param index The index of the stored state
+     * @param source The array holding the other state
+     * @param offset The index of the other state's first long
+     * @return Boolean value suggesting if both states are the same
+     */
+    private boolean matches(int index, long[] source, int offset) {
+        int start = index * words;
+        for (int i = 0; i < words; i++) {
+            if (states[start + i] != source[offset + i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Grow the arrays holding the states
+     */
+    private void grow() {
+        int capacity = parents.length * 2;
+        states = Arrays.copyOf(states, capacity * words);
+        parents = Arrays.copyOf(parents, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+    }
+
+    /**
+     * Double the size of the hash table, placing every state again
+     */
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+
+        for (int index = 0; index < size; index++) {
+            int slot = hash(states, index * words) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+    }
+
+    /**
+     * Hash a state, mixing every long so states differing in any bit are spread out
+     * @param source The array holding the state
+     * @param offset The index of the state's first long
+     * @return The hash of the state
+     */
+    private int hash(long[] source, int offset) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < words; i++) {
+            hash = (hash ^ source[offset + i]) * 0xBF58476D1CE4E5B9L;
+            hash ^= hash >>> 31;
+        }
+
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,102 @@
+package com.group18.solver;
+
+import java.util.Arrays;
+
+/**
+ * The states reached from one chunk of the frontier, waiting to be added to the set of seen states
+ *
+ * @author agent
+ */
+final class SuccessorBuffer {
+
+    /**
+     * The number of longs in each state
+     */
+    private final int words;
+
+    /**
+     * The reached states, one after another
+     */
+    private long[] states;
+
+    /**
+     * The index of the state each state was reached from
+     */
+    private int[] parents;
+
+    /**
+     * The direction moved in to reach each state
+     */
+    private byte[] moves;
+
+    /**
+     * The number of states in this buffer
+     */
+    private int size;
+
+    /**
+     * Creates a new, empty buffer
+     * @param words The number of longs in each state
+     * @param capacity The number of states the buffer can hold before it needs to grow
+     */
+    SuccessorBuffer(int words, int capacity) {
+        this.words = words;
+        this.states = new long[capacity * words];
+        this.parents = new int[capacity];
+        this.moves = new byte[capacity];
+    }
+
+    /**
+     * Add a reached state to this buffer
+     * @param state The state, starting at index 0
+     * @param parent The index of the state it was reached from
+     * @param move The ordinal of the direction moved in
+     */
+    void add(long[] state, int parent, byte move) {
+        if (size == parents.length) {
+            int capacity = parents.length * 2;
+            states = Arrays.copyOf(states, capacity * words);
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+        }
+
+        System.arraycopy(state, 0, states, size * words, words);
+        parents[size] = parent;
+        moves[size] = move;
+        size++;
+    }
+
+    /**
+     * Get the number of states in this buffer
+     * @return The number of states
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Get the array the states are stored in. State i starts at index i * words.
+     * @return The array of states
+     */
+    long[] getStates() {
+        return states;
+    }
+
+    /**
+     * Get the state a buffered state was reached from
+     * @param index The index of the state in this buffer
+     * @return The index of its parent in the set of seen states
+     */
+    int getParent(int index) {
+        return parents[index];
+    }
+
+    /**
+     * Get the direction moved in to reach a buffered state
+     * @param index The index of the state in this buffer
+     * @return The ordinal of the direction
+     */
+    byte getMove(int index) {
+        return moves[index];
+    }
+}
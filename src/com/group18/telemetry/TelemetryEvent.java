@@ -0,0 +1,34 @@
+package com.group18.telemetry;
+
+/**
+ * The kinds of event recorded in the telemetry log. Each record's detail depends on its kind.
+ *
+ * @author agent
+ */
+public enum TelemetryEvent {
+
+    /**
+     * The user moved on to a cell, with the number of moves made so far this game as the detail
+     */
+    MOVE,
+
+    /**
+     * The user picked up an item from a cell, with the item's CellCodes code as the detail
+     */
+    PICKUP,
+
+    /**
+     * The user opened a door, with no detail
+     */
+    DOOR_OPENED,
+
+    /**
+     * The user died on a cell, with the milliseconds the level had been played for as the detail
+     */
+    DEATH,
+
+    /**
+     * The user won the level on a cell, with the milliseconds the level took as the detail
+     */
+    WIN
+}
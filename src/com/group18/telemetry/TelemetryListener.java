@@ -0,0 +1,115 @@
+package com.group18.telemetry;
+
+import com.group18.model.Level;
+import com.group18.model.LevelListener;
+import com.group18.model.board.CellCodes;
+import com.group18.model.cell.Cell;
+import com.group18.model.entity.Entity;
+import com.group18.model.entity.User;
+import com.group18.model.item.Collectable;
+
+import java.awt.Point;
+
+/**
+ * Records the events of a game being played to a telemetry log. Moves, pickups and doors opening
+ * are heard from the level, while deaths and wins are recorded by whoever ends the game, as only
+ * they know how long it took.
+ *
+ * @author agent
+ */
+public class TelemetryListener implements LevelListener {
+
+    /**
+     * The log events are recorded to
+     */
+    private final TelemetryLog log;
+
+    /**
+     * The user playing the level
+     */
+    private final User user;
+
+    /**
+     * The level number being played
+     */
+    private final int levelNumber;
+
+    /**
+     * The number of moves the user has made this game
+     */
+    private int moves;
+
+    /**
+     * Creates a new listener, and starts listening to a level
+     * @param log The log events are recorded to
+     * @param level The level being played
+     * @param user The user playing the level
+     */
+    public TelemetryListener(TelemetryLog log, Level level, User user) {
+        this.log = log;
+        this.user = user;
+        this.levelNumber = level.getCurrentLevel();
+
+        level.addListener(this);
+    }
+
+    /**
+     * Record the user moving on to a cell
+     * @param entity The user or enemy that moved
+     * @param from The position it moved from
+     * @param to The position it moved to
+     */
+    @Override
+    public void entityMoved(Entity entity, Point from, Point to) {
+        if (entity == user) {
+            log.record(TelemetryEvent.MOVE, levelNumber, to.x, to.y, ++moves);
+        }
+    }
+
+    /**
+     * Record the user picking up an item
+     * @param point The position of the cell the item was collected from
+     * @param item The item that was collected
+     */
+    @Override
+    public void itemCollected(Point point, Collectable item) {
+        log.record(TelemetryEvent.PICKUP, levelNumber, point.x, point.y, CellCodes.encodeItem(item));
+    }
+
+    /**
+     * Record the user opening a door
+     * @param point The position of the door
+     */
+    @Override
+    public void doorOpened(Point point) {
+        log.record(TelemetryEvent.DOOR_OPENED, levelNumber, point.x, point.y, 0);
+    }
+
+    /**
+     * Record the user dying on the cell they're on
+     * @param playedMillis The milliseconds the level had been played for
+     */
+    public void died(long playedMillis) {
+        recordOnUserCell(TelemetryEvent.DEATH, playedMillis);
+    }
+
+    /**
+     * Record the user winning the level on the cell they're on
+     * @param finishMillis The milliseconds the level took
+     */
+    public void won(long finishMillis) {
+        recordOnUserCell(TelemetryEvent.WIN, finishMillis);
+    }
+
+    /**
+     * Record an event on the cell the user is on, or at -1, -1 if they aren't on one
+     * @param event The kind of event
+     * @param detail The detail of the event
+     */
+    private void recordOnUserCell(TelemetryEvent event, long detail) {
+        Cell cell = user.getCurrentCell();
+        Point point = cell == null ? new Point(-1, -1) : cell.getPosition();
+
+        log.record(event, levelNumber, point.x, point.y, detail);
+    }
+}
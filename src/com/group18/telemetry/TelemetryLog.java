@@ -0,0 +1,414 @@
+package com.group18.telemetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * An append-only log of gameplay events, such as where users die and how long levels take. The
+ * game thread records events into a ring buffer without locking or touching the disk, and a
+ * background thread appends them to the log's files as fixed size records. A file is only ever
+ * appended to, and once it's full the log rolls on to a new one. Only the newest files are kept, so
+ * the log never takes up more than a set amount of disk. The writer thread does all of the file
+ * handling, including creating the directory, so opening a log never touches the disk.
+ *
+ * The ring buffer has a single producer, the thread recording events, and a single consumer, the
+ * writer thread, so each only needs to publish its own position. An event recorded while the
+ * buffer is full is dropped rather than waiting for the writer.
+ *
+ * @author agent
+ */
+public class TelemetryLog implements AutoCloseable {
+
+    /**
+     * The directory which will hold all telemetry files
+     */
+    public static final String TELEMETRY_DIRECTORY = "./src/resources/telemetry/";
+
+    /**
+     * The number of events the ring buffer holds if no other capacity is given
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    /**
+     * The size a file grows to before the log rolls on to a new one, if no other size is given
+     */
+    public static final long DEFAULT_MAX_FILE_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * The number of files kept in the directory if no other number is given, oldest deleted first
+     */
+    public static final int DEFAULT_MAX_FILES = 16;
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("TelemetryLog");
+
+    /**
+     * The number of longs each event takes up in the ring buffer
+     */
+    private static final int SLOT_LONGS = TelemetryRecord.SIZE / Long.BYTES;
+
+    /**
+     * The most events the writer appends to a file at once
+     */
+    private static final int WRITE_BATCH = 256;
+
+    /**
+     * How long the writer waits before checking for new events, once it has written them all
+     */
+    private static final long IDLE_NANOS = 10_000_000;
+
+    /**
+     * The log the game records its events to, opened the first time it's needed
+     */
+    private static TelemetryLog shared;
+
+    /**
+     * The events waiting to be written, SLOT_LONGS longs each
+     */
+    private final long[] ring;
+
+    /**
+     * The number of events the ring buffer holds, less one, to find an event's slot
+     */
+    private final int mask;
+
+    /**
+     * The number of events recorded, published by the recording thread once each is in its slot
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * The number of events written, published by the writer once each has been copied out
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The number of events dropped because the ring buffer was full
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The recording thread's last look at the tail, so it only reads the writer's position when
+     * the buffer seems full
+     */
+    private long cachedTail;
+
+    /**
+     * The directory the log's files are written to
+     */
+    private final Path directory;
+
+    /**
+     * The size a file grows to before the log rolls on to a new one
+     */
+    private final long maxFileBytes;
+
+    /**
+     * The number of files kept in the directory, counting the one being appended to
+     */
+    private final int maxFiles;
+
+    /**
+     * The time the log was opened, which starts the name of each of its files
+     */
+    private final long openedAt = System.currentTimeMillis();
+
+    /**
+     * The thread which appends events to the files
+     */
+    private final Thread writer;
+
+    /**
+     * The file being appended to, or null if the files can no longer be written
+     */
+    private FileChannel file;
+
+    /**
+     * The number of files the log has opened so far
+     */
+    private int files;
+
+    /**
+     * The number of bytes appended to the current file
+     */
+    private long fileBytes;
+
+    /**
+     * Whether the log has been closed, so the writer finishes once the buffer is empty
+     */
+    private volatile boolean closed;
+
+    /**
+     * Opens a new log in a directory and starts its writer, which creates the directory if needed
+     * @param directory The directory the log's files are written to
+     * @param capacity The number of events the ring buffer holds, a power of two
+     * @param maxFileBytes The size a file grows to before the log rolls on to a new one
+     * @param maxFiles The number of files kept in the directory, oldest deleted first
+     * @throws IllegalArgumentException If the capacity isn't a power of two, a file couldn't
+     *                                  hold a single record, or no files would be kept
+     */
+    public TelemetryLog(String directory, int capacity, long maxFileBytes, int maxFiles) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The capacity must be a power of two");
+        }
+        if (maxFileBytes < TelemetryRecord.SIZE) {
+            throw new IllegalArgumentException("A file must be able to hold at least one record");
+        }
+        if (maxFiles < 1) {
+            throw new IllegalArgumentException("At least one file must be kept");
+        }
+
+        this.ring = new long[capacity * SLOT_LONGS];
+        this.mask = capacity - 1;
+        this.directory = Paths.get(directory);
+        this.maxFileBytes = maxFileBytes - maxFileBytes % TelemetryRecord.SIZE;
+        this.maxFiles = maxFiles;
+
+        this.writer = new Thread(this::write, "telemetry-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Get the log the game records its events to, opening it in the telemetry directory the first
+     * time. The log is closed when the game exits, so every event recorded is written.
+     * @return The log
+     */
+    public static synchronized TelemetryLog getShared() {
+        if (shared == null) {
+            shared = new TelemetryLog(TELEMETRY_DIRECTORY, DEFAULT_CAPACITY, DEFAULT_MAX_FILE_BYTES,
+                    DEFAULT_MAX_FILES);
+            Runtime.getRuntime().addShutdownHook(new Thread(shared::close, "telemetry-shutdown"));
+        }
+
+        return shared;
+    }
+
+    /**
+     * Record an event. This never waits, so it can be called from the game thread, but it must
+     * only ever be called from one thread at a time.
+     * @param event The kind of event
+     * @param level The level number the event happened on
+     * @param x The x of the cell the event happened on
+     * @param y The y of the cell the event happened on
+     * @param detail The detail of the event, which depends on its kind
+     * @return False if the event was dropped, as the buffer was full or the log is closed
+     */
+    public boolean record(TelemetryEvent event, int level, int x, int y, long detail) {
+        long next = head.get();
+
+        if (next - cachedTail > mask) {
+            cachedTail = tail.get();
+        }
+        if (next - cachedTail > mask || closed) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        int slot = (int) (next & mask) * SLOT_LONGS;
+        ring[slot] = System.currentTimeMillis();
+        ring[slot + 1] = (long) event.ordinal() << Integer.SIZE | (level & 0xFFFFFFFFL);
+        ring[slot + 2] = (long) x << Integer.SIZE | (y & 0xFFFFFFFFL);
+        ring[slot + 3] = detail;
+        head.lazySet(next + 1);
+        return true;
+    }
+
+    /**
+     * Get the number of events dropped because the buffer was full or the log was closed
+     * @return The number of events dropped
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Close the log, waiting for the writer to append every event already recorded
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Append events to the files as they're recorded, until the log is closed and every event
+     * has been written
+     */
+    private void write() {
+        ByteBuffer batch = ByteBuffer.allocate(WRITE_BATCH * TelemetryRecord.SIZE);
+
+        try {
+            Files.createDirectories(directory);
+            roll();
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "The telemetry log could not be opened, so no events will be written", ex);
+            closeFile();
+        }
+
+        while (true) {
+            // Checked before draining, so an event recorded just before closing is still written
+            boolean finished = closed;
+
+            if (drain(batch) > 0) {
+                append(batch);
+            } else if (finished) {
+                break;
+            } else {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+        }
+
+        closeFile();
+    }
+
+    /**
+     * Copy the next batch of events out of the ring buffer, freeing their slots
+     * @param batch The buffer the events are copied into, which is cleared first
+     * @return The number of events copied
+     */
+    private int drain(ByteBuffer batch) {
+        long first = tail.get();
+        int events = (int) Math.min(head.get() - first, WRITE_BATCH);
+
+        batch.clear();
+        for (int i = 0; i < events; i++) {
+            int slot = (int) ((first + i) & mask) * SLOT_LONGS;
+            for (int j = 0; j < SLOT_LONGS; j++) {
+                batch.putLong(ring[slot + j]);
+            }
+        }
+        batch.flip();
+
+        tail.lazySet(first + events);
+        return events;
+    }
+
+    /**
+     * Append a batch of events to the current file, rolling on to a new file once it's full. If
+     * the files can't be written, the events are dropped rather than stopping the game.
+     * @param batch The events
+     */
+    private void append(ByteBuffer batch) {
+        try {
+            while (batch.hasRemaining() && file != null) {
+                if (fileBytes == maxFileBytes) {
+                    roll();
+                }
+
+                int limit = batch.limit();
+                batch.limit(batch.position() + (int) Math.min(batch.remaining(), maxFileBytes - fileBytes));
+                while (batch.hasRemaining()) {
+                    fileBytes += file.write(batch);
+                }
+                batch.limit(limit);
+            }
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "The telemetry log could not be written, so no more events will be", ex);
+            closeFile();
+        }
+
+        if (file == null) {
+            dropped.addAndGet(batch.remaining() / TelemetryRecord.SIZE);
+        }
+    }
+
+    /**
+     * Close the current file, if there is one, open a new one, then delete the oldest files until
+     * no more than the number kept are left
+     * @throws IOException If the new file can't be created
+     */
+    private void roll() throws IOException {
+        closeFile();
+
+        Path next = directory.resolve(String.format("telemetry-%d-%d.bin", openedAt, files++));
+        file = FileChannel.open(next, StandardOpenOption.CREATE_NEW, StandardOpenOption.APPEND);
+        fileBytes = 0;
+
+        deleteOldFiles();
+    }
+
+    /**
+     * Delete the oldest files in the directory, from this log or any before it, until no more than
+     * the number kept are left. A file that can't be deleted is left for the next roll to try again.
+     * @throws IOException If the directory can't be listed
+     */
+    private void deleteOldFiles() throws IOException {
+        List<Path> written = listFiles(directory);
+
+        for (int i = 0; i < written.size() - maxFiles; i++) {
+            try {
+                Files.deleteIfExists(written.get(i));
+            } catch (IOException ex) {
+                LOGGER.log(WARNING, "An old telemetry file could not be deleted", ex);
+            }
+        }
+    }
+
+    /**
+     * List the files of every telemetry log in a directory, in the order they were written
+     * @param directory The directory
+     * @return The files, oldest first
+     * @throws IOException If the directory can't be listed
+     */
+    static List<Path> listFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "telemetry-*.bin")) {
+            stream.forEach(files::add);
+        }
+        files.sort((a, b) -> compareFileNames(a.getFileName().toString(), b.getFileName().toString()));
+
+        return files;
+    }
+
+    /**
+     * Compare the names of two telemetry files by the time their log was opened, then their number
+     * @param a The first file name
+     * @param b The second file name
+     * @return Negative, zero or positive as the first file was written before, with or after the second
+     */
+    private static int compareFileNames(String a, String b) {
+        String[] first = a.substring(0, a.lastIndexOf('.')).split("-");
+        String[] second = b.substring(0, b.lastIndexOf('.')).split("-");
+
+        int compared = Long.compare(Long.parseLong(first[1]), Long.parseLong(second[1]));
+        return compared != 0 ? compared : Integer.compare(Integer.parseInt(first[2]), Integer.parseInt(second[2]));
+    }
+
+    /**
+     * Close the current file, if there is one
+     */
+    private void closeFile() {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            file.close();
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "A telemetry file could not be closed", ex);
+        }
+        file = null;
+    }
+}
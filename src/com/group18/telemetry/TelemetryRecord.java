@@ -0,0 +1,131 @@
+package com.group18.telemetry;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single event read back from the telemetry log. Every record takes up the same number of bytes
+ * in a log file: the time in milliseconds since the epoch, the event's ordinal, the level number,
+ * the x and y of the cell, then the detail.
+ *
+ * @author agent
+ */
+public class TelemetryRecord {
+
+    /**
+     * The number of bytes each record takes up in a log file
+     */
+    public static final int SIZE = 32;
+
+    /**
+     * The time the event happened, in milliseconds since the epoch
+     */
+    private final long time;
+
+    /**
+     * The kind of event
+     */
+    private final TelemetryEvent event;
+
+    /**
+     * The level number the event happened on
+     */
+    private final int level;
+
+    /**
+     * The x of the cell the event happened on
+     */
+    private final int x;
+
+    /**
+     * The y of the cell the event happened on
+     */
+    private final int y;
+
+    /**
+     * The detail of the event, which depends on its kind
+     */
+    private final long detail;
+
+    /**
+     * Creates a new record
+     * @param time The time the event happened, in milliseconds since the epoch
+     * @param event The kind of event
+     * @param level The level number the event happened on
+     * @param x The x of the cell the event happened on
+     * @param y The y of the cell the event happened on
+     * @param detail The detail of the event
+     */
+    public TelemetryRecord(long time, TelemetryEvent event, int level, int x, int y, long detail) {
+        this.time = time;
+        this.event = event;
+        this.level = level;
+        this.x = x;
+        this.y = y;
+        this.detail = detail;
+    }
+
+    /**
+     * Read a record from a buffer
+     * @param in The buffer, with at least SIZE bytes remaining
+     * @return The record
+     * @throws IllegalArgumentException If the record's event is unknown
+     */
+    public static TelemetryRecord read(ByteBuffer in) {
+        long time = in.getLong();
+        int event = in.getInt();
+        if (event < 0 || event >= TelemetryEvent.values().length) {
+            throw new IllegalArgumentException("Unknown telemetry event " + event);
+        }
+
+        return new TelemetryRecord(time, TelemetryEvent.values()[event], in.getInt(), in.getInt(),
+                in.getInt(), in.getLong());
+    }
+
+    /**
+     * Get the time the event happened
+     * @return The time in milliseconds since the epoch
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Get the kind of event
+     * @return The kind of event
+     */
+    public TelemetryEvent getEvent() {
+        return event;
+    }
+
+    /**
+     * Get the level number the event happened on
+     * @return The level number
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the x of the cell the event happened on
+     * @return The x of the cell
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * Get the y of the cell the event happened on
+     * @return The y of the cell
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Get the detail of the event
+     * @return The detail, which depends on the kind of event
+     */
+    public long getDetail() {
+        return detail;
+    }
+}
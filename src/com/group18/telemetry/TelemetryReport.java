@@ -0,0 +1,93 @@
+package com.group18.telemetry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import static java.util.logging.Level.WARNING;
+
+/**
+ * Summarises a telemetry log, showing the cells users die on most and how long each level takes.
+ * Run with the directory of the log, which defaults to the telemetry directory.
+ *
+ * @author agent
+ */
+public class TelemetryReport {
+
+    /**
+     * Used to log out important errors/messages to the console
+     */
+    private static final Logger LOGGER = Logger.getLogger("TelemetryReport");
+
+    /**
+     * The number of cells shown for each level, where the most users died
+     */
+    private static final int DEADLIEST_CELLS = 5;
+
+    /**
+     * Print a summary of a telemetry log
+     * @param args The directory of the log
+     */
+    public static void main(String[] args) {
+        String directory = args.length > 0 ? args[0] : TelemetryLog.TELEMETRY_DIRECTORY;
+        Map<Integer, Map<String, Integer>> deaths = new TreeMap<>();
+        Map<Integer, List<Long>> wins = new TreeMap<>();
+
+        try {
+            readAll(Paths.get(directory), record -> {
+                if (record.getEvent() == TelemetryEvent.DEATH) {
+                    String cell = record.getX() + "," + record.getY();
+                    deaths.computeIfAbsent(record.getLevel(), level -> new HashMap<>()).merge(cell, 1, Integer::sum);
+                } else if (record.getEvent() == TelemetryEvent.WIN) {
+                    wins.computeIfAbsent(record.getLevel(), level -> new ArrayList<>()).add(record.getDetail());
+                }
+            });
+        } catch (IOException ex) {
+            LOGGER.log(WARNING, "The telemetry log could not be read: " + directory, ex);
+            return;
+        }
+
+        for (Map.Entry<Integer, Map<String, Integer>> level : deaths.entrySet()) {
+            StringBuilder deadliest = new StringBuilder();
+            level.getValue().entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(DEADLIEST_CELLS)
+                    .forEach(cell -> deadliest.append(String.format(" (%s) %d", cell.getKey(), cell.getValue())));
+
+            int total = level.getValue().values().stream().mapToInt(Integer::intValue).sum();
+            System.out.println(String.format("Level %d: %d deaths, most at%s", level.getKey(), total, deadliest));
+        }
+
+        for (Map.Entry<Integer, List<Long>> level : wins.entrySet()) {
+            List<Long> times = level.getValue();
+            System.out.println(String.format("Level %d: %d wins, %.1f seconds on average, %.1f at best",
+                    level.getKey(), times.size(),
+                    times.stream().mapToLong(Long::longValue).average().orElse(0) / 1000,
+                    times.stream().mapToLong(Long::longValue).min().orElse(0) / 1000.0));
+        }
+    }
+
+    /**
+     * Read every record in a telemetry log, file by file in the order they were written
+     * @param directory The directory of the log
+     * @param records Given each record in turn
+     * @throws IOException If a file can't be read
+     */
+    public static void readAll(Path directory, Consumer<TelemetryRecord> records) throws IOException {
+        for (Path file : TelemetryLog.listFiles(directory)) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+            while (in.remaining() >= TelemetryRecord.SIZE) {
+                records.accept(TelemetryRecord.read(in));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.group18.viewmodel;
+
+import com.group18.core.ResourceRepository;
+import com.group18.model.item.Collectable;
+import com.group18.model.item.ElementItem;
+import com.group18.model.item.Key;
+import javafx.scene.Group;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view model linking the slots of the inventory bar to a user's inventory. Rather than
+ * rebuilding the bar each time, it compares the inventory to the items already on display
+ * and only adds or removes the slots that have changed.
+ *
+ * @author agent
+ */
+public class InventoryViewModel {
+
+    /**
+     * The width of each slot in the inventory bar
+     */
+    private static final int SLOT_WIDTH = 64;
+
+    /**
+     * The group holding the image view of each slot
+     */
+    private final Group slots;
+
+    /**
+     * The items currently being displayed, in the same order as their slots
+     */
+    private final List<Collectable> displayedItems;
+
+    /**
+     * Creates a new, empty inventory view model
+     */
+    public InventoryViewModel() {
+        this.slots = new Group();
+        this.displayedItems = new ArrayList<>();
+    }
+
+    /**
+     * Get the group holding the slots of this inventory bar
+     * @return The group of slots
+     */
+    public Group getSlots() {
+        return slots;
+    }
+
+    /**
+     * Update the displayed slots so they match the user's current inventory
+     * @param inventory The user's current inventory
+     */
+    public void update(List<Collectable> inventory) {
+        int unchanged = 0;
+        while (unchanged < inventory.size() && unchanged < displayedItems.size()
+                && inventory.get(unchanged) == displayedItems.get(unchanged)) {
+            unchanged++;
+        }
+
+        // A single item, such as a key used on a door, has been removed from the inventory
+        if (inventory.size() == displayedItems.size() - 1 && isRemovedAt(unchanged, inventory)) {
+            removeSlot(unchanged);
+            return;
+        }
+
+        // Otherwise, drop every slot that no longer matches and append the new items
+        while (displayedItems.size() > unchanged) {
+            removeSlot(displayedItems.size() - 1);
+        }
+
+        for (int i = unchanged; i < inventory.size(); i++) {
+            addSlot(inventory.get(i));
+        }
+    }
+
+    /**
+     * Check if the inventory matches the displayed items, once the item at a specific slot is removed
+     * @param slot The slot of the potentially removed item
+     * @param inventory The user's current inventory
+     * @return Boolean value suggesting if only the item at that slot was removed
+     */
+    private boolean isRemovedAt(int slot, List<Collectable> inventory) {
+        for (int i = slot; i < inventory.size(); i++) {
+            if (inventory.get(i) != displayedItems.get(i + 1)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Add a new slot to the end of the inventory bar
+     * @param item The item to be displayed in the slot
+     */
+    private void addSlot(Collectable item) {
+        ImageView itemImage = new ImageView(ResourceRepository.getImage(getResourceName(item)));
+        itemImage.setX(displayedItems.size() * SLOT_WIDTH);
+        itemImage.setY(0);
+
+        displayedItems.add(item);
+        slots.getChildren().add(itemImage);
+    }
+
+    /**
+     * Remove a slot from the inventory bar, shifting any slots after it along
+     * @param slot The slot to be removed
+     */
+    private void removeSlot(int slot) {
+        displayedItems.remove(slot);
+        slots.getChildren().remove(slot);
+
+        List<Node> images = slots.getChildren();
+        for (int i = slot; i < images.size(); i++) {
+            ((ImageView) images.get(i)).setX(i * SLOT_WIDTH);
+        }
+    }
+
+    /**
+     * Get the name of the image resource used to display an item
+     * @param item The item
+     * @return The resource name of the item
+     */
+    private static String getResourceName(Collectable item) {
+        if (item instanceof ElementItem) {
+            switch ((ElementItem) item) {
+                case ICE_SKATES:
+                    return "IceSkates";
+                case FLIPPERS:
+                    return "Flippers";
+                case FIRE_BOOTS:
+                    return "FireBoots";
+                default:
+                    break;
+            }
+        } else {
+            switch ((Key) item) {
+                case YELLOW_KEY:
+                    return "Key-Yellow";
+                case GREEN_KEY:
+                    return "Key-Green";
+                case BLUE_KEY:
+                    return "Key-Blue";
+                case RED_KEY:
+                    return "Key-Red";
+                default:
+                    break;
+            }
+        }
+
+        return "Token";
+    }
+}
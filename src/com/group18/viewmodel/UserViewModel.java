@@ -2,7 +2,6 @@ package com.group18.viewmodel;
 
 import com.group18.core.ResourceRepository;
 import com.group18.model.entity.User;
-import javafx.scene.image.Image;
 
 /**
  * The user View Model, acting as a bridge between the User object and what needs to be
@@ -22,7 +21,7 @@ public class UserViewModel extends ViewModel {
      * @param user The user object
      */
     public UserViewModel(User user) {
-        super(new Image(ResourceRepository.getResource("User-Idle")));
+        super(ResourceRepository.getUserSpriteSheet().getAtlas());
         this.user = user;
     }
 